@@ -41,6 +41,7 @@ import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TCompactProtocol;
 import org.apache.thrift.protocol.TMultiplexedProtocol;
 import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TSaslClientTransport;
 import org.apache.thrift.transport.TSocket;
 import org.apache.thrift.transport.TTransport;
@@ -128,6 +129,11 @@ public class SentryHDFSServiceClientDefaultImpl implements SentryHDFSServiceClie
         conf.get(ClientConfig.SECURITY_MODE, ClientConfig.SECURITY_MODE_KERBEROS).trim());
     transport = new TSocket(serverAddress.getHostName(),
         serverAddress.getPort(), connectionTimeout);
+    if (conf.getBoolean(ClientConfig.SERVER_RPC_FRAMED_TRANSPORT,
+        ClientConfig.SERVER_RPC_FRAMED_TRANSPORT_DEFAULT)) {
+      transport = new TFramedTransport(transport, conf.getInt(
+          ClientConfig.SERVER_RPC_MAX_FRAME_SIZE, ClientConfig.SERVER_RPC_MAX_FRAME_SIZE_DEFAULT));
+    }
     if (kerberos) {
       String serverPrincipal = Preconditions.checkNotNull(
           conf.get(ClientConfig.PRINCIPAL), ClientConfig.PRINCIPAL + " is required");
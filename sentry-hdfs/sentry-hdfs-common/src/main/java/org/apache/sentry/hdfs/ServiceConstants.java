@@ -60,6 +60,19 @@ public class ServiceConstants {
     public static int SENTRY_HDFS_SYNC_METASTORE_CACHE_MAX_PART_PER_RPC_DEFAULT = 100;
     public static String SENTRY_HDFS_SYNC_METASTORE_CACHE_MAX_TABLES_PER_RPC = "sentry.hdfs.sync.metastore.cache.max-tables-per-rpc";
     public static int SENTRY_HDFS_SYNC_METASTORE_CACHE_MAX_TABLES_PER_RPC_DEFAULT = 100;
+
+    // Keep the permission deltas in the Sentry store so that NameNodes can
+    // resume incrementally across Sentry restarts
+    public static final String SENTRY_HDFS_PERM_CHANGE_LOG_ENABLED = "sentry.hdfs.perm.change.log.enabled";
+    public static final boolean SENTRY_HDFS_PERM_CHANGE_LOG_ENABLED_DEFAULT = false;
+    // Number of deltas kept by the compaction of the permission change log
+    public static final String SENTRY_HDFS_PERM_CHANGE_LOG_MAX_ENTRIES = "sentry.hdfs.perm.change.log.max.entries";
+    public static final long SENTRY_HDFS_PERM_CHANGE_LOG_MAX_ENTRIES_DEFAULT = 100000;
+    // Deltas older than this are dropped by the compaction
+    public static final String SENTRY_HDFS_PERM_CHANGE_LOG_RETENTION_MS = "sentry.hdfs.perm.change.log.retention.ms";
+    public static final long SENTRY_HDFS_PERM_CHANGE_LOG_RETENTION_MS_DEFAULT = 24 * 60 * 60 * 1000L;
+    public static final String SENTRY_HDFS_PERM_CHANGE_LOG_COMPACTION_INTERVAL_MS = "sentry.hdfs.perm.change.log.compaction.interval.ms";
+    public static final long SENTRY_HDFS_PERM_CHANGE_LOG_COMPACTION_INTERVAL_MS_DEFAULT = 10 * 60 * 1000L;
   }
 
   public static class ClientConfig {
@@ -80,6 +93,11 @@ public class ServiceConstants {
     public static final int SERVER_RPC_CONN_TIMEOUT_DEFAULT = 200000;
     public static final String USE_COMPACT_TRANSPORT = "sentry.hdfs.service.client.compact.transport";
     public static final boolean USE_COMPACT_TRANSPORT_DEFAULT = false;
+    // required to talk to a Sentry server of the selector type
+    public static final String SERVER_RPC_FRAMED_TRANSPORT = "sentry.hdfs.service.client.server.rpc-framed-transport";
+    public static final boolean SERVER_RPC_FRAMED_TRANSPORT_DEFAULT = false;
+    public static final String SERVER_RPC_MAX_FRAME_SIZE = "sentry.hdfs.service.client.server.rpc-max-frame-size";
+    public static final int SERVER_RPC_MAX_FRAME_SIZE_DEFAULT = 256 * 1024 * 1024;
   }
 
 }
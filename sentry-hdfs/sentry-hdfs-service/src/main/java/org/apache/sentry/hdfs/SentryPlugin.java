@@ -18,10 +18,16 @@
 
 package org.apache.sentry.hdfs;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hadoop.conf.Configuration;
@@ -38,10 +44,12 @@ import org.apache.sentry.provider.db.service.thrift.TAlterSentryRoleAddGroupsReq
 import org.apache.sentry.provider.db.service.thrift.TAlterSentryRoleDeleteGroupsRequest;
 import org.apache.sentry.provider.db.service.thrift.TAlterSentryRoleGrantPrivilegeRequest;
 import org.apache.sentry.provider.db.service.thrift.TAlterSentryRoleRevokePrivilegeRequest;
+import org.apache.sentry.provider.db.service.thrift.TDropOrRenamePrivilegesRequest;
 import org.apache.sentry.provider.db.service.thrift.TDropPrivilegesRequest;
 import org.apache.sentry.provider.db.service.thrift.TDropSentryRoleRequest;
 import org.apache.sentry.provider.db.service.thrift.TRenamePrivilegesRequest;
 import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizable;
+import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizableChange;
 import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
 import org.apache.sentry.provider.db.service.thrift.TSentryPrivilege;
 import org.slf4j.Logger;
@@ -49,6 +57,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class SentryPlugin implements SentryPolicyStorePlugin {
 
@@ -66,23 +75,37 @@ public class SentryPlugin implements SentryPolicyStorePlugin {
 
     @Override
     public PermissionsUpdate retrieveFullImage(long currSeqNum) {
-      Map<String, HashMap<String, String>> privilegeImage = sentryStore.retrieveFullPrivilegeImage();
-      Map<String, LinkedList<String>> roleImage = sentryStore.retrieveFullRoleImage();
-
-      TPermissionsUpdate tPermUpdate = new TPermissionsUpdate(true, currSeqNum,
+      final TPermissionsUpdate tPermUpdate = new TPermissionsUpdate(true, currSeqNum,
           new HashMap<String, TPrivilegeChanges>(),
           new HashMap<String, TRoleChanges>());
-      for (Map.Entry<String, HashMap<String, String>> privEnt : privilegeImage.entrySet()) {
-        String authzObj = privEnt.getKey();
-        HashMap<String,String> privs = privEnt.getValue();
-        tPermUpdate.putToPrivilegeChanges(authzObj, new TPrivilegeChanges(
-            authzObj, privs, new HashMap<String, String>()));
-      }
-      for (Map.Entry<String, LinkedList<String>> privEnt : roleImage.entrySet()) {
-        String role = privEnt.getKey();
-        LinkedList<String> groups = privEnt.getValue();
-        tPermUpdate.putToRoleChanges(role, new TRoleChanges(role, groups, new LinkedList<String>()));
-      }
+      // Build the update as the rows come in rather than from an
+      // intermediate copy of the whole image
+      sentryStore.streamFullPrivilegeImage(new SentryStore.PrivilegeImageHandler() {
+        @Override
+        public void onPrivilege(String authzObj, String roleName, String action) {
+          TPrivilegeChanges privChanges = tPermUpdate.getPrivilegeChanges().get(authzObj);
+          if (privChanges == null) {
+            privChanges = new TPrivilegeChanges(authzObj,
+                new HashMap<String, String>(), new HashMap<String, String>());
+            tPermUpdate.putToPrivilegeChanges(authzObj, privChanges);
+          }
+          String existingPriv = privChanges.getAddPrivileges().get(roleName);
+          privChanges.putToAddPrivileges(roleName,
+              existingPriv == null ? action : existingPriv + "," + action);
+        }
+      });
+      sentryStore.streamFullRoleImage(new SentryStore.RoleImageHandler() {
+        @Override
+        public void onRoleGroup(String roleName, String groupName) {
+          TRoleChanges roleChanges = tPermUpdate.getRoleChanges().get(roleName);
+          if (roleChanges == null) {
+            roleChanges = new TRoleChanges(roleName,
+                new LinkedList<String>(), new LinkedList<String>());
+            tPermUpdate.putToRoleChanges(roleName, roleChanges);
+          }
+          roleChanges.addToAddGroups(groupName);
+        }
+      });
       PermissionsUpdate permissionsUpdate = new PermissionsUpdate(tPermUpdate);
       permissionsUpdate.setSeqNum(currSeqNum);
       return permissionsUpdate;
@@ -90,12 +113,78 @@ public class SentryPlugin implements SentryPolicyStorePlugin {
 
   }
 
+  /**
+   * Serializes the permission deltas of the store updates into the
+   * permission change log of the store.
+   */
+  private class PermChangeSerializer implements SentryStore.PermChangeRecorder {
+
+    @Override
+    public byte[] onAlterSentryRoleAddGroups(String roleName, Set<TSentryGroup> groups) {
+      return serialize(createAddGroupsUpdate(roleName, groups));
+    }
+
+    @Override
+    public byte[] onAlterSentryRoleDeleteGroups(String roleName, Set<TSentryGroup> groups) {
+      return serialize(createDeleteGroupsUpdate(roleName, groups));
+    }
+
+    @Override
+    public byte[] onAlterSentryRoleGrantPrivilege(String roleName, TSentryPrivilege privilege) {
+      return serialize(createGrantPrivilegeUpdate(roleName, privilege));
+    }
+
+    @Override
+    public byte[] onAlterSentryRoleRevokePrivilege(String roleName, TSentryPrivilege privilege) {
+      return serialize(createRevokePrivilegeUpdate(roleName, privilege));
+    }
+
+    @Override
+    public byte[] onDropSentryRole(String roleName) {
+      return serialize(createDropRoleUpdate(roleName));
+    }
+
+    @Override
+    public byte[] onRenameSentryPrivilege(TSentryAuthorizable oldAuthorizable,
+        TSentryAuthorizable newAuthorizable) {
+      return serialize(createRenamePrivilegeUpdate(oldAuthorizable, newAuthorizable));
+    }
+
+    @Override
+    public byte[] onDropSentryPrivilege(TSentryAuthorizable authorizable) {
+      return serialize(createDropPrivilegeUpdate(authorizable));
+    }
+
+    @Override
+    public byte[] onDropSentryPrivileges(List<TSentryAuthorizable> authorizables) {
+      return serialize(createDropPrivilegesUpdate(authorizables));
+    }
+
+    private byte[] serialize(PermissionsUpdate update) {
+      if (update == null) {
+        return null;
+      }
+      try {
+        return update.serialize();
+      } catch (IOException e) {
+        throw new RuntimeException("Error serializing permission update", e);
+      }
+    }
+  }
+
   private UpdateForwarder<PathsUpdate> pathsUpdater;
   private UpdateForwarder<PermissionsUpdate> permsUpdater;
   private final AtomicLong permSeqNum = new AtomicLong(5);
   private PermImageRetriever permImageRetriever;
   private boolean outOfSync = false;
 
+  // With the permission change log enabled the updates are read back from
+  // the store, and their change ids are used as sequence numbers
+  private SentryStore sentryStore;
+  private boolean permChangeLogEnabled = false;
+  private long lastForwardedChangeID = 0;
+  private ScheduledExecutorService permChangeLogCompactor;
+
   long getLastSeenHMSPathSeqNum() {
     return pathsUpdater.getLastSeen();
   }
@@ -109,24 +198,153 @@ public class SentryPlugin implements SentryPolicyStorePlugin {
         conf.getInt(ServerConfig.SENTRY_HDFS_INIT_UPDATE_RETRY_DELAY_MS,
             ServerConfig.SENTRY_HDFS_INIT_UPDATE_RETRY_DELAY_DEFAULT);
     permImageRetriever = new PermImageRetriever(sentryStore);
+    permChangeLogEnabled = conf.getBoolean(ServerConfig.SENTRY_HDFS_PERM_CHANGE_LOG_ENABLED,
+        ServerConfig.SENTRY_HDFS_PERM_CHANGE_LOG_ENABLED_DEFAULT);
+    if (permChangeLogEnabled) {
+      // read before the initial image, so that changes committed meanwhile
+      // are forwarded again rather than missed
+      lastForwardedChangeID = sentryStore.getLastPermChangeID();
+    }
 
     pathsUpdater = UpdateForwarder.create(conf, new UpdateableAuthzPaths(
         pathPrefixes), new PathsUpdate(0, false), null, 100, initUpdateRetryDelayMs);
     permsUpdater = UpdateForwarder.create(conf,
         new UpdateablePermissions(permImageRetriever), new PermissionsUpdate(0, false),
         permImageRetriever, 100, initUpdateRetryDelayMs);
+    if (permChangeLogEnabled) {
+      this.sentryStore = sentryStore;
+      // the change ids carry on across restarts, and so do the seq nums of
+      // the NameNodes which are current
+      permsUpdater.setInitialSeqNum(lastForwardedChangeID);
+      sentryStore.setPermChangeRecorder(new PermChangeSerializer());
+      startPermChangeLogCompactor(conf, sentryStore);
+    }
     LOGGER.info("Sentry HDFS plugin initialized !!");
     instance = this;
   }
 
+  private void startPermChangeLogCompactor(Configuration conf, final SentryStore sentryStore) {
+    final long maxEntries = conf.getLong(ServerConfig.SENTRY_HDFS_PERM_CHANGE_LOG_MAX_ENTRIES,
+        ServerConfig.SENTRY_HDFS_PERM_CHANGE_LOG_MAX_ENTRIES_DEFAULT);
+    final long retentionMs = conf.getLong(ServerConfig.SENTRY_HDFS_PERM_CHANGE_LOG_RETENTION_MS,
+        ServerConfig.SENTRY_HDFS_PERM_CHANGE_LOG_RETENTION_MS_DEFAULT);
+    long intervalMs = conf.getLong(ServerConfig.SENTRY_HDFS_PERM_CHANGE_LOG_COMPACTION_INTERVAL_MS,
+        ServerConfig.SENTRY_HDFS_PERM_CHANGE_LOG_COMPACTION_INTERVAL_MS_DEFAULT);
+    permChangeLogCompactor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("sentry-perm-change-log-compactor").build());
+    permChangeLogCompactor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          long purged = sentryStore.purgePermChanges(maxEntries, retentionMs);
+          LOGGER.debug("Purged " + purged + " entries of the permission change log");
+        } catch (Exception e) {
+          LOGGER.warn("Error compacting the permission change log", e);
+        }
+      }
+    }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+  }
+
   public List<PathsUpdate> getAllPathsUpdatesFrom(long pathSeqNum) {
     return pathsUpdater.getAllUpdatesFrom(pathSeqNum);
   }
 
   public List<PermissionsUpdate> getAllPermsUpdatesFrom(long permSeqNum) {
+    if (permChangeLogEnabled) {
+      List<PermissionsUpdate> updates = getLoggedPermsUpdatesFrom(permSeqNum);
+      if (updates != null) {
+        return updates;
+      }
+    }
     return permsUpdater.getAllUpdatesFrom(permSeqNum);
   }
 
+  /**
+   * Serves the updates from the permission change log when it still holds
+   * every update since the requested one, so a NameNode which is behind the
+   * in memory update log, or asks a restarted server, does not need a full
+   * image.
+   *
+   * @return null when the log cannot serve the request
+   */
+  private List<PermissionsUpdate> getLoggedPermsUpdatesFrom(long permSeqNum) {
+    long lastChangeID;
+    SortedMap<Long, byte[]> permChanges;
+    try {
+      // read first, a change committed in between is then in permChanges
+      lastChangeID = sentryStore.getLastPermChangeID();
+      permChanges = sentryStore.getPermChangesFrom(permSeqNum);
+    } catch (Exception e) {
+      LOGGER.warn("Error reading the permission change log", e);
+      return null;
+    }
+    if (permChanges.isEmpty()) {
+      // nothing new for a NameNode which is current; one which is ahead of
+      // the log gets a full image
+      return permSeqNum == lastChangeID + 1
+          ? new LinkedList<PermissionsUpdate>() : null;
+    }
+    if (permChanges.firstKey() != permSeqNum) {
+      // older than the oldest entry the log still holds
+      return null;
+    }
+    List<PermissionsUpdate> updates = Lists.newArrayListWithCapacity(permChanges.size());
+    try {
+      for (Map.Entry<Long, byte[]> permChange : permChanges.entrySet()) {
+        updates.add(toPermissionsUpdate(permChange.getKey(), permChange.getValue()));
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Error reading the permission change log", e);
+      return null;
+    }
+    return updates;
+  }
+
+  /**
+   * Hands the updates committed since the last call to the forwarder, in
+   * change id order.
+   */
+  private synchronized void forwardLoggedPermChanges() throws SentryPluginException {
+    SortedMap<Long, byte[]> permChanges =
+        sentryStore.getPermChangesFrom(lastForwardedChangeID + 1);
+    for (Map.Entry<Long, byte[]> permChange : permChanges.entrySet()) {
+      PermissionsUpdate update;
+      try {
+        update = toPermissionsUpdate(permChange.getKey(), permChange.getValue());
+      } catch (IOException e) {
+        throw new SentryPluginException("Error reading permission change "
+            + permChange.getKey(), e);
+      }
+      permsUpdater.handleUpdateNotification(update);
+      lastForwardedChangeID = permChange.getKey();
+      LOGGER.debug("Authz Perm preUpdate [" + update.getSeqNum() + "]..");
+    }
+  }
+
+  private static PermissionsUpdate toPermissionsUpdate(long changeID, byte[] permChange)
+      throws IOException {
+    PermissionsUpdate update = new PermissionsUpdate();
+    update.deserialize(permChange);
+    update.setSeqNum(changeID);
+    return update;
+  }
+
+  /**
+   * Forwards the update built from a plugin notification. With the
+   * permission change log enabled the update is already in the log, and is
+   * read back from it instead.
+   */
+  private void forwardPermsUpdate(PermissionsUpdate update) throws SentryPluginException {
+    if (permChangeLogEnabled) {
+      forwardLoggedPermChanges();
+    } else if (update != null) {
+      update.setSeqNum(permSeqNum.incrementAndGet());
+      permsUpdater.handleUpdateNotification(update);
+      LOGGER.debug("Authz Perm preUpdate [" + update.getSeqNum() + "]..");
+    }
+  }
+
   public void handlePathUpdateNotification(PathsUpdate update)
       throws SentryPluginException {
     pathsUpdater.handleUpdateNotification(update);
@@ -136,77 +354,47 @@ public class SentryPlugin implements SentryPolicyStorePlugin {
   @Override
   public void onAlterSentryRoleAddGroups(
       TAlterSentryRoleAddGroupsRequest request) throws SentryPluginException {
-    PermissionsUpdate update = new PermissionsUpdate(permSeqNum.incrementAndGet(), false);
-    TRoleChanges rUpdate = update.addRoleUpdate(request.getRoleName());
-    for (TSentryGroup group : request.getGroups()) {
-      rUpdate.addToAddGroups(group.getGroupName());
-    }
-    permsUpdater.handleUpdateNotification(update);
-    LOGGER.debug("Authz Perm preUpdate [" + update.getSeqNum() + ", " + request.getRoleName() + "]..");
+    forwardPermsUpdate(createAddGroupsUpdate(request.getRoleName(), request.getGroups()));
   }
 
   @Override
   public void onAlterSentryRoleDeleteGroups(
       TAlterSentryRoleDeleteGroupsRequest request)
           throws SentryPluginException {
-    PermissionsUpdate update = new PermissionsUpdate(permSeqNum.incrementAndGet(), false);
-    TRoleChanges rUpdate = update.addRoleUpdate(request.getRoleName());
-    for (TSentryGroup group : request.getGroups()) {
-      rUpdate.addToDelGroups(group.getGroupName());
-    }
-    permsUpdater.handleUpdateNotification(update);
-    LOGGER.debug("Authz Perm preUpdate [" + update.getSeqNum() + ", " + request.getRoleName() + "]..");
+    forwardPermsUpdate(createDeleteGroupsUpdate(request.getRoleName(), request.getGroups()));
   }
 
   @Override
   public void onAlterSentryRoleGrantPrivilege(
       TAlterSentryRoleGrantPrivilegeRequest request)
           throws SentryPluginException {
-    if (request.isSetPrivileges()) {
+    if (permChangeLogEnabled) {
+      forwardLoggedPermChanges();
+    } else if (request.isSetPrivileges()) {
       String roleName = request.getRoleName();
       for (TSentryPrivilege privilege : request.getPrivileges()) {
-        if(!("COLUMN".equalsIgnoreCase(privilege.getPrivilegeScope()))) {
-          onAlterSentryRoleGrantPrivilegeCore(roleName, privilege);
-        }
+        forwardPermsUpdate(createGrantPrivilegeUpdate(roleName, privilege));
       }
     }
   }
 
-  private void onAlterSentryRoleGrantPrivilegeCore(String roleName, TSentryPrivilege privilege)
-      throws SentryPluginException {
-    String authzObj = getAuthzObj(privilege);
-    if (authzObj != null) {
-      PermissionsUpdate update = new PermissionsUpdate(permSeqNum.incrementAndGet(), false);
-      update.addPrivilegeUpdate(authzObj).putToAddPrivileges(
-          roleName, privilege.getAction().toUpperCase());
-      permsUpdater.handleUpdateNotification(update);
-      LOGGER.debug("Authz Perm preUpdate [" + update.getSeqNum() + "]..");
-    }
-  }
-
   @Override
   public void onRenameSentryPrivilege(TRenamePrivilegesRequest request)
       throws SentryPluginException {
-    String oldAuthz = getAuthzObj(request.getOldAuthorizable());
-    String newAuthz = getAuthzObj(request.getNewAuthorizable());
-    PermissionsUpdate update = new PermissionsUpdate(permSeqNum.incrementAndGet(), false);
-    TPrivilegeChanges privUpdate = update.addPrivilegeUpdate(PermissionsUpdate.RENAME_PRIVS);
-    privUpdate.putToAddPrivileges(newAuthz, newAuthz);
-    privUpdate.putToDelPrivileges(oldAuthz, oldAuthz);
-    permsUpdater.handleUpdateNotification(update);
-    LOGGER.debug("Authz Perm preUpdate [" + update.getSeqNum() + ", " + newAuthz + ", " + oldAuthz + "]..");
+    forwardPermsUpdate(createRenamePrivilegeUpdate(request.getOldAuthorizable(),
+        request.getNewAuthorizable()));
   }
 
   @Override
   public void onAlterSentryRoleRevokePrivilege(
       TAlterSentryRoleRevokePrivilegeRequest request)
           throws SentryPluginException {
-    if (request.isSetPrivileges()) {
+    if (permChangeLogEnabled) {
+      forwardLoggedPermChanges();
+    } else if (request.isSetPrivileges()) {
       String roleName = request.getRoleName();
       for (TSentryPrivilege privilege : request.getPrivileges()) {
-        if(!("COLUMN".equalsIgnoreCase(privilege.getPrivilegeScope()))) {
-          onAlterSentryRoleRevokePrivilegeCore(roleName, privilege);
-        }
+        forwardPermsUpdate(createRevokePrivilegeUpdate(roleName, privilege));
       }
     }
   }
@@ -219,38 +407,124 @@ public class SentryPlugin implements SentryPolicyStorePlugin {
     this.outOfSync = outOfSync;
   }
 
-  private void onAlterSentryRoleRevokePrivilegeCore(String roleName, TSentryPrivilege privilege)
+  @Override
+  public void onDropSentryRole(TDropSentryRoleRequest request)
       throws SentryPluginException {
-    String authzObj = getAuthzObj(privilege);
-    if (authzObj != null) {
-      PermissionsUpdate update = new PermissionsUpdate(permSeqNum.incrementAndGet(), false);
-      update.addPrivilegeUpdate(authzObj).putToDelPrivileges(
-          roleName, privilege.getAction().toUpperCase());
-      permsUpdater.handleUpdateNotification(update);
-      LOGGER.debug("Authz Perm preUpdate [" + update.getSeqNum() + ", " + authzObj + "]..");
-    }
+    forwardPermsUpdate(createDropRoleUpdate(request.getRoleName()));
   }
 
   @Override
-  public void onDropSentryRole(TDropSentryRoleRequest request)
+  public void onDropSentryPrivilege(TDropPrivilegesRequest request)
       throws SentryPluginException {
-    PermissionsUpdate update = new PermissionsUpdate(permSeqNum.incrementAndGet(), false);
-    update.addPrivilegeUpdate(PermissionsUpdate.ALL_AUTHZ_OBJ).putToDelPrivileges(
-        request.getRoleName(), PermissionsUpdate.ALL_AUTHZ_OBJ);
-    update.addRoleUpdate(request.getRoleName()).addToDelGroups(PermissionsUpdate.ALL_GROUPS);
-    permsUpdater.handleUpdateNotification(update);
-    LOGGER.debug("Authz Perm preUpdate [" + update.getSeqNum() + ", " + request.getRoleName() + "]..");
+    forwardPermsUpdate(createDropPrivilegeUpdate(request.getAuthorizable()));
   }
 
+  /**
+   * The drops between two renames go in one update. A rename needs an
+   * update of its own, the NameNodes apply a single rename per update.
+   */
   @Override
-  public void onDropSentryPrivilege(TDropPrivilegesRequest request)
+  public void onDropOrRenameSentryPrivileges(TDropOrRenamePrivilegesRequest request)
       throws SentryPluginException {
-    PermissionsUpdate update = new PermissionsUpdate(permSeqNum.incrementAndGet(), false);
-    String authzObj = getAuthzObj(request.getAuthorizable());
+    if (permChangeLogEnabled) {
+      forwardLoggedPermChanges();
+      return;
+    }
+    List<TSentryAuthorizable> drops = Lists.newArrayList();
+    for (TSentryAuthorizableChange change : request.getChanges()) {
+      if (!change.isSetNewAuthorizable()) {
+        drops.add(change.getAuthorizable());
+        continue;
+      }
+      if (!drops.isEmpty()) {
+        forwardPermsUpdate(createDropPrivilegesUpdate(drops));
+        drops.clear();
+      }
+      forwardPermsUpdate(createRenamePrivilegeUpdate(change.getAuthorizable(),
+          change.getNewAuthorizable()));
+    }
+    if (!drops.isEmpty()) {
+      forwardPermsUpdate(createDropPrivilegesUpdate(drops));
+    }
+  }
+
+  private PermissionsUpdate createAddGroupsUpdate(String roleName, Set<TSentryGroup> groups) {
+    PermissionsUpdate update = new PermissionsUpdate();
+    TRoleChanges rUpdate = update.addRoleUpdate(roleName);
+    for (TSentryGroup group : groups) {
+      rUpdate.addToAddGroups(group.getGroupName());
+    }
+    return update;
+  }
+
+  private PermissionsUpdate createDeleteGroupsUpdate(String roleName, Set<TSentryGroup> groups) {
+    PermissionsUpdate update = new PermissionsUpdate();
+    TRoleChanges rUpdate = update.addRoleUpdate(roleName);
+    for (TSentryGroup group : groups) {
+      rUpdate.addToDelGroups(group.getGroupName());
+    }
+    return update;
+  }
+
+  private PermissionsUpdate createGrantPrivilegeUpdate(String roleName,
+      TSentryPrivilege privilege) {
+    String authzObj = getAuthzObj(privilege);
+    if (authzObj == null || "COLUMN".equalsIgnoreCase(privilege.getPrivilegeScope())) {
+      return null;
+    }
+    PermissionsUpdate update = new PermissionsUpdate();
+    update.addPrivilegeUpdate(authzObj).putToAddPrivileges(
+        roleName, privilege.getAction().toUpperCase());
+    return update;
+  }
+
+  private PermissionsUpdate createRevokePrivilegeUpdate(String roleName,
+      TSentryPrivilege privilege) {
+    String authzObj = getAuthzObj(privilege);
+    if (authzObj == null || "COLUMN".equalsIgnoreCase(privilege.getPrivilegeScope())) {
+      return null;
+    }
+    PermissionsUpdate update = new PermissionsUpdate();
+    update.addPrivilegeUpdate(authzObj).putToDelPrivileges(
+        roleName, privilege.getAction().toUpperCase());
+    return update;
+  }
+
+  private PermissionsUpdate createRenamePrivilegeUpdate(TSentryAuthorizable oldAuthorizable,
+      TSentryAuthorizable newAuthorizable) {
+    String oldAuthz = getAuthzObj(oldAuthorizable);
+    String newAuthz = getAuthzObj(newAuthorizable);
+    PermissionsUpdate update = new PermissionsUpdate();
+    TPrivilegeChanges privUpdate = update.addPrivilegeUpdate(PermissionsUpdate.RENAME_PRIVS);
+    privUpdate.putToAddPrivileges(newAuthz, newAuthz);
+    privUpdate.putToDelPrivileges(oldAuthz, oldAuthz);
+    return update;
+  }
+
+  private PermissionsUpdate createDropRoleUpdate(String roleName) {
+    PermissionsUpdate update = new PermissionsUpdate();
+    update.addPrivilegeUpdate(PermissionsUpdate.ALL_AUTHZ_OBJ).putToDelPrivileges(
+        roleName, PermissionsUpdate.ALL_AUTHZ_OBJ);
+    update.addRoleUpdate(roleName).addToDelGroups(PermissionsUpdate.ALL_GROUPS);
+    return update;
+  }
+
+  private PermissionsUpdate createDropPrivilegeUpdate(TSentryAuthorizable authorizable) {
+    PermissionsUpdate update = new PermissionsUpdate();
+    String authzObj = getAuthzObj(authorizable);
     update.addPrivilegeUpdate(authzObj).putToDelPrivileges(
         PermissionsUpdate.ALL_ROLES, PermissionsUpdate.ALL_ROLES);
-    permsUpdater.handleUpdateNotification(update);
-    LOGGER.debug("Authz Perm preUpdate [" + update.getSeqNum() + ", " + authzObj + "]..");
+    return update;
+  }
+
+  private PermissionsUpdate createDropPrivilegesUpdate(List<TSentryAuthorizable> authorizables) {
+    PermissionsUpdate update = new PermissionsUpdate();
+    for (TSentryAuthorizable authorizable : authorizables) {
+      String authzObj = getAuthzObj(authorizable);
+      update.addPrivilegeUpdate(authzObj).putToDelPrivileges(
+          PermissionsUpdate.ALL_ROLES, PermissionsUpdate.ALL_ROLES);
+    }
+    return update;
   }
 
   private String getAuthzObj(TSentryPrivilege privilege) {
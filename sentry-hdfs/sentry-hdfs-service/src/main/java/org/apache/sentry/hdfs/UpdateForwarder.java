@@ -65,6 +65,9 @@ public class UpdateForwarder<K extends Updateable.Update> implements
   private final ExternalImageRetriever<K> imageRetreiver;
 
   private volatile Updateable<K> updateable;
+  // seq num of the initial full image when the source numbers its updates
+  // itself, INIT_SEQ_NUM until it is known
+  private volatile long initialSeqNum = INIT_SEQ_NUM;
 
   private final ReadWriteLock lock = new ReentrantReadWriteLock();
   protected static final long INIT_SEQ_NUM = -2;
@@ -193,8 +196,33 @@ public class UpdateForwarder<K extends Updateable.Update> implements
     updateHandler.execute(task);
   }
 
+  /**
+   * Numbers the initial full image with seqNum, for a source which numbers
+   * its updates itself and keeps counting across restarts, so that a
+   * downstream cache which is current is not sent a full image again. Has
+   * no effect once updates were handled.
+   */
+  public void setInitialSeqNum(long seqNum) {
+    synchronized (getUpdateLog()) {
+      initialSeqNum = seqNum;
+      if (lastCommittedSeqNum.get() == INIT_SEQ_NUM) {
+        K head = getUpdateLog().peek();
+        if (head != null) {
+          head.setSeqNum(seqNum);
+        }
+        lastCommittedSeqNum.set(seqNum);
+        lastSeenSeqNum.set(seqNum);
+      }
+    }
+  }
+
   protected void appendToUpdateLog(K update) {
     synchronized (getUpdateLog()) {
+      if (update.getSeqNum() == INIT_SEQ_NUM && initialSeqNum != INIT_SEQ_NUM) {
+        // the initial image, retrieved before its seq num was set
+        update.setSeqNum(initialSeqNum);
+        lastSeenSeqNum.set(initialSeqNum);
+      }
       boolean logCompacted = false;
       if (getMaxUpdateLogSize() > 0) {
         if (update.hasFullImage() || (getUpdateLog().size() == getMaxUpdateLogSize())) {
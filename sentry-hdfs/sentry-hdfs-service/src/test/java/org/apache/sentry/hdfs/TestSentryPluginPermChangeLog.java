@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.hdfs;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.service.persistent.SentryStore;
+import org.apache.sentry.provider.db.service.thrift.TAlterSentryRoleAddGroupsRequest;
+import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Restarts the plugin against the permission change log left by the
+ * previous run, and checks what the NameNodes are sent.
+ */
+public class TestSentryPluginPermChangeLog {
+
+  private File dataDir;
+  private Configuration conf;
+  private SentryStore sentryStore;
+
+  @Before
+  public void setup() throws Exception {
+    dataDir = new File(Files.createTempDir(), "sentry_policy_db");
+    conf = new Configuration(false);
+    conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_URL,
+        "jdbc:derby:;databaseName=" + dataDir.getPath() + ";create=true");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_PASS, "dummy");
+    conf.set(ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL, "false");
+    conf.setBoolean(ServiceConstants.ServerConfig.SENTRY_HDFS_PERM_CHANGE_LOG_ENABLED, true);
+  }
+
+  @After
+  public void teardown() {
+    if (sentryStore != null) {
+      sentryStore.stop();
+    }
+    FileUtils.deleteQuietly(dataDir);
+  }
+
+  @Test
+  public void testRestartAgainstExistingLog() throws Exception {
+    sentryStore = new SentryStore(conf);
+    SentryPlugin plugin = newPlugin();
+    sentryStore.createSentryRole("role1");
+    addGroup(plugin, "role1", "group1");
+    addGroup(plugin, "role1", "group2");
+    sentryStore.stop();
+
+    sentryStore = new SentryStore(conf);
+    plugin = newPlugin();
+    // a NameNode which is current is not sent a full image
+    assertTrue(plugin.getAllPermsUpdatesFrom(3).isEmpty());
+
+    // one which is behind is sent the deltas it missed
+    List<PermissionsUpdate> updates = plugin.getAllPermsUpdatesFrom(2);
+    assertEquals(1, updates.size());
+    assertEquals(2, updates.get(0).getSeqNum());
+    assertFalse(updates.get(0).hasFullImage());
+
+    // the change ids carry on from the log
+    addGroup(plugin, "role1", "group3");
+    updates = plugin.getAllPermsUpdatesFrom(3);
+    assertEquals(1, updates.size());
+    assertEquals(3, updates.get(0).getSeqNum());
+    assertFalse(updates.get(0).hasFullImage());
+
+    // one which is ahead of the log is sent the full image, numbered with
+    // the last change id the new run started from
+    updates = plugin.getAllPermsUpdatesFrom(10);
+    assertTrue(updates.get(0).hasFullImage());
+    assertEquals(2, updates.get(0).getSeqNum());
+  }
+
+  private SentryPlugin newPlugin() throws Exception {
+    SentryPlugin plugin = new SentryPlugin();
+    plugin.initialize(conf, sentryStore);
+    return plugin;
+  }
+
+  private void addGroup(SentryPlugin plugin, String roleName, String groupName)
+      throws Exception {
+    Set<TSentryGroup> groups = Sets.newHashSet(new TSentryGroup(groupName));
+    sentryStore.alterSentryRoleAddGroups("admin", roleName, groups);
+    TAlterSentryRoleAddGroupsRequest request = new TAlterSentryRoleAddGroupsRequest();
+    request.setRoleName(roleName);
+    request.setGroups(groups);
+    plugin.onAlterSentryRoleAddGroups(request);
+  }
+}
@@ -53,10 +53,14 @@ public class SentryPolicyService {
 
     public TListSentryPrivilegesForProviderResponse list_sentry_privileges_for_provider(TListSentryPrivilegesForProviderRequest request) throws org.apache.thrift.TException;
 
+    public TCheckSentryPrivilegesResponse check_sentry_privileges(TCheckSentryPrivilegesRequest request) throws org.apache.thrift.TException;
+
     public TDropPrivilegesResponse drop_sentry_privilege(TDropPrivilegesRequest request) throws org.apache.thrift.TException;
 
     public TRenamePrivilegesResponse rename_sentry_privilege(TRenamePrivilegesRequest request) throws org.apache.thrift.TException;
 
+    public TDropOrRenamePrivilegesResponse drop_or_rename_sentry_privileges(TDropOrRenamePrivilegesRequest request) throws org.apache.thrift.TException;
+
     public TListSentryPrivilegesByAuthResponse list_sentry_privileges_by_authorizable(TListSentryPrivilegesByAuthRequest request) throws org.apache.thrift.TException;
 
     public TSentryConfigValueResponse get_sentry_config_value(TSentryConfigValueRequest request) throws org.apache.thrift.TException;
@@ -87,10 +91,14 @@ public class SentryPolicyService {
 
     public void list_sentry_privileges_for_provider(TListSentryPrivilegesForProviderRequest request, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.list_sentry_privileges_for_provider_call> resultHandler) throws org.apache.thrift.TException;
 
+    public void check_sentry_privileges(TCheckSentryPrivilegesRequest request, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.check_sentry_privileges_call> resultHandler) throws org.apache.thrift.TException;
+
     public void drop_sentry_privilege(TDropPrivilegesRequest request, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.drop_sentry_privilege_call> resultHandler) throws org.apache.thrift.TException;
 
     public void rename_sentry_privilege(TRenamePrivilegesRequest request, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.rename_sentry_privilege_call> resultHandler) throws org.apache.thrift.TException;
 
+    public void drop_or_rename_sentry_privileges(TDropOrRenamePrivilegesRequest request, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.drop_or_rename_sentry_privileges_call> resultHandler) throws org.apache.thrift.TException;
+
     public void list_sentry_privileges_by_authorizable(TListSentryPrivilegesByAuthRequest request, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.list_sentry_privileges_by_authorizable_call> resultHandler) throws org.apache.thrift.TException;
 
     public void get_sentry_config_value(TSentryConfigValueRequest request, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.get_sentry_config_value_call> resultHandler) throws org.apache.thrift.TException;
@@ -328,6 +336,29 @@ public class SentryPolicyService {
       throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "list_sentry_privileges_for_provider failed: unknown result");
     }
 
+    public TCheckSentryPrivilegesResponse check_sentry_privileges(TCheckSentryPrivilegesRequest request) throws org.apache.thrift.TException
+    {
+      send_check_sentry_privileges(request);
+      return recv_check_sentry_privileges();
+    }
+
+    public void send_check_sentry_privileges(TCheckSentryPrivilegesRequest request) throws org.apache.thrift.TException
+    {
+      check_sentry_privileges_args args = new check_sentry_privileges_args();
+      args.setRequest(request);
+      sendBase("check_sentry_privileges", args);
+    }
+
+    public TCheckSentryPrivilegesResponse recv_check_sentry_privileges() throws org.apache.thrift.TException
+    {
+      check_sentry_privileges_result result = new check_sentry_privileges_result();
+      receiveBase(result, "check_sentry_privileges");
+      if (result.isSetSuccess()) {
+        return result.success;
+      }
+      throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "check_sentry_privileges failed: unknown result");
+    }
+
     public TDropPrivilegesResponse drop_sentry_privilege(TDropPrivilegesRequest request) throws org.apache.thrift.TException
     {
       send_drop_sentry_privilege(request);
@@ -374,6 +405,29 @@ public class SentryPolicyService {
       throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "rename_sentry_privilege failed: unknown result");
     }
 
+    public TDropOrRenamePrivilegesResponse drop_or_rename_sentry_privileges(TDropOrRenamePrivilegesRequest request) throws org.apache.thrift.TException
+    {
+      send_drop_or_rename_sentry_privileges(request);
+      return recv_drop_or_rename_sentry_privileges();
+    }
+
+    public void send_drop_or_rename_sentry_privileges(TDropOrRenamePrivilegesRequest request) throws org.apache.thrift.TException
+    {
+      drop_or_rename_sentry_privileges_args args = new drop_or_rename_sentry_privileges_args();
+      args.setRequest(request);
+      sendBase("drop_or_rename_sentry_privileges", args);
+    }
+
+    public TDropOrRenamePrivilegesResponse recv_drop_or_rename_sentry_privileges() throws org.apache.thrift.TException
+    {
+      drop_or_rename_sentry_privileges_result result = new drop_or_rename_sentry_privileges_result();
+      receiveBase(result, "drop_or_rename_sentry_privileges");
+      if (result.isSetSuccess()) {
+        return result.success;
+      }
+      throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "drop_or_rename_sentry_privileges failed: unknown result");
+    }
+
     public TListSentryPrivilegesByAuthResponse list_sentry_privileges_by_authorizable(TListSentryPrivilegesByAuthRequest request) throws org.apache.thrift.TException
     {
       send_list_sentry_privileges_by_authorizable(request);
@@ -772,6 +826,38 @@ public class SentryPolicyService {
       }
     }
 
+    public void check_sentry_privileges(TCheckSentryPrivilegesRequest request, org.apache.thrift.async.AsyncMethodCallback<check_sentry_privileges_call> resultHandler) throws org.apache.thrift.TException {
+      checkReady();
+      check_sentry_privileges_call method_call = new check_sentry_privileges_call(request, resultHandler, this, ___protocolFactory, ___transport);
+      this.___currentMethod = method_call;
+      ___manager.call(method_call);
+    }
+
+    public static class check_sentry_privileges_call extends org.apache.thrift.async.TAsyncMethodCall {
+      private TCheckSentryPrivilegesRequest request;
+      public check_sentry_privileges_call(TCheckSentryPrivilegesRequest request, org.apache.thrift.async.AsyncMethodCallback<check_sentry_privileges_call> resultHandler, org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws org.apache.thrift.TException {
+        super(client, protocolFactory, transport, resultHandler, false);
+        this.request = request;
+      }
+
+      public void write_args(org.apache.thrift.protocol.TProtocol prot) throws org.apache.thrift.TException {
+        prot.writeMessageBegin(new org.apache.thrift.protocol.TMessage("check_sentry_privileges", org.apache.thrift.protocol.TMessageType.CALL, 0));
+        check_sentry_privileges_args args = new check_sentry_privileges_args();
+        args.setRequest(request);
+        args.write(prot);
+        prot.writeMessageEnd();
+      }
+
+      public TCheckSentryPrivilegesResponse getResult() throws org.apache.thrift.TException {
+        if (getState() != org.apache.thrift.async.TAsyncMethodCall.State.RESPONSE_READ) {
+          throw new IllegalStateException("Method call not finished!");
+        }
+        org.apache.thrift.transport.TMemoryInputTransport memoryTransport = new org.apache.thrift.transport.TMemoryInputTransport(getFrameBuffer().array());
+        org.apache.thrift.protocol.TProtocol prot = client.getProtocolFactory().getProtocol(memoryTransport);
+        return (new Client(prot)).recv_check_sentry_privileges();
+      }
+    }
+
     public void drop_sentry_privilege(TDropPrivilegesRequest request, org.apache.thrift.async.AsyncMethodCallback<drop_sentry_privilege_call> resultHandler) throws org.apache.thrift.TException {
       checkReady();
       drop_sentry_privilege_call method_call = new drop_sentry_privilege_call(request, resultHandler, this, ___protocolFactory, ___transport);
@@ -836,6 +922,38 @@ public class SentryPolicyService {
       }
     }
 
+    public void drop_or_rename_sentry_privileges(TDropOrRenamePrivilegesRequest request, org.apache.thrift.async.AsyncMethodCallback<drop_or_rename_sentry_privileges_call> resultHandler) throws org.apache.thrift.TException {
+      checkReady();
+      drop_or_rename_sentry_privileges_call method_call = new drop_or_rename_sentry_privileges_call(request, resultHandler, this, ___protocolFactory, ___transport);
+      this.___currentMethod = method_call;
+      ___manager.call(method_call);
+    }
+
+    public static class drop_or_rename_sentry_privileges_call extends org.apache.thrift.async.TAsyncMethodCall {
+      private TDropOrRenamePrivilegesRequest request;
+      public drop_or_rename_sentry_privileges_call(TDropOrRenamePrivilegesRequest request, org.apache.thrift.async.AsyncMethodCallback<drop_or_rename_sentry_privileges_call> resultHandler, org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws org.apache.thrift.TException {
+        super(client, protocolFactory, transport, resultHandler, false);
+        this.request = request;
+      }
+
+      public void write_args(org.apache.thrift.protocol.TProtocol prot) throws org.apache.thrift.TException {
+        prot.writeMessageBegin(new org.apache.thrift.protocol.TMessage("drop_or_rename_sentry_privileges", org.apache.thrift.protocol.TMessageType.CALL, 0));
+        drop_or_rename_sentry_privileges_args args = new drop_or_rename_sentry_privileges_args();
+        args.setRequest(request);
+        args.write(prot);
+        prot.writeMessageEnd();
+      }
+
+      public TDropOrRenamePrivilegesResponse getResult() throws org.apache.thrift.TException {
+        if (getState() != org.apache.thrift.async.TAsyncMethodCall.State.RESPONSE_READ) {
+          throw new IllegalStateException("Method call not finished!");
+        }
+        org.apache.thrift.transport.TMemoryInputTransport memoryTransport = new org.apache.thrift.transport.TMemoryInputTransport(getFrameBuffer().array());
+        org.apache.thrift.protocol.TProtocol prot = client.getProtocolFactory().getProtocol(memoryTransport);
+        return (new Client(prot)).recv_drop_or_rename_sentry_privileges();
+      }
+    }
+
     public void list_sentry_privileges_by_authorizable(TListSentryPrivilegesByAuthRequest request, org.apache.thrift.async.AsyncMethodCallback<list_sentry_privileges_by_authorizable_call> resultHandler) throws org.apache.thrift.TException {
       checkReady();
       list_sentry_privileges_by_authorizable_call method_call = new list_sentry_privileges_by_authorizable_call(request, resultHandler, this, ___protocolFactory, ___transport);
@@ -986,8 +1104,10 @@ public class SentryPolicyService {
       processMap.put("list_sentry_roles_by_group", new list_sentry_roles_by_group());
       processMap.put("list_sentry_privileges_by_role", new list_sentry_privileges_by_role());
       processMap.put("list_sentry_privileges_for_provider", new list_sentry_privileges_for_provider());
+      processMap.put("check_sentry_privileges", new check_sentry_privileges());
       processMap.put("drop_sentry_privilege", new drop_sentry_privilege());
       processMap.put("rename_sentry_privilege", new rename_sentry_privilege());
+      processMap.put("drop_or_rename_sentry_privileges", new drop_or_rename_sentry_privileges());
       processMap.put("list_sentry_privileges_by_authorizable", new list_sentry_privileges_by_authorizable());
       processMap.put("get_sentry_config_value", new get_sentry_config_value());
       processMap.put("export_sentry_mapping_data", new export_sentry_mapping_data());
@@ -1175,6 +1295,26 @@ public class SentryPolicyService {
       }
     }
 
+    public static class check_sentry_privileges<I extends Iface> extends org.apache.thrift.ProcessFunction<I, check_sentry_privileges_args> {
+      public check_sentry_privileges() {
+        super("check_sentry_privileges");
+      }
+
+      public check_sentry_privileges_args getEmptyArgsInstance() {
+        return new check_sentry_privileges_args();
+      }
+
+      protected boolean isOneway() {
+        return false;
+      }
+
+      public check_sentry_privileges_result getResult(I iface, check_sentry_privileges_args args) throws org.apache.thrift.TException {
+        check_sentry_privileges_result result = new check_sentry_privileges_result();
+        result.success = iface.check_sentry_privileges(args.request);
+        return result;
+      }
+    }
+
     public static class drop_sentry_privilege<I extends Iface> extends org.apache.thrift.ProcessFunction<I, drop_sentry_privilege_args> {
       public drop_sentry_privilege() {
         super("drop_sentry_privilege");
@@ -1215,6 +1355,26 @@ public class SentryPolicyService {
       }
     }
 
+    public static class drop_or_rename_sentry_privileges<I extends Iface> extends org.apache.thrift.ProcessFunction<I, drop_or_rename_sentry_privileges_args> {
+      public drop_or_rename_sentry_privileges() {
+        super("drop_or_rename_sentry_privileges");
+      }
+
+      public drop_or_rename_sentry_privileges_args getEmptyArgsInstance() {
+        return new drop_or_rename_sentry_privileges_args();
+      }
+
+      protected boolean isOneway() {
+        return false;
+      }
+
+      public drop_or_rename_sentry_privileges_result getResult(I iface, drop_or_rename_sentry_privileges_args args) throws org.apache.thrift.TException {
+        drop_or_rename_sentry_privileges_result result = new drop_or_rename_sentry_privileges_result();
+        result.success = iface.drop_or_rename_sentry_privileges(args.request);
+        return result;
+      }
+    }
+
     public static class list_sentry_privileges_by_authorizable<I extends Iface> extends org.apache.thrift.ProcessFunction<I, list_sentry_privileges_by_authorizable_args> {
       public list_sentry_privileges_by_authorizable() {
         super("list_sentry_privileges_by_authorizable");
@@ -7831,18 +7991,18 @@ public class SentryPolicyService {
 
   }
 
-  public static class drop_sentry_privilege_args implements org.apache.thrift.TBase<drop_sentry_privilege_args, drop_sentry_privilege_args._Fields>, java.io.Serializable, Cloneable   {
-    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("drop_sentry_privilege_args");
+  public static class check_sentry_privileges_args implements org.apache.thrift.TBase<check_sentry_privileges_args, check_sentry_privileges_args._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("check_sentry_privileges_args");
 
     private static final org.apache.thrift.protocol.TField REQUEST_FIELD_DESC = new org.apache.thrift.protocol.TField("request", org.apache.thrift.protocol.TType.STRUCT, (short)1);
 
     private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
     static {
-      schemes.put(StandardScheme.class, new drop_sentry_privilege_argsStandardSchemeFactory());
-      schemes.put(TupleScheme.class, new drop_sentry_privilege_argsTupleSchemeFactory());
+      schemes.put(StandardScheme.class, new check_sentry_privileges_argsStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new check_sentry_privileges_argsTupleSchemeFactory());
     }
 
-    private TDropPrivilegesRequest request; // required
+    private TCheckSentryPrivilegesRequest request; // required
 
     /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
     public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -7907,16 +8067,16 @@ public class SentryPolicyService {
     static {
       Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
       tmpMap.put(_Fields.REQUEST, new org.apache.thrift.meta_data.FieldMetaData("request", org.apache.thrift.TFieldRequirementType.DEFAULT, 
-          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TDropPrivilegesRequest.class)));
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TCheckSentryPrivilegesRequest.class)));
       metaDataMap = Collections.unmodifiableMap(tmpMap);
-      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(drop_sentry_privilege_args.class, metaDataMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(check_sentry_privileges_args.class, metaDataMap);
     }
 
-    public drop_sentry_privilege_args() {
+    public check_sentry_privileges_args() {
     }
 
-    public drop_sentry_privilege_args(
-      TDropPrivilegesRequest request)
+    public check_sentry_privileges_args(
+      TCheckSentryPrivilegesRequest request)
     {
       this();
       this.request = request;
@@ -7925,14 +8085,14 @@ public class SentryPolicyService {
     /**
      * Performs a deep copy on <i>other</i>.
      */
-    public drop_sentry_privilege_args(drop_sentry_privilege_args other) {
+    public check_sentry_privileges_args(check_sentry_privileges_args other) {
       if (other.isSetRequest()) {
-        this.request = new TDropPrivilegesRequest(other.request);
+        this.request = new TCheckSentryPrivilegesRequest(other.request);
       }
     }
 
-    public drop_sentry_privilege_args deepCopy() {
-      return new drop_sentry_privilege_args(this);
+    public check_sentry_privileges_args deepCopy() {
+      return new check_sentry_privileges_args(this);
     }
 
     @Override
@@ -7940,11 +8100,11 @@ public class SentryPolicyService {
       this.request = null;
     }
 
-    public TDropPrivilegesRequest getRequest() {
+    public TCheckSentryPrivilegesRequest getRequest() {
       return this.request;
     }
 
-    public void setRequest(TDropPrivilegesRequest request) {
+    public void setRequest(TCheckSentryPrivilegesRequest request) {
       this.request = request;
     }
 
@@ -7969,7 +8129,7 @@ public class SentryPolicyService {
         if (value == null) {
           unsetRequest();
         } else {
-          setRequest((TDropPrivilegesRequest)value);
+          setRequest((TCheckSentryPrivilegesRequest)value);
         }
         break;
 
@@ -8002,12 +8162,12 @@ public class SentryPolicyService {
     public boolean equals(Object that) {
       if (that == null)
         return false;
-      if (that instanceof drop_sentry_privilege_args)
-        return this.equals((drop_sentry_privilege_args)that);
+      if (that instanceof check_sentry_privileges_args)
+        return this.equals((check_sentry_privileges_args)that);
       return false;
     }
 
-    public boolean equals(drop_sentry_privilege_args that) {
+    public boolean equals(check_sentry_privileges_args that) {
       if (that == null)
         return false;
 
@@ -8035,13 +8195,13 @@ public class SentryPolicyService {
       return builder.toHashCode();
     }
 
-    public int compareTo(drop_sentry_privilege_args other) {
+    public int compareTo(check_sentry_privileges_args other) {
       if (!getClass().equals(other.getClass())) {
         return getClass().getName().compareTo(other.getClass().getName());
       }
 
       int lastComparison = 0;
-      drop_sentry_privilege_args typedOther = (drop_sentry_privilege_args)other;
+      check_sentry_privileges_args typedOther = (check_sentry_privileges_args)other;
 
       lastComparison = Boolean.valueOf(isSetRequest()).compareTo(typedOther.isSetRequest());
       if (lastComparison != 0) {
@@ -8070,7 +8230,7 @@ public class SentryPolicyService {
 
     @Override
     public String toString() {
-      StringBuilder sb = new StringBuilder("drop_sentry_privilege_args(");
+      StringBuilder sb = new StringBuilder("check_sentry_privileges_args(");
       boolean first = true;
 
       sb.append("request:");
@@ -8108,15 +8268,15 @@ public class SentryPolicyService {
       }
     }
 
-    private static class drop_sentry_privilege_argsStandardSchemeFactory implements SchemeFactory {
-      public drop_sentry_privilege_argsStandardScheme getScheme() {
-        return new drop_sentry_privilege_argsStandardScheme();
+    private static class check_sentry_privileges_argsStandardSchemeFactory implements SchemeFactory {
+      public check_sentry_privileges_argsStandardScheme getScheme() {
+        return new check_sentry_privileges_argsStandardScheme();
       }
     }
 
-    private static class drop_sentry_privilege_argsStandardScheme extends StandardScheme<drop_sentry_privilege_args> {
+    private static class check_sentry_privileges_argsStandardScheme extends StandardScheme<check_sentry_privileges_args> {
 
-      public void read(org.apache.thrift.protocol.TProtocol iprot, drop_sentry_privilege_args struct) throws org.apache.thrift.TException {
+      public void read(org.apache.thrift.protocol.TProtocol iprot, check_sentry_privileges_args struct) throws org.apache.thrift.TException {
         org.apache.thrift.protocol.TField schemeField;
         iprot.readStructBegin();
         while (true)
@@ -8128,7 +8288,7 @@ public class SentryPolicyService {
           switch (schemeField.id) {
             case 1: // REQUEST
               if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
-                struct.request = new TDropPrivilegesRequest();
+                struct.request = new TCheckSentryPrivilegesRequest();
                 struct.request.read(iprot);
                 struct.setRequestIsSet(true);
               } else { 
@@ -8144,7 +8304,7 @@ public class SentryPolicyService {
         struct.validate();
       }
 
-      public void write(org.apache.thrift.protocol.TProtocol oprot, drop_sentry_privilege_args struct) throws org.apache.thrift.TException {
+      public void write(org.apache.thrift.protocol.TProtocol oprot, check_sentry_privileges_args struct) throws org.apache.thrift.TException {
         struct.validate();
 
         oprot.writeStructBegin(STRUCT_DESC);
@@ -8159,16 +8319,16 @@ public class SentryPolicyService {
 
     }
 
-    private static class drop_sentry_privilege_argsTupleSchemeFactory implements SchemeFactory {
-      public drop_sentry_privilege_argsTupleScheme getScheme() {
-        return new drop_sentry_privilege_argsTupleScheme();
+    private static class check_sentry_privileges_argsTupleSchemeFactory implements SchemeFactory {
+      public check_sentry_privileges_argsTupleScheme getScheme() {
+        return new check_sentry_privileges_argsTupleScheme();
       }
     }
 
-    private static class drop_sentry_privilege_argsTupleScheme extends TupleScheme<drop_sentry_privilege_args> {
+    private static class check_sentry_privileges_argsTupleScheme extends TupleScheme<check_sentry_privileges_args> {
 
       @Override
-      public void write(org.apache.thrift.protocol.TProtocol prot, drop_sentry_privilege_args struct) throws org.apache.thrift.TException {
+      public void write(org.apache.thrift.protocol.TProtocol prot, check_sentry_privileges_args struct) throws org.apache.thrift.TException {
         TTupleProtocol oprot = (TTupleProtocol) prot;
         BitSet optionals = new BitSet();
         if (struct.isSetRequest()) {
@@ -8181,11 +8341,11 @@ public class SentryPolicyService {
       }
 
       @Override
-      public void read(org.apache.thrift.protocol.TProtocol prot, drop_sentry_privilege_args struct) throws org.apache.thrift.TException {
+      public void read(org.apache.thrift.protocol.TProtocol prot, check_sentry_privileges_args struct) throws org.apache.thrift.TException {
         TTupleProtocol iprot = (TTupleProtocol) prot;
         BitSet incoming = iprot.readBitSet(1);
         if (incoming.get(0)) {
-          struct.request = new TDropPrivilegesRequest();
+          struct.request = new TCheckSentryPrivilegesRequest();
           struct.request.read(iprot);
           struct.setRequestIsSet(true);
         }
@@ -8194,18 +8354,18 @@ public class SentryPolicyService {
 
   }
 
-  public static class drop_sentry_privilege_result implements org.apache.thrift.TBase<drop_sentry_privilege_result, drop_sentry_privilege_result._Fields>, java.io.Serializable, Cloneable   {
-    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("drop_sentry_privilege_result");
+  public static class check_sentry_privileges_result implements org.apache.thrift.TBase<check_sentry_privileges_result, check_sentry_privileges_result._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("check_sentry_privileges_result");
 
     private static final org.apache.thrift.protocol.TField SUCCESS_FIELD_DESC = new org.apache.thrift.protocol.TField("success", org.apache.thrift.protocol.TType.STRUCT, (short)0);
 
     private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
     static {
-      schemes.put(StandardScheme.class, new drop_sentry_privilege_resultStandardSchemeFactory());
-      schemes.put(TupleScheme.class, new drop_sentry_privilege_resultTupleSchemeFactory());
+      schemes.put(StandardScheme.class, new check_sentry_privileges_resultStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new check_sentry_privileges_resultTupleSchemeFactory());
     }
 
-    private TDropPrivilegesResponse success; // required
+    private TCheckSentryPrivilegesResponse success; // required
 
     /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
     public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -8270,16 +8430,16 @@ public class SentryPolicyService {
     static {
       Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
       tmpMap.put(_Fields.SUCCESS, new org.apache.thrift.meta_data.FieldMetaData("success", org.apache.thrift.TFieldRequirementType.DEFAULT, 
-          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TDropPrivilegesResponse.class)));
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TCheckSentryPrivilegesResponse.class)));
       metaDataMap = Collections.unmodifiableMap(tmpMap);
-      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(drop_sentry_privilege_result.class, metaDataMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(check_sentry_privileges_result.class, metaDataMap);
     }
 
-    public drop_sentry_privilege_result() {
+    public check_sentry_privileges_result() {
     }
 
-    public drop_sentry_privilege_result(
-      TDropPrivilegesResponse success)
+    public check_sentry_privileges_result(
+      TCheckSentryPrivilegesResponse success)
     {
       this();
       this.success = success;
@@ -8288,14 +8448,14 @@ public class SentryPolicyService {
     /**
      * Performs a deep copy on <i>other</i>.
      */
-    public drop_sentry_privilege_result(drop_sentry_privilege_result other) {
+    public check_sentry_privileges_result(check_sentry_privileges_result other) {
       if (other.isSetSuccess()) {
-        this.success = new TDropPrivilegesResponse(other.success);
+        this.success = new TCheckSentryPrivilegesResponse(other.success);
       }
     }
 
-    public drop_sentry_privilege_result deepCopy() {
-      return new drop_sentry_privilege_result(this);
+    public check_sentry_privileges_result deepCopy() {
+      return new check_sentry_privileges_result(this);
     }
 
     @Override
@@ -8303,11 +8463,11 @@ public class SentryPolicyService {
       this.success = null;
     }
 
-    public TDropPrivilegesResponse getSuccess() {
+    public TCheckSentryPrivilegesResponse getSuccess() {
       return this.success;
     }
 
-    public void setSuccess(TDropPrivilegesResponse success) {
+    public void setSuccess(TCheckSentryPrivilegesResponse success) {
       this.success = success;
     }
 
@@ -8332,7 +8492,7 @@ public class SentryPolicyService {
         if (value == null) {
           unsetSuccess();
         } else {
-          setSuccess((TDropPrivilegesResponse)value);
+          setSuccess((TCheckSentryPrivilegesResponse)value);
         }
         break;
 
@@ -8365,12 +8525,12 @@ public class SentryPolicyService {
     public boolean equals(Object that) {
       if (that == null)
         return false;
-      if (that instanceof drop_sentry_privilege_result)
-        return this.equals((drop_sentry_privilege_result)that);
+      if (that instanceof check_sentry_privileges_result)
+        return this.equals((check_sentry_privileges_result)that);
       return false;
     }
 
-    public boolean equals(drop_sentry_privilege_result that) {
+    public boolean equals(check_sentry_privileges_result that) {
       if (that == null)
         return false;
 
@@ -8398,13 +8558,13 @@ public class SentryPolicyService {
       return builder.toHashCode();
     }
 
-    public int compareTo(drop_sentry_privilege_result other) {
+    public int compareTo(check_sentry_privileges_result other) {
       if (!getClass().equals(other.getClass())) {
         return getClass().getName().compareTo(other.getClass().getName());
       }
 
       int lastComparison = 0;
-      drop_sentry_privilege_result typedOther = (drop_sentry_privilege_result)other;
+      check_sentry_privileges_result typedOther = (check_sentry_privileges_result)other;
 
       lastComparison = Boolean.valueOf(isSetSuccess()).compareTo(typedOther.isSetSuccess());
       if (lastComparison != 0) {
@@ -8433,7 +8593,7 @@ public class SentryPolicyService {
 
     @Override
     public String toString() {
-      StringBuilder sb = new StringBuilder("drop_sentry_privilege_result(");
+      StringBuilder sb = new StringBuilder("check_sentry_privileges_result(");
       boolean first = true;
 
       sb.append("success:");
@@ -8471,15 +8631,15 @@ public class SentryPolicyService {
       }
     }
 
-    private static class drop_sentry_privilege_resultStandardSchemeFactory implements SchemeFactory {
-      public drop_sentry_privilege_resultStandardScheme getScheme() {
-        return new drop_sentry_privilege_resultStandardScheme();
+    private static class check_sentry_privileges_resultStandardSchemeFactory implements SchemeFactory {
+      public check_sentry_privileges_resultStandardScheme getScheme() {
+        return new check_sentry_privileges_resultStandardScheme();
       }
     }
 
-    private static class drop_sentry_privilege_resultStandardScheme extends StandardScheme<drop_sentry_privilege_result> {
+    private static class check_sentry_privileges_resultStandardScheme extends StandardScheme<check_sentry_privileges_result> {
 
-      public void read(org.apache.thrift.protocol.TProtocol iprot, drop_sentry_privilege_result struct) throws org.apache.thrift.TException {
+      public void read(org.apache.thrift.protocol.TProtocol iprot, check_sentry_privileges_result struct) throws org.apache.thrift.TException {
         org.apache.thrift.protocol.TField schemeField;
         iprot.readStructBegin();
         while (true)
@@ -8491,7 +8651,7 @@ public class SentryPolicyService {
           switch (schemeField.id) {
             case 0: // SUCCESS
               if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
-                struct.success = new TDropPrivilegesResponse();
+                struct.success = new TCheckSentryPrivilegesResponse();
                 struct.success.read(iprot);
                 struct.setSuccessIsSet(true);
               } else { 
@@ -8507,7 +8667,7 @@ public class SentryPolicyService {
         struct.validate();
       }
 
-      public void write(org.apache.thrift.protocol.TProtocol oprot, drop_sentry_privilege_result struct) throws org.apache.thrift.TException {
+      public void write(org.apache.thrift.protocol.TProtocol oprot, check_sentry_privileges_result struct) throws org.apache.thrift.TException {
         struct.validate();
 
         oprot.writeStructBegin(STRUCT_DESC);
@@ -8522,16 +8682,16 @@ public class SentryPolicyService {
 
     }
 
-    private static class drop_sentry_privilege_resultTupleSchemeFactory implements SchemeFactory {
-      public drop_sentry_privilege_resultTupleScheme getScheme() {
-        return new drop_sentry_privilege_resultTupleScheme();
+    private static class check_sentry_privileges_resultTupleSchemeFactory implements SchemeFactory {
+      public check_sentry_privileges_resultTupleScheme getScheme() {
+        return new check_sentry_privileges_resultTupleScheme();
       }
     }
 
-    private static class drop_sentry_privilege_resultTupleScheme extends TupleScheme<drop_sentry_privilege_result> {
+    private static class check_sentry_privileges_resultTupleScheme extends TupleScheme<check_sentry_privileges_result> {
 
       @Override
-      public void write(org.apache.thrift.protocol.TProtocol prot, drop_sentry_privilege_result struct) throws org.apache.thrift.TException {
+      public void write(org.apache.thrift.protocol.TProtocol prot, check_sentry_privileges_result struct) throws org.apache.thrift.TException {
         TTupleProtocol oprot = (TTupleProtocol) prot;
         BitSet optionals = new BitSet();
         if (struct.isSetSuccess()) {
@@ -8544,11 +8704,11 @@ public class SentryPolicyService {
       }
 
       @Override
-      public void read(org.apache.thrift.protocol.TProtocol prot, drop_sentry_privilege_result struct) throws org.apache.thrift.TException {
+      public void read(org.apache.thrift.protocol.TProtocol prot, check_sentry_privileges_result struct) throws org.apache.thrift.TException {
         TTupleProtocol iprot = (TTupleProtocol) prot;
         BitSet incoming = iprot.readBitSet(1);
         if (incoming.get(0)) {
-          struct.success = new TDropPrivilegesResponse();
+          struct.success = new TCheckSentryPrivilegesResponse();
           struct.success.read(iprot);
           struct.setSuccessIsSet(true);
         }
@@ -8557,18 +8717,18 @@ public class SentryPolicyService {
 
   }
 
-  public static class rename_sentry_privilege_args implements org.apache.thrift.TBase<rename_sentry_privilege_args, rename_sentry_privilege_args._Fields>, java.io.Serializable, Cloneable   {
-    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("rename_sentry_privilege_args");
+  public static class drop_sentry_privilege_args implements org.apache.thrift.TBase<drop_sentry_privilege_args, drop_sentry_privilege_args._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("drop_sentry_privilege_args");
 
     private static final org.apache.thrift.protocol.TField REQUEST_FIELD_DESC = new org.apache.thrift.protocol.TField("request", org.apache.thrift.protocol.TType.STRUCT, (short)1);
 
     private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
     static {
-      schemes.put(StandardScheme.class, new rename_sentry_privilege_argsStandardSchemeFactory());
-      schemes.put(TupleScheme.class, new rename_sentry_privilege_argsTupleSchemeFactory());
+      schemes.put(StandardScheme.class, new drop_sentry_privilege_argsStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new drop_sentry_privilege_argsTupleSchemeFactory());
     }
 
-    private TRenamePrivilegesRequest request; // required
+    private TDropPrivilegesRequest request; // required
 
     /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
     public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -8633,16 +8793,16 @@ public class SentryPolicyService {
     static {
       Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
       tmpMap.put(_Fields.REQUEST, new org.apache.thrift.meta_data.FieldMetaData("request", org.apache.thrift.TFieldRequirementType.DEFAULT, 
-          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TRenamePrivilegesRequest.class)));
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TDropPrivilegesRequest.class)));
       metaDataMap = Collections.unmodifiableMap(tmpMap);
-      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(rename_sentry_privilege_args.class, metaDataMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(drop_sentry_privilege_args.class, metaDataMap);
     }
 
-    public rename_sentry_privilege_args() {
+    public drop_sentry_privilege_args() {
     }
 
-    public rename_sentry_privilege_args(
-      TRenamePrivilegesRequest request)
+    public drop_sentry_privilege_args(
+      TDropPrivilegesRequest request)
     {
       this();
       this.request = request;
@@ -8651,14 +8811,14 @@ public class SentryPolicyService {
     /**
      * Performs a deep copy on <i>other</i>.
      */
-    public rename_sentry_privilege_args(rename_sentry_privilege_args other) {
+    public drop_sentry_privilege_args(drop_sentry_privilege_args other) {
       if (other.isSetRequest()) {
-        this.request = new TRenamePrivilegesRequest(other.request);
+        this.request = new TDropPrivilegesRequest(other.request);
       }
     }
 
-    public rename_sentry_privilege_args deepCopy() {
-      return new rename_sentry_privilege_args(this);
+    public drop_sentry_privilege_args deepCopy() {
+      return new drop_sentry_privilege_args(this);
     }
 
     @Override
@@ -8666,11 +8826,11 @@ public class SentryPolicyService {
       this.request = null;
     }
 
-    public TRenamePrivilegesRequest getRequest() {
+    public TDropPrivilegesRequest getRequest() {
       return this.request;
     }
 
-    public void setRequest(TRenamePrivilegesRequest request) {
+    public void setRequest(TDropPrivilegesRequest request) {
       this.request = request;
     }
 
@@ -8695,7 +8855,7 @@ public class SentryPolicyService {
         if (value == null) {
           unsetRequest();
         } else {
-          setRequest((TRenamePrivilegesRequest)value);
+          setRequest((TDropPrivilegesRequest)value);
         }
         break;
 
@@ -8728,12 +8888,12 @@ public class SentryPolicyService {
     public boolean equals(Object that) {
       if (that == null)
         return false;
-      if (that instanceof rename_sentry_privilege_args)
-        return this.equals((rename_sentry_privilege_args)that);
+      if (that instanceof drop_sentry_privilege_args)
+        return this.equals((drop_sentry_privilege_args)that);
       return false;
     }
 
-    public boolean equals(rename_sentry_privilege_args that) {
+    public boolean equals(drop_sentry_privilege_args that) {
       if (that == null)
         return false;
 
@@ -8761,13 +8921,13 @@ public class SentryPolicyService {
       return builder.toHashCode();
     }
 
-    public int compareTo(rename_sentry_privilege_args other) {
+    public int compareTo(drop_sentry_privilege_args other) {
       if (!getClass().equals(other.getClass())) {
         return getClass().getName().compareTo(other.getClass().getName());
       }
 
       int lastComparison = 0;
-      rename_sentry_privilege_args typedOther = (rename_sentry_privilege_args)other;
+      drop_sentry_privilege_args typedOther = (drop_sentry_privilege_args)other;
 
       lastComparison = Boolean.valueOf(isSetRequest()).compareTo(typedOther.isSetRequest());
       if (lastComparison != 0) {
@@ -8796,7 +8956,7 @@ public class SentryPolicyService {
 
     @Override
     public String toString() {
-      StringBuilder sb = new StringBuilder("rename_sentry_privilege_args(");
+      StringBuilder sb = new StringBuilder("drop_sentry_privilege_args(");
       boolean first = true;
 
       sb.append("request:");
@@ -8834,15 +8994,15 @@ public class SentryPolicyService {
       }
     }
 
-    private static class rename_sentry_privilege_argsStandardSchemeFactory implements SchemeFactory {
-      public rename_sentry_privilege_argsStandardScheme getScheme() {
-        return new rename_sentry_privilege_argsStandardScheme();
+    private static class drop_sentry_privilege_argsStandardSchemeFactory implements SchemeFactory {
+      public drop_sentry_privilege_argsStandardScheme getScheme() {
+        return new drop_sentry_privilege_argsStandardScheme();
       }
     }
 
-    private static class rename_sentry_privilege_argsStandardScheme extends StandardScheme<rename_sentry_privilege_args> {
+    private static class drop_sentry_privilege_argsStandardScheme extends StandardScheme<drop_sentry_privilege_args> {
 
-      public void read(org.apache.thrift.protocol.TProtocol iprot, rename_sentry_privilege_args struct) throws org.apache.thrift.TException {
+      public void read(org.apache.thrift.protocol.TProtocol iprot, drop_sentry_privilege_args struct) throws org.apache.thrift.TException {
         org.apache.thrift.protocol.TField schemeField;
         iprot.readStructBegin();
         while (true)
@@ -8854,7 +9014,7 @@ public class SentryPolicyService {
           switch (schemeField.id) {
             case 1: // REQUEST
               if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
-                struct.request = new TRenamePrivilegesRequest();
+                struct.request = new TDropPrivilegesRequest();
                 struct.request.read(iprot);
                 struct.setRequestIsSet(true);
               } else { 
@@ -8870,7 +9030,7 @@ public class SentryPolicyService {
         struct.validate();
       }
 
-      public void write(org.apache.thrift.protocol.TProtocol oprot, rename_sentry_privilege_args struct) throws org.apache.thrift.TException {
+      public void write(org.apache.thrift.protocol.TProtocol oprot, drop_sentry_privilege_args struct) throws org.apache.thrift.TException {
         struct.validate();
 
         oprot.writeStructBegin(STRUCT_DESC);
@@ -8885,16 +9045,16 @@ public class SentryPolicyService {
 
     }
 
-    private static class rename_sentry_privilege_argsTupleSchemeFactory implements SchemeFactory {
-      public rename_sentry_privilege_argsTupleScheme getScheme() {
-        return new rename_sentry_privilege_argsTupleScheme();
+    private static class drop_sentry_privilege_argsTupleSchemeFactory implements SchemeFactory {
+      public drop_sentry_privilege_argsTupleScheme getScheme() {
+        return new drop_sentry_privilege_argsTupleScheme();
       }
     }
 
-    private static class rename_sentry_privilege_argsTupleScheme extends TupleScheme<rename_sentry_privilege_args> {
+    private static class drop_sentry_privilege_argsTupleScheme extends TupleScheme<drop_sentry_privilege_args> {
 
       @Override
-      public void write(org.apache.thrift.protocol.TProtocol prot, rename_sentry_privilege_args struct) throws org.apache.thrift.TException {
+      public void write(org.apache.thrift.protocol.TProtocol prot, drop_sentry_privilege_args struct) throws org.apache.thrift.TException {
         TTupleProtocol oprot = (TTupleProtocol) prot;
         BitSet optionals = new BitSet();
         if (struct.isSetRequest()) {
@@ -8907,11 +9067,11 @@ public class SentryPolicyService {
       }
 
       @Override
-      public void read(org.apache.thrift.protocol.TProtocol prot, rename_sentry_privilege_args struct) throws org.apache.thrift.TException {
+      public void read(org.apache.thrift.protocol.TProtocol prot, drop_sentry_privilege_args struct) throws org.apache.thrift.TException {
         TTupleProtocol iprot = (TTupleProtocol) prot;
         BitSet incoming = iprot.readBitSet(1);
         if (incoming.get(0)) {
-          struct.request = new TRenamePrivilegesRequest();
+          struct.request = new TDropPrivilegesRequest();
           struct.request.read(iprot);
           struct.setRequestIsSet(true);
         }
@@ -8920,15 +9080,741 @@ public class SentryPolicyService {
 
   }
 
-  public static class rename_sentry_privilege_result implements org.apache.thrift.TBase<rename_sentry_privilege_result, rename_sentry_privilege_result._Fields>, java.io.Serializable, Cloneable   {
-    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("rename_sentry_privilege_result");
+  public static class drop_sentry_privilege_result implements org.apache.thrift.TBase<drop_sentry_privilege_result, drop_sentry_privilege_result._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("drop_sentry_privilege_result");
 
     private static final org.apache.thrift.protocol.TField SUCCESS_FIELD_DESC = new org.apache.thrift.protocol.TField("success", org.apache.thrift.protocol.TType.STRUCT, (short)0);
 
     private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
     static {
-      schemes.put(StandardScheme.class, new rename_sentry_privilege_resultStandardSchemeFactory());
-      schemes.put(TupleScheme.class, new rename_sentry_privilege_resultTupleSchemeFactory());
+      schemes.put(StandardScheme.class, new drop_sentry_privilege_resultStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new drop_sentry_privilege_resultTupleSchemeFactory());
+    }
+
+    private TDropPrivilegesResponse success; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      SUCCESS((short)0, "success");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 0: // SUCCESS
+            return SUCCESS;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.SUCCESS, new org.apache.thrift.meta_data.FieldMetaData("success", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TDropPrivilegesResponse.class)));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(drop_sentry_privilege_result.class, metaDataMap);
+    }
+
+    public drop_sentry_privilege_result() {
+    }
+
+    public drop_sentry_privilege_result(
+      TDropPrivilegesResponse success)
+    {
+      this();
+      this.success = success;
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public drop_sentry_privilege_result(drop_sentry_privilege_result other) {
+      if (other.isSetSuccess()) {
+        this.success = new TDropPrivilegesResponse(other.success);
+      }
+    }
+
+    public drop_sentry_privilege_result deepCopy() {
+      return new drop_sentry_privilege_result(this);
+    }
+
+    @Override
+    public void clear() {
+      this.success = null;
+    }
+
+    public TDropPrivilegesResponse getSuccess() {
+      return this.success;
+    }
+
+    public void setSuccess(TDropPrivilegesResponse success) {
+      this.success = success;
+    }
+
+    public void unsetSuccess() {
+      this.success = null;
+    }
+
+    /** Returns true if field success is set (has been assigned a value) and false otherwise */
+    public boolean isSetSuccess() {
+      return this.success != null;
+    }
+
+    public void setSuccessIsSet(boolean value) {
+      if (!value) {
+        this.success = null;
+      }
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case SUCCESS:
+        if (value == null) {
+          unsetSuccess();
+        } else {
+          setSuccess((TDropPrivilegesResponse)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case SUCCESS:
+        return getSuccess();
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case SUCCESS:
+        return isSetSuccess();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof drop_sentry_privilege_result)
+        return this.equals((drop_sentry_privilege_result)that);
+      return false;
+    }
+
+    public boolean equals(drop_sentry_privilege_result that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_success = true && this.isSetSuccess();
+      boolean that_present_success = true && that.isSetSuccess();
+      if (this_present_success || that_present_success) {
+        if (!(this_present_success && that_present_success))
+          return false;
+        if (!this.success.equals(that.success))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      HashCodeBuilder builder = new HashCodeBuilder();
+
+      boolean present_success = true && (isSetSuccess());
+      builder.append(present_success);
+      if (present_success)
+        builder.append(success);
+
+      return builder.toHashCode();
+    }
+
+    public int compareTo(drop_sentry_privilege_result other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      drop_sentry_privilege_result typedOther = (drop_sentry_privilege_result)other;
+
+      lastComparison = Boolean.valueOf(isSetSuccess()).compareTo(typedOther.isSetSuccess());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (isSetSuccess()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.success, typedOther.success);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      schemes.get(iprot.getScheme()).getScheme().read(iprot, this);
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      schemes.get(oprot.getScheme()).getScheme().write(oprot, this);
+      }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("drop_sentry_privilege_result(");
+      boolean first = true;
+
+      sb.append("success:");
+      if (this.success == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.success);
+      }
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+      // check for sub-struct validity
+      if (success != null) {
+        success.validate();
+      }
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private static class drop_sentry_privilege_resultStandardSchemeFactory implements SchemeFactory {
+      public drop_sentry_privilege_resultStandardScheme getScheme() {
+        return new drop_sentry_privilege_resultStandardScheme();
+      }
+    }
+
+    private static class drop_sentry_privilege_resultStandardScheme extends StandardScheme<drop_sentry_privilege_result> {
+
+      public void read(org.apache.thrift.protocol.TProtocol iprot, drop_sentry_privilege_result struct) throws org.apache.thrift.TException {
+        org.apache.thrift.protocol.TField schemeField;
+        iprot.readStructBegin();
+        while (true)
+        {
+          schemeField = iprot.readFieldBegin();
+          if (schemeField.type == org.apache.thrift.protocol.TType.STOP) { 
+            break;
+          }
+          switch (schemeField.id) {
+            case 0: // SUCCESS
+              if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
+                struct.success = new TDropPrivilegesResponse();
+                struct.success.read(iprot);
+                struct.setSuccessIsSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            default:
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+          }
+          iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+        struct.validate();
+      }
+
+      public void write(org.apache.thrift.protocol.TProtocol oprot, drop_sentry_privilege_result struct) throws org.apache.thrift.TException {
+        struct.validate();
+
+        oprot.writeStructBegin(STRUCT_DESC);
+        if (struct.success != null) {
+          oprot.writeFieldBegin(SUCCESS_FIELD_DESC);
+          struct.success.write(oprot);
+          oprot.writeFieldEnd();
+        }
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+      }
+
+    }
+
+    private static class drop_sentry_privilege_resultTupleSchemeFactory implements SchemeFactory {
+      public drop_sentry_privilege_resultTupleScheme getScheme() {
+        return new drop_sentry_privilege_resultTupleScheme();
+      }
+    }
+
+    private static class drop_sentry_privilege_resultTupleScheme extends TupleScheme<drop_sentry_privilege_result> {
+
+      @Override
+      public void write(org.apache.thrift.protocol.TProtocol prot, drop_sentry_privilege_result struct) throws org.apache.thrift.TException {
+        TTupleProtocol oprot = (TTupleProtocol) prot;
+        BitSet optionals = new BitSet();
+        if (struct.isSetSuccess()) {
+          optionals.set(0);
+        }
+        oprot.writeBitSet(optionals, 1);
+        if (struct.isSetSuccess()) {
+          struct.success.write(oprot);
+        }
+      }
+
+      @Override
+      public void read(org.apache.thrift.protocol.TProtocol prot, drop_sentry_privilege_result struct) throws org.apache.thrift.TException {
+        TTupleProtocol iprot = (TTupleProtocol) prot;
+        BitSet incoming = iprot.readBitSet(1);
+        if (incoming.get(0)) {
+          struct.success = new TDropPrivilegesResponse();
+          struct.success.read(iprot);
+          struct.setSuccessIsSet(true);
+        }
+      }
+    }
+
+  }
+
+  public static class rename_sentry_privilege_args implements org.apache.thrift.TBase<rename_sentry_privilege_args, rename_sentry_privilege_args._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("rename_sentry_privilege_args");
+
+    private static final org.apache.thrift.protocol.TField REQUEST_FIELD_DESC = new org.apache.thrift.protocol.TField("request", org.apache.thrift.protocol.TType.STRUCT, (short)1);
+
+    private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
+    static {
+      schemes.put(StandardScheme.class, new rename_sentry_privilege_argsStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new rename_sentry_privilege_argsTupleSchemeFactory());
+    }
+
+    private TRenamePrivilegesRequest request; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      REQUEST((short)1, "request");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 1: // REQUEST
+            return REQUEST;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.REQUEST, new org.apache.thrift.meta_data.FieldMetaData("request", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TRenamePrivilegesRequest.class)));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(rename_sentry_privilege_args.class, metaDataMap);
+    }
+
+    public rename_sentry_privilege_args() {
+    }
+
+    public rename_sentry_privilege_args(
+      TRenamePrivilegesRequest request)
+    {
+      this();
+      this.request = request;
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public rename_sentry_privilege_args(rename_sentry_privilege_args other) {
+      if (other.isSetRequest()) {
+        this.request = new TRenamePrivilegesRequest(other.request);
+      }
+    }
+
+    public rename_sentry_privilege_args deepCopy() {
+      return new rename_sentry_privilege_args(this);
+    }
+
+    @Override
+    public void clear() {
+      this.request = null;
+    }
+
+    public TRenamePrivilegesRequest getRequest() {
+      return this.request;
+    }
+
+    public void setRequest(TRenamePrivilegesRequest request) {
+      this.request = request;
+    }
+
+    public void unsetRequest() {
+      this.request = null;
+    }
+
+    /** Returns true if field request is set (has been assigned a value) and false otherwise */
+    public boolean isSetRequest() {
+      return this.request != null;
+    }
+
+    public void setRequestIsSet(boolean value) {
+      if (!value) {
+        this.request = null;
+      }
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case REQUEST:
+        if (value == null) {
+          unsetRequest();
+        } else {
+          setRequest((TRenamePrivilegesRequest)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case REQUEST:
+        return getRequest();
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case REQUEST:
+        return isSetRequest();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof rename_sentry_privilege_args)
+        return this.equals((rename_sentry_privilege_args)that);
+      return false;
+    }
+
+    public boolean equals(rename_sentry_privilege_args that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_request = true && this.isSetRequest();
+      boolean that_present_request = true && that.isSetRequest();
+      if (this_present_request || that_present_request) {
+        if (!(this_present_request && that_present_request))
+          return false;
+        if (!this.request.equals(that.request))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      HashCodeBuilder builder = new HashCodeBuilder();
+
+      boolean present_request = true && (isSetRequest());
+      builder.append(present_request);
+      if (present_request)
+        builder.append(request);
+
+      return builder.toHashCode();
+    }
+
+    public int compareTo(rename_sentry_privilege_args other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      rename_sentry_privilege_args typedOther = (rename_sentry_privilege_args)other;
+
+      lastComparison = Boolean.valueOf(isSetRequest()).compareTo(typedOther.isSetRequest());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (isSetRequest()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.request, typedOther.request);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      schemes.get(iprot.getScheme()).getScheme().read(iprot, this);
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      schemes.get(oprot.getScheme()).getScheme().write(oprot, this);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("rename_sentry_privilege_args(");
+      boolean first = true;
+
+      sb.append("request:");
+      if (this.request == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.request);
+      }
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+      // check for sub-struct validity
+      if (request != null) {
+        request.validate();
+      }
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private static class rename_sentry_privilege_argsStandardSchemeFactory implements SchemeFactory {
+      public rename_sentry_privilege_argsStandardScheme getScheme() {
+        return new rename_sentry_privilege_argsStandardScheme();
+      }
+    }
+
+    private static class rename_sentry_privilege_argsStandardScheme extends StandardScheme<rename_sentry_privilege_args> {
+
+      public void read(org.apache.thrift.protocol.TProtocol iprot, rename_sentry_privilege_args struct) throws org.apache.thrift.TException {
+        org.apache.thrift.protocol.TField schemeField;
+        iprot.readStructBegin();
+        while (true)
+        {
+          schemeField = iprot.readFieldBegin();
+          if (schemeField.type == org.apache.thrift.protocol.TType.STOP) { 
+            break;
+          }
+          switch (schemeField.id) {
+            case 1: // REQUEST
+              if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
+                struct.request = new TRenamePrivilegesRequest();
+                struct.request.read(iprot);
+                struct.setRequestIsSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            default:
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+          }
+          iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+        struct.validate();
+      }
+
+      public void write(org.apache.thrift.protocol.TProtocol oprot, rename_sentry_privilege_args struct) throws org.apache.thrift.TException {
+        struct.validate();
+
+        oprot.writeStructBegin(STRUCT_DESC);
+        if (struct.request != null) {
+          oprot.writeFieldBegin(REQUEST_FIELD_DESC);
+          struct.request.write(oprot);
+          oprot.writeFieldEnd();
+        }
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+      }
+
+    }
+
+    private static class rename_sentry_privilege_argsTupleSchemeFactory implements SchemeFactory {
+      public rename_sentry_privilege_argsTupleScheme getScheme() {
+        return new rename_sentry_privilege_argsTupleScheme();
+      }
+    }
+
+    private static class rename_sentry_privilege_argsTupleScheme extends TupleScheme<rename_sentry_privilege_args> {
+
+      @Override
+      public void write(org.apache.thrift.protocol.TProtocol prot, rename_sentry_privilege_args struct) throws org.apache.thrift.TException {
+        TTupleProtocol oprot = (TTupleProtocol) prot;
+        BitSet optionals = new BitSet();
+        if (struct.isSetRequest()) {
+          optionals.set(0);
+        }
+        oprot.writeBitSet(optionals, 1);
+        if (struct.isSetRequest()) {
+          struct.request.write(oprot);
+        }
+      }
+
+      @Override
+      public void read(org.apache.thrift.protocol.TProtocol prot, rename_sentry_privilege_args struct) throws org.apache.thrift.TException {
+        TTupleProtocol iprot = (TTupleProtocol) prot;
+        BitSet incoming = iprot.readBitSet(1);
+        if (incoming.get(0)) {
+          struct.request = new TRenamePrivilegesRequest();
+          struct.request.read(iprot);
+          struct.setRequestIsSet(true);
+        }
+      }
+    }
+
+  }
+
+  public static class rename_sentry_privilege_result implements org.apache.thrift.TBase<rename_sentry_privilege_result, rename_sentry_privilege_result._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("rename_sentry_privilege_result");
+
+    private static final org.apache.thrift.protocol.TField SUCCESS_FIELD_DESC = new org.apache.thrift.protocol.TField("success", org.apache.thrift.protocol.TType.STRUCT, (short)0);
+
+    private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
+    static {
+      schemes.put(StandardScheme.class, new rename_sentry_privilege_resultStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new rename_sentry_privilege_resultTupleSchemeFactory());
     }
 
     private TRenamePrivilegesResponse success; // required
@@ -8996,16 +9882,742 @@ public class SentryPolicyService {
     static {
       Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
       tmpMap.put(_Fields.SUCCESS, new org.apache.thrift.meta_data.FieldMetaData("success", org.apache.thrift.TFieldRequirementType.DEFAULT, 
-          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TRenamePrivilegesResponse.class)));
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TRenamePrivilegesResponse.class)));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(rename_sentry_privilege_result.class, metaDataMap);
+    }
+
+    public rename_sentry_privilege_result() {
+    }
+
+    public rename_sentry_privilege_result(
+      TRenamePrivilegesResponse success)
+    {
+      this();
+      this.success = success;
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public rename_sentry_privilege_result(rename_sentry_privilege_result other) {
+      if (other.isSetSuccess()) {
+        this.success = new TRenamePrivilegesResponse(other.success);
+      }
+    }
+
+    public rename_sentry_privilege_result deepCopy() {
+      return new rename_sentry_privilege_result(this);
+    }
+
+    @Override
+    public void clear() {
+      this.success = null;
+    }
+
+    public TRenamePrivilegesResponse getSuccess() {
+      return this.success;
+    }
+
+    public void setSuccess(TRenamePrivilegesResponse success) {
+      this.success = success;
+    }
+
+    public void unsetSuccess() {
+      this.success = null;
+    }
+
+    /** Returns true if field success is set (has been assigned a value) and false otherwise */
+    public boolean isSetSuccess() {
+      return this.success != null;
+    }
+
+    public void setSuccessIsSet(boolean value) {
+      if (!value) {
+        this.success = null;
+      }
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case SUCCESS:
+        if (value == null) {
+          unsetSuccess();
+        } else {
+          setSuccess((TRenamePrivilegesResponse)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case SUCCESS:
+        return getSuccess();
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case SUCCESS:
+        return isSetSuccess();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof rename_sentry_privilege_result)
+        return this.equals((rename_sentry_privilege_result)that);
+      return false;
+    }
+
+    public boolean equals(rename_sentry_privilege_result that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_success = true && this.isSetSuccess();
+      boolean that_present_success = true && that.isSetSuccess();
+      if (this_present_success || that_present_success) {
+        if (!(this_present_success && that_present_success))
+          return false;
+        if (!this.success.equals(that.success))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      HashCodeBuilder builder = new HashCodeBuilder();
+
+      boolean present_success = true && (isSetSuccess());
+      builder.append(present_success);
+      if (present_success)
+        builder.append(success);
+
+      return builder.toHashCode();
+    }
+
+    public int compareTo(rename_sentry_privilege_result other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      rename_sentry_privilege_result typedOther = (rename_sentry_privilege_result)other;
+
+      lastComparison = Boolean.valueOf(isSetSuccess()).compareTo(typedOther.isSetSuccess());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (isSetSuccess()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.success, typedOther.success);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      schemes.get(iprot.getScheme()).getScheme().read(iprot, this);
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      schemes.get(oprot.getScheme()).getScheme().write(oprot, this);
+      }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("rename_sentry_privilege_result(");
+      boolean first = true;
+
+      sb.append("success:");
+      if (this.success == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.success);
+      }
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+      // check for sub-struct validity
+      if (success != null) {
+        success.validate();
+      }
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private static class rename_sentry_privilege_resultStandardSchemeFactory implements SchemeFactory {
+      public rename_sentry_privilege_resultStandardScheme getScheme() {
+        return new rename_sentry_privilege_resultStandardScheme();
+      }
+    }
+
+    private static class rename_sentry_privilege_resultStandardScheme extends StandardScheme<rename_sentry_privilege_result> {
+
+      public void read(org.apache.thrift.protocol.TProtocol iprot, rename_sentry_privilege_result struct) throws org.apache.thrift.TException {
+        org.apache.thrift.protocol.TField schemeField;
+        iprot.readStructBegin();
+        while (true)
+        {
+          schemeField = iprot.readFieldBegin();
+          if (schemeField.type == org.apache.thrift.protocol.TType.STOP) { 
+            break;
+          }
+          switch (schemeField.id) {
+            case 0: // SUCCESS
+              if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
+                struct.success = new TRenamePrivilegesResponse();
+                struct.success.read(iprot);
+                struct.setSuccessIsSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            default:
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+          }
+          iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+        struct.validate();
+      }
+
+      public void write(org.apache.thrift.protocol.TProtocol oprot, rename_sentry_privilege_result struct) throws org.apache.thrift.TException {
+        struct.validate();
+
+        oprot.writeStructBegin(STRUCT_DESC);
+        if (struct.success != null) {
+          oprot.writeFieldBegin(SUCCESS_FIELD_DESC);
+          struct.success.write(oprot);
+          oprot.writeFieldEnd();
+        }
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+      }
+
+    }
+
+    private static class rename_sentry_privilege_resultTupleSchemeFactory implements SchemeFactory {
+      public rename_sentry_privilege_resultTupleScheme getScheme() {
+        return new rename_sentry_privilege_resultTupleScheme();
+      }
+    }
+
+    private static class rename_sentry_privilege_resultTupleScheme extends TupleScheme<rename_sentry_privilege_result> {
+
+      @Override
+      public void write(org.apache.thrift.protocol.TProtocol prot, rename_sentry_privilege_result struct) throws org.apache.thrift.TException {
+        TTupleProtocol oprot = (TTupleProtocol) prot;
+        BitSet optionals = new BitSet();
+        if (struct.isSetSuccess()) {
+          optionals.set(0);
+        }
+        oprot.writeBitSet(optionals, 1);
+        if (struct.isSetSuccess()) {
+          struct.success.write(oprot);
+        }
+      }
+
+      @Override
+      public void read(org.apache.thrift.protocol.TProtocol prot, rename_sentry_privilege_result struct) throws org.apache.thrift.TException {
+        TTupleProtocol iprot = (TTupleProtocol) prot;
+        BitSet incoming = iprot.readBitSet(1);
+        if (incoming.get(0)) {
+          struct.success = new TRenamePrivilegesResponse();
+          struct.success.read(iprot);
+          struct.setSuccessIsSet(true);
+        }
+      }
+    }
+
+  }
+
+  public static class drop_or_rename_sentry_privileges_args implements org.apache.thrift.TBase<drop_or_rename_sentry_privileges_args, drop_or_rename_sentry_privileges_args._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("drop_or_rename_sentry_privileges_args");
+
+    private static final org.apache.thrift.protocol.TField REQUEST_FIELD_DESC = new org.apache.thrift.protocol.TField("request", org.apache.thrift.protocol.TType.STRUCT, (short)1);
+
+    private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
+    static {
+      schemes.put(StandardScheme.class, new drop_or_rename_sentry_privileges_argsStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new drop_or_rename_sentry_privileges_argsTupleSchemeFactory());
+    }
+
+    private TDropOrRenamePrivilegesRequest request; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      REQUEST((short)1, "request");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 1: // REQUEST
+            return REQUEST;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.REQUEST, new org.apache.thrift.meta_data.FieldMetaData("request", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TDropOrRenamePrivilegesRequest.class)));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(drop_or_rename_sentry_privileges_args.class, metaDataMap);
+    }
+
+    public drop_or_rename_sentry_privileges_args() {
+    }
+
+    public drop_or_rename_sentry_privileges_args(
+      TDropOrRenamePrivilegesRequest request)
+    {
+      this();
+      this.request = request;
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public drop_or_rename_sentry_privileges_args(drop_or_rename_sentry_privileges_args other) {
+      if (other.isSetRequest()) {
+        this.request = new TDropOrRenamePrivilegesRequest(other.request);
+      }
+    }
+
+    public drop_or_rename_sentry_privileges_args deepCopy() {
+      return new drop_or_rename_sentry_privileges_args(this);
+    }
+
+    @Override
+    public void clear() {
+      this.request = null;
+    }
+
+    public TDropOrRenamePrivilegesRequest getRequest() {
+      return this.request;
+    }
+
+    public void setRequest(TDropOrRenamePrivilegesRequest request) {
+      this.request = request;
+    }
+
+    public void unsetRequest() {
+      this.request = null;
+    }
+
+    /** Returns true if field request is set (has been assigned a value) and false otherwise */
+    public boolean isSetRequest() {
+      return this.request != null;
+    }
+
+    public void setRequestIsSet(boolean value) {
+      if (!value) {
+        this.request = null;
+      }
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case REQUEST:
+        if (value == null) {
+          unsetRequest();
+        } else {
+          setRequest((TDropOrRenamePrivilegesRequest)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case REQUEST:
+        return getRequest();
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case REQUEST:
+        return isSetRequest();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof drop_or_rename_sentry_privileges_args)
+        return this.equals((drop_or_rename_sentry_privileges_args)that);
+      return false;
+    }
+
+    public boolean equals(drop_or_rename_sentry_privileges_args that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_request = true && this.isSetRequest();
+      boolean that_present_request = true && that.isSetRequest();
+      if (this_present_request || that_present_request) {
+        if (!(this_present_request && that_present_request))
+          return false;
+        if (!this.request.equals(that.request))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      HashCodeBuilder builder = new HashCodeBuilder();
+
+      boolean present_request = true && (isSetRequest());
+      builder.append(present_request);
+      if (present_request)
+        builder.append(request);
+
+      return builder.toHashCode();
+    }
+
+    public int compareTo(drop_or_rename_sentry_privileges_args other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      drop_or_rename_sentry_privileges_args typedOther = (drop_or_rename_sentry_privileges_args)other;
+
+      lastComparison = Boolean.valueOf(isSetRequest()).compareTo(typedOther.isSetRequest());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (isSetRequest()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.request, typedOther.request);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      schemes.get(iprot.getScheme()).getScheme().read(iprot, this);
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      schemes.get(oprot.getScheme()).getScheme().write(oprot, this);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("drop_or_rename_sentry_privileges_args(");
+      boolean first = true;
+
+      sb.append("request:");
+      if (this.request == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.request);
+      }
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+      // check for sub-struct validity
+      if (request != null) {
+        request.validate();
+      }
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private static class drop_or_rename_sentry_privileges_argsStandardSchemeFactory implements SchemeFactory {
+      public drop_or_rename_sentry_privileges_argsStandardScheme getScheme() {
+        return new drop_or_rename_sentry_privileges_argsStandardScheme();
+      }
+    }
+
+    private static class drop_or_rename_sentry_privileges_argsStandardScheme extends StandardScheme<drop_or_rename_sentry_privileges_args> {
+
+      public void read(org.apache.thrift.protocol.TProtocol iprot, drop_or_rename_sentry_privileges_args struct) throws org.apache.thrift.TException {
+        org.apache.thrift.protocol.TField schemeField;
+        iprot.readStructBegin();
+        while (true)
+        {
+          schemeField = iprot.readFieldBegin();
+          if (schemeField.type == org.apache.thrift.protocol.TType.STOP) { 
+            break;
+          }
+          switch (schemeField.id) {
+            case 1: // REQUEST
+              if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
+                struct.request = new TDropOrRenamePrivilegesRequest();
+                struct.request.read(iprot);
+                struct.setRequestIsSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            default:
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+          }
+          iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+        struct.validate();
+      }
+
+      public void write(org.apache.thrift.protocol.TProtocol oprot, drop_or_rename_sentry_privileges_args struct) throws org.apache.thrift.TException {
+        struct.validate();
+
+        oprot.writeStructBegin(STRUCT_DESC);
+        if (struct.request != null) {
+          oprot.writeFieldBegin(REQUEST_FIELD_DESC);
+          struct.request.write(oprot);
+          oprot.writeFieldEnd();
+        }
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+      }
+
+    }
+
+    private static class drop_or_rename_sentry_privileges_argsTupleSchemeFactory implements SchemeFactory {
+      public drop_or_rename_sentry_privileges_argsTupleScheme getScheme() {
+        return new drop_or_rename_sentry_privileges_argsTupleScheme();
+      }
+    }
+
+    private static class drop_or_rename_sentry_privileges_argsTupleScheme extends TupleScheme<drop_or_rename_sentry_privileges_args> {
+
+      @Override
+      public void write(org.apache.thrift.protocol.TProtocol prot, drop_or_rename_sentry_privileges_args struct) throws org.apache.thrift.TException {
+        TTupleProtocol oprot = (TTupleProtocol) prot;
+        BitSet optionals = new BitSet();
+        if (struct.isSetRequest()) {
+          optionals.set(0);
+        }
+        oprot.writeBitSet(optionals, 1);
+        if (struct.isSetRequest()) {
+          struct.request.write(oprot);
+        }
+      }
+
+      @Override
+      public void read(org.apache.thrift.protocol.TProtocol prot, drop_or_rename_sentry_privileges_args struct) throws org.apache.thrift.TException {
+        TTupleProtocol iprot = (TTupleProtocol) prot;
+        BitSet incoming = iprot.readBitSet(1);
+        if (incoming.get(0)) {
+          struct.request = new TDropOrRenamePrivilegesRequest();
+          struct.request.read(iprot);
+          struct.setRequestIsSet(true);
+        }
+      }
+    }
+
+  }
+
+  public static class drop_or_rename_sentry_privileges_result implements org.apache.thrift.TBase<drop_or_rename_sentry_privileges_result, drop_or_rename_sentry_privileges_result._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("drop_or_rename_sentry_privileges_result");
+
+    private static final org.apache.thrift.protocol.TField SUCCESS_FIELD_DESC = new org.apache.thrift.protocol.TField("success", org.apache.thrift.protocol.TType.STRUCT, (short)0);
+
+    private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
+    static {
+      schemes.put(StandardScheme.class, new drop_or_rename_sentry_privileges_resultStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new drop_or_rename_sentry_privileges_resultTupleSchemeFactory());
+    }
+
+    private TDropOrRenamePrivilegesResponse success; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      SUCCESS((short)0, "success");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 0: // SUCCESS
+            return SUCCESS;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.SUCCESS, new org.apache.thrift.meta_data.FieldMetaData("success", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TDropOrRenamePrivilegesResponse.class)));
       metaDataMap = Collections.unmodifiableMap(tmpMap);
-      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(rename_sentry_privilege_result.class, metaDataMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(drop_or_rename_sentry_privileges_result.class, metaDataMap);
     }
 
-    public rename_sentry_privilege_result() {
+    public drop_or_rename_sentry_privileges_result() {
     }
 
-    public rename_sentry_privilege_result(
-      TRenamePrivilegesResponse success)
+    public drop_or_rename_sentry_privileges_result(
+      TDropOrRenamePrivilegesResponse success)
     {
       this();
       this.success = success;
@@ -9014,14 +10626,14 @@ public class SentryPolicyService {
     /**
      * Performs a deep copy on <i>other</i>.
      */
-    public rename_sentry_privilege_result(rename_sentry_privilege_result other) {
+    public drop_or_rename_sentry_privileges_result(drop_or_rename_sentry_privileges_result other) {
       if (other.isSetSuccess()) {
-        this.success = new TRenamePrivilegesResponse(other.success);
+        this.success = new TDropOrRenamePrivilegesResponse(other.success);
       }
     }
 
-    public rename_sentry_privilege_result deepCopy() {
-      return new rename_sentry_privilege_result(this);
+    public drop_or_rename_sentry_privileges_result deepCopy() {
+      return new drop_or_rename_sentry_privileges_result(this);
     }
 
     @Override
@@ -9029,11 +10641,11 @@ public class SentryPolicyService {
       this.success = null;
     }
 
-    public TRenamePrivilegesResponse getSuccess() {
+    public TDropOrRenamePrivilegesResponse getSuccess() {
       return this.success;
     }
 
-    public void setSuccess(TRenamePrivilegesResponse success) {
+    public void setSuccess(TDropOrRenamePrivilegesResponse success) {
       this.success = success;
     }
 
@@ -9058,7 +10670,7 @@ public class SentryPolicyService {
         if (value == null) {
           unsetSuccess();
         } else {
-          setSuccess((TRenamePrivilegesResponse)value);
+          setSuccess((TDropOrRenamePrivilegesResponse)value);
         }
         break;
 
@@ -9091,12 +10703,12 @@ public class SentryPolicyService {
     public boolean equals(Object that) {
       if (that == null)
         return false;
-      if (that instanceof rename_sentry_privilege_result)
-        return this.equals((rename_sentry_privilege_result)that);
+      if (that instanceof drop_or_rename_sentry_privileges_result)
+        return this.equals((drop_or_rename_sentry_privileges_result)that);
       return false;
     }
 
-    public boolean equals(rename_sentry_privilege_result that) {
+    public boolean equals(drop_or_rename_sentry_privileges_result that) {
       if (that == null)
         return false;
 
@@ -9124,13 +10736,13 @@ public class SentryPolicyService {
       return builder.toHashCode();
     }
 
-    public int compareTo(rename_sentry_privilege_result other) {
+    public int compareTo(drop_or_rename_sentry_privileges_result other) {
       if (!getClass().equals(other.getClass())) {
         return getClass().getName().compareTo(other.getClass().getName());
       }
 
       int lastComparison = 0;
-      rename_sentry_privilege_result typedOther = (rename_sentry_privilege_result)other;
+      drop_or_rename_sentry_privileges_result typedOther = (drop_or_rename_sentry_privileges_result)other;
 
       lastComparison = Boolean.valueOf(isSetSuccess()).compareTo(typedOther.isSetSuccess());
       if (lastComparison != 0) {
@@ -9159,7 +10771,7 @@ public class SentryPolicyService {
 
     @Override
     public String toString() {
-      StringBuilder sb = new StringBuilder("rename_sentry_privilege_result(");
+      StringBuilder sb = new StringBuilder("drop_or_rename_sentry_privileges_result(");
       boolean first = true;
 
       sb.append("success:");
@@ -9197,15 +10809,15 @@ public class SentryPolicyService {
       }
     }
 
-    private static class rename_sentry_privilege_resultStandardSchemeFactory implements SchemeFactory {
-      public rename_sentry_privilege_resultStandardScheme getScheme() {
-        return new rename_sentry_privilege_resultStandardScheme();
+    private static class drop_or_rename_sentry_privileges_resultStandardSchemeFactory implements SchemeFactory {
+      public drop_or_rename_sentry_privileges_resultStandardScheme getScheme() {
+        return new drop_or_rename_sentry_privileges_resultStandardScheme();
       }
     }
 
-    private static class rename_sentry_privilege_resultStandardScheme extends StandardScheme<rename_sentry_privilege_result> {
+    private static class drop_or_rename_sentry_privileges_resultStandardScheme extends StandardScheme<drop_or_rename_sentry_privileges_result> {
 
-      public void read(org.apache.thrift.protocol.TProtocol iprot, rename_sentry_privilege_result struct) throws org.apache.thrift.TException {
+      public void read(org.apache.thrift.protocol.TProtocol iprot, drop_or_rename_sentry_privileges_result struct) throws org.apache.thrift.TException {
         org.apache.thrift.protocol.TField schemeField;
         iprot.readStructBegin();
         while (true)
@@ -9217,7 +10829,7 @@ public class SentryPolicyService {
           switch (schemeField.id) {
             case 0: // SUCCESS
               if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
-                struct.success = new TRenamePrivilegesResponse();
+                struct.success = new TDropOrRenamePrivilegesResponse();
                 struct.success.read(iprot);
                 struct.setSuccessIsSet(true);
               } else { 
@@ -9233,7 +10845,7 @@ public class SentryPolicyService {
         struct.validate();
       }
 
-      public void write(org.apache.thrift.protocol.TProtocol oprot, rename_sentry_privilege_result struct) throws org.apache.thrift.TException {
+      public void write(org.apache.thrift.protocol.TProtocol oprot, drop_or_rename_sentry_privileges_result struct) throws org.apache.thrift.TException {
         struct.validate();
 
         oprot.writeStructBegin(STRUCT_DESC);
@@ -9248,16 +10860,16 @@ public class SentryPolicyService {
 
     }
 
-    private static class rename_sentry_privilege_resultTupleSchemeFactory implements SchemeFactory {
-      public rename_sentry_privilege_resultTupleScheme getScheme() {
-        return new rename_sentry_privilege_resultTupleScheme();
+    private static class drop_or_rename_sentry_privileges_resultTupleSchemeFactory implements SchemeFactory {
+      public drop_or_rename_sentry_privileges_resultTupleScheme getScheme() {
+        return new drop_or_rename_sentry_privileges_resultTupleScheme();
       }
     }
 
-    private static class rename_sentry_privilege_resultTupleScheme extends TupleScheme<rename_sentry_privilege_result> {
+    private static class drop_or_rename_sentry_privileges_resultTupleScheme extends TupleScheme<drop_or_rename_sentry_privileges_result> {
 
       @Override
-      public void write(org.apache.thrift.protocol.TProtocol prot, rename_sentry_privilege_result struct) throws org.apache.thrift.TException {
+      public void write(org.apache.thrift.protocol.TProtocol prot, drop_or_rename_sentry_privileges_result struct) throws org.apache.thrift.TException {
         TTupleProtocol oprot = (TTupleProtocol) prot;
         BitSet optionals = new BitSet();
         if (struct.isSetSuccess()) {
@@ -9270,11 +10882,11 @@ public class SentryPolicyService {
       }
 
       @Override
-      public void read(org.apache.thrift.protocol.TProtocol prot, rename_sentry_privilege_result struct) throws org.apache.thrift.TException {
+      public void read(org.apache.thrift.protocol.TProtocol prot, drop_or_rename_sentry_privileges_result struct) throws org.apache.thrift.TException {
         TTupleProtocol iprot = (TTupleProtocol) prot;
         BitSet incoming = iprot.readBitSet(1);
         if (incoming.get(0)) {
-          struct.success = new TRenamePrivilegesResponse();
+          struct.success = new TDropOrRenamePrivilegesResponse();
           struct.success.read(iprot);
           struct.setSuccessIsSet(true);
         }
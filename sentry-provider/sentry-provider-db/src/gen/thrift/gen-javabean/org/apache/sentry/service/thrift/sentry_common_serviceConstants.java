@@ -51,4 +51,6 @@ public class sentry_common_serviceConstants {
 
   public static final int TSENTRY_STATUS_THRIFT_VERSION_MISMATCH = 6;
 
+  public static final int TSENTRY_STATUS_THROTTLED = 7;
+
 }
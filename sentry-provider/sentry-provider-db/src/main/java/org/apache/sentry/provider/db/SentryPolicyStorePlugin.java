@@ -25,6 +25,7 @@ import org.apache.sentry.provider.db.service.thrift.TAlterSentryRoleAddGroupsReq
 import org.apache.sentry.provider.db.service.thrift.TAlterSentryRoleDeleteGroupsRequest;
 import org.apache.sentry.provider.db.service.thrift.TAlterSentryRoleGrantPrivilegeRequest;
 import org.apache.sentry.provider.db.service.thrift.TAlterSentryRoleRevokePrivilegeRequest;
+import org.apache.sentry.provider.db.service.thrift.TDropOrRenamePrivilegesRequest;
 import org.apache.sentry.provider.db.service.thrift.TDropPrivilegesRequest;
 import org.apache.sentry.provider.db.service.thrift.TDropSentryRoleRequest;
 import org.apache.sentry.provider.db.service.thrift.TRenamePrivilegesRequest;
@@ -57,4 +58,6 @@ public interface SentryPolicyStorePlugin {
 
   public void onDropSentryPrivilege(TDropPrivilegesRequest request) throws SentryPluginException;
 
+  public void onDropOrRenameSentryPrivileges(TDropOrRenamePrivilegesRequest request) throws SentryPluginException;
+
 }
@@ -40,6 +40,7 @@ import org.apache.sentry.provider.db.service.model.MSentryGroup;
 import org.apache.sentry.provider.db.service.model.MSentryRole;
 import org.apache.sentry.provider.db.service.persistent.CommitContext;
 import org.apache.sentry.provider.db.service.persistent.SentryStore;
+import org.apache.sentry.provider.db.service.persistent.TransactionRetrier;
 import org.apache.sentry.provider.db.service.thrift.SentryConfigurationException;
 import org.apache.sentry.provider.db.service.thrift.SentryPolicyStoreProcessor;
 import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
@@ -111,32 +112,40 @@ public class DelegateSentryStore implements SentryStoreLayer {
   @Override
   public CommitContext dropRole(String component, String role, String requestor)
       throws SentryNoSuchObjectException {
-    boolean rollbackTransaction = true;
-    PersistenceManager pm = null;
-    role = toTrimedLower(role);
-    try {
-      pm = openTransaction();
-      Query query = pm.newQuery(MSentryRole.class);
-      query.setFilter("this.roleName == t");
-      query.declareParameters("java.lang.String t");
-      query.setUnique(true);
-      MSentryRole sentryRole = (MSentryRole) query.execute(role);
-      if (sentryRole == null) {
-        throw new SentryNoSuchObjectException("Role " + role);
-      } else {
-        pm.retrieve(sentryRole);
-        sentryRole.removeGMPrivileges();
-        sentryRole.removePrivileges();
-        pm.deletePersistent(sentryRole);
-      }
-      CommitContext commit = commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commit;
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+    final String trimmedRole = toTrimedLower(role);
+    return delegate.retryOnConflict(
+        new TransactionRetrier.Attempt<CommitContext, SentryNoSuchObjectException>() {
+      @Override
+      public CommitContext run() throws SentryNoSuchObjectException {
+        boolean rollbackTransaction = true;
+        PersistenceManager pm = null;
+        try {
+          pm = openTransaction();
+          Query query = pm.newQuery(MSentryRole.class);
+          query.setFilter("this.roleName == t");
+          query.declareParameters("java.lang.String t");
+          query.setUnique(true);
+          MSentryRole sentryRole = (MSentryRole) query.execute(trimmedRole);
+          if (sentryRole == null) {
+            throw new SentryNoSuchObjectException("Role " + trimmedRole);
+          } else {
+            pm.getFetchPlan().addGroup(MSentryRole.PRIVILEGES_FETCH_GROUP);
+            pm.getFetchPlan().addGroup(MSentryRole.GM_PRIVILEGES_FETCH_GROUP);
+            pm.retrieve(sentryRole);
+            sentryRole.removeGMPrivileges();
+            sentryRole.removePrivileges();
+            pm.deletePersistent(sentryRole);
+          }
+          CommitContext commit = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commit;
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
       }
-    }
+    });
   }
 
   @Override
@@ -154,70 +163,82 @@ public class DelegateSentryStore implements SentryStoreLayer {
 
   @Override
   public CommitContext alterRoleGrantPrivilege(String component, String role,
-      PrivilegeObject privilege, String grantorPrincipal)
+      final PrivilegeObject privilege, final String grantorPrincipal)
       throws SentryUserException {
-    role = toTrimedLower(role);
-    PersistenceManager pm = null;
-    boolean rollbackTransaction = true;
-    try{
-      pm = openTransaction();
-      MSentryRole mRole = getRole(role, pm);
-      if (mRole == null) {
-        throw new SentryNoSuchObjectException("role:" + role + " isn't exist");
-      }
-      /**
-       * check with grant option
-       */
-      grantOptionCheck(privilege, grantorPrincipal, pm);
-
-      privilegeOperator.grantPrivilege(privilege, mRole, pm);
-
-      CommitContext commitContext = delegate.commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commitContext;
-
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+    final String trimmedRole = toTrimedLower(role);
+    return delegate.retryOnConflict(
+        new TransactionRetrier.Attempt<CommitContext, SentryUserException>() {
+      @Override
+      public CommitContext run() throws SentryUserException {
+        PersistenceManager pm = null;
+        boolean rollbackTransaction = true;
+        try{
+          pm = openTransaction();
+          MSentryRole mRole = getRole(trimmedRole, pm);
+          if (mRole == null) {
+            throw new SentryNoSuchObjectException("role:" + trimmedRole + " isn't exist");
+          }
+          /**
+           * check with grant option
+           */
+          grantOptionCheck(privilege, grantorPrincipal, pm);
+
+          privilegeOperator.grantPrivilege(privilege, mRole, pm);
+
+          CommitContext commitContext = delegate.commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commitContext;
+
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
       }
-    }
+    });
   }
 
   @Override
   public CommitContext alterRoleRevokePrivilege(String component,
-      String role, PrivilegeObject privilege, String grantorPrincipal)
+      String role, final PrivilegeObject privilege, final String grantorPrincipal)
       throws SentryUserException {
-    role = toTrimedLower(role);
-    PersistenceManager pm = null;
-    boolean rollbackTransaction = true;
-    try{
-      pm = openTransaction();
-      MSentryRole mRole = getRole(role, pm);
-      if (mRole == null) {
-        throw new SentryNoSuchObjectException("role:" + role + " isn't exist");
-      }
-      /**
-       * check with grant option
-       */
-      grantOptionCheck(privilege, grantorPrincipal, pm);
-
-      privilegeOperator.revokePrivilege(privilege, mRole, pm);
-
-      CommitContext commitContext = commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commitContext;
-
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+    final String trimmedRole = toTrimedLower(role);
+    return delegate.retryOnConflict(
+        new TransactionRetrier.Attempt<CommitContext, SentryUserException>() {
+      @Override
+      public CommitContext run() throws SentryUserException {
+        PersistenceManager pm = null;
+        boolean rollbackTransaction = true;
+        try{
+          pm = openTransaction();
+          MSentryRole mRole = getRole(trimmedRole, pm);
+          if (mRole == null) {
+            throw new SentryNoSuchObjectException("role:" + trimmedRole + " isn't exist");
+          }
+          /**
+           * check with grant option
+           */
+          grantOptionCheck(privilege, grantorPrincipal, pm);
+
+          privilegeOperator.revokePrivilege(privilege, mRole, pm);
+
+          CommitContext commitContext = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commitContext;
+
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
       }
-    }
+    });
   }
 
   @Override
-  public CommitContext renamePrivilege(String component, String service,
-      List<? extends Authorizable> oldAuthorizables,
-      List<? extends Authorizable> newAuthorizables, String requestor)
+  public CommitContext renamePrivilege(final String component, final String service,
+      final List<? extends Authorizable> oldAuthorizables,
+      final List<? extends Authorizable> newAuthorizables, final String requestor)
       throws SentryUserException {
     Preconditions.checkNotNull(component);
     Preconditions.checkNotNull(service);
@@ -231,44 +252,56 @@ public class DelegateSentryStore implements SentryStoreLayer {
               + "newAuthorizables:" + Arrays.toString(newAuthorizables.toArray()));
     }
 
-    PersistenceManager pm = null;
-    boolean rollbackTransaction = true;
-    try {
-      pm = openTransaction();
-
-      privilegeOperator.renamePrivilege(toTrimedLower(component), toTrimedLower(service),
-          oldAuthorizables, newAuthorizables, requestor, pm);
-
-      CommitContext commitContext = commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commitContext;
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+    return delegate.retryOnConflict(
+        new TransactionRetrier.Attempt<CommitContext, SentryUserException>() {
+      @Override
+      public CommitContext run() throws SentryUserException {
+        PersistenceManager pm = null;
+        boolean rollbackTransaction = true;
+        try {
+          pm = openTransaction();
+
+          privilegeOperator.renamePrivilege(toTrimedLower(component), toTrimedLower(service),
+              oldAuthorizables, newAuthorizables, requestor, pm);
+
+          CommitContext commitContext = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commitContext;
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
       }
-    }
+    });
   }
 
   @Override
   public CommitContext dropPrivilege(String component,
-      PrivilegeObject privilege, String requestor) throws SentryUserException {
+      final PrivilegeObject privilege, String requestor) throws SentryUserException {
     Preconditions.checkNotNull(requestor);
 
-    PersistenceManager pm = null;
-    boolean rollbackTransaction = true;
-    try {
-      pm = openTransaction();
-
-      privilegeOperator.dropPrivilege(privilege, pm);
-
-      CommitContext commitContext = commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commitContext;
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+    return delegate.retryOnConflict(
+        new TransactionRetrier.Attempt<CommitContext, SentryUserException>() {
+      @Override
+      public CommitContext run() throws SentryUserException {
+        PersistenceManager pm = null;
+        boolean rollbackTransaction = true;
+        try {
+          pm = openTransaction();
+
+          privilegeOperator.dropPrivilege(privilege, pm);
+
+          CommitContext commitContext = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commitContext;
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
       }
-    }
+    });
   }
 
   /**
@@ -309,9 +342,14 @@ public class DelegateSentryStore implements SentryStoreLayer {
     if (groups == null) {
       return roles;
     }
-    for (TSentryRole tSentryRole : delegate.getTSentryRolesByGroupName(groups, true)) {
-      roles.add(tSentryRole.getRoleName());
+    if (groups.contains(null)) {
+      // a null group name lists the roles of all groups
+      for (TSentryRole tSentryRole : delegate.getTSentryRolesByGroupName(groups, true)) {
+        roles.add(tSentryRole.getRoleName());
+      }
+      return roles;
     }
+    roles.addAll(delegate.getRoleNamesForGroups(groups));
     return roles;
   }
 
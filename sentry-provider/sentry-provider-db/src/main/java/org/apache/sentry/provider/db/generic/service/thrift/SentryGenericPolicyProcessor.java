@@ -35,10 +35,12 @@ import org.apache.sentry.provider.db.SentryAlreadyExistsException;
 import org.apache.sentry.provider.db.SentryInvalidInputException;
 import org.apache.sentry.provider.db.SentryNoSuchObjectException;
 import org.apache.sentry.provider.db.SentryThriftAPIMismatchException;
+import org.apache.sentry.provider.db.SentryThrottledException;
 import org.apache.sentry.provider.db.generic.service.persistent.PrivilegeObject;
 import org.apache.sentry.provider.db.generic.service.persistent.SentryStoreLayer;
 import org.apache.sentry.provider.db.generic.service.persistent.PrivilegeObject.Builder;
 import org.apache.sentry.provider.db.service.persistent.CommitContext;
+import org.apache.sentry.provider.db.service.thrift.AdmissionController;
 import org.apache.sentry.provider.db.service.thrift.PolicyStoreConstants;
 import org.apache.sentry.provider.db.service.thrift.SentryConfigurationException;
 import org.apache.sentry.provider.db.service.thrift.SentryPolicyStoreProcessor;
@@ -64,6 +66,7 @@ public class SentryGenericPolicyProcessor implements SentryGenericPolicyService.
   private final ImmutableSet<String> adminGroups;
   private final SentryStoreLayer store;
   private final NotificationHandlerInvoker handerInvoker;
+  private final AdmissionController admissionController;
 
   public static final String SENTRY_GENERIC_SERVICE_NAME = "SentryGenericPolicyService";
 
@@ -73,6 +76,7 @@ public class SentryGenericPolicyProcessor implements SentryGenericPolicyService.
     this.conf = conf;
     adminGroups = ImmutableSet.copyOf(toTrimedLower(Sets.newHashSet(conf.getStrings(
         ServerConfig.ADMIN_GROUPS, new String[]{}))));
+    admissionController = new AdmissionController(SENTRY_GENERIC_SERVICE_NAME, conf);
   }
 
   @VisibleForTesting
@@ -82,6 +86,7 @@ public class SentryGenericPolicyProcessor implements SentryGenericPolicyService.
     this.conf = conf;
     adminGroups = ImmutableSet.copyOf(toTrimedLower(Sets.newHashSet(conf.getStrings(
         ServerConfig.ADMIN_GROUPS, new String[]{}))));
+    admissionController = new AdmissionController(SENTRY_GENERIC_SERVICE_NAME, conf);
   }
 
   private void authorize(String requestorUser, Set<String> requestorGroups)
@@ -172,8 +177,12 @@ public class SentryGenericPolicyProcessor implements SentryGenericPolicyService.
 
   private <T> Response<T> requestHandle(RequestHandler<T> handler) {
     Response<T> response = new Response<T>();
+    AdmissionController.Permit permit = null;
     try {
+      permit = admissionController.admit();
       response = handler.handle();
+    } catch (SentryThrottledException e) {
+      response.status = Status.Throttled(e.getMessage(), e);
     } catch (SentryAccessDeniedException e) {
       LOGGER.error(e.getMessage(), e);
       response.status = Status.AccessDenied(e.getMessage(), e);
@@ -194,6 +203,8 @@ public class SentryGenericPolicyProcessor implements SentryGenericPolicyService.
       String msg = "Unknown error:" + e.getMessage();
       LOGGER.error(msg, e);
       response.status = Status.RuntimeError(msg, e);
+    } finally {
+      admissionController.release(permit);
     }
     return response;
   }
@@ -33,7 +33,8 @@ public class SentryGenericPolicyProcessorFactory extends ProcessorFactory {
   @Override
   public boolean register(TMultiplexedProcessor multiplexedProcessor) throws Exception {
     SentryGenericPolicyProcessor processHandler = new SentryGenericPolicyProcessor(conf);
-    TProcessor processor = new SentryGenericPolicyService.Processor<SentryGenericPolicyService.Iface>(processHandler);
+    TProcessor processor =
+      new SentryGenericPolicyProcessorWrapper<SentryGenericPolicyService.Iface>(processHandler);
     multiplexedProcessor.registerProcessor(SentryGenericPolicyProcessor.SENTRY_GENERIC_SERVICE_NAME, processor);
     return true;
   }
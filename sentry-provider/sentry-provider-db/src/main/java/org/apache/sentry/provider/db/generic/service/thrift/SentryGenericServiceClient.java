@@ -43,7 +43,10 @@ import org.apache.sentry.service.thrift.Status;
 import org.apache.sentry.service.thrift.sentry_common_serviceConstants;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
 import org.apache.thrift.protocol.TMultiplexedProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TSaslClientTransport;
 import org.apache.thrift.transport.TSocket;
 import org.apache.thrift.transport.TTransport;
@@ -127,6 +130,12 @@ public class SentryGenericServiceClient {
         conf.get(ServerConfig.SECURITY_MODE, ServerConfig.SECURITY_MODE_KERBEROS).trim());
     transport = new TSocket(serverAddress.getHostName(),
         serverAddress.getPort(), connectionTimeout);
+    // a kerberos server always runs the unframed thread pool server
+    if (!kerberos && conf.getBoolean(ClientConfig.SERVER_RPC_FRAMED_TRANSPORT,
+        ClientConfig.SERVER_RPC_FRAMED_TRANSPORT_DEFAULT)) {
+      transport = new TFramedTransport(transport, conf.getInt(
+          ClientConfig.SERVER_RPC_MAX_FRAME_SIZE, ClientConfig.SERVER_RPC_MAX_FRAME_SIZE_DEFAULT));
+    }
     if (kerberos) {
       String serverPrincipal = Preconditions.checkNotNull(conf.get(ServerConfig.PRINCIPAL), ServerConfig.PRINCIPAL + " is required");
 
@@ -151,9 +160,15 @@ public class SentryGenericServiceClient {
       throw new IOException("Transport exception while opening transport: " + e.getMessage(), e);
     }
     LOGGER.debug("Successfully opened transport: " + transport + " to " + serverAddress);
+    TProtocol tProtocol = null;
+    if (conf.getBoolean(ClientConfig.USE_COMPACT_TRANSPORT,
+        ClientConfig.USE_COMPACT_TRANSPORT_DEFAULT)) {
+      tProtocol = new TCompactProtocol(transport);
+    } else {
+      tProtocol = new TBinaryProtocol(transport);
+    }
     TMultiplexedProtocol protocol = new TMultiplexedProtocol(
-      new TBinaryProtocol(transport),
-      SentryGenericPolicyProcessor.SENTRY_GENERIC_SERVICE_NAME);
+      tProtocol, SentryGenericPolicyProcessor.SENTRY_GENERIC_SERVICE_NAME);
     client = new SentryGenericPolicyService.Client(protocol);
     LOGGER.debug("Successfully created client");
   }
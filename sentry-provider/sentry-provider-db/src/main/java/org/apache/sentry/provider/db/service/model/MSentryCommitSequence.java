@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.model;
+
+import javax.jdo.annotations.PersistenceCapable;
+
+/**
+ * Counter shared by all Sentry servers using the same database. Every
+ * update commit increments the first one, so a server can tell that another
+ * one changed the policy since it last looked; the others hand out ids in
+ * commit order.
+ */
+@PersistenceCapable
+public class MSentryCommitSequence {
+  private long sequenceID;
+  private long commitSequence;
+
+  public MSentryCommitSequence() {
+  }
+
+  public MSentryCommitSequence(long sequenceID, long commitSequence) {
+    this.sequenceID = sequenceID;
+    this.commitSequence = commitSequence;
+  }
+
+  public long getSequenceID() {
+    return sequenceID;
+  }
+
+  public long getCommitSequence() {
+    return commitSequence;
+  }
+
+  @Override
+  public String toString() {
+    return "MSentryCommitSequence [sequenceID=" + sequenceID
+        + ", commitSequence=" + commitSequence + "]";
+  }
+}
@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.model;
+
+import javax.jdo.annotations.PersistenceCapable;
+
+/**
+ * Database backed permission change log entry. Each entry holds one
+ * serialized permission delta together with the id of the change, which
+ * is handed out in commit order.
+ */
+@PersistenceCapable
+public class MSentryPermChange {
+  private long changeID;
+  private byte[] permChange;
+  private long createTimeMs;
+
+  public MSentryPermChange() {
+  }
+
+  public MSentryPermChange(long changeID, byte[] permChange, long createTimeMs) {
+    this.changeID = changeID;
+    this.permChange = permChange;
+    this.createTimeMs = createTimeMs;
+  }
+
+  public long getChangeID() {
+    return changeID;
+  }
+
+  public byte[] getPermChange() {
+    return permChange;
+  }
+
+  public long getCreateTimeMs() {
+    return createTimeMs;
+  }
+
+  @Override
+  public String toString() {
+    return "MSentryPermChange [changeID=" + changeID + ", createTimeMs="
+        + createTimeMs + "]";
+  }
+}
@@ -33,6 +33,11 @@ import com.google.common.collect.ImmutableSet;
 @PersistenceCapable
 public class MSentryRole {
 
+  // fetch groups declared in package.jdo; the privilege collections are not
+  // part of the default fetch group and are only loaded on demand
+  public static final String PRIVILEGES_FETCH_GROUP = "privileges";
+  public static final String GM_PRIVILEGES_FETCH_GROUP = "gmPrivileges";
+
   private String roleName;
   // set of privileges granted to this role
   private Set<MSentryPrivilege> privileges;
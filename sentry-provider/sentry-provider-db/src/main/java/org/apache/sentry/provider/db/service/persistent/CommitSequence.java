@@ -0,0 +1,239 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jdo.JDODataStoreException;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Query;
+import javax.jdo.datastore.JDOConnection;
+
+import org.apache.sentry.provider.db.service.model.MSentryCommitSequence;
+
+/**
+ * The row of SENTRY_COMMIT_SEQUENCE which every update commit increments.
+ * The row stays locked until the committing transaction ends, so its value
+ * counts the commits of all the servers sharing the database in commit
+ * order, and tells how far a copy of the database, such as a read replica,
+ * has come. The other rows of the table hand out ids the same way.
+ *
+ * With HA the sequence is read back at most once every syncIntervalMs, and
+ * the {@link Listener} is told when the other servers committed since.
+ */
+class CommitSequence {
+
+  private static final long COMMIT_SEQUENCE_ID = 1;
+  // hands out the ids of the permission change log
+  static final long PERM_CHANGE_SEQUENCE_ID = 2;
+  // user object kept on the persistence manager of an update commit
+  private static final String COMMIT_SEQUENCE_KEY = "sentry.commitSequence";
+
+  /**
+   * Told about the commits of the other servers sharing the database.
+   */
+  interface Listener {
+    void otherServerCommitted();
+  }
+
+  // highest value this server knows to be committed on the primary
+  private final AtomicLong latest = new AtomicLong();
+  // null unless other servers share the database
+  private final Listener listener;
+  private final long syncIntervalMs;
+  private volatile long lastSyncMs = 0;
+
+  /**
+   * @param listener told about the commits of the other servers, null when
+   * no other server shares the database
+   */
+  CommitSequence(PersistenceManagerFactory pmf, Listener listener,
+      long syncIntervalMs) {
+    this.listener = listener;
+    this.syncIntervalMs = syncIntervalMs;
+    latest.set(read(pmf));
+  }
+
+  long getLatest() {
+    return latest.get();
+  }
+
+  /**
+   * Increments the sequence within the transaction of pm, right before an
+   * update commits.
+   */
+  long advance(PersistenceManager pm) {
+    long sequence = advance(pm, COMMIT_SEQUENCE_ID, 1, 0);
+    pm.putUserObject(COMMIT_SEQUENCE_KEY, sequence);
+    return sequence;
+  }
+
+  /**
+   * Called once the transaction of pm committed or rolled back, before pm
+   * is closed.
+   */
+  void transactionClosed(PersistenceManager pm, boolean committed) {
+    Long sequence = (Long) pm.removeUserObject(COMMIT_SEQUENCE_KEY);
+    if (sequence != null && committed) {
+      // skipping a value means another server committed in between
+      observe(sequence, 1);
+    }
+  }
+
+  /**
+   * Reads the sequence with pm, when syncIntervalMs passed since it was
+   * last read.
+   */
+  void sync(PersistenceManager pm) {
+    if (isSyncDue()) {
+      observe(read(pm), 0);
+    }
+  }
+
+  /**
+   * Reads the sequence in a transaction of its own, when syncIntervalMs
+   * passed since it was last read.
+   */
+  void sync(PersistenceManagerFactory pmf) {
+    if (isSyncDue()) {
+      observe(read(pmf), 0);
+    }
+  }
+
+  private boolean isSyncDue() {
+    if (listener == null) {
+      return false;
+    }
+    long now = System.currentTimeMillis();
+    if (now - lastSyncMs < syncIntervalMs) {
+      return false;
+    }
+    lastSyncMs = now;
+    return true;
+  }
+
+  /**
+   * Raises latest to sequence, of which ownCommits were made by this server,
+   * and tells the listener when the others made any of the rest.
+   */
+  private void observe(long sequence, long ownCommits) {
+    long current = latest.get();
+    while (sequence > current && !latest.compareAndSet(current, sequence)) {
+      current = latest.get();
+    }
+    if (listener != null && sequence - current > ownCommits) {
+      listener.otherServerCommitted();
+    }
+  }
+
+  /**
+   * Reads the sequence of the database in a transaction of its own. Also
+   * creates the table when the schema is created implicitly, which the SQL
+   * of {@link #advance(PersistenceManager, long, long, long)} relies on.
+   */
+  static long read(PersistenceManagerFactory pmf) {
+    PersistenceManager pm = pmf.getPersistenceManager();
+    try {
+      pm.currentTransaction().begin();
+      long sequence = read(pm);
+      pm.currentTransaction().commit();
+      return sequence;
+    } finally {
+      if (pm.currentTransaction().isActive()) {
+        pm.currentTransaction().rollback();
+      }
+      pm.close();
+    }
+  }
+
+  /**
+   * Reads the sequence of the database pm is connected to.
+   */
+  static long read(PersistenceManager pm) {
+    Query query = pm.newQuery(MSentryCommitSequence.class);
+    query.setFilter("sequenceID == id");
+    query.declareParameters("long id");
+    query.setResult("max(commitSequence)");
+    Long sequence = (Long) query.execute(COMMIT_SEQUENCE_ID);
+    return sequence == null ? 0 : sequence;
+  }
+
+  /**
+   * Adds count to the row sequenceID within the transaction of pm and
+   * returns the new value. A missing row is created with initialValue +
+   * count. The row stays locked until the transaction ends, so the values
+   * follow the commit order of all servers.
+   */
+  static long advance(PersistenceManager pm, long sequenceID, long count,
+      long initialValue) {
+    JDOConnection jdoConn = pm.getDataStoreConnection();
+    try {
+      Connection conn = (Connection) jdoConn.getNativeConnection();
+      String quote = conn.getMetaData().getIdentifierQuoteString().trim();
+      String table = quote + "SENTRY_COMMIT_SEQUENCE" + quote;
+      String sequence = quote + "COMMIT_SEQUENCE" + quote;
+      String id = quote + "SEQUENCE_ID" + quote;
+      PreparedStatement update = conn.prepareStatement("update " + table + " set "
+          + sequence + " = " + sequence + " + ? where " + id + " = ?");
+      try {
+        update.setLong(1, count);
+        update.setLong(2, sequenceID);
+        if (update.executeUpdate() == 0) {
+          // created by DataNucleus rather than by the schema scripts;
+          // a concurrent insert fails on the key and is retried
+          PreparedStatement insert = conn.prepareStatement("insert into " + table
+              + " (" + id + ", " + sequence + ") values (?, ?)");
+          try {
+            insert.setLong(1, sequenceID);
+            insert.setLong(2, initialValue + count);
+            insert.executeUpdate();
+          } finally {
+            insert.close();
+          }
+          return initialValue + count;
+        }
+      } finally {
+        update.close();
+      }
+      PreparedStatement select = conn.prepareStatement("select " + sequence
+          + " from " + table + " where " + id + " = ?");
+      try {
+        select.setLong(1, sequenceID);
+        ResultSet rs = select.executeQuery();
+        try {
+          rs.next();
+          return rs.getLong(1);
+        } finally {
+          rs.close();
+        }
+      } finally {
+        select.close();
+      }
+    } catch (SQLException e) {
+      throw new JDODataStoreException("Failed to advance sequence " + sequenceID, e);
+    } finally {
+      jdoConn.close();
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+
+import org.apache.sentry.provider.db.service.thrift.SentryMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Keeps the DataNucleus level 2 cache of the primary factory coherent.
+ *
+ * Commits of this server update the cache themselves, but a transaction
+ * which overlapped an update may put what it read before the update into
+ * the cache afterwards; such a transaction evicts the objects it read when
+ * it ends. The commits of the other servers sharing the database under HA
+ * drop the whole cache, once the {@link CommitSequence} tells about them.
+ */
+class Level2CacheSync {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(Level2CacheSync.class);
+
+  // user objects kept on the persistence manager while its transaction runs
+  private static final String OPEN_EPOCH_KEY = "sentry.l2cache.openEpoch";
+  private static final String UPDATE_KEY = "sentry.l2cache.update";
+
+  private final PersistenceManagerFactory pmf;
+  // advanced whenever the cached policy may have changed
+  private final AtomicLong epoch = new AtomicLong();
+  private final AtomicInteger updatesInFlight = new AtomicInteger();
+
+  Level2CacheSync(PersistenceManagerFactory pmf) {
+    this.pmf = pmf;
+  }
+
+  /**
+   * Called right after the transaction of pm began.
+   */
+  void transactionOpened(PersistenceManager pm) {
+    pm.putUserObject(OPEN_EPOCH_KEY, epoch.get());
+  }
+
+  /**
+   * Called right before a transaction which changes roles, groups or
+   * privileges commits.
+   */
+  void beforeUpdateCommit(PersistenceManager pm) {
+    pm.putUserObject(UPDATE_KEY, Boolean.TRUE);
+    updatesInFlight.incrementAndGet();
+    epoch.incrementAndGet();
+  }
+
+  /**
+   * Called once the transaction of pm committed or rolled back, before pm
+   * is closed.
+   */
+  void transactionClosed(PersistenceManager pm, boolean committed) {
+    Long openEpoch = (Long) pm.removeUserObject(OPEN_EPOCH_KEY);
+    boolean update = pm.removeUserObject(UPDATE_KEY) != null;
+    if (openEpoch == null) {
+      return;
+    }
+    long ownSteps = 0;
+    if (update) {
+      epoch.incrementAndGet();
+      updatesInFlight.decrementAndGet();
+      ownSteps = 2;
+    }
+    if (epoch.get() - openEpoch != ownSteps || updatesInFlight.get() > 0) {
+      // another update ran while this transaction read
+      evict(pm);
+    }
+  }
+
+  /**
+   * Called when another server committed.
+   */
+  void otherServerCommitted() {
+    LOGGER.debug("Another server committed, dropping the level 2 cache");
+    epoch.incrementAndGet();
+    pmf.getDataStoreCache().evictAll();
+    SentryMetrics.getInstance().l2CacheEvictions.inc();
+  }
+
+  /**
+   * Evicts the objects pm read, those it may have cached stale.
+   */
+  private void evict(PersistenceManager pm) {
+    List<Object> oids = Lists.newArrayList();
+    for (Object pc : pm.getManagedObjects()) {
+      Object oid = JDOHelper.getObjectId(pc);
+      if (oid != null) {
+        oids.add(oid);
+      }
+    }
+    if (!oids.isEmpty()) {
+      pmf.getDataStoreCache().evictAll(oids);
+      SentryMetrics.getInstance().l2CacheEvictions.inc();
+    }
+  }
+}
@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.jdo.JDOException;
+import javax.jdo.PersistenceManager;
+
+import org.apache.sentry.SentryUserException;
+import org.apache.sentry.provider.db.service.thrift.SentryMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Coalesces grant and revoke updates which arrive concurrently into a single
+ * database transaction. A single committer thread takes the first pending
+ * update, waits at most maxWaitMs for more to arrive, and commits up to
+ * maxBatchSize updates together. Every update still gets its own
+ * {@link CommitContext}. If any update of a batch fails, the batch is rolled
+ * back and its updates are committed one by one, so that each caller sees
+ * exactly the outcome it would have seen without batching. An update which
+ * still loses a lock conflict is handed back to its caller, which replays
+ * it with the backoff of the {@link TransactionRetrier} on its own thread,
+ * so that the committer never sleeps.
+ */
+class PrivilegeGroupCommitter implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(PrivilegeGroupCommitter.class);
+
+  /**
+   * One grant or revoke request, applied inside the committer's transaction.
+   */
+  interface Update {
+    void apply(PersistenceManager pm) throws SentryUserException;
+  }
+
+  private static class PendingUpdate {
+    private final Update update;
+    private final SettableFuture<CommitContext> result = SettableFuture.create();
+
+    PendingUpdate(Update update) {
+      this.update = update;
+    }
+  }
+
+  private final SentryStore sentryStore;
+  private final int maxBatchSize;
+  private final long maxWaitMs;
+  private final BlockingQueue<PendingUpdate> queue = new LinkedBlockingQueue<PendingUpdate>();
+  private volatile boolean exitRequired = false;
+  private Thread committerThread;
+
+  PrivilegeGroupCommitter(SentryStore sentryStore, int maxBatchSize, long maxWaitMs) {
+    this.sentryStore = sentryStore;
+    this.maxBatchSize = Math.max(1, maxBatchSize);
+    this.maxWaitMs = Math.max(0, maxWaitMs);
+  }
+
+  synchronized void start() {
+    committerThread = new Thread(this, "sentry-group-commit");
+    committerThread.setDaemon(true);
+    committerThread.start();
+  }
+
+  synchronized void stop() {
+    exitRequired = true;
+    if (committerThread != null) {
+      committerThread.interrupt();
+      try {
+        committerThread.join();
+      } catch (InterruptedException e) {
+        // Ignore...
+      }
+      committerThread = null;
+    }
+    // fail whatever arrived after the committer stopped
+    PendingUpdate pending;
+    while ((pending = queue.poll()) != null) {
+      pending.result.setException(new IllegalStateException("SentryStore is stopped"));
+    }
+  }
+
+  /**
+   * Queues the update and blocks until the batch holding it is committed.
+   */
+  CommitContext submit(final Update update) throws SentryUserException {
+    if (exitRequired) {
+      throw new IllegalStateException("SentryStore is stopped");
+    }
+    PendingUpdate pending = new PendingUpdate(update);
+    queue.add(pending);
+    if (exitRequired && queue.remove(pending)) {
+      // stop() may already have drained the queue
+      throw new IllegalStateException("SentryStore is stopped");
+    }
+    try {
+      return getResult(pending);
+    } catch (JDOException e) {
+      if (!TransactionRetrier.isConflict(e)) {
+        throw e;
+      }
+      // replayed on this thread, the committer went on with the others
+      return sentryStore.retryOnConflict(
+          new TransactionRetrier.Attempt<CommitContext, SentryUserException>() {
+        @Override
+        public CommitContext run() throws SentryUserException {
+          return commitAlone(update);
+        }
+      });
+    }
+  }
+
+  private CommitContext getResult(PendingUpdate pending) throws SentryUserException {
+    try {
+      return pending.result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SentryUserException("Interrupted while waiting for commit", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SentryUserException) {
+        throw (SentryUserException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new SentryUserException(cause.getMessage(), cause);
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!exitRequired) {
+      List<PendingUpdate> batch = null;
+      Throwable failure = null;
+      try {
+        PendingUpdate first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch = Lists.newArrayList(first);
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        while (batch.size() < maxBatchSize) {
+          queue.drainTo(batch, maxBatchSize - batch.size());
+          long remaining = deadline - System.currentTimeMillis();
+          if (batch.size() >= maxBatchSize || remaining <= 0) {
+            break;
+          }
+          PendingUpdate next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        commit(batch);
+      } catch (InterruptedException e) {
+        // exitRequired is checked by the loop
+        failure = new IllegalStateException("SentryStore is stopped");
+      } catch (Throwable t) {
+        LOGGER.error("Unexpected error in the group committer", t);
+        failure = t;
+      } finally {
+        if (batch != null) {
+          // no caller may wait forever, whatever escaped the commit
+          for (PendingUpdate pending : batch) {
+            pending.result.setException(failure != null ? failure
+                : new IllegalStateException("Update was not committed"));
+          }
+        }
+      }
+    }
+  }
+
+  private void commit(List<PendingUpdate> batch) {
+    SentryMetrics.getInstance().groupCommitBatchSize.update(batch.size());
+    if (batch.size() == 1 || !commitTogether(batch)) {
+      for (PendingUpdate pending : batch) {
+        commitAlone(pending);
+      }
+    }
+  }
+
+  /**
+   * @return false when the batch did not commit, and is to be committed
+   * one by one. A failure once the batch committed fails its updates, which
+   * must not be applied again.
+   */
+  private boolean commitTogether(List<PendingUpdate> batch) {
+    boolean rollbackTransaction = true;
+    PersistenceManager pm = null;
+    AtomicBoolean dbCommitted = new AtomicBoolean(false);
+    try {
+      pm = sentryStore.openTransaction();
+      for (PendingUpdate pending : batch) {
+        pending.update.apply(pm);
+      }
+      List<CommitContext> commits =
+          sentryStore.commitUpdateTransaction(pm, batch.size(), dbCommitted);
+      rollbackTransaction = false;
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).result.set(commits.get(i));
+      }
+      return true;
+    } catch (Exception e) {
+      if (dbCommitted.get()) {
+        LOGGER.error("Batch of " + batch.size() + " updates failed after its commit", e);
+        for (PendingUpdate pending : batch) {
+          pending.result.setException(e);
+        }
+        return true;
+      }
+      LOGGER.debug("Batch of " + batch.size()
+          + " updates failed, committing them one by one", e);
+      return false;
+    } finally {
+      if (rollbackTransaction) {
+        sentryStore.rollbackTransaction(pm);
+      }
+    }
+  }
+
+  private void commitAlone(PendingUpdate pending) {
+    try {
+      pending.result.set(commitAlone(pending.update));
+    } catch (Throwable t) {
+      pending.result.setException(t);
+    }
+  }
+
+  // tried once, a lock conflict is replayed by the caller in submit()
+  private CommitContext commitAlone(Update update) throws SentryUserException {
+    boolean rollbackTransaction = true;
+    PersistenceManager pm = null;
+    try {
+      pm = sentryStore.openTransaction();
+      update.apply(pm);
+      CommitContext commit = sentryStore.commitUpdateTransaction(pm);
+      rollbackTransaction = false;
+      return commit;
+    } finally {
+      if (rollbackTransaction) {
+        sentryStore.rollbackTransaction(pm);
+      }
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.sentry.core.model.db.AccessConstants;
+import org.apache.sentry.provider.db.service.model.MSentryPrivilege;
+import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizable;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Immutable, fully materialized snapshot of the group -> roles -> privileges
+ * mapping held by the {@link SentryStore}. Privileges are kept per role and
+ * keyed by server name so the provider lookups can be answered without going
+ * to the database. The privileges held here are transient copies and must
+ * never be modified or made persistent.
+ *
+ * Every snapshot carries the generation of the store it was built for; the
+ * store discards it once a later commit bumps the generation.
+ */
+final class PrivilegeIndex {
+
+  private final long generation;
+  // group name -> role names
+  private final ImmutableSetMultimap<String, String> groupRoles;
+  // role name -> (server name -> privileges)
+  private final Map<String, ImmutableListMultimap<String, MSentryPrivilege>> rolePrivileges;
+
+  private PrivilegeIndex(long generation, ImmutableSetMultimap<String, String> groupRoles,
+      Map<String, ImmutableListMultimap<String, MSentryPrivilege>> rolePrivileges) {
+    this.generation = generation;
+    this.groupRoles = groupRoles;
+    this.rolePrivileges = rolePrivileges;
+  }
+
+  long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Same semantics as {@link SentryStore#getRoleNamesForGroups(Set)}
+   */
+  Set<String> getRoleNamesForGroups(Set<String> groups) {
+    Set<String> result = Sets.newHashSet();
+    for (String group : groups) {
+      result.addAll(groupRoles.get(group.trim()));
+    }
+    return result;
+  }
+
+  /**
+   * Same semantics as the JDOQL filter built by
+   * {@link SentryStore#getMSentryPrivileges(Set, TSentryAuthorizable)}
+   */
+  List<MSentryPrivilege> getPrivileges(Set<String> roleNames,
+      TSentryAuthorizable authHierarchy) {
+    List<MSentryPrivilege> result = Lists.newArrayList();
+    for (String roleName : roleNames) {
+      ImmutableListMultimap<String, MSentryPrivilege> privileges =
+          rolePrivileges.get(roleName.trim().toLowerCase());
+      if (privileges == null) {
+        continue;
+      }
+      if ((authHierarchy == null) || (authHierarchy.getServer() == null)) {
+        result.addAll(privileges.values());
+        continue;
+      }
+      for (MSentryPrivilege privilege :
+          privileges.get(authHierarchy.getServer().toLowerCase())) {
+        if (implies(privilege, authHierarchy)) {
+          result.add(privilege);
+        }
+      }
+    }
+    return result;
+  }
+
+  boolean hasAnyServerPrivileges(Set<String> roleNames, String serverName) {
+    String server = serverName.trim().toLowerCase();
+    for (String roleName : roleNames) {
+      ImmutableListMultimap<String, MSentryPrivilege> privileges =
+          rolePrivileges.get(roleName.trim().toLowerCase());
+      if ((privileges != null) && privileges.containsKey(server)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean implies(MSentryPrivilege privilege,
+      TSentryAuthorizable authHierarchy) {
+    if (authHierarchy.getDb() != null) {
+      if (!isNULL(privilege.getURI())) {
+        return false;
+      }
+      if (!matches(privilege.getDbName(), authHierarchy.getDb())) {
+        return false;
+      }
+      if ((authHierarchy.getTable() != null)
+          && !AccessConstants.ALL.equalsIgnoreCase(authHierarchy.getTable())) {
+        if (!matches(privilege.getTableName(), authHierarchy.getTable())) {
+          return false;
+        }
+        if ((authHierarchy.getColumn() != null)
+            && !AccessConstants.ALL.equalsIgnoreCase(authHierarchy.getColumn())
+            && !matches(privilege.getColumnName(), authHierarchy.getColumn())) {
+          return false;
+        }
+      }
+    }
+    if (authHierarchy.getUri() != null) {
+      if (!isNULL(privilege.getDbName())) {
+        return false;
+      }
+      if (!isNULL(privilege.getURI())
+          && !SentryStore.isURIPrefix(privilege.getURI(), authHierarchy.getUri())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // a NULL column in the privilege matches any requested value
+  private static boolean matches(String privilegeValue, String requestedValue) {
+    return isNULL(privilegeValue) || privilegeValue.equals(requestedValue.toLowerCase());
+  }
+
+  private static boolean isNULL(String s) {
+    return SentryStore.isNULL(s);
+  }
+
+  static class Builder {
+    private final long generation;
+    private final ImmutableSetMultimap.Builder<String, String> groupRoles =
+        ImmutableSetMultimap.builder();
+    private final Map<String, ImmutableListMultimap.Builder<String, MSentryPrivilege>> rolePrivileges =
+        Maps.newHashMap();
+
+    Builder(long generation) {
+      this.generation = generation;
+    }
+
+    Builder addGroupRole(String groupName, String roleName) {
+      groupRoles.put(groupName, roleName);
+      return this;
+    }
+
+    Builder addRolePrivilege(String roleName, MSentryPrivilege privilege) {
+      ImmutableListMultimap.Builder<String, MSentryPrivilege> privileges =
+          rolePrivileges.get(roleName);
+      if (privileges == null) {
+        privileges = ImmutableListMultimap.builder();
+        rolePrivileges.put(roleName, privileges);
+      }
+      privileges.put(privilege.getServerName(), privilege);
+      return this;
+    }
+
+    PrivilegeIndex build() {
+      Map<String, ImmutableListMultimap<String, MSentryPrivilege>> privileges =
+          Maps.newHashMapWithExpectedSize(rolePrivileges.size());
+      for (Map.Entry<String, ImmutableListMultimap.Builder<String, MSentryPrivilege>> entry :
+          rolePrivileges.entrySet()) {
+        privileges.put(entry.getKey(), entry.getValue().build());
+      }
+      return new PrivilegeIndex(generation, groupRoles.build(),
+          Collections.unmodifiableMap(privileges));
+    }
+  }
+}
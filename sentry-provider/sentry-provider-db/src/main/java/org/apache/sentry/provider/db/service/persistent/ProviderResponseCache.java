@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sentry.provider.db.service.thrift.SentryMetrics;
+import org.apache.sentry.provider.db.service.thrift.TSentryActiveRoleSet;
+import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizable;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Answers of provider privilege lookups, keyed on the groups, the active
+ * role set and the authorizable hierarchy of the lookup. Every answer is
+ * tagged with the policy generation it was read for and only served while
+ * the generation is current, so a lookup which raced with a commit never
+ * caches a stale answer. The cache is bounded by the total number of
+ * privileges it holds.
+ */
+class ProviderResponseCache {
+
+  private final Cache<Key, Answer> cache;
+
+  ProviderResponseCache(long maxPrivileges, long ttlMs) {
+    CacheBuilder<Key, Answer> builder = CacheBuilder.newBuilder()
+        .maximumWeight(maxPrivileges)
+        .weigher(new Weigher<Key, Answer>() {
+          @Override
+          public int weigh(Key key, Answer answer) {
+            return 1 + answer.privileges.size();
+          }
+        })
+        .removalListener(new RemovalListener<Key, Answer>() {
+          @Override
+          public void onRemoval(RemovalNotification<Key, Answer> notification) {
+            if (notification.wasEvicted()) {
+              SentryMetrics.getInstance().providerCacheEvictions.inc();
+            }
+          }
+        });
+    if (ttlMs > 0) {
+      builder.expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS);
+    }
+    cache = builder.build();
+  }
+
+  /**
+   * Returns the cached answer for the generation, or null.
+   */
+  Set<String> get(Set<String> groups, TSentryActiveRoleSet roleSet,
+      TSentryAuthorizable authHierarchy, long generation) {
+    Answer answer = cache.getIfPresent(new Key(groups, roleSet, authHierarchy));
+    if (answer == null || answer.generation != generation) {
+      SentryMetrics.getInstance().providerCacheMisses.inc();
+      return null;
+    }
+    SentryMetrics.getInstance().providerCacheHits.inc();
+    return answer.privileges;
+  }
+
+  /**
+   * Caches the answer read for the generation and returns it as an
+   * immutable set.
+   */
+  Set<String> put(Set<String> groups, TSentryActiveRoleSet roleSet,
+      TSentryAuthorizable authHierarchy, long generation, Set<String> privileges) {
+    Answer answer = new Answer(generation, privileges);
+    cache.put(new Key(groups, roleSet, authHierarchy), answer);
+    return answer.privileges;
+  }
+
+  /**
+   * Frees the answers of older generations, which can no longer be served.
+   */
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  long size() {
+    return cache.size();
+  }
+
+  private static class Answer {
+    private final long generation;
+    private final ImmutableSet<String> privileges;
+
+    Answer(long generation, Set<String> privileges) {
+      this.generation = generation;
+      this.privileges = ImmutableSet.copyOf(privileges);
+    }
+  }
+
+  /**
+   * Copies the request structures, which are mutable.
+   */
+  private static class Key {
+    private final ImmutableSet<String> groups;
+    private final TSentryActiveRoleSet roleSet;
+    private final TSentryAuthorizable authHierarchy;
+
+    Key(Set<String> groups, TSentryActiveRoleSet roleSet,
+        TSentryAuthorizable authHierarchy) {
+      this.groups = groups == null ? ImmutableSet.<String>of() : ImmutableSet.copyOf(groups);
+      this.roleSet = roleSet == null ? null : new TSentryActiveRoleSet(roleSet);
+      this.authHierarchy = authHierarchy == null ? null : new TSentryAuthorizable(authHierarchy);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(groups, roleSet, authHierarchy);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return groups.equals(other.groups)
+          && Objects.equal(roleSet, other.roleSet)
+          && Objects.equal(authHierarchy, other.authHierarchy);
+    }
+  }
+}
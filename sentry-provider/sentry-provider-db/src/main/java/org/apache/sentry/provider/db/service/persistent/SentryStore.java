@@ -22,8 +22,14 @@ import static org.apache.sentry.provider.common.ProviderConstants.AUTHORIZABLE_J
 import static org.apache.sentry.provider.common.ProviderConstants.KV_JOINER;
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -31,7 +37,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -39,6 +53,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import javax.jdo.FetchGroup;
 import javax.jdo.JDODataStoreException;
 import javax.jdo.JDOHelper;
+import javax.jdo.datastore.JDOConnection;
 import javax.jdo.PersistenceManager;
 import javax.jdo.PersistenceManagerFactory;
 import javax.jdo.Query;
@@ -55,14 +70,18 @@ import org.apache.sentry.provider.db.SentryAlreadyExistsException;
 import org.apache.sentry.provider.db.SentryGrantDeniedException;
 import org.apache.sentry.provider.db.SentryInvalidInputException;
 import org.apache.sentry.provider.db.SentryNoSuchObjectException;
+import org.apache.sentry.provider.db.service.model.MSentryCommitSequence;
 import org.apache.sentry.provider.db.service.model.MSentryGroup;
+import org.apache.sentry.provider.db.service.model.MSentryPermChange;
 import org.apache.sentry.provider.db.service.model.MSentryPrivilege;
 import org.apache.sentry.provider.db.service.model.MSentryRole;
 import org.apache.sentry.provider.db.service.model.MSentryVersion;
 import org.apache.sentry.provider.db.service.thrift.SentryConfigurationException;
+import org.apache.sentry.provider.db.service.thrift.SentryMetrics;
 import org.apache.sentry.provider.db.service.thrift.SentryPolicyStoreProcessor;
 import org.apache.sentry.provider.db.service.thrift.TSentryActiveRoleSet;
 import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizable;
+import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizableChange;
 import org.apache.sentry.provider.db.service.thrift.TSentryGrantOption;
 import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
 import org.apache.sentry.provider.db.service.thrift.TSentryMappingData;
@@ -76,16 +95,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * SentryStore is the data access object for Sentry data. Strings
@@ -94,10 +116,15 @@ import com.google.common.collect.Sets;
  */
 public class SentryStore {
   private static final UUID SERVER_UUID = UUID.randomUUID();
+  // Persistence manager user object holding the recorded permission changes
+  private static final String PERM_CHANGES_KEY = "sentry.perm.changes";
   private static final Logger LOGGER = LoggerFactory
           .getLogger(SentryStore.class);
 
   public static String NULL_COL = "__NULL__";
+  // Returned to the provider when only the server is accessible, so that the
+  // default database stays usable
+  public static final String SERVER_ACCESS_PRIVILEGE = "server=+";
   static final String DEFAULT_DATA_DIR = "sentry_policy_db";
 
   private static final Set<String> ALL_ACTIONS = Sets.newHashSet(AccessConstants.ALL,
@@ -115,18 +142,73 @@ public class SentryStore {
    * Commit order sequence id. This is used by notification handlers
    * to know the order in which events where committed to the database.
    * This instance variable is incremented in incrementGetSequenceId
-   * and read in commitUpdateTransaction. Synchronization on this
-   * is required to read commitSequenceId.
+   * and read in commitUpdateTransaction.
    */
-  private long commitSequenceId;
+  private final AtomicLong commitSequenceId = new AtomicLong();
+  /**
+   * Held by update commits only, so that sequence ids are handed out in the
+   * order the commits reached the database. Read transactions never take it.
+   */
+  private final Object commitOrderLock = new Object();
   private final PersistenceManagerFactory pmf;
+  // Optional factory for list/get operations, null when reads use pmf
+  private final PersistenceManagerFactory readPmf;
+  // Optional factory for the read replica, used while it is not behind
+  private final PersistenceManagerFactory replicaPmf;
+  // Last commit sequence read from the replica
+  private volatile long replicaSequence = -1;
   private Configuration conf;
   private PrivCleaner privCleaner = null;
   private Thread privCleanerThread = null;
+  // Number of rows fetched at a time when streaming the full images
+  private final int fullImageFetchSize;
+  // Number of privileges imported per transaction by importSentryMetaData
+  private final int importBatchSize;
+  // Coalesces concurrent grants and revokes, null when disabled
+  private PrivilegeGroupCommitter groupCommitter = null;
+  // Replays write transactions which lost a lock conflict
+  private final TransactionRetrier retrier;
+  // Produces the entries of the permission change log, null when disabled
+  private volatile PermChangeRecorder permChangeRecorder = null;
+  // Advanced by every update commit, null without HA or a read replica
+  private final CommitSequence commitSequence;
+  // Keeps the level 2 cache of pmf coherent, null when the cache is disabled
+  private final Level2CacheSync cacheSync;
+
+  /**
+   * In-memory snapshot of the policy used to answer provider lookups.
+   * Every commit bumps privilegeIndexGeneration; a snapshot built for an
+   * older generation is discarded and lazily rebuilt on the next lookup.
+   */
+  private final boolean privilegeIndexEnabled;
+  private final AtomicLong privilegeIndexGeneration = new AtomicLong();
+  private final Object privilegeIndexLock = new Object();
+  private volatile PrivilegeIndex privilegeIndex = null;
+  // Answers of provider lookups, tagged with privilegeIndexGeneration too;
+  // null when disabled
+  private final ProviderResponseCache providerResponseCache;
+
+  /**
+   * Row counts reported by the metrics gauges. Bumping countGeneration marks
+   * them stale; a stale count is recounted once it is older than
+   * countGaugeTtlMs, so scraping an idle server never touches the database.
+   * The counts are taken by countRefresher, a scrape is served the last
+   * count rather than waiting for the query.
+   */
+  private final AtomicLong countGeneration = new AtomicLong();
+  private final ExecutorService countRefresher = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("sentry-count-refresher")
+          .setDaemon(true).build());
+  private final long countGaugeTtlMs;
+  // With HA the other servers commit behind our back, so the counts are
+  // always considered stale once they are older than the TTL
+  private final boolean countAlwaysStale;
+  private final CachedCount roleCount = new CachedCount(MSentryRole.class);
+  private final CachedCount privilegeCount = new CachedCount(MSentryPrivilege.class);
+  private final CachedCount groupCount = new CachedCount(MSentryGroup.class);
 
   public SentryStore(Configuration conf) throws SentryNoSuchObjectException,
   SentryAccessDeniedException, SentryConfigurationException, IOException {
-    commitSequenceId = 0;
     this.conf = conf;
     Properties prop = new Properties();
     prop.putAll(ServerConfig.SENTRY_STORE_DEFAULTS);
@@ -175,8 +257,89 @@ public class SentryStore {
     prop.setProperty("datanucleus.NontransactionalRead", "false");
     prop.setProperty("datanucleus.NontransactionalWrite", "false");
 
+    boolean l2CacheEnabled = conf.getBoolean(ServerConfig.SENTRY_STORE_L2_CACHE_ENABLED,
+        ServerConfig.SENTRY_STORE_L2_CACHE_ENABLED_DEFAULT);
+    if (l2CacheEnabled) {
+      prop.setProperty("datanucleus.cache.level2", "true");
+      prop.setProperty("datanucleus.cache.level2.type", "soft");
+    }
+
     pmf = JDOHelper.getPersistenceManagerFactory(prop);
     verifySentryStoreSchema(conf, checkSchemaVersion);
+    // with HA the other servers share the database and commit behind our back
+    boolean haEnabled = conf.getBoolean(ServerConfig.SENTRY_HA_ENABLED,
+        ServerConfig.SENTRY_HA_ENABLED_DEFAULT);
+    String replicaUrl = conf.get(ServerConfig.SENTRY_STORE_JDBC_REPLICA_URL, "").trim();
+    if (haEnabled || !replicaUrl.isEmpty()) {
+      CommitSequence.Listener listener = null;
+      if (haEnabled) {
+        listener = new CommitSequence.Listener() {
+          @Override
+          public void otherServerCommitted() {
+            SentryStore.this.otherServerCommitted();
+          }
+        };
+      }
+      commitSequence = new CommitSequence(pmf, listener,
+          conf.getLong(ServerConfig.SENTRY_STORE_HA_SYNC_INTERVAL_MS,
+              ServerConfig.SENTRY_STORE_HA_SYNC_INTERVAL_MS_DEFAULT));
+    } else {
+      commitSequence = null;
+      // the ids of the permission change log come from the same table
+      CommitSequence.read(pmf);
+    }
+    if (l2CacheEnabled) {
+      cacheSync = new Level2CacheSync(pmf);
+    } else {
+      cacheSync = null;
+    }
+
+    if (conf.getBoolean(ServerConfig.SENTRY_STORE_READ_POOL_ENABLED,
+        ServerConfig.SENTRY_STORE_READ_POOL_ENABLED_DEFAULT)) {
+      readPmf = JDOHelper.getPersistenceManagerFactory(getReadProperties(prop, conf));
+    } else {
+      readPmf = null;
+    }
+
+    if (!replicaUrl.isEmpty()) {
+      Properties replicaProp = getReadProperties(prop, conf);
+      replicaProp.setProperty(ServerConfig.JAVAX_JDO_URL, replicaUrl);
+      replicaProp.setProperty(ServerConfig.JAVAX_JDO_USER,
+          conf.get(ServerConfig.SENTRY_STORE_JDBC_REPLICA_USER, user).trim());
+      char[] replicaPass = conf.getPassword(ServerConfig.SENTRY_STORE_JDBC_REPLICA_PASS);
+      if (replicaPass != null) {
+        replicaProp.setProperty(ServerConfig.JAVAX_JDO_PASS, new String(replicaPass));
+      }
+      replicaPmf = JDOHelper.getPersistenceManagerFactory(replicaProp);
+      LOGGER.info("Routing reads to the replica at " + replicaUrl);
+    } else {
+      replicaPmf = null;
+    }
+
+    fullImageFetchSize = conf.getInt(ServerConfig.SENTRY_STORE_FULL_IMAGE_FETCH_SIZE,
+        ServerConfig.SENTRY_STORE_FULL_IMAGE_FETCH_SIZE_DEFAULT);
+    importBatchSize = conf.getInt(ServerConfig.SENTRY_STORE_IMPORT_BATCH_SIZE,
+        ServerConfig.SENTRY_STORE_IMPORT_BATCH_SIZE_DEFAULT);
+    privilegeIndexEnabled = conf.getBoolean(
+        ServerConfig.SENTRY_STORE_PRIVILEGE_INDEX_ENABLED,
+        ServerConfig.SENTRY_STORE_PRIVILEGE_INDEX_ENABLED_DEFAULT);
+    if (conf.getBoolean(ServerConfig.SENTRY_STORE_PROVIDER_CACHE_ENABLED,
+        ServerConfig.SENTRY_STORE_PROVIDER_CACHE_ENABLED_DEFAULT)) {
+      providerResponseCache = new ProviderResponseCache(
+          conf.getLong(ServerConfig.SENTRY_STORE_PROVIDER_CACHE_MAX_PRIVILEGES,
+              ServerConfig.SENTRY_STORE_PROVIDER_CACHE_MAX_PRIVILEGES_DEFAULT),
+          conf.getLong(ServerConfig.SENTRY_STORE_PROVIDER_CACHE_TTL_MS,
+              ServerConfig.SENTRY_STORE_PROVIDER_CACHE_TTL_MS_DEFAULT));
+    } else {
+      providerResponseCache = null;
+    }
+    countGaugeTtlMs = conf.getLong(ServerConfig.SENTRY_STORE_COUNT_GAUGE_TTL_MS,
+        ServerConfig.SENTRY_STORE_COUNT_GAUGE_TTL_MS_DEFAULT);
+    countAlwaysStale = haEnabled;
+    // counted now, so that the first scrape finds the counts
+    roleCount.getValue();
+    privilegeCount.getValue();
+    groupCount.getValue();
 
     // Kick off the thread that cleans orphaned privileges (unless told not to)
     privCleaner = this.new PrivCleaner();
@@ -186,6 +349,24 @@ public class SentryStore {
       privCleanerThread = new Thread(privCleaner);
       privCleanerThread.start();
     }
+
+    retrier = new TransactionRetrier(
+        conf.getInt(ServerConfig.SENTRY_STORE_TRANSACTION_MAX_RETRIES,
+            ServerConfig.SENTRY_STORE_TRANSACTION_MAX_RETRIES_DEFAULT),
+        conf.getLong(ServerConfig.SENTRY_STORE_TRANSACTION_RETRY_BASE_MS,
+            ServerConfig.SENTRY_STORE_TRANSACTION_RETRY_BASE_MS_DEFAULT),
+        conf.getLong(ServerConfig.SENTRY_STORE_TRANSACTION_RETRY_MAX_MS,
+            ServerConfig.SENTRY_STORE_TRANSACTION_RETRY_MAX_MS_DEFAULT));
+
+    if (conf.getBoolean(ServerConfig.SENTRY_STORE_GROUP_COMMIT_ENABLED,
+        ServerConfig.SENTRY_STORE_GROUP_COMMIT_ENABLED_DEFAULT)) {
+      groupCommitter = new PrivilegeGroupCommitter(this,
+          conf.getInt(ServerConfig.SENTRY_STORE_GROUP_COMMIT_MAX_BATCH_SIZE,
+              ServerConfig.SENTRY_STORE_GROUP_COMMIT_MAX_BATCH_SIZE_DEFAULT),
+          conf.getLong(ServerConfig.SENTRY_STORE_GROUP_COMMIT_MAX_WAIT_MS,
+              ServerConfig.SENTRY_STORE_GROUP_COMMIT_MAX_WAIT_MS_DEFAULT));
+      groupCommitter.start();
+    }
   }
 
   // ensure that the backend DB schema is set
@@ -207,6 +388,10 @@ public class SentryStore {
   }
 
   public synchronized void stop() {
+    if (groupCommitter != null) {
+      groupCommitter.stop();
+    }
+    countRefresher.shutdownNow();
     if (privCleanerThread != null) {
       privCleaner.exit();
       try {
@@ -218,6 +403,36 @@ public class SentryStore {
     if (pmf != null) {
       pmf.close();
     }
+    if (readPmf != null) {
+      readPmf.close();
+    }
+    if (replicaPmf != null) {
+      replicaPmf.close();
+    }
+  }
+
+  /**
+   * Properties of the read factory: reads happen outside of transactions on
+   * a separate connection pool, objects are detached when the persistence
+   * manager is closed, and any attempt to write fails.
+   */
+  private static Properties getReadProperties(Properties prop, Configuration conf) {
+    Properties readProp = new Properties();
+    readProp.putAll(prop);
+    // the schema is owned by the primary factory
+    readProp.setProperty("datanucleus.autoCreateSchema", "false");
+    readProp.setProperty("datanucleus.fixedDatastore", "true");
+    readProp.setProperty("datanucleus.NontransactionalRead", "true");
+    readProp.setProperty("javax.jdo.option.NontransactionalRead", "true");
+    readProp.setProperty("javax.jdo.option.ReadOnly", "true");
+    readProp.setProperty("datanucleus.DetachOnClose", "true");
+    // only the level 2 cache of the primary factory is kept coherent
+    readProp.setProperty("datanucleus.cache.level2", "false");
+    readProp.setProperty("datanucleus.cache.level2.type", "none");
+    readProp.setProperty("datanucleus.connectionPool.maxPoolSize",
+        String.valueOf(conf.getInt(ServerConfig.SENTRY_STORE_READ_POOL_MAX_SIZE,
+            ServerConfig.SENTRY_STORE_READ_POOL_MAX_SIZE_DEFAULT)));
+    return readProp;
   }
 
   /**
@@ -229,23 +444,96 @@ public class SentryStore {
    * transaction.
    *
    * Note that there's only one instance of PersistenceManagerFactory object
-   * for the service.
-   *
-   * Synchronized because we obtain persistence manager
+   * for the service. The factory is thread safe, so obtaining a persistence
+   * manager needs no locking and reads run in parallel up to the size of the
+   * connection pool.
    */
-  public synchronized PersistenceManager openTransaction() {
+  public PersistenceManager openTransaction() {
     PersistenceManager pm = pmf.getPersistenceManager();
     Transaction currentTransaction = pm.currentTransaction();
     currentTransaction.begin();
+    if (commitSequence != null || cacheSync != null) {
+      boolean rollbackTransaction = true;
+      try {
+        if (commitSequence != null) {
+          commitSequence.sync(pm);
+        }
+        if (cacheSync != null) {
+          cacheSync.transactionOpened(pm);
+        }
+        rollbackTransaction = false;
+      } finally {
+        if (rollbackTransaction) {
+          rollbackTransaction(pm);
+        }
+      }
+    }
     return pm;
   }
 
   /**
-   * Synchronized due to sequence id generation
+   * Runs a write transaction, replaying it when the database rolled it back
+   * because of a conflict with a concurrent one. The attempt must open and
+   * finish its own transaction.
+   */
+  public <T, E extends Exception> T retryOnConflict(TransactionRetrier.Attempt<T, E> attempt)
+      throws E {
+    return retrier.run(attempt);
+  }
+
+  /**
+   * Commits an update and assigns its sequence id. Only update commits are
+   * serialized on commitOrderLock, to keep the ids in commit order.
    */
-  public synchronized CommitContext commitUpdateTransaction(PersistenceManager pm) {
-    commitTransaction(pm);
-    return new CommitContext(SERVER_UUID, incrementGetSequenceId());
+  public CommitContext commitUpdateTransaction(PersistenceManager pm) {
+    return commitUpdateTransaction(pm, 1, false).get(0);
+  }
+
+  /**
+   * Commits a transaction which holds several updates, and assigns each of
+   * them its own sequence id in order.
+   */
+  List<CommitContext> commitUpdateTransaction(PersistenceManager pm, int numUpdates) {
+    return commitUpdateTransaction(pm, numUpdates, false, null);
+  }
+
+  /**
+   * Same as {@link #commitUpdateTransaction(PersistenceManager, int)}, and
+   * sets dbCommitted as soon as the database commit succeeded, so that the
+   * caller can tell a transaction which did not commit from a failure after
+   * the commit.
+   */
+  List<CommitContext> commitUpdateTransaction(PersistenceManager pm, int numUpdates,
+      AtomicBoolean dbCommitted) {
+    return commitUpdateTransaction(pm, numUpdates, false, dbCommitted);
+  }
+
+  private List<CommitContext> commitUpdateTransaction(PersistenceManager pm, int numUpdates,
+      boolean bypassedCaches) {
+    return commitUpdateTransaction(pm, numUpdates, bypassedCaches, null);
+  }
+
+  /**
+   * Commits numUpdates updates. bypassedCaches tells that the transaction
+   * changed privileges with statements of its own, the privileges and roles
+   * DataNucleus keeps in its caches are then evicted once committed.
+   */
+  private List<CommitContext> commitUpdateTransaction(PersistenceManager pm, int numUpdates,
+      boolean bypassedCaches, AtomicBoolean dbCommitted) {
+    synchronized (commitOrderLock) {
+      persistPermChanges(pm);
+      beforePolicyCommit(pm);
+      commitTransaction(pm, dbCommitted);
+      if (bypassedCaches) {
+        evictPrivilegeCaches();
+      }
+      policyChanged();
+      List<CommitContext> commits = Lists.newArrayListWithCapacity(numUpdates);
+      for (int i = 0; i < numUpdates; i++) {
+        commits.add(new CommitContext(SERVER_UUID, incrementGetSequenceId()));
+      }
+      return commits;
+    }
   }
 
   /**
@@ -254,17 +542,26 @@ public class SentryStore {
    *
    * @return sequence id
    */
-  private synchronized long incrementGetSequenceId() {
-    return ++commitSequenceId;
+  private long incrementGetSequenceId() {
+    return commitSequenceId.incrementAndGet();
   }
 
   public void commitTransaction(PersistenceManager pm) {
+    commitTransaction(pm, null);
+  }
+
+  private void commitTransaction(PersistenceManager pm, AtomicBoolean dbCommitted) {
     Transaction currentTransaction = pm.currentTransaction();
+    boolean committed = false;
     try {
       Preconditions.checkState(currentTransaction.isActive(), "Transaction is not active");
       currentTransaction.commit();
+      committed = true;
+      if (dbCommitted != null) {
+        dbCommitted.set(true);
+      }
     } finally {
-      pm.close();
+      closeTransaction(pm, committed);
     }
   }
 
@@ -277,9 +574,119 @@ public class SentryStore {
       try {
         currentTransaction.rollback();
       } finally {
+        closeTransaction(pm, false);
+      }
+    }
+  }
+
+  private void closeTransaction(PersistenceManager pm, boolean committed) {
+    try {
+      if (commitSequence != null) {
+        commitSequence.transactionClosed(pm, committed);
+      }
+      if (cacheSync != null) {
+        cacheSync.transactionClosed(pm, committed);
+      }
+    } finally {
+      pm.close();
+    }
+  }
+
+  /**
+   * Must be called right before every commit which changes roles, groups
+   * or privileges, with the transaction still active.
+   */
+  private void beforePolicyCommit(PersistenceManager pm) {
+    if (commitSequence != null) {
+      commitSequence.advance(pm);
+    }
+    if (cacheSync != null) {
+      cacheSync.beforeUpdateCommit(pm);
+    }
+  }
+
+  /**
+   * Opens a persistence manager for a list/get operation. Reads go to the
+   * replica when one is configured and has applied every commit this server
+   * knows of. With the read pool enabled the reads are
+   * non-transactional and take no locks, otherwise this is the same as
+   * {@link #openTransaction()}. Must be finished with
+   * {@link #commitReadTransaction(PersistenceManager)} or
+   * {@link #rollbackReadTransaction(PersistenceManager)}.
+   */
+  PersistenceManager openReadTransaction() {
+    if (replicaPmf == null && readPmf == null) {
+      return openTransaction();
+    }
+    syncCommitSequence();
+    if (replicaPmf != null) {
+      PersistenceManager pm = openReplicaIfCurrent();
+      if (pm != null) {
+        return pm;
+      }
+    }
+    if (readPmf == null) {
+      return openTransaction();
+    }
+    return readPmf.getPersistenceManager();
+  }
+
+  /**
+   * With HA, picks up the commits of the other servers before serving a
+   * read from the caches or from outside of a transaction.
+   */
+  private void syncCommitSequence() {
+    if (commitSequence != null) {
+      commitSequence.sync(pmf);
+    }
+  }
+
+  /**
+   * Opens a persistence manager on the replica, or returns null while the
+   * commit sequence of the replica is behind the latest one of the primary.
+   * The replica only moves forward, so it is not asked again once it was
+   * seen to be current.
+   */
+  private PersistenceManager openReplicaIfCurrent() {
+    long latest = commitSequence.getLatest();
+    PersistenceManager pm = replicaPmf.getPersistenceManager();
+    if (replicaSequence >= latest) {
+      return pm;
+    }
+    boolean current = false;
+    try {
+      long sequence = CommitSequence.read(pm);
+      if (sequence > replicaSequence) {
+        replicaSequence = sequence;
+      }
+      current = sequence >= latest;
+    } finally {
+      if (!current) {
         pm.close();
       }
     }
+    return current ? pm : null;
+  }
+
+  void commitReadTransaction(PersistenceManager pm) {
+    if (pm.currentTransaction().isActive()) {
+      commitTransaction(pm);
+    } else {
+      pm.close();
+    }
+  }
+
+  void rollbackReadTransaction(PersistenceManager pm) {
+    if (pm == null || pm.isClosed()) {
+      return;
+    }
+    try {
+      if (pm.currentTransaction().isActive()) {
+        pm.currentTransaction().rollback();
+      }
+    } finally {
+      closeTransaction(pm, false);
+    }
   }
   /**
   Get the MSentry object from roleName
@@ -308,20 +715,25 @@ public class SentryStore {
    */
   public CommitContext createSentryRole(String roleName)
       throws SentryAlreadyExistsException {
-    roleName = trimAndLower(roleName);
-    boolean rollbackTransaction = true;
-    PersistenceManager pm = null;
-    try {
-      pm = openTransaction();
-      createSentryRoleCore(pm, roleName);
-      CommitContext commit = commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commit;
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+    final String trimmedRoleName = trimAndLower(roleName);
+    return retrier.run(new TransactionRetrier.Attempt<CommitContext, SentryAlreadyExistsException>() {
+      @Override
+      public CommitContext run() throws SentryAlreadyExistsException {
+        boolean rollbackTransaction = true;
+        PersistenceManager pm = null;
+        try {
+          pm = openTransaction();
+          createSentryRoleCore(pm, trimmedRoleName);
+          CommitContext commit = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commit;
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
       }
-    }
+    });
   }
 
   private void createSentryRoleCore(PersistenceManager pm, String roleName)
@@ -339,41 +751,92 @@ public class SentryStore {
     PersistenceManager pm = null;
     Long size = new Long(-1);
     try {
-      pm = openTransaction();
+      pm = openReadTransaction();
       Query query = pm.newQuery();
       query.setClass(tClass);
       query.setResult("count(this)");
       size = (Long)query.execute();
 
     } finally {
-      commitTransaction(pm);
+      commitReadTransaction(pm);
     }
     return size;
   }
-  public Gauge<Long> getRoleCountGauge() {
-    return new Gauge< Long >() {
-      @Override
-      public Long getValue() {
-        return getCount(MSentryRole.class);
+
+  /**
+   * Last count of one table together with the countGeneration and the time
+   * it was taken at. A stale count is recounted by countRefresher, at most
+   * one query per table at a time.
+   */
+  private class CachedCount implements Gauge<Long> {
+    private final Class<?> tClass;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long value;
+    private volatile long generation = -1;
+    private volatile long loadTimeMs;
+
+    CachedCount(Class<?> tClass) {
+      this.tClass = tClass;
+    }
+
+    @Override
+    public Long getValue() {
+      boolean expired = System.currentTimeMillis() - loadTimeMs >= countGaugeTtlMs;
+      if ((generation < 0
+          || (expired && (generation != countGeneration.get() || countAlwaysStale)))
+          && refreshing.compareAndSet(false, true)) {
+        try {
+          countRefresher.execute(new Runnable() {
+            @Override
+            public void run() {
+              refresh();
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          // the store is stopping
+          refreshing.set(false);
+        }
+      }
+      return value;
+    }
+
+    private void refresh() {
+      try {
+        long currentGeneration = countGeneration.get();
+        long now = System.currentTimeMillis();
+        value = getCount(tClass);
+        generation = currentGeneration;
+        loadTimeMs = now;
+      } catch (RuntimeException e) {
+        LOGGER.warn("Failed to count " + tClass.getSimpleName()
+            + ", keeping the last count", e);
+      } finally {
+        refreshing.set(false);
       }
-    };
+    }
   }
 
-  public Gauge<Long> getPrivilegeCountGauge() {
-    return new Gauge< Long >() {
+  /**
+   * Waits until the counts requested so far have been taken.
+   */
+  @VisibleForTesting
+  void awaitCountRefresh() throws Exception {
+    countRefresher.submit(new Runnable() {
       @Override
-      public Long getValue() {
-        return getCount(MSentryPrivilege.class);
+      public void run() {
       }
-    };
+    }).get();
+  }
+
+  public Gauge<Long> getRoleCountGauge() {
+    return roleCount;
+  }
+
+  public Gauge<Long> getPrivilegeCountGauge() {
+    return privilegeCount;
   }
   public Gauge<Long> getGroupCountGauge() {
-    return new Gauge< Long >() {
-      @Override
-      public Long getValue() {
-        return getCount(MSentryGroup.class);
-      }
-    };
+    return groupCount;
   }
 
   /**
@@ -386,6 +849,19 @@ public class SentryStore {
     return getCount(MSentryPrivilege.class);
   }
 
+  @VisibleForTesting
+  Object getCommitOrderLock() {
+    return commitOrderLock;
+  }
+
+  /**
+   * Runs the orphaned privilege removal in the calling thread.
+   */
+  @VisibleForTesting
+  void removeOrphanedPrivileges() throws SQLException {
+    privCleaner.removeOrphanedPrivileges();
+  }
+
   @VisibleForTesting
   void clearAllTables() {
     boolean rollbackTransaction = true;
@@ -395,6 +871,10 @@ public class SentryStore {
       pm.newQuery(MSentryRole.class).deletePersistentAll();
       pm.newQuery(MSentryGroup.class).deletePersistentAll();
       pm.newQuery(MSentryPrivilege.class).deletePersistentAll();
+      pm.newQuery(MSentryPermChange.class).deletePersistentAll();
+      // the ids of the permission change log start over
+      pm.newQuery(MSentryCommitSequence.class, "sequenceID == "
+          + CommitSequence.PERM_CHANGE_SEQUENCE_ID).deletePersistentAll();
       commitUpdateTransaction(pm);
       rollbackTransaction = false;
     } finally {
@@ -411,30 +891,53 @@ public class SentryStore {
         roleName, Sets.newHashSet(privilege));
   }
 
-  public CommitContext alterSentryRoleGrantPrivileges(String grantorPrincipal,
-      String roleName, Set<TSentryPrivilege> privileges)
+  public CommitContext alterSentryRoleGrantPrivileges(final String grantorPrincipal,
+      String roleName, final Set<TSentryPrivilege> privileges)
       throws SentryUserException {
-    boolean rollbackTransaction = true;
-    PersistenceManager pm = null;
-    roleName = trimAndLower(roleName);
-    try {
-      pm = openTransaction();
-      for (TSentryPrivilege privilege : privileges) {
-        // first do grant check
-        grantOptionCheck(pm, grantorPrincipal, privilege);
+    final String trimmedRoleName = trimAndLower(roleName);
+    if (groupCommitter != null) {
+      return groupCommitter.submit(new PrivilegeGroupCommitter.Update() {
+        @Override
+        public void apply(PersistenceManager pm) throws SentryUserException {
+          alterSentryRoleGrantPrivilegesCore(pm, grantorPrincipal, trimmedRoleName, privileges);
+        }
+      });
+    }
+    return retrier.run(new TransactionRetrier.Attempt<CommitContext, SentryUserException>() {
+      @Override
+      public CommitContext run() throws SentryUserException {
+        boolean rollbackTransaction = true;
+        PersistenceManager pm = null;
+        try {
+          pm = openTransaction();
+          alterSentryRoleGrantPrivilegesCore(pm, grantorPrincipal, trimmedRoleName, privileges);
+          CommitContext commit = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commit;
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
+      }
+    });
+  }
 
-        MSentryPrivilege mPrivilege = alterSentryRoleGrantPrivilegeCore(pm, roleName, privilege);
+  private void alterSentryRoleGrantPrivilegesCore(PersistenceManager pm,
+      String grantorPrincipal, String roleName, Set<TSentryPrivilege> privileges)
+      throws SentryUserException {
+    for (TSentryPrivilege privilege : privileges) {
+      // first do grant check
+      grantOptionCheck(pm, grantorPrincipal, privilege);
 
-        if (mPrivilege != null) {
-          convertToTSentryPrivilege(mPrivilege, privilege);
-        }
+      MSentryPrivilege mPrivilege = alterSentryRoleGrantPrivilegeCore(pm, roleName, privilege);
+
+      if (mPrivilege != null) {
+        convertToTSentryPrivilege(mPrivilege, privilege);
       }
-      CommitContext commit = commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commit;
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+      PermChangeRecorder recorder = permChangeRecorder;
+      if (recorder != null) {
+        recordPermChange(pm, recorder.onAlterSentryRoleGrantPrivilege(roleName, privilege));
       }
     }
   }
@@ -442,87 +945,136 @@ public class SentryStore {
   private MSentryPrivilege alterSentryRoleGrantPrivilegeCore(PersistenceManager pm,
       String roleName, TSentryPrivilege privilege)
       throws SentryNoSuchObjectException, SentryInvalidInputException {
-    MSentryPrivilege mPrivilege = null;
     MSentryRole mRole = getMSentryRole(pm, roleName);
     if (mRole == null) {
       throw new SentryNoSuchObjectException("Role: " + roleName);
-    } else {
+    }
+    return alterSentryRoleGrantPrivilegeCore(pm, mRole, privilege, null, null);
+  }
 
-      if ((!isNULL(privilege.getColumnName())) || (!isNULL(privilege.getTableName()))
-          || (!isNULL(privilege.getDbName()))) {
-        // If Grant is for ALL and Either INSERT/SELECT already exists..
-        // need to remove it and GRANT ALL..
-        if (AccessConstants.ALL.equalsIgnoreCase(privilege.getAction())
-            || AccessConstants.ACTION_ALL.equalsIgnoreCase(privilege.getAction())) {
-          TSentryPrivilege tNotAll = new TSentryPrivilege(privilege);
-          tNotAll.setAction(AccessConstants.SELECT);
-          MSentryPrivilege mSelect = getMSentryPrivilege(tNotAll, pm);
-          tNotAll.setAction(AccessConstants.INSERT);
-          MSentryPrivilege mInsert = getMSentryPrivilege(tNotAll, pm);
-          if ((mSelect != null) && (mRole.getPrivileges().contains(mSelect))) {
-            mSelect.removeRole(mRole);
-            privCleaner.incPrivRemoval();
-            pm.makePersistent(mSelect);
-          }
-          if ((mInsert != null) && (mRole.getPrivileges().contains(mInsert))) {
-            mInsert.removeRole(mRole);
-            privCleaner.incPrivRemoval();
-            pm.makePersistent(mInsert);
-          }
-        } else {
-          // If Grant is for Either INSERT/SELECT and ALL already exists..
-          // do nothing..
-          TSentryPrivilege tAll = new TSentryPrivilege(privilege);
-          tAll.setAction(AccessConstants.ALL);
-          MSentryPrivilege mAll1 = getMSentryPrivilege(tAll, pm);
-          tAll.setAction(AccessConstants.ACTION_ALL);
-          MSentryPrivilege mAll2 = getMSentryPrivilege(tAll, pm);
-          if ((mAll1 != null) && (mRole.getPrivileges().contains(mAll1))) {
-            return null;
-          }
-          if ((mAll2 != null) && (mRole.getPrivileges().contains(mAll2))) {
-            return null;
-          }
+  /**
+   * Grants the privilege to the role. The existing privileges are looked up
+   * in resolvedPrivileges when given (see {@link #resolveMSentryPrivileges}),
+   * otherwise one query is issued per lookup. When newPrivileges is given the
+   * privileges created are added to it, for the caller to persist them all
+   * at once, instead of being persisted one by one.
+   */
+  private MSentryPrivilege alterSentryRoleGrantPrivilegeCore(PersistenceManager pm,
+      MSentryRole mRole, TSentryPrivilege privilege,
+      Map<MSentryPrivilege, MSentryPrivilege> resolvedPrivileges,
+      Collection<MSentryPrivilege> newPrivileges)
+      throws SentryInvalidInputException {
+    if ((!isNULL(privilege.getColumnName())) || (!isNULL(privilege.getTableName()))
+        || (!isNULL(privilege.getDbName()))) {
+      // If Grant is for ALL and Either INSERT/SELECT already exists..
+      // need to remove it and GRANT ALL..
+      if (AccessConstants.ALL.equalsIgnoreCase(privilege.getAction())
+          || AccessConstants.ACTION_ALL.equalsIgnoreCase(privilege.getAction())) {
+        TSentryPrivilege tNotAll = new TSentryPrivilege(privilege);
+        tNotAll.setAction(AccessConstants.SELECT);
+        MSentryPrivilege mSelect = getMSentryPrivilege(tNotAll, pm, resolvedPrivileges);
+        tNotAll.setAction(AccessConstants.INSERT);
+        MSentryPrivilege mInsert = getMSentryPrivilege(tNotAll, pm, resolvedPrivileges);
+        if ((mSelect != null) && isGrantedTo(mSelect, mRole)) {
+          mSelect.removeRole(mRole);
+          privCleaner.incPrivRemoval();
+          pm.makePersistent(mSelect);
+        }
+        if ((mInsert != null) && isGrantedTo(mInsert, mRole)) {
+          mInsert.removeRole(mRole);
+          privCleaner.incPrivRemoval();
+          pm.makePersistent(mInsert);
+        }
+      } else {
+        // If Grant is for Either INSERT/SELECT and ALL already exists..
+        // do nothing..
+        TSentryPrivilege tAll = new TSentryPrivilege(privilege);
+        tAll.setAction(AccessConstants.ALL);
+        MSentryPrivilege mAll1 = getMSentryPrivilege(tAll, pm, resolvedPrivileges);
+        tAll.setAction(AccessConstants.ACTION_ALL);
+        MSentryPrivilege mAll2 = getMSentryPrivilege(tAll, pm, resolvedPrivileges);
+        if ((mAll1 != null) && isGrantedTo(mAll1, mRole)) {
+          return null;
+        }
+        if ((mAll2 != null) && isGrantedTo(mAll2, mRole)) {
+          return null;
         }
       }
+    }
 
-      mPrivilege = getMSentryPrivilege(privilege, pm);
-      if (mPrivilege == null) {
-        mPrivilege = convertToMSentryPrivilege(privilege);
+    MSentryPrivilege mPrivilege = getMSentryPrivilege(privilege, pm, resolvedPrivileges);
+    if (mPrivilege == null) {
+      mPrivilege = convertToMSentryPrivilege(privilege);
+      if (resolvedPrivileges != null) {
+        resolvedPrivileges.put(mPrivilege, mPrivilege);
       }
-      mPrivilege.appendRole(mRole);
-      pm.makePersistent(mRole);
-      pm.makePersistent(mPrivilege);
     }
+    mPrivilege.appendRole(mRole);
+    if (newPrivileges != null && !JDOHelper.isPersistent(mPrivilege)) {
+      newPrivileges.add(mPrivilege);
+      return mPrivilege;
+    }
+    pm.makePersistent(mRole);
+    pm.makePersistent(mPrivilege);
     return mPrivilege;
   }
 
+  // a privilege which is not persisted yet only knows its roles on its side
+  private static boolean isGrantedTo(MSentryPrivilege mPrivilege, MSentryRole mRole) {
+    if (JDOHelper.isPersistent(mPrivilege)) {
+      return mRole.getPrivileges().contains(mPrivilege);
+    }
+    return mPrivilege.getRoles().contains(mRole);
+  }
+
   public CommitContext alterSentryRoleRevokePrivilege(String grantorPrincipal,
       String roleName, TSentryPrivilege tPrivilege) throws SentryUserException {
     return alterSentryRoleRevokePrivileges(grantorPrincipal,
         roleName, Sets.newHashSet(tPrivilege));
   }
 
-  public CommitContext alterSentryRoleRevokePrivileges(String grantorPrincipal,
-      String roleName, Set<TSentryPrivilege> tPrivileges) throws SentryUserException {
-    boolean rollbackTransaction = true;
-    PersistenceManager pm = null;
-    roleName = safeTrimLower(roleName);
-    try {
-      pm = openTransaction();
-      for (TSentryPrivilege tPrivilege : tPrivileges) {
-        // first do revoke check
-        grantOptionCheck(pm, grantorPrincipal, tPrivilege);
-
-        alterSentryRoleRevokePrivilegeCore(pm, roleName, tPrivilege);
+  public CommitContext alterSentryRoleRevokePrivileges(final String grantorPrincipal,
+      String roleName, final Set<TSentryPrivilege> tPrivileges) throws SentryUserException {
+    final String trimmedRoleName = safeTrimLower(roleName);
+    if (groupCommitter != null) {
+      return groupCommitter.submit(new PrivilegeGroupCommitter.Update() {
+        @Override
+        public void apply(PersistenceManager pm) throws SentryUserException {
+          alterSentryRoleRevokePrivilegesCore(pm, grantorPrincipal, trimmedRoleName, tPrivileges);
+        }
+      });
+    }
+    return retrier.run(new TransactionRetrier.Attempt<CommitContext, SentryUserException>() {
+      @Override
+      public CommitContext run() throws SentryUserException {
+        boolean rollbackTransaction = true;
+        PersistenceManager pm = null;
+        try {
+          pm = openTransaction();
+          alterSentryRoleRevokePrivilegesCore(pm, grantorPrincipal, trimmedRoleName, tPrivileges);
+          CommitContext commit = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commit;
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
       }
+    });
+  }
 
-      CommitContext commit = commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commit;
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+  private void alterSentryRoleRevokePrivilegesCore(PersistenceManager pm,
+      String grantorPrincipal, String roleName, Set<TSentryPrivilege> tPrivileges)
+      throws SentryUserException {
+    for (TSentryPrivilege tPrivilege : tPrivileges) {
+      // first do revoke check
+      grantOptionCheck(pm, grantorPrincipal, tPrivilege);
+
+      alterSentryRoleRevokePrivilegeCore(pm, roleName, tPrivilege);
+      PermChangeRecorder recorder = permChangeRecorder;
+      if (recorder != null) {
+        recordPermChange(pm, recorder.onAlterSentryRoleRevokePrivilege(roleName, tPrivilege));
       }
     }
   }
@@ -688,17 +1240,18 @@ public class SentryStore {
 
     Query query = pm.newQuery(MSentryPrivilege.class);
     query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
-    List<String> rolesFiler = new LinkedList<String>();
-    for (String rName : roleNames) {
-      rolesFiler.add("role.roleName == \"" + rName.trim().toLowerCase() + "\"");
-    }
+    Map<String, Object> params = Maps.newHashMap();
     StringBuilder filters = new StringBuilder("roles.contains(role) "
-        + "&& (" + Joiner.on(" || ").join(rolesFiler) + ")");
-    filters.append(" && serverName == \"" + parent.getServerName() + "\"");
+        + "&& :roleNames.contains(role.roleName)");
+    params.put("roleNames", toTrimedLower(roleNames));
+    filters.append(" && serverName == :serverName");
+    params.put("serverName", parent.getServerName());
     if (!isNULL(parent.getDbName())) {
-      filters.append(" && dbName == \"" + parent.getDbName() + "\"");
+      filters.append(" && dbName == :dbName");
+      params.put("dbName", parent.getDbName());
       if (!isNULL(parent.getTableName())) {
-        filters.append(" && tableName == \"" + parent.getTableName() + "\"");
+        filters.append(" && tableName == :tableName");
+        params.put("tableName", parent.getTableName());
         filters.append(" && columnName != \"__NULL__\"");
       } else {
         filters.append(" && tableName != \"__NULL__\"");
@@ -711,7 +1264,7 @@ public class SentryStore {
     query.setResult("privilegeScope, serverName, dbName, tableName, columnName," +
         " URI, action, grantOption");
     Set<MSentryPrivilege> privileges = new HashSet<MSentryPrivilege>();
-    for (Object[] privObj : (List<Object[]>) query.execute()) {
+    for (Object[] privObj : (List<Object[]>) executeQuery(query, params)) {
       MSentryPrivilege priv = new MSentryPrivilege();
       priv.setPrivilegeScope((String) privObj[0]);
       priv.setServerName((String) privObj[1]);
@@ -728,38 +1281,93 @@ public class SentryStore {
 
   private List<MSentryPrivilege> getMSentryPrivileges(TSentryPrivilege tPriv, PersistenceManager pm) {
     Query query = pm.newQuery(MSentryPrivilege.class);
-    StringBuilder filters = new StringBuilder("this.serverName == \""
-          + toNULLCol(safeTrimLower(tPriv.getServerName())) + "\" ");
+    Map<String, Object> params = Maps.newHashMap();
+    StringBuilder filters = new StringBuilder("this.serverName == :serverName ");
+    params.put("serverName", toNULLCol(safeTrimLower(tPriv.getServerName())));
     if (!isNULL(tPriv.getDbName())) {
-      filters.append("&& this.dbName == \"" + toNULLCol(safeTrimLower(tPriv.getDbName())) + "\" ");
+      filters.append("&& this.dbName == :dbName ");
+      params.put("dbName", toNULLCol(safeTrimLower(tPriv.getDbName())));
       if (!isNULL(tPriv.getTableName())) {
-        filters.append("&& this.tableName == \"" + toNULLCol(safeTrimLower(tPriv.getTableName())) + "\" ");
+        filters.append("&& this.tableName == :tableName ");
+        params.put("tableName", toNULLCol(safeTrimLower(tPriv.getTableName())));
         if (!isNULL(tPriv.getColumnName())) {
-          filters.append("&& this.columnName == \"" + toNULLCol(safeTrimLower(tPriv.getColumnName())) + "\" ");
+          filters.append("&& this.columnName == :columnName ");
+          params.put("columnName", toNULLCol(safeTrimLower(tPriv.getColumnName())));
         }
       }
     }
     // if db is null, uri is not null
     else if (!isNULL(tPriv.getURI())){
-      filters.append("&& this.URI == \"" + toNULLCol(safeTrim(tPriv.getURI())) + "\" ");
+      filters.append("&& this.URI == :uri ");
+      params.put("uri", toNULLCol(safeTrim(tPriv.getURI())));
     }
-    filters.append("&& this.action == \"" + toNULLCol(safeTrimLower(tPriv.getAction())) + "\"");
+    filters.append("&& this.action == :action");
+    params.put("action", toNULLCol(safeTrimLower(tPriv.getAction())));
 
     query.setFilter(filters.toString());
-    List<MSentryPrivilege> privileges = (List<MSentryPrivilege>) query.execute();
+    List<MSentryPrivilege> privileges = (List<MSentryPrivilege>) executeQuery(query, params);
     return privileges;
   }
 
+  private MSentryPrivilege getMSentryPrivilege(TSentryPrivilege tPriv, PersistenceManager pm,
+      Map<MSentryPrivilege, MSentryPrivilege> resolvedPrivileges)
+      throws SentryInvalidInputException {
+    if (resolvedPrivileges == null) {
+      return getMSentryPrivilege(tPriv, pm);
+    }
+    // MSentryPrivilege.equals compares the same columns as the query below
+    return resolvedPrivileges.get(convertToMSentryPrivilege(tPriv));
+  }
+
+  /**
+   * Loads, with a single query, every existing privilege which
+   * {@link #getMSentryPrivilege(TSentryPrivilege, PersistenceManager)} could
+   * return for the given privileges with any action or grant option. The
+   * query matches the cross product of the requested columns, so the result
+   * may hold more privileges than asked for.
+   */
+  private Map<MSentryPrivilege, MSentryPrivilege> resolveMSentryPrivileges(
+      PersistenceManager pm, Collection<TSentryPrivilege> tPrivileges)
+      throws SentryInvalidInputException {
+    Set<String> serverNames = Sets.newHashSet();
+    Set<String> dbNames = Sets.newHashSet();
+    Set<String> tableNames = Sets.newHashSet();
+    Set<String> columnNames = Sets.newHashSet();
+    Set<String> uris = Sets.newHashSet();
+    for (TSentryPrivilege tPriv : tPrivileges) {
+      MSentryPrivilege mPriv = convertToMSentryPrivilege(tPriv);
+      serverNames.add(mPriv.getServerName());
+      dbNames.add(mPriv.getDbName());
+      tableNames.add(mPriv.getTableName());
+      columnNames.add(mPriv.getColumnName());
+      uris.add(mPriv.getURI());
+    }
+    Map<MSentryPrivilege, MSentryPrivilege> resolved = Maps.newHashMap();
+    if (tPrivileges.isEmpty()) {
+      return resolved;
+    }
+    Query query = pm.newQuery(MSentryPrivilege.class);
+    query.setFilter(":serverNames.contains(serverName) && :dbNames.contains(dbName) "
+        + "&& :tableNames.contains(tableName) && :columnNames.contains(columnName) "
+        + "&& :uris.contains(URI)");
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("serverNames", serverNames);
+    params.put("dbNames", dbNames);
+    params.put("tableNames", tableNames);
+    params.put("columnNames", columnNames);
+    params.put("uris", uris);
+    for (MSentryPrivilege mPriv : (List<MSentryPrivilege>) executeQuery(query, params)) {
+      resolved.put(mPriv, mPriv);
+    }
+    return resolved;
+  }
+
   private MSentryPrivilege getMSentryPrivilege(TSentryPrivilege tPriv, PersistenceManager pm) {
     Query query = pm.newQuery(MSentryPrivilege.class);
-    query.setFilter("this.serverName == \"" + toNULLCol(safeTrimLower(tPriv.getServerName())) + "\" "
-        + "&& this.dbName == \"" + toNULLCol(safeTrimLower(tPriv.getDbName())) + "\" "
-        + "&& this.tableName == \"" + toNULLCol(safeTrimLower(tPriv.getTableName())) + "\" "
-        + "&& this.columnName == \"" + toNULLCol(safeTrimLower(tPriv.getColumnName())) + "\" "
-        + "&& this.URI == \"" + toNULLCol(safeTrim(tPriv.getURI())) + "\" "
-        + "&& this.grantOption == grantOption "
-        + "&& this.action == \"" + toNULLCol(safeTrimLower(tPriv.getAction())) + "\"");
-    query.declareParameters("Boolean grantOption");
+    query.setFilter("this.serverName == :serverName && this.dbName == :dbName "
+        + "&& this.tableName == :tableName && this.columnName == :columnName "
+        + "&& this.URI == :uri && this.grantOption == :grantOption "
+        + "&& this.action == :action");
     query.setUnique(true);
     Boolean grantOption = null;
     if (tPriv.getGrantOption().equals(TSentryGrantOption.TRUE)) {
@@ -767,27 +1375,40 @@ public class SentryStore {
     } else if (tPriv.getGrantOption().equals(TSentryGrantOption.FALSE)) {
       grantOption = false;
     }
-    Object obj = query.execute(grantOption);
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("serverName", toNULLCol(safeTrimLower(tPriv.getServerName())));
+    params.put("dbName", toNULLCol(safeTrimLower(tPriv.getDbName())));
+    params.put("tableName", toNULLCol(safeTrimLower(tPriv.getTableName())));
+    params.put("columnName", toNULLCol(safeTrimLower(tPriv.getColumnName())));
+    params.put("uri", toNULLCol(safeTrim(tPriv.getURI())));
+    params.put("grantOption", grantOption);
+    params.put("action", toNULLCol(safeTrimLower(tPriv.getAction())));
+    Object obj = executeQuery(query, params);
     if (obj != null)
       return (MSentryPrivilege) obj;
     return null;
   }
 
-  public CommitContext dropSentryRole(String roleName)
+  public CommitContext dropSentryRole(final String roleName)
       throws SentryNoSuchObjectException {
-    boolean rollbackTransaction = true;
-    PersistenceManager pm = null;
-    try {
-      pm = openTransaction();
-      dropSentryRoleCore(pm, roleName);
-      CommitContext commit = commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commit;
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+    return retrier.run(new TransactionRetrier.Attempt<CommitContext, SentryNoSuchObjectException>() {
+      @Override
+      public CommitContext run() throws SentryNoSuchObjectException {
+        boolean rollbackTransaction = true;
+        PersistenceManager pm = null;
+        try {
+          pm = openTransaction();
+          dropSentryRoleCore(pm, roleName);
+          CommitContext commit = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commit;
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
       }
-    }
+    });
   }
 
   private void dropSentryRoleCore(PersistenceManager pm, String roleName)
@@ -801,6 +1422,8 @@ public class SentryStore {
     if (sentryRole == null) {
       throw new SentryNoSuchObjectException("Role " + lRoleName);
     } else {
+      pm.getFetchPlan().addGroup(MSentryRole.PRIVILEGES_FETCH_GROUP);
+      pm.getFetchPlan().addGroup(MSentryRole.GM_PRIVILEGES_FETCH_GROUP);
       pm.retrieve(sentryRole);
       int numPrivs = sentryRole.getPrivileges().size();
       sentryRole.removePrivileges();
@@ -808,25 +1431,34 @@ public class SentryStore {
       sentryRole.removeGMPrivileges();
       privCleaner.incPrivRemoval(numPrivs);
       pm.deletePersistent(sentryRole);
+      PermChangeRecorder recorder = permChangeRecorder;
+      if (recorder != null) {
+        recordPermChange(pm, recorder.onDropSentryRole(lRoleName));
+      }
     }
   }
 
-  public CommitContext alterSentryRoleAddGroups( String grantorPrincipal, String roleName,
-      Set<TSentryGroup> groupNames)
+  public CommitContext alterSentryRoleAddGroups( String grantorPrincipal, final String roleName,
+      final Set<TSentryGroup> groupNames)
           throws SentryNoSuchObjectException {
-    boolean rollbackTransaction = true;
-    PersistenceManager pm = null;
-    try {
-      pm = openTransaction();
-      alterSentryRoleAddGroupsCore(pm, roleName, groupNames);
-      CommitContext commit = commitUpdateTransaction(pm);
-      rollbackTransaction = false;
-      return commit;
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+    return retrier.run(new TransactionRetrier.Attempt<CommitContext, SentryNoSuchObjectException>() {
+      @Override
+      public CommitContext run() throws SentryNoSuchObjectException {
+        boolean rollbackTransaction = true;
+        PersistenceManager pm = null;
+        try {
+          pm = openTransaction();
+          alterSentryRoleAddGroupsCore(pm, roleName, groupNames);
+          CommitContext commit = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commit;
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
       }
-    }
+    });
   }
 
   private void alterSentryRoleAddGroupsCore(PersistenceManager pm, String roleName,
@@ -855,46 +1487,64 @@ public class SentryStore {
         groups.add(group);
       }
       pm.makePersistentAll(groups);
+      PermChangeRecorder recorder = permChangeRecorder;
+      if (recorder != null) {
+        recordPermChange(pm, recorder.onAlterSentryRoleAddGroups(lRoleName, groupNames));
+      }
     }
   }
 
   public CommitContext alterSentryRoleDeleteGroups(String roleName,
-      Set<TSentryGroup> groupNames)
+      final Set<TSentryGroup> groupNames)
           throws SentryNoSuchObjectException {
-    boolean rollbackTransaction = true;
-    PersistenceManager pm = null;
-    roleName = roleName.trim().toLowerCase();
-    try {
-      pm = openTransaction();
-      Query query = pm.newQuery(MSentryRole.class);
-      query.setFilter("this.roleName == t");
+    final String trimmedRoleName = roleName.trim().toLowerCase();
+    return retrier.run(new TransactionRetrier.Attempt<CommitContext, SentryNoSuchObjectException>() {
+      @Override
+      public CommitContext run() throws SentryNoSuchObjectException {
+        boolean rollbackTransaction = true;
+        PersistenceManager pm = null;
+        try {
+          pm = openTransaction();
+          alterSentryRoleDeleteGroupsCore(pm, trimmedRoleName, groupNames);
+          CommitContext commit = commitUpdateTransaction(pm);
+          rollbackTransaction = false;
+          return commit;
+        } finally {
+          if (rollbackTransaction) {
+            rollbackTransaction(pm);
+          }
+        }
+      }
+    });
+  }
+
+  private void alterSentryRoleDeleteGroupsCore(PersistenceManager pm, String roleName,
+      Set<TSentryGroup> groupNames) throws SentryNoSuchObjectException {
+    Query query = pm.newQuery(MSentryRole.class);
+    query.setFilter("this.roleName == t");
+    query.declareParameters("java.lang.String t");
+    query.setUnique(true);
+    MSentryRole role = (MSentryRole) query.execute(roleName);
+    if (role == null) {
+      throw new SentryNoSuchObjectException("Role: " + roleName);
+    } else {
+      query = pm.newQuery(MSentryGroup.class);
+      query.setFilter("this.groupName == t");
       query.declareParameters("java.lang.String t");
       query.setUnique(true);
-      MSentryRole role = (MSentryRole) query.execute(roleName);
-      if (role == null) {
-        throw new SentryNoSuchObjectException("Role: " + roleName);
-      } else {
-        query = pm.newQuery(MSentryGroup.class);
-        query.setFilter("this.groupName == t");
-        query.declareParameters("java.lang.String t");
-        query.setUnique(true);
-        List<MSentryGroup> groups = Lists.newArrayList();
-        for (TSentryGroup tGroup : groupNames) {
-          String groupName = tGroup.getGroupName().trim();
-          MSentryGroup group = (MSentryGroup) query.execute(groupName);
-          if (group != null) {
-            group.removeRole(role);
-            groups.add(group);
-          }
+      List<MSentryGroup> groups = Lists.newArrayList();
+      for (TSentryGroup tGroup : groupNames) {
+        String groupName = tGroup.getGroupName().trim();
+        MSentryGroup group = (MSentryGroup) query.execute(groupName);
+        if (group != null) {
+          group.removeRole(role);
+          groups.add(group);
         }
-        pm.makePersistentAll(groups);
-        CommitContext commit = commitUpdateTransaction(pm);
-        rollbackTransaction = false;
-        return commit;
       }
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+      pm.makePersistentAll(groups);
+      PermChangeRecorder recorder = permChangeRecorder;
+      if (recorder != null) {
+        recordPermChange(pm, recorder.onAlterSentryRoleDeleteGroups(roleName, groupNames));
       }
     }
   }
@@ -906,7 +1556,7 @@ public class SentryStore {
     PersistenceManager pm = null;
     roleName = roleName.trim().toLowerCase();
     try {
-      pm = openTransaction();
+      pm = openReadTransaction();
       Query query = pm.newQuery(MSentryRole.class);
       query.setFilter("this.roleName == t");
       query.declareParameters("java.lang.String t");
@@ -915,14 +1565,16 @@ public class SentryStore {
       if (sentryRole == null) {
         throw new SentryNoSuchObjectException("Role " + roleName);
       } else {
+        // the privileges are read after the persistence manager is closed
+        pm.getFetchPlan().addGroup(MSentryRole.PRIVILEGES_FETCH_GROUP);
         pm.retrieve(sentryRole);
       }
       rollbackTransaction = false;
-      commitTransaction(pm);
+      commitReadTransaction(pm);
       return sentryRole;
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
       }
     }
   }
@@ -932,28 +1584,83 @@ public class SentryStore {
     boolean rollbackTransaction = true;
     PersistenceManager pm = null;
     try {
-      pm = openTransaction();
-      Query query = pm.newQuery(MSentryPrivilege.class);
-      query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
-      List<String> rolesFiler = new LinkedList<String>();
-      for (String rName : roleNames) {
-        rolesFiler.add("role.roleName == \"" + rName.trim().toLowerCase() + "\"");
-      }
-      StringBuilder filters = new StringBuilder("roles.contains(role) "
-          + "&& (" + Joiner.on(" || ").join(rolesFiler) + ") ");
-      filters.append("&& serverName == \"" + serverName.trim().toLowerCase() + "\"");
-      query.setFilter(filters.toString());
-      query.setResult("count(this)");
-
-      Long numPrivs = (Long) query.execute();
+      pm = openReadTransaction();
+      boolean hasAny = hasAnyServerPrivileges(pm, roleNames, serverName);
       rollbackTransaction = false;
-      commitTransaction(pm);
-      return (numPrivs > 0);
+      commitReadTransaction(pm);
+      return hasAny;
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
+      }
+    }
+  }
+
+  // fetches at most one row instead of counting all privileges on the server
+  private boolean hasAnyServerPrivileges(PersistenceManager pm, Set<String> roleNames,
+      String serverName) {
+    Query query = pm.newQuery(MSentryPrivilege.class);
+    query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
+    query.setFilter("roles.contains(role) && :roleNames.contains(role.roleName)"
+        + " && serverName == :serverName");
+    query.setResult("serverName");
+    query.setRange(0, 1);
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("roleNames", toTrimedLower(roleNames));
+    params.put("serverName", serverName.trim().toLowerCase());
+    return !((List<?>) executeQuery(query, params)).isEmpty();
+  }
+
+  /**
+   * Compiles and executes a query whose values are all passed as parameters.
+   * DataNucleus caches query compilations keyed by the query text, so every
+   * call with the same filter shape reuses the compiled JDOQL and SQL, and the
+   * JDBC driver sees the same statement text.
+   */
+  private Object executeQuery(Query query, Map<String, Object> params) {
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    final Timer.Context compileContext = sentryMetrics.queryCompileTimer.time();
+    try {
+      query.compile();
+    } finally {
+      compileContext.stop();
+    }
+    final Timer.Context executeContext = sentryMetrics.queryExecuteTimer.time();
+    try {
+      return query.executeWithMap(params);
+    } finally {
+      executeContext.stop();
+    }
+  }
+
+  /**
+   * Returns the URIs whose privileges can imply the given URI: the URI
+   * itself and its prefixes ending right before or at a path separator,
+   * which is the path boundary rule of PathUtils.impliesURI. Looking these
+   * up with an IN list probes the URI index, where a startsWith filter had
+   * to be evaluated against every URI privilege.
+   */
+  @VisibleForTesting
+  static Set<String> getURIPrefixes(String uri) {
+    Set<String> prefixes = Sets.newHashSet(uri);
+    for (int i = uri.indexOf('/'); i >= 0; i = uri.indexOf('/', i + 1)) {
+      if (i > 0) {
+        prefixes.add(uri.substring(0, i));
       }
+      prefixes.add(uri.substring(0, i + 1));
+    }
+    return prefixes;
+  }
+
+  /**
+   * Same as getURIPrefixes(uri).contains(prefix)
+   */
+  static boolean isURIPrefix(String prefix, String uri) {
+    if (prefix.isEmpty() || !uri.startsWith(prefix)) {
+      return false;
     }
+    return uri.length() == prefix.length() || prefix.endsWith("/")
+        || uri.charAt(prefix.length()) == '/';
   }
 
   List<MSentryPrivilege> getMSentryPrivileges(Set<String> roleNames, TSentryAuthorizable authHierarchy) {
@@ -961,79 +1668,91 @@ public class SentryStore {
     boolean rollbackTransaction = true;
     PersistenceManager pm = null;
     try {
-      pm = openTransaction();
-      Query query = pm.newQuery(MSentryPrivilege.class);
-      query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
-      List<String> rolesFiler = new LinkedList<String>();
-      for (String rName : roleNames) {
-        rolesFiler.add("role.roleName == \"" + rName.trim().toLowerCase() + "\"");
-      }
-      StringBuilder filters = new StringBuilder("roles.contains(role) "
-          + "&& (" + Joiner.on(" || ").join(rolesFiler) + ") ");
-      if ((authHierarchy != null) && (authHierarchy.getServer() != null)) {
-        filters.append("&& serverName == \"" + authHierarchy.getServer().toLowerCase() + "\"");
-        if (authHierarchy.getDb() != null) {
-          filters.append(" && ((dbName == \"" + authHierarchy.getDb().toLowerCase() + "\") || (dbName == \"__NULL__\")) && (URI == \"__NULL__\")");
-          if ((authHierarchy.getTable() != null)
-              && !AccessConstants.ALL
-                  .equalsIgnoreCase(authHierarchy.getTable())) {
-            filters.append(" && ((tableName == \"" + authHierarchy.getTable().toLowerCase() + "\") || (tableName == \"__NULL__\")) && (URI == \"__NULL__\")");
-            if ((authHierarchy.getColumn() != null)
-                && !AccessConstants.ALL
-                    .equalsIgnoreCase(authHierarchy.getColumn())) {
-              filters.append(" && ((columnName == \"" + authHierarchy.getColumn().toLowerCase() + "\") || (columnName == \"__NULL__\")) && (URI == \"__NULL__\")");
-            }
-          }
-        }
-        if (authHierarchy.getUri() != null) {
-          filters.append(" && ((URI != \"__NULL__\") && (\"" + authHierarchy.getUri() + "\".startsWith(URI)) || (URI == \"__NULL__\")) && (dbName == \"__NULL__\")");
-        }
-      }
-      query.setFilter(filters.toString());
-      List<MSentryPrivilege> privileges = (List<MSentryPrivilege>) query.execute();
+      pm = openReadTransaction();
+      List<MSentryPrivilege> privileges = getMSentryPrivileges(pm, roleNames, authHierarchy);
       rollbackTransaction = false;
-      commitTransaction(pm);
+      commitReadTransaction(pm);
       return privileges;
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<MSentryPrivilege> getMSentryPrivileges(PersistenceManager pm,
+      Set<String> roleNames, TSentryAuthorizable authHierarchy) {
+    Query query = pm.newQuery(MSentryPrivilege.class);
+    query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
+    // The filter text only depends on which parts of the authorizable are
+    // set; all values are passed as parameters.
+    Map<String, Object> params = Maps.newHashMap();
+    StringBuilder filters = new StringBuilder("roles.contains(role) "
+        + "&& :roleNames.contains(role.roleName) ");
+    params.put("roleNames", toTrimedLower(roleNames));
+    if ((authHierarchy != null) && (authHierarchy.getServer() != null)) {
+      filters.append("&& serverName == :serverName");
+      params.put("serverName", authHierarchy.getServer().toLowerCase());
+      if (authHierarchy.getDb() != null) {
+        filters.append(" && ((dbName == :dbName) || (dbName == \"__NULL__\")) && (URI == \"__NULL__\")");
+        params.put("dbName", authHierarchy.getDb().toLowerCase());
+        if ((authHierarchy.getTable() != null)
+            && !AccessConstants.ALL
+                .equalsIgnoreCase(authHierarchy.getTable())) {
+          filters.append(" && ((tableName == :tableName) || (tableName == \"__NULL__\")) && (URI == \"__NULL__\")");
+          params.put("tableName", authHierarchy.getTable().toLowerCase());
+          if ((authHierarchy.getColumn() != null)
+              && !AccessConstants.ALL
+                  .equalsIgnoreCase(authHierarchy.getColumn())) {
+            filters.append(" && ((columnName == :columnName) || (columnName == \"__NULL__\")) && (URI == \"__NULL__\")");
+            params.put("columnName", authHierarchy.getColumn().toLowerCase());
+          }
+        }
+      }
+      if (authHierarchy.getUri() != null) {
+        // server privileges, or URI privileges implying the requested URI
+        filters.append(" && :uris.contains(URI) && (dbName == \"__NULL__\")");
+        Set<String> uris = getURIPrefixes(authHierarchy.getUri());
+        uris.add(NULL_COL);
+        params.put("uris", uris);
       }
     }
+    query.setFilter(filters.toString());
+    return (List<MSentryPrivilege>) executeQuery(query, params);
   }
 
   List<MSentryPrivilege> getMSentryPrivilegesByAuth(Set<String> roleNames, TSentryAuthorizable authHierarchy) {
     boolean rollbackTransaction = true;
     PersistenceManager pm = null;
     try {
-      pm = openTransaction();
+      pm = openReadTransaction();
       Query query = pm.newQuery(MSentryPrivilege.class);
+      Map<String, Object> params = Maps.newHashMap();
       StringBuilder filters = new StringBuilder();
       if ((roleNames.size() == 0)||(roleNames == null)) {
         filters.append(" !roles.isEmpty() ");
       } else {
         query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
-        List<String> rolesFiler = new LinkedList<String>();
-        for (String rName : roleNames) {
-          rolesFiler.add("role.roleName == \"" + rName.trim().toLowerCase() + "\"");
-        }
         filters.append("roles.contains(role) "
-          + "&& (" + Joiner.on(" || ").join(rolesFiler) + ") ");
+          + "&& :roleNames.contains(role.roleName) ");
+        params.put("roleNames", toTrimedLower(roleNames));
       }
       if ((authHierarchy.getServer() != null)) {
-        filters.append("&& serverName == \"" +
-            authHierarchy.getServer().toLowerCase() + "\"");
+        filters.append("&& serverName == :serverName");
+        params.put("serverName", authHierarchy.getServer().toLowerCase());
         if (authHierarchy.getDb() != null) {
-          filters.append(" && (dbName == \"" +
-              authHierarchy.getDb().toLowerCase() + "\") && (URI == \"__NULL__\")");
+          filters.append(" && (dbName == :dbName) && (URI == \"__NULL__\")");
+          params.put("dbName", authHierarchy.getDb().toLowerCase());
           if (authHierarchy.getTable() != null) {
-            filters.append(" && (tableName == \"" +
-                authHierarchy.getTable().toLowerCase() + "\")");
+            filters.append(" && (tableName == :tableName)");
+            params.put("tableName", authHierarchy.getTable().toLowerCase());
           } else {
             filters.append(" && (tableName == \"__NULL__\")");
           }
         } else if (authHierarchy.getUri() != null) {
-          filters.append(" && (URI != \"__NULL__\") && (\"" + authHierarchy.getUri() +
-              "\".startsWith(URI)) && (dbName == \"__NULL__\")");
+          filters.append(" && :uris.contains(URI) && (dbName == \"__NULL__\")");
+          params.put("uris", getURIPrefixes(authHierarchy.getUri()));
         } else {
           filters.append(" && (dbName == \"__NULL__\") && (URI == \"__NULL__\")");
         }
@@ -1047,13 +1766,13 @@ public class SentryStore {
       grp.addMember("roles");
       pm.getFetchPlan().addGroup("fetchRole");
       query.setFilter(filters.toString());
-      List<MSentryPrivilege> privileges = (List<MSentryPrivilege>) query.execute();
+      List<MSentryPrivilege> privileges = (List<MSentryPrivilege>) executeQuery(query, params);
       rollbackTransaction = false;
-      commitTransaction(pm);
+      commitReadTransaction(pm);
       return privileges;
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
       }
     }
   }
@@ -1139,107 +1858,116 @@ public class SentryStore {
   }
 
 
-  private Set<MSentryRole> getMSentryRolesByGroupName(String groupName)
-      throws SentryNoSuchObjectException {
+  /**
+   * Gets sentry role objects for a given groupName from the persistence layer
+   * @param groupName : groupName to look up ( if null returns all roles for all groups)
+   * @return : Set of thrift sentry role objects
+   * @throws SentryNoSuchObjectException
+   */
+  public Set<TSentryRole> getTSentryRolesByGroupName(Set<String> groupNames,
+      boolean checkAllGroups) throws SentryNoSuchObjectException {
     boolean rollbackTransaction = true;
     PersistenceManager pm = null;
     try {
-      Set<MSentryRole> roles;
-      pm = openTransaction();
-
+      Set<MSentryRole> roleSet;
+      pm = openReadTransaction();
       //If no group name was specified, return all roles
-      if (groupName == null) {
+      if (groupNames.contains(null)) {
         Query query = pm.newQuery(MSentryRole.class);
-        roles = new HashSet<MSentryRole>((List<MSentryRole>)query.execute());
+        roleSet = new HashSet<MSentryRole>((List<MSentryRole>) query.execute());
       } else {
-        Query query = pm.newQuery(MSentryGroup.class);
-        MSentryGroup sentryGroup;
-        groupName = groupName.trim();
-        query.setFilter("this.groupName == t");
-        query.declareParameters("java.lang.String t");
-        query.setUnique(true);
-        sentryGroup = (MSentryGroup) query.execute(groupName);
-        if (sentryGroup == null) {
-          throw new SentryNoSuchObjectException("Group " + groupName);
-        } else {
-          pm.retrieve(sentryGroup);
+        Set<String> trimmedGroupNames = trimGroupNames(groupNames);
+        if (!checkAllGroups) {
+          Set<String> missingGroups = Sets.difference(trimmedGroupNames,
+              getExistingGroupNames(pm, trimmedGroupNames));
+          if (!missingGroups.isEmpty()) {
+            throw new SentryNoSuchObjectException("Group " + missingGroups.iterator().next());
+          }
         }
-        roles = sentryGroup.getRoles();
+        roleSet = getRolesForGroups(pm, trimmedGroupNames);
       }
-      for ( MSentryRole role: roles) {
+      for (MSentryRole role : roleSet) {
         pm.retrieve(role);
       }
-      commitTransaction(pm);
+      Set<TSentryRole> result = convertToTSentryRoles(roleSet);
       rollbackTransaction = false;
-      return roles;
+      commitReadTransaction(pm);
+      return result;
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
       }
     }
   }
 
-  /**
-   * Gets sentry role objects for a given groupName from the persistence layer
-   * @param groupName : groupName to look up ( if null returns all roles for all groups)
-   * @return : Set of thrift sentry role objects
-   * @throws SentryNoSuchObjectException
-   */
-  public Set<TSentryRole> getTSentryRolesByGroupName(Set<String> groupNames,
-      boolean checkAllGroups) throws SentryNoSuchObjectException {
-    Set<MSentryRole> roleSet = Sets.newHashSet();
-    for (String groupName : groupNames) {
-      try {
-        roleSet.addAll(getMSentryRolesByGroupName(groupName));
-      } catch (SentryNoSuchObjectException e) {
-        // if we are checking for all the given groups, then continue searching
-        if (!checkAllGroups) {
-          throw e;
-        }
-      }
-    }
-    return convertToTSentryRoles(roleSet);
-  }
-
   public Set<String> getRoleNamesForGroups(Set<String> groups) {
-    Set<String> result = new HashSet<String>();
     boolean rollbackTransaction = true;
     PersistenceManager pm = null;
     try {
-      pm = openTransaction();
-      Query query = pm.newQuery(MSentryGroup.class);
-      query.setFilter("this.groupName == t");
-      query.declareParameters("java.lang.String t");
-      query.setUnique(true);
-      for (String group : groups) {
-        MSentryGroup sentryGroup = (MSentryGroup) query.execute(group.trim());
-        if (sentryGroup != null) {
-          for (MSentryRole role : sentryGroup.getRoles()) {
-            result.add(role.getRoleName());
-          }
-        }
-      }
+      pm = openReadTransaction();
+      Set<String> result = getRoleNamesForGroups(pm, groups);
       rollbackTransaction = false;
-      commitTransaction(pm);
+      commitReadTransaction(pm);
       return result;
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
       }
     }
   }
 
+  /**
+   * Resolves the role names of all the given groups with a single query
+   * through the role/group mapping, instead of a lookup per group.
+   */
+  @SuppressWarnings("unchecked")
+  private Set<String> getRoleNamesForGroups(PersistenceManager pm, Set<String> groups) {
+    Set<String> result = new HashSet<String>();
+    if (groups == null || groups.isEmpty()) {
+      return result;
+    }
+    Query query = pm.newQuery(MSentryRole.class);
+    query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryGroup group");
+    query.setFilter("groups.contains(group) && :groupNames.contains(group.groupName)");
+    query.setResult("distinct roleName");
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("groupNames", trimGroupNames(groups));
+    result.addAll((List<String>) executeQuery(query, params));
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
   public Set<MSentryRole> getRolesForGroups(PersistenceManager pm, Set<String> groups) {
     Set<MSentryRole> result = new HashSet<MSentryRole>();
+    if (groups == null || groups.isEmpty()) {
+      return result;
+    }
+    Query query = pm.newQuery(MSentryRole.class);
+    query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryGroup group");
+    query.setFilter("groups.contains(group) && :groupNames.contains(group.groupName)");
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("groupNames", trimGroupNames(groups));
+    result.addAll((List<MSentryRole>) executeQuery(query, params));
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<String> getExistingGroupNames(PersistenceManager pm, Set<String> groups) {
+    if (groups.isEmpty()) {
+      return new HashSet<String>();
+    }
     Query query = pm.newQuery(MSentryGroup.class);
-    query.setFilter("this.groupName == t");
-    query.declareParameters("java.lang.String t");
-    query.setUnique(true);
+    query.setFilter(":groupNames.contains(groupName)");
+    query.setResult("groupName");
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("groupNames", groups);
+    return new HashSet<String>((List<String>) executeQuery(query, params));
+  }
+
+  private static Set<String> trimGroupNames(Set<String> groups) {
+    Set<String> result = new HashSet<String>();
     for (String group : groups) {
-      MSentryGroup sentryGroup = (MSentryGroup) query.execute(group.trim());
-      if (sentryGroup != null) {
-        result.addAll(sentryGroup.getRoles());
-      }
+      result.add(group.trim());
     }
     return result;
   }
@@ -1252,8 +1980,15 @@ public class SentryStore {
   public Set<String> listSentryPrivilegesForProvider(Set<String> groups,
       TSentryActiveRoleSet roleSet, TSentryAuthorizable authHierarchy) throws SentryInvalidInputException {
     Set<String> result = Sets.newHashSet();
-    Set<String> rolesToQuery = getRolesToQuery(groups, roleSet);
-    List<MSentryPrivilege> mSentryPrivileges = getMSentryPrivileges(rolesToQuery, authHierarchy);
+    List<MSentryPrivilege> mSentryPrivileges;
+    if (privilegeIndexEnabled) {
+      PrivilegeIndex index = getPrivilegeIndex();
+      Set<String> rolesToQuery = filterActiveRoles(index.getRoleNamesForGroups(groups), roleSet);
+      mSentryPrivileges = index.getPrivileges(rolesToQuery, authHierarchy);
+    } else {
+      Set<String> rolesToQuery = getRolesToQuery(groups, roleSet);
+      mSentryPrivileges = getMSentryPrivileges(rolesToQuery, authHierarchy);
+    }
 
     for (MSentryPrivilege priv : mSentryPrivileges) {
       result.add(toAuthorizable(priv));
@@ -1263,7 +1998,102 @@ public class SentryStore {
   }
 
 
+  /**
+   * Lists the privileges of the groups implied by authHierarchy, like
+   * {@link #listSentryPrivilegesForProvider}. When none match but the roles
+   * hold any privilege on the server of authHierarchy, returns
+   * {@link #SERVER_ACCESS_PRIVILEGE} instead, which the provider needs to
+   * make the default database accessible. Roles are resolved once and
+   * everything is read in a single transaction. Answers are served from the
+   * provider response cache when it is enabled.
+   */
+  public Set<String> listSentryPrivilegesOrServerAccessForProvider(Set<String> groups,
+      TSentryActiveRoleSet roleSet, TSentryAuthorizable authHierarchy) {
+    if (providerResponseCache == null) {
+      return readPrivilegesOrServerAccessForProvider(groups, roleSet, authHierarchy);
+    }
+    syncCommitSequence();
+    // read the generation first, so that an answer read across a commit
+    // is tagged with the older generation and never served
+    long generation = privilegeIndexGeneration.get();
+    Set<String> result = providerResponseCache.get(groups, roleSet, authHierarchy, generation);
+    if (result == null) {
+      result = providerResponseCache.put(groups, roleSet, authHierarchy, generation,
+          readPrivilegesOrServerAccessForProvider(groups, roleSet, authHierarchy));
+    }
+    return result;
+  }
+
+  private Set<String> readPrivilegesOrServerAccessForProvider(Set<String> groups,
+      TSentryActiveRoleSet roleSet, TSentryAuthorizable authHierarchy) {
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    boolean checkServer = (authHierarchy != null) && (authHierarchy.getServer() != null);
+    Set<String> result = Sets.newHashSet();
+    if (privilegeIndexEnabled) {
+      PrivilegeIndex index = getPrivilegeIndex();
+      Set<String> rolesToQuery = filterActiveRoles(index.getRoleNamesForGroups(groups), roleSet);
+      for (MSentryPrivilege priv : index.getPrivileges(rolesToQuery, authHierarchy)) {
+        result.add(toAuthorizable(priv));
+      }
+      if (result.isEmpty() && checkServer
+          && index.hasAnyServerPrivileges(rolesToQuery, authHierarchy.getServer())) {
+        result.add(SERVER_ACCESS_PRIVILEGE);
+      }
+      return result;
+    }
+
+    boolean rollbackTransaction = true;
+    PersistenceManager pm = null;
+    try {
+      pm = openReadTransaction();
+      Timer.Context phaseContext = sentryMetrics.providerRoleLookupTimer.time();
+      Set<String> rolesToQuery;
+      try {
+        rolesToQuery = filterActiveRoles(getRoleNamesForGroups(pm, groups), roleSet);
+      } finally {
+        phaseContext.stop();
+      }
+      if (!rolesToQuery.isEmpty()) {
+        phaseContext = sentryMetrics.providerPrivilegeLookupTimer.time();
+        try {
+          for (MSentryPrivilege priv : getMSentryPrivileges(pm, rolesToQuery, authHierarchy)) {
+            result.add(toAuthorizable(priv));
+          }
+        } finally {
+          phaseContext.stop();
+        }
+        if (result.isEmpty() && checkServer) {
+          phaseContext = sentryMetrics.providerServerCheckTimer.time();
+          try {
+            if (hasAnyServerPrivileges(pm, rolesToQuery, authHierarchy.getServer())) {
+              result.add(SERVER_ACCESS_PRIVILEGE);
+            }
+          } finally {
+            phaseContext.stop();
+          }
+        }
+      }
+      rollbackTransaction = false;
+      commitReadTransaction(pm);
+      return result;
+    } finally {
+      if (rollbackTransaction) {
+        rollbackReadTransaction(pm);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  long getProviderResponseCacheSize() {
+    return providerResponseCache == null ? 0 : providerResponseCache.size();
+  }
+
   public boolean hasAnyServerPrivileges(Set<String> groups, TSentryActiveRoleSet roleSet, String server) {
+    if (privilegeIndexEnabled) {
+      PrivilegeIndex index = getPrivilegeIndex();
+      return index.hasAnyServerPrivileges(
+          filterActiveRoles(index.getRoleNamesForGroups(groups), roleSet), server);
+    }
     Set<String> rolesToQuery = getRolesToQuery(groups, roleSet);
     return hasAnyServerPrivileges(rolesToQuery, server);
   }
@@ -1272,13 +2102,111 @@ public class SentryStore {
 
   private Set<String> getRolesToQuery(Set<String> groups,
       TSentryActiveRoleSet roleSet) {
+    return filterActiveRoles(getRoleNamesForGroups(groups), roleSet);
+  }
+
+  private Set<String> filterActiveRoles(Set<String> roleNamesForGroups,
+      TSentryActiveRoleSet roleSet) {
     Set<String> activeRoleNames = toTrimedLower(roleSet.getRoles());
 
-    Set<String> roleNamesForGroups = toTrimedLower(getRoleNamesForGroups(groups));
-    Set<String> rolesToQuery = roleSet.isAll() ? roleNamesForGroups : Sets.intersection(activeRoleNames, roleNamesForGroups);
+    Set<String> lowerRoleNamesForGroups = toTrimedLower(roleNamesForGroups);
+    Set<String> rolesToQuery = roleSet.isAll() ? lowerRoleNamesForGroups : Sets.intersection(activeRoleNames, lowerRoleNamesForGroups);
     return rolesToQuery;
   }
 
+  /**
+   * Returns the privilege index for the latest generation, rebuilding it
+   * from the database if a commit happened since it was last built.
+   */
+  private PrivilegeIndex getPrivilegeIndex() {
+    syncCommitSequence();
+    PrivilegeIndex index = privilegeIndex;
+    if (index != null && index.getGeneration() == privilegeIndexGeneration.get()) {
+      return index;
+    }
+    synchronized (privilegeIndexLock) {
+      // read the generation before loading, so that a commit racing with the
+      // load leaves the new snapshot stale instead of silently missing it
+      long generation = privilegeIndexGeneration.get();
+      index = privilegeIndex;
+      if (index == null || index.getGeneration() != generation) {
+        index = loadPrivilegeIndex(generation);
+        privilegeIndex = index;
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Must be called after every commit that changes roles, groups or
+   * privileges. Cheap enough to call even when the index and the caches
+   * are disabled.
+   */
+  private void policyChanged() {
+    privilegeIndexGeneration.incrementAndGet();
+    countGeneration.incrementAndGet();
+    if (providerResponseCache != null) {
+      providerResponseCache.invalidateAll();
+    }
+  }
+
+  /**
+   * Called when the commit sequence shows that another server sharing the
+   * database committed.
+   */
+  private void otherServerCommitted() {
+    if (cacheSync != null) {
+      cacheSync.otherServerCommitted();
+    }
+    policyChanged();
+  }
+
+  @SuppressWarnings("unchecked")
+  private PrivilegeIndex loadPrivilegeIndex(long generation) {
+    boolean rollbackTransaction = true;
+    PersistenceManager pm = null;
+    try {
+      pm = openReadTransaction();
+      PrivilegeIndex.Builder builder = new PrivilegeIndex.Builder(generation);
+      Query query = pm.newQuery(MSentryGroup.class);
+      query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
+      query.setFilter("roles.contains(role)");
+      query.setResult("groupName, role.roleName");
+      for (Object[] row : (List<Object[]>) query.execute()) {
+        builder.addGroupRole((String) row[0], (String) row[1]);
+      }
+
+      query = pm.newQuery(MSentryPrivilege.class);
+      query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
+      query.setFilter("roles.contains(role)");
+      query.setResult("role.roleName, privilegeScope, serverName, dbName, tableName,"
+          + " columnName, URI, action, grantOption");
+      int numPrivileges = 0;
+      for (Object[] row : (List<Object[]>) query.execute()) {
+        MSentryPrivilege priv = new MSentryPrivilege();
+        priv.setPrivilegeScope((String) row[1]);
+        priv.setServerName((String) row[2]);
+        priv.setDbName((String) row[3]);
+        priv.setTableName((String) row[4]);
+        priv.setColumnName((String) row[5]);
+        priv.setURI((String) row[6]);
+        priv.setAction((String) row[7]);
+        priv.setGrantOption((Boolean) row[8]);
+        builder.addRolePrivilege((String) row[0], priv);
+        numPrivileges++;
+      }
+      rollbackTransaction = false;
+      commitReadTransaction(pm);
+      LOGGER.debug("Loaded privilege index generation {} with {} role privileges",
+          generation, numPrivileges);
+      return builder.build();
+    } finally {
+      if (rollbackTransaction) {
+        rollbackReadTransaction(pm);
+      }
+    }
+  }
+
   @VisibleForTesting
   static String toAuthorizable(MSentryPrivilege privilege) {
     List<String> authorizable = new ArrayList<String>(4);
@@ -1497,71 +2425,454 @@ public class SentryStore {
   /**
    * Drop given privilege from all roles
    */
-  public void dropPrivilege(TSentryAuthorizable tAuthorizable)
+  public void dropPrivilege(final TSentryAuthorizable tAuthorizable)
       throws SentryNoSuchObjectException, SentryInvalidInputException {
-    PersistenceManager pm = null;
-    boolean rollbackTransaction = true;
+    final TSentryPrivilege tPrivilege = toSentryPrivilege(tAuthorizable);
+    try {
+      retrier.run(new TransactionRetrier.Attempt<Void, SentryUserException>() {
+        @Override
+        public Void run() throws SentryUserException {
+          PersistenceManager pm = null;
+          boolean rollbackTransaction = true;
+          try {
+            pm = openTransaction();
+            boolean bulk = dropPrivilegeCore(pm, tPrivilege);
+            PermChangeRecorder recorder = permChangeRecorder;
+            if (recorder != null) {
+              recordPermChange(pm, recorder.onDropSentryPrivilege(tAuthorizable));
+            }
+            commitUpdateTransaction(pm, 1, bulk);
+            rollbackTransaction = false;
+            return null;
+          } finally {
+            if (rollbackTransaction) {
+              rollbackTransaction(pm);
+            }
+          }
+        }
+      });
+    } catch (JDODataStoreException e) {
+      throw new SentryInvalidInputException("Failed to get privileges: "
+          + e.getMessage());
+    } catch (SentryUserException e) {
+      throw propagatePrivilegeException(e);
+    }
+  }
+
+  /**
+   * Rename given privilege from all roles drop the old privilege and create the new one
+   * @param tAuthorizable
+   * @param newTAuthorizable
+   * @throws SentryNoSuchObjectException
+   * @throws SentryInvalidInputException
+   */
+  public void renamePrivilege(final TSentryAuthorizable tAuthorizable,
+      final TSentryAuthorizable newTAuthorizable)
+      throws SentryNoSuchObjectException, SentryInvalidInputException {
+    final TSentryPrivilege tPrivilege = toSentryPrivilege(tAuthorizable);
+    final TSentryPrivilege newPrivilege = toSentryPrivilege(newTAuthorizable);
+    if (isSameAuthorizable(tPrivilege, newPrivilege)) {
+      // nothing to rename, and merging the privileges into themselves
+      // would drop them
+      return;
+    }
 
-    TSentryPrivilege tPrivilege = toSentryPrivilege(tAuthorizable);
     try {
-      pm = openTransaction();
+      retrier.run(new TransactionRetrier.Attempt<Void, SentryUserException>() {
+        @Override
+        public Void run() throws SentryUserException {
+          PersistenceManager pm = null;
+          boolean rollbackTransaction = true;
+          try {
+            pm = openTransaction();
+            boolean bulk = renamePrivilegeCore(pm, tPrivilege, newPrivilege);
+            PermChangeRecorder recorder = permChangeRecorder;
+            if (recorder != null) {
+              recordPermChange(pm, recorder.onRenameSentryPrivilege(tAuthorizable, newTAuthorizable));
+            }
+            commitUpdateTransaction(pm, 1, bulk);
+            rollbackTransaction = false;
+            return null;
+          } finally {
+            if (rollbackTransaction) {
+              rollbackTransaction(pm);
+            }
+          }
+        }
+      });
+    } catch (JDODataStoreException e) {
+      throw new SentryInvalidInputException("Failed to get privileges: "
+          + e.getMessage());
+    } catch (SentryUserException e) {
+      throw propagatePrivilegeException(e);
+    }
+  }
 
-      if (isMultiActionsSupported(tPrivilege)) {
-        for (String privilegeAction : ALL_ACTIONS) {
-          tPrivilege.setAction(privilegeAction);
-          dropPrivilegeForAllRoles(pm, new TSentryPrivilege(tPrivilege));
+  /**
+   * Drops or renames the privileges of many objects in one transaction, in
+   * the order of the changes. A change without a new authorizable drops the
+   * privileges of its authorizable, one with it renames them.
+   */
+  public void dropOrRenamePrivileges(final List<TSentryAuthorizableChange> changes)
+      throws SentryNoSuchObjectException, SentryInvalidInputException {
+    try {
+      retrier.run(new TransactionRetrier.Attempt<Void, SentryUserException>() {
+        @Override
+        public Void run() throws SentryUserException {
+          PersistenceManager pm = null;
+          boolean rollbackTransaction = true;
+          try {
+            pm = openTransaction();
+            PermChangeRecorder recorder = permChangeRecorder;
+            List<TSentryAuthorizable> drops = Lists.newArrayList();
+            boolean bulk = false;
+            for (TSentryAuthorizableChange change : changes) {
+              TSentryAuthorizable tAuthorizable = change.getAuthorizable();
+              TSentryPrivilege tPrivilege = toSentryPrivilege(tAuthorizable);
+              if (!change.isSetNewAuthorizable()) {
+                bulk |= dropPrivilegeCore(pm, tPrivilege);
+                drops.add(tAuthorizable);
+                continue;
+              }
+              TSentryAuthorizable newTAuthorizable = change.getNewAuthorizable();
+              TSentryPrivilege newPrivilege = toSentryPrivilege(newTAuthorizable);
+              if (isSameAuthorizable(tPrivilege, newPrivilege)) {
+                continue;
+              }
+              bulk |= renamePrivilegeCore(pm, tPrivilege, newPrivilege);
+              // the drops are logged together, but the NameNodes apply a
+              // single rename per update
+              recordPrivilegeDrops(pm, recorder, drops);
+              if (recorder != null) {
+                recordPermChange(pm, recorder.onRenameSentryPrivilege(tAuthorizable, newTAuthorizable));
+              }
+            }
+            recordPrivilegeDrops(pm, recorder, drops);
+            commitUpdateTransaction(pm, 1, bulk);
+            rollbackTransaction = false;
+            return null;
+          } finally {
+            if (rollbackTransaction) {
+              rollbackTransaction(pm);
+            }
+          }
         }
-      } else {
+      });
+    } catch (JDODataStoreException e) {
+      throw new SentryInvalidInputException("Failed to get privileges: "
+          + e.getMessage());
+    } catch (SentryUserException e) {
+      throw propagatePrivilegeException(e);
+    }
+  }
+
+  private void recordPrivilegeDrops(PersistenceManager pm, PermChangeRecorder recorder,
+      List<TSentryAuthorizable> drops) {
+    if (recorder != null && !drops.isEmpty()) {
+      recordPermChange(pm, recorder.onDropSentryPrivileges(Lists.newArrayList(drops)));
+    }
+    drops.clear();
+  }
+
+  /**
+   * @return true when the privileges were dropped with set-based statements
+   */
+  private boolean dropPrivilegeCore(PersistenceManager pm, TSentryPrivilege tPrivilege)
+      throws SentryNoSuchObjectException, SentryInvalidInputException {
+    if (isBulkSupported(tPrivilege, null)) {
+      bulkDropPrivileges(pm, tPrivilege);
+      return true;
+    }
+    if (isMultiActionsSupported(tPrivilege)) {
+      for (String privilegeAction : ALL_ACTIONS) {
+        tPrivilege.setAction(privilegeAction);
         dropPrivilegeForAllRoles(pm, new TSentryPrivilege(tPrivilege));
       }
-      rollbackTransaction = false;
-      commitTransaction(pm);
-    } catch (JDODataStoreException e) {
-      throw new SentryInvalidInputException("Failed to get privileges: "
-          + e.getMessage());
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+    } else {
+      dropPrivilegeForAllRoles(pm, new TSentryPrivilege(tPrivilege));
+    }
+    return false;
+  }
+
+  /**
+   * @return true when the privileges were renamed with set-based statements
+   */
+  private boolean renamePrivilegeCore(PersistenceManager pm, TSentryPrivilege tPrivilege,
+      TSentryPrivilege newPrivilege)
+      throws SentryNoSuchObjectException, SentryInvalidInputException {
+    if (isBulkSupported(tPrivilege, newPrivilege)) {
+      bulkRenamePrivileges(pm, tPrivilege, newPrivilege);
+      return true;
+    }
+    if (isMultiActionsSupported(tPrivilege)) {
+      // In case of tables or DBs, check all actions
+      for (String privilegeAction : ALL_ACTIONS) {
+        tPrivilege.setAction(privilegeAction);
+        newPrivilege.setAction(privilegeAction);
+        renamePrivilegeForAllRoles(pm, tPrivilege, newPrivilege);
+      }
+    } else {
+      renamePrivilegeForAllRoles(pm, tPrivilege, newPrivilege);
+    }
+    return false;
+  }
+
+  // the privilege drops and renames only throw these two
+  private static SentryInvalidInputException propagatePrivilegeException(SentryUserException e)
+      throws SentryNoSuchObjectException {
+    Throwables.propagateIfInstanceOf(e, SentryNoSuchObjectException.class);
+    if (e instanceof SentryInvalidInputException) {
+      return (SentryInvalidInputException) e;
+    }
+    return new SentryInvalidInputException(e.getMessage());
+  }
+
+  private static boolean isSameAuthorizable(TSentryPrivilege tPrivilege,
+      TSentryPrivilege newPrivilege) {
+    return tPrivilege.getPrivilegeScope().equals(newPrivilege.getPrivilegeScope())
+        && StringUtils.equals(safeTrimLower(tPrivilege.getServerName()),
+            safeTrimLower(newPrivilege.getServerName()))
+        && StringUtils.equals(safeTrimLower(tPrivilege.getDbName()),
+            safeTrimLower(newPrivilege.getDbName()))
+        && StringUtils.equals(safeTrimLower(tPrivilege.getTableName()),
+            safeTrimLower(newPrivilege.getTableName()))
+        && StringUtils.equals(safeTrimLower(tPrivilege.getColumnName()),
+            safeTrimLower(newPrivilege.getColumnName()))
+        && StringUtils.equals(safeTrim(tPrivilege.getURI()), safeTrim(newPrivilege.getURI()));
+  }
+
+  /**
+   * Database and table drops and renames remove or rewrite every privilege
+   * on the object and below it, whatever its action, so they are done with
+   * set-based statements instead of revoking and granting role by role.
+   */
+  private boolean isBulkSupported(TSentryPrivilege tPrivilege, TSentryPrivilege newPrivilege) {
+    String scope = tPrivilege.getPrivilegeScope();
+    if (!PrivilegeScope.DATABASE.name().equals(scope)
+        && !PrivilegeScope.TABLE.name().equals(scope)) {
+      return false;
+    }
+    return (newPrivilege == null) || scope.equals(newPrivilege.getPrivilegeScope());
+  }
+
+  /**
+   * Drops the privileges on the database or table of tPrivilege, and on
+   * everything below it, from all roles. The privileges are deleted as well
+   * since no role references them anymore.
+   */
+  private void bulkDropPrivileges(PersistenceManager pm, TSentryPrivilege tPrivilege) {
+    JDOConnection jdoConn = pm.getDataStoreConnection();
+    try {
+      Connection conn = (Connection) jdoConn.getNativeConnection();
+      BulkPrivilegeStatements sql = new BulkPrivilegeStatements(conn, tPrivilege);
+      List<Long> ids = sql.selectIds(conn);
+      int removedGrants = sql.deleteByIds(conn, ids);
+      LOGGER.debug("Dropped {} privileges held by {} roles in bulk", ids.size(), removedGrants);
+    } catch (SQLException e) {
+      throw new JDODataStoreException("Bulk drop of privileges failed", e);
+    } finally {
+      jdoConn.close();
+    }
+  }
+
+  /**
+   * Renames the database or table of tPrivilege, and of everything below it,
+   * to the one of newPrivilege. A renamed privilege which already exists
+   * under the new name is merged into the existing one; the ALL, SELECT and
+   * INSERT actions of the merged privileges are not reconciled.
+   */
+  private void bulkRenamePrivileges(PersistenceManager pm, TSentryPrivilege tPrivilege,
+      TSentryPrivilege newPrivilege) {
+    JDOConnection jdoConn = pm.getDataStoreConnection();
+    try {
+      Connection conn = (Connection) jdoConn.getNativeConnection();
+      BulkPrivilegeStatements sql = new BulkPrivilegeStatements(conn, tPrivilege);
+      String newDbName = toNULLCol(safeTrimLower(newPrivilege.getDbName()));
+      String newTableName = PrivilegeScope.TABLE.name().equals(tPrivilege.getPrivilegeScope())
+          ? toNULLCol(safeTrimLower(newPrivilege.getTableName())) : null;
+      List<Long> mergedIds = sql.selectRenameConflictIds(conn, newDbName, newTableName);
+      if (!mergedIds.isEmpty()) {
+        sql.copyGrantsToRenamed(conn, newDbName, newTableName);
+        sql.deleteByIds(conn, mergedIds);
+      }
+      int renamed = sql.rename(conn, newDbName, newTableName);
+      LOGGER.debug("Renamed {} and merged {} privileges in bulk", renamed, mergedIds.size());
+    } catch (SQLException e) {
+      throw new JDODataStoreException("Bulk rename of privileges failed", e);
+    } finally {
+      jdoConn.close();
+    }
+  }
+
+  /**
+   * The SQL statements of the bulk drop and rename, over the privileges of
+   * one database or table and everything below it.
+   */
+  private static class BulkPrivilegeStatements {
+    // bound on the number of ids in an IN list
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
+    private final String quote;
+    private final String privTable;
+    private final String mapTable;
+    private final List<String> filterValues = Lists.newArrayList();
+    private final String filter;
+
+    BulkPrivilegeStatements(Connection conn, TSentryPrivilege tPrivilege) throws SQLException {
+      quote = conn.getMetaData().getIdentifierQuoteString().trim();
+      privTable = q("SENTRY_DB_PRIVILEGE");
+      mapTable = q("SENTRY_ROLE_DB_PRIVILEGE_MAP");
+      StringBuilder sb = new StringBuilder("o." + q("SERVER_NAME") + " = ? and o."
+          + q("DB_NAME") + " = ?");
+      filterValues.add(toNULLCol(safeTrimLower(tPrivilege.getServerName())));
+      filterValues.add(toNULLCol(safeTrimLower(tPrivilege.getDbName())));
+      if (PrivilegeScope.TABLE.name().equals(tPrivilege.getPrivilegeScope())) {
+        sb.append(" and o.").append(q("TABLE_NAME")).append(" = ?");
+        filterValues.add(toNULLCol(safeTrimLower(tPrivilege.getTableName())));
+      }
+      filter = sb.toString();
+    }
+
+    private String q(String identifier) {
+      return quote + identifier + quote;
+    }
+
+    private int bindFilter(PreparedStatement stmt, int index) throws SQLException {
+      for (String value : filterValues) {
+        stmt.setString(index++, value);
+      }
+      return index;
+    }
+
+    // the privilege n, other than o itself, which privilege o is renamed to
+    private String renamedMatch(String newTableName) {
+      String grantOption = q("WITH_GRANT_OPTION");
+      return "n." + q("DB_PRIVILEGE_ID") + " <> o." + q("DB_PRIVILEGE_ID")
+          + " and n." + q("SERVER_NAME") + " = o." + q("SERVER_NAME")
+          + " and n." + q("DB_NAME") + " = ?"
+          + " and n." + q("TABLE_NAME") + " = "
+          + (newTableName == null ? "o." + q("TABLE_NAME") : "?")
+          + " and n." + q("COLUMN_NAME") + " = o." + q("COLUMN_NAME")
+          + " and n." + q("URI") + " = o." + q("URI")
+          + " and n." + q("ACTION") + " = o." + q("ACTION")
+          + " and (n." + grantOption + " = o." + grantOption
+          + " or (n." + grantOption + " is null and o." + grantOption + " is null))";
+    }
+
+    private int bindRenamed(PreparedStatement stmt, int index, String newDbName,
+        String newTableName) throws SQLException {
+      stmt.setString(index++, newDbName);
+      if (newTableName != null) {
+        stmt.setString(index++, newTableName);
+      }
+      return index;
+    }
+
+    List<Long> selectIds(Connection conn) throws SQLException {
+      PreparedStatement stmt = conn.prepareStatement("select o." + q("DB_PRIVILEGE_ID")
+          + " from " + privTable + " o where " + filter);
+      try {
+        bindFilter(stmt, 1);
+        return readIds(stmt);
+      } finally {
+        stmt.close();
+      }
+    }
+
+    List<Long> selectRenameConflictIds(Connection conn, String newDbName, String newTableName)
+        throws SQLException {
+      PreparedStatement stmt = conn.prepareStatement("select o." + q("DB_PRIVILEGE_ID")
+          + " from " + privTable + " o, " + privTable + " n where " + filter
+          + " and " + renamedMatch(newTableName));
+      try {
+        bindRenamed(stmt, bindFilter(stmt, 1), newDbName, newTableName);
+        return readIds(stmt);
+      } finally {
+        stmt.close();
+      }
+    }
+
+    // grant the already existing renamed privileges to the roles holding
+    // the privileges which are renamed
+    int copyGrantsToRenamed(Connection conn, String newDbName, String newTableName)
+        throws SQLException {
+      String roleId = q("ROLE_ID");
+      String privId = q("DB_PRIVILEGE_ID");
+      PreparedStatement stmt = conn.prepareStatement("insert into " + mapTable
+          + " (" + roleId + ", " + privId + ") select m." + roleId + ", n." + privId
+          + " from " + mapTable + " m, " + privTable + " o, " + privTable + " n"
+          + " where m." + privId + " = o." + privId + " and " + filter
+          + " and " + renamedMatch(newTableName)
+          + " and not exists (select 1 from " + mapTable + " x where x." + roleId
+          + " = m." + roleId + " and x." + privId + " = n." + privId + ")");
+      try {
+        bindRenamed(stmt, bindFilter(stmt, 1), newDbName, newTableName);
+        return stmt.executeUpdate();
+      } finally {
+        stmt.close();
+      }
+    }
+
+    // delete the privileges and their grants, returns the number of grants
+    int deleteByIds(Connection conn, List<Long> ids) throws SQLException {
+      int removedGrants = 0;
+      for (List<Long> chunk : Lists.partition(ids, MAX_IN_LIST_SIZE)) {
+        String in = " where " + q("DB_PRIVILEGE_ID") + " in ("
+            + Joiner.on(",").join(Collections.nCopies(chunk.size(), "?")) + ")";
+        removedGrants += executeWithIds(conn, "delete from " + mapTable + in, chunk);
+        executeWithIds(conn, "delete from " + privTable + in, chunk);
       }
+      return removedGrants;
     }
-  }
 
-  /**
-   * Rename given privilege from all roles drop the old privilege and create the new one
-   * @param tAuthorizable
-   * @param newTAuthorizable
-   * @throws SentryNoSuchObjectException
-   * @throws SentryInvalidInputException
-   */
-  public void renamePrivilege(TSentryAuthorizable tAuthorizable,
-      TSentryAuthorizable newTAuthorizable)
-      throws SentryNoSuchObjectException, SentryInvalidInputException {
-    PersistenceManager pm = null;
-    boolean rollbackTransaction = true;
+    int rename(Connection conn, String newDbName, String newTableName) throws SQLException {
+      PreparedStatement stmt = conn.prepareStatement("update " + privTable + " o set "
+          + q("DB_NAME") + " = ?"
+          + (newTableName == null ? "" : ", " + q("TABLE_NAME") + " = ?")
+          + " where " + filter);
+      try {
+        bindFilter(stmt, bindRenamed(stmt, 1, newDbName, newTableName));
+        return stmt.executeUpdate();
+      } finally {
+        stmt.close();
+      }
+    }
 
-    TSentryPrivilege tPrivilege = toSentryPrivilege(tAuthorizable);
-    TSentryPrivilege newPrivilege = toSentryPrivilege(newTAuthorizable);
+    private static int executeWithIds(Connection conn, String sql, List<Long> ids)
+        throws SQLException {
+      PreparedStatement stmt = conn.prepareStatement(sql);
+      try {
+        for (int i = 0; i < ids.size(); i++) {
+          stmt.setLong(i + 1, ids.get(i));
+        }
+        return stmt.executeUpdate();
+      } finally {
+        stmt.close();
+      }
+    }
 
-    try {
-      pm = openTransaction();
-      // In case of tables or DBs, check all actions
-      if (isMultiActionsSupported(tPrivilege)) {
-        for (String privilegeAction : ALL_ACTIONS) {
-          tPrivilege.setAction(privilegeAction);
-          newPrivilege.setAction(privilegeAction);
-          renamePrivilegeForAllRoles(pm, tPrivilege, newPrivilege);
+    private static List<Long> readIds(PreparedStatement stmt) throws SQLException {
+      List<Long> ids = Lists.newArrayList();
+      ResultSet rs = stmt.executeQuery();
+      try {
+        while (rs.next()) {
+          ids.add(rs.getLong(1));
         }
-      } else {
-        renamePrivilegeForAllRoles(pm, tPrivilege, newPrivilege);
+      } finally {
+        rs.close();
       }
-      rollbackTransaction = false;
-      commitTransaction(pm);
-    } catch (JDODataStoreException e) {
-      throw new SentryInvalidInputException("Failed to get privileges: "
-          + e.getMessage());
-    } finally {
-      if (rollbackTransaction) {
-        rollbackTransaction(pm);
+      return ids;
+    }
+  }
+
+  // The bulk statements and the orphan cleaner bypass DataNucleus, drop the
+  // privileges and roles it may hold in the level 2 caches
+  private void evictPrivilegeCaches() {
+    for (PersistenceManagerFactory factory :
+        new PersistenceManagerFactory[] { pmf, readPmf, replicaPmf }) {
+      if (factory != null) {
+        factory.getDataStoreCache().evictAll(false, MSentryPrivilege.class);
+        factory.getDataStoreCache().evictAll(false, MSentryRole.class);
       }
     }
   }
@@ -1739,82 +3050,309 @@ public class SentryStore {
   }
 
   /**
-   * This returns a Mapping of AuthZObj(db/table) -> (Role -> permission)
+   * Turns the updates of the store into the serialized deltas kept in the
+   * permission change log. It is called inside the update transaction, and
+   * the deltas it returns are persisted with that transaction, so the log
+   * holds exactly the committed changes. Returning null records nothing.
    */
-  public Map<String, HashMap<String, String>> retrieveFullPrivilegeImage() {
-    Map<String, HashMap<String, String>> retVal = new HashMap<String, HashMap<String,String>>();
+  public interface PermChangeRecorder {
+
+    byte[] onAlterSentryRoleAddGroups(String roleName, Set<TSentryGroup> groups);
+
+    byte[] onAlterSentryRoleDeleteGroups(String roleName, Set<TSentryGroup> groups);
+
+    byte[] onAlterSentryRoleGrantPrivilege(String roleName, TSentryPrivilege privilege);
+
+    byte[] onAlterSentryRoleRevokePrivilege(String roleName, TSentryPrivilege privilege);
+
+    byte[] onDropSentryRole(String roleName);
+
+    byte[] onRenameSentryPrivilege(TSentryAuthorizable oldAuthorizable,
+        TSentryAuthorizable newAuthorizable);
+
+    byte[] onDropSentryPrivilege(TSentryAuthorizable authorizable);
+
+    byte[] onDropSentryPrivileges(List<TSentryAuthorizable> authorizables);
+  }
+
+  /**
+   * Enables the permission change log. Updates committed from now on add
+   * their deltas to the log; null disables it again.
+   */
+  public void setPermChangeRecorder(PermChangeRecorder recorder) {
+    this.permChangeRecorder = recorder;
+  }
+
+  /**
+   * Keeps the delta on the persistence manager until the transaction is
+   * committed by {@link #persistPermChanges(PersistenceManager)}.
+   */
+  @SuppressWarnings("unchecked")
+  private void recordPermChange(PersistenceManager pm, byte[] permChange) {
+    if (permChange == null) {
+      return;
+    }
+    List<byte[]> permChanges = (List<byte[]>) pm.getUserObject(PERM_CHANGES_KEY);
+    if (permChanges == null) {
+      permChanges = Lists.newArrayList();
+      pm.putUserObject(PERM_CHANGES_KEY, permChanges);
+    }
+    permChanges.add(permChange);
+  }
+
+  /**
+   * Adds the deltas recorded on the persistence manager to the change log,
+   * right before the commit. The change ids come from a row of
+   * SENTRY_COMMIT_SEQUENCE which stays locked until the commit, so they
+   * follow the commit order of all the servers sharing the database.
+   */
+  @SuppressWarnings("unchecked")
+  private void persistPermChanges(PersistenceManager pm) {
+    List<byte[]> permChanges = (List<byte[]>) pm.removeUserObject(PERM_CHANGES_KEY);
+    if (permChanges == null || permChanges.isEmpty()) {
+      return;
+    }
+    // the row is created from the log when the schema scripts did not
+    long lastID = CommitSequence.advance(pm, CommitSequence.PERM_CHANGE_SEQUENCE_ID,
+        permChanges.size(), getLastPermChangeID(pm));
+    long changeID = lastID - permChanges.size();
+    long now = System.currentTimeMillis();
+    for (byte[] permChange : permChanges) {
+      pm.makePersistent(new MSentryPermChange(++changeID, permChange, now));
+    }
+  }
+
+  private long getLastPermChangeID(PersistenceManager pm) {
+    Query query = pm.newQuery(MSentryPermChange.class);
+    query.setResult("max(changeID)");
+    Long changeID = (Long) query.execute();
+    return changeID == null ? 0 : changeID;
+  }
+
+  /**
+   * @return id of the latest entry of the permission change log, 0 when
+   * the log is empty
+   */
+  public long getLastPermChangeID() {
     boolean rollbackTransaction = true;
     PersistenceManager pm = null;
     try {
       pm = openTransaction();
-      Query query = pm.newQuery(MSentryPrivilege.class);
-      String filters = "(serverName != \"__NULL__\") "
-          + "&& (dbName != \"__NULL__\") " + "&& (URI == \"__NULL__\")";
-      query.setFilter(filters.toString());
-      query
-          .setOrdering("serverName ascending, dbName ascending, tableName ascending");
-      List<MSentryPrivilege> privileges = (List<MSentryPrivilege>) query
-          .execute();
+      long changeID = getLastPermChangeID(pm);
       rollbackTransaction = false;
-      for (MSentryPrivilege mPriv : privileges) {
-        String authzObj = mPriv.getDbName();
-        if (!isNULL(mPriv.getTableName())) {
-          authzObj = authzObj + "." + mPriv.getTableName();
-        }
+      commitTransaction(pm);
+      return changeID;
+    } finally {
+      if (rollbackTransaction) {
+        rollbackTransaction(pm);
+      }
+    }
+  }
+
+  /**
+   * Returns the entries of the permission change log starting at the given
+   * change id (inclusive), ordered by change id. The log is read from the
+   * primary database, since a replica may not have the latest entries yet.
+   * The first returned id is greater than the requested one when the
+   * requested entries have already been purged.
+   */
+  public SortedMap<Long, byte[]> getPermChangesFrom(long changeID) {
+    boolean rollbackTransaction = true;
+    PersistenceManager pm = null;
+    try {
+      pm = openTransaction();
+      Query query = pm.newQuery(MSentryPermChange.class);
+      query.setFilter("changeID >= fromID");
+      query.declareParameters("long fromID");
+      query.setResult("changeID, permChange");
+      query.setOrdering("changeID ascending");
+      SortedMap<Long, byte[]> permChanges = new TreeMap<Long, byte[]>();
+      for (Object row : (List<?>) query.execute(changeID)) {
+        Object[] columns = (Object[]) row;
+        permChanges.put((Long) columns[0], (byte[]) columns[1]);
+      }
+      rollbackTransaction = false;
+      commitTransaction(pm);
+      return permChanges;
+    } finally {
+      if (rollbackTransaction) {
+        rollbackTransaction(pm);
+      }
+    }
+  }
+
+  /**
+   * Compacts the permission change log down to the latest maxChanges
+   * entries, and drops the entries older than maxAgeMs. The latest entry is
+   * always kept, so the change ids keep increasing.
+   *
+   * @return number of purged entries
+   */
+  public long purgePermChanges(long maxChanges, long maxAgeMs) {
+    boolean rollbackTransaction = true;
+    PersistenceManager pm = null;
+    try {
+      pm = openTransaction();
+      long lastID = getLastPermChangeID(pm);
+      Query query = pm.newQuery(MSentryPermChange.class);
+      query.setFilter("changeID < lastID && (changeID <= oldestID || createTimeMs < oldestTime)");
+      query.declareParameters("long lastID, long oldestID, long oldestTime");
+      long purged = query.deletePersistentAll(lastID, lastID - maxChanges,
+          System.currentTimeMillis() - maxAgeMs);
+      rollbackTransaction = false;
+      commitTransaction(pm);
+      return purged;
+    } finally {
+      if (rollbackTransaction) {
+        rollbackTransaction(pm);
+      }
+    }
+  }
+
+  /**
+   * Receives the entries of the full privilege image one at a time.
+   */
+  public interface PrivilegeImageHandler {
+    /**
+     * @param authzObj db or db.table the privilege is granted on
+     * @param roleName role holding the privilege
+     * @param action upper case action of the privilege
+     */
+    void onPrivilege(String authzObj, String roleName, String action);
+  }
+
+  /**
+   * Receives the entries of the full role image one at a time.
+   */
+  public interface RoleImageHandler {
+    void onRoleGroup(String roleName, String groupName);
+  }
+
+  /**
+   * This returns a Mapping of AuthZObj(db/table) -> (Role -> permission)
+   */
+  public Map<String, HashMap<String, String>> retrieveFullPrivilegeImage() {
+    final Map<String, HashMap<String, String>> retVal = new HashMap<String, HashMap<String,String>>();
+    streamFullPrivilegeImage(new PrivilegeImageHandler() {
+      @Override
+      public void onPrivilege(String authzObj, String roleName, String action) {
         HashMap<String, String> pUpdate = retVal.get(authzObj);
         if (pUpdate == null) {
           pUpdate = new HashMap<String, String>();
           retVal.put(authzObj, pUpdate);
         }
-        for (MSentryRole mRole : mPriv.getRoles()) {
-          String existingPriv = pUpdate.get(mRole.getRoleName());
-          if (existingPriv == null) {
-            pUpdate.put(mRole.getRoleName(), mPriv.getAction().toUpperCase());
-          } else {
-            pUpdate.put(mRole.getRoleName(), existingPriv + ","
-                + mPriv.getAction().toUpperCase());
+        String existingPriv = pUpdate.get(roleName);
+        if (existingPriv == null) {
+          pUpdate.put(roleName, action);
+        } else {
+          pUpdate.put(roleName, existingPriv + "," + action);
+        }
+      }
+    });
+    return retVal;
+  }
+
+  /**
+   * This returns a Mapping of Role -> [Groups]
+   */
+  public Map<String, LinkedList<String>> retrieveFullRoleImage() {
+    final Map<String, LinkedList<String>> retVal = new HashMap<String, LinkedList<String>>();
+    streamFullRoleImage(new RoleImageHandler() {
+      @Override
+      public void onRoleGroup(String roleName, String groupName) {
+        LinkedList<String> rUpdate = retVal.get(roleName);
+        if (rUpdate == null) {
+          rUpdate = new LinkedList<String>();
+          retVal.put(roleName, rUpdate);
+        }
+        rUpdate.add(groupName);
+      }
+    });
+    return retVal;
+  }
+
+  /**
+   * Streams every (db/table, role, action) entry of the db privileges to
+   * the handler. Only the needed columns are selected, joined through the
+   * role map, and the rows are read with a bounded fetch size without being
+   * cached, so no object graph is built for the image.
+   */
+  public void streamFullPrivilegeImage(PrivilegeImageHandler handler) {
+    boolean rollbackTransaction = true;
+    PersistenceManager pm = null;
+    try {
+      pm = openReadTransaction();
+      Query query = pm.newQuery(MSentryPrivilege.class);
+      query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
+      query.setFilter("roles.contains(role) && (serverName != \"__NULL__\") "
+          + "&& (dbName != \"__NULL__\") && (URI == \"__NULL__\")");
+      query.setResult("dbName, tableName, action, role.roleName");
+      query.setOrdering("dbName ascending, tableName ascending");
+      setStreaming(query);
+      try {
+        for (Object row : (List<?>) query.execute()) {
+          Object[] columns = (Object[]) row;
+          String authzObj = (String) columns[0];
+          String tableName = (String) columns[1];
+          if (!isNULL(tableName)) {
+            authzObj = authzObj + "." + tableName;
           }
+          handler.onPrivilege(authzObj, (String) columns[3],
+              ((String) columns[2]).toUpperCase());
         }
+      } finally {
+        query.closeAll();
       }
-      commitTransaction(pm);
-      return retVal;
+      rollbackTransaction = false;
+      commitReadTransaction(pm);
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
       }
     }
   }
 
   /**
-   * This returns a Mapping of Role -> [Groups]
+   * Streams every (role, group) pair to the handler, the same way as
+   * {@link #streamFullPrivilegeImage(PrivilegeImageHandler)}.
    */
-  public Map<String, LinkedList<String>> retrieveFullRoleImage() {
-    Map<String, LinkedList<String>> retVal = new HashMap<String, LinkedList<String>>();
+  public void streamFullRoleImage(RoleImageHandler handler) {
     boolean rollbackTransaction = true;
     PersistenceManager pm = null;
     try {
-      pm = openTransaction();
+      pm = openReadTransaction();
       Query query = pm.newQuery(MSentryGroup.class);
-      List<MSentryGroup> groups = (List<MSentryGroup>) query.execute();
-      for (MSentryGroup mGroup : groups) {
-        for (MSentryRole role : mGroup.getRoles()) {
-          LinkedList<String> rUpdate = retVal.get(role.getRoleName());
-          if (rUpdate == null) {
-            rUpdate = new LinkedList<String>();
-            retVal.put(role.getRoleName(), rUpdate);
-          }
-          rUpdate.add(mGroup.getGroupName());
+      query.declareVariables("org.apache.sentry.provider.db.service.model.MSentryRole role");
+      query.setFilter("roles.contains(role)");
+      query.setResult("role.roleName, groupName");
+      setStreaming(query);
+      try {
+        for (Object row : (List<?>) query.execute()) {
+          Object[] columns = (Object[]) row;
+          handler.onRoleGroup((String) columns[0], (String) columns[1]);
         }
+      } finally {
+        query.closeAll();
       }
-      commitTransaction(pm);
-      return retVal;
+      rollbackTransaction = false;
+      commitReadTransaction(pm);
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
       }
     }
   }
 
+  /**
+   * Makes the query read its results lazily, fetchSize rows at a time,
+   * without keeping the rows it has already handed out.
+   */
+  private void setStreaming(Query query) {
+    query.getFetchPlan().setFetchSize(fullImageFetchSize);
+    query.addExtension("datanucleus.query.resultCacheType", "none");
+    query.addExtension("datanucleus.rdbms.query.resultSetType", "forward-only");
+  }
+
   /**
    * This thread exists to clean up "orphaned" privilege rows in the database.
    * These rows aren't removed automatically due to the fact that there is
@@ -1831,7 +3369,16 @@ public class SentryStore {
     private int currentNotifies = 0;
 
     // Internal state for threads
-    private boolean exitRequired = false;
+    private volatile boolean exitRequired = false;
+
+    // Maximum number of privileges removed in one transaction
+    private final int removalBatchSize = Math.max(1, conf.getInt(
+        ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_BATCH_SIZE,
+        ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_BATCH_SIZE_DEFAULT));
+    // Run the removal at least this often, even without notifies
+    private final long removalIntervalMs = conf.getLong(
+        ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_INTERVAL_MS,
+        ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_INTERVAL_MS_DEFAULT);
 
     // This lock and condition are needed to implement a way to drop the
     // lock inside a while loop, and not hold the lock across the orphan
@@ -1840,8 +3387,8 @@ public class SentryStore {
     private final Condition cond = lock.newCondition();
 
     /**
-     * Waits in a loop, running the orphan removal function when notified.
-     * Will exit after exitRequired is set to true by exit().  We are careful
+     * Waits in a loop, running the orphan removal function when notified
+     * or when removalIntervalMs has elapsed.  Will exit after exitRequired is set to true by exit().  We are careful
      * to not hold our lock while removing orphans; that operation might
      * take a long time.  There's also the matter of lock ordering.  Other
      * threads start a transaction first, and then grab our lock; this thread
@@ -1856,9 +3403,16 @@ public class SentryStore {
           if (exitRequired) {
             return;
           }
+          long waitNanos = TimeUnit.MILLISECONDS.toNanos(removalIntervalMs);
           while (currentNotifies <= NOTIFY_THRESHOLD) {
             try {
-              cond.await();
+              if (removalIntervalMs <= 0) {
+                cond.await();
+              } else if (waitNanos > 0) {
+                waitNanos = cond.awaitNanos(waitNanos);
+              } else {
+                break;
+              }
             } catch (InterruptedException e) {
               // Interrupted
             }
@@ -1923,83 +3477,95 @@ public class SentryStore {
     }
 
     /**
-     * Run a SQL query to detect orphaned privileges, and then delete
-     * each one.  This is complicated by the fact that datanucleus does
-     * not seem to play well with the mix between a direct SQL query
-     * and operations on the database.  The solution that seems to work
-     * is to split the operation into two transactions: the first is
-     * just a read for privileges that look like they're orphans, the
-     * second transaction will go and get each of those privilege objects,
-     * verify that there are no roles attached, and then delete them.
+     * Removes orphaned privileges of both the db and the generic model in
+     * chunks of at most removalBatchSize rows. Every chunk is one short
+     * transaction: select candidate ids, then delete them with a set-based
+     * DELETE which re-checks that no role references them, so a privilege
+     * granted again in the meantime is kept.
      */
-    private void removeOrphanedPrivileges() {
-      final String privDB = "SENTRY_DB_PRIVILEGE";
-      final String privId = "DB_PRIVILEGE_ID";
-      final String mapDB = "SENTRY_ROLE_DB_PRIVILEGE_MAP";
-      final String privFilter =
-              "select " + privId +
-              " from " + privDB + " p" +
-              " where not exists (" +
-                  " select 1 from " + mapDB + " d" +
-                  " where p." + privId + " != d." + privId +
-              " )";
-      boolean rollback = true;
-      int orphansRemoved = 0;
-      ArrayList<Object> idList = new ArrayList<Object>();
-      PersistenceManager pm = pmf.getPersistenceManager();
-
-      // Transaction 1: Perform a SQL query to get things that look like orphans
+    private void removeOrphanedPrivileges() throws SQLException {
+      SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+      final Timer.Context timerContext = sentryMetrics.orphanPrivilegeRemovalTimer.time();
       try {
-        Transaction transaction = pm.currentTransaction();
-        transaction.begin();
-        transaction.setRollbackOnly();  // Makes the tx read-only
-        Query query = pm.newQuery("javax.jdo.query.SQL", privFilter);
-        query.setClass(MSentryPrivilege.class);
-        List<MSentryPrivilege> results = (List<MSentryPrivilege>) query.execute();
-        for (MSentryPrivilege orphan : results) {
-          idList.add(pm.getObjectId(orphan));
-        }
-        transaction.rollback();
-        rollback = false;
+        removeOrphans("SENTRY_DB_PRIVILEGE", "DB_PRIVILEGE_ID",
+            "SENTRY_ROLE_DB_PRIVILEGE_MAP");
+        removeOrphans("SENTRY_GM_PRIVILEGE", "GM_PRIVILEGE_ID",
+            "SENTRY_ROLE_GM_PRIVILEGE_MAP");
       } finally {
-        if (rollback && pm.currentTransaction().isActive()) {
-          pm.currentTransaction().rollback();
-        } else {
-          LOGGER.debug("Found {} potential orphans", idList.size());
-        }
-      }
-
-      if (idList.isEmpty()) {
-        pm.close();
-        return;
+        timerContext.stop();
       }
+    }
 
-      Preconditions.checkState(!rollback);
-
-      // Transaction 2: For each potential orphan, verify it's really an
-      // orphan and delete it if so
-      rollback = true;
-      try {
-        Transaction transaction = pm.currentTransaction();
-        transaction.begin();
-        pm.refreshAll();  // Try to ensure we really have correct objects
-        for (Object id : idList) {
-          MSentryPrivilege priv = (MSentryPrivilege) pm.getObjectById(id);
-          if (priv.getRoles().isEmpty()) {
-            pm.deletePersistent(priv);
-            orphansRemoved++;
+    private void removeOrphans(String privTable, String privId, String mapTable)
+        throws SQLException {
+      SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+      long scanned = 0;
+      long removed = 0;
+      int numCandidates;
+      do {
+        numCandidates = 0;
+        boolean rollback = true;
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try {
+          Transaction transaction = pm.currentTransaction();
+          transaction.begin();
+          JDOConnection jdoConn = pm.getDataStoreConnection();
+          try {
+            Connection conn = (Connection) jdoConn.getNativeConnection();
+            String quote = conn.getMetaData().getIdentifierQuoteString().trim();
+            String p = quote + privTable + quote;
+            String id = quote + privId + quote;
+            String orphanFilter = " where not exists (select 1 from " + quote + mapTable
+                + quote + " m where m." + id + " = " + p + "." + id + ")";
+
+            List<Long> ids = new ArrayList<Long>(removalBatchSize);
+            Statement select = conn.createStatement();
+            try {
+              select.setMaxRows(removalBatchSize);
+              ResultSet rs = select.executeQuery("select " + p + "." + id + " from " + p
+                  + orphanFilter);
+              while (rs.next()) {
+                ids.add(rs.getLong(1));
+              }
+              rs.close();
+            } finally {
+              select.close();
+            }
+            numCandidates = ids.size();
+            scanned += numCandidates;
+            if (numCandidates > 0) {
+              PreparedStatement delete = conn.prepareStatement("delete from " + p
+                  + orphanFilter + " and " + p + "." + id + " in ("
+                  + Joiner.on(",").join(Collections.nCopies(numCandidates, "?")) + ")");
+              try {
+                for (int i = 0; i < numCandidates; i++) {
+                  delete.setLong(i + 1, ids.get(i));
+                }
+                removed += delete.executeUpdate();
+              } finally {
+                delete.close();
+              }
+            }
+          } finally {
+            jdoConn.close();
           }
+          transaction.commit();
+          rollback = false;
+        } finally {
+          if (rollback && pm.currentTransaction().isActive()) {
+            pm.currentTransaction().rollback();
+          }
+          pm.close();
         }
-        transaction.commit();
-        pm.close();
-        rollback = false;
-      } finally {
-        if (rollback) {
-          rollbackTransaction(pm);
-        } else {
-          LOGGER.debug("Cleaned up {} orphaned privileges", orphansRemoved);
-        }
+      } while (numCandidates == removalBatchSize && !exitRequired);
+      sentryMetrics.orphanPrivilegesScanned.inc(scanned);
+      sentryMetrics.orphanPrivilegesRemoved.inc(removed);
+      if (removed > 0) {
+        countGeneration.incrementAndGet();
+        evictPrivilegeCaches();
       }
+      LOGGER.debug("Cleaned up {} of {} orphaned privileges in {}",
+          new Object[] { removed, scanned, privTable });
     }
   }
 
@@ -2008,7 +3574,7 @@ public class SentryStore {
     boolean rollbackTransaction = true;
     PersistenceManager pm = null;
     try {
-      pm = openTransaction();
+      pm = openReadTransaction();
       Query query = pm.newQuery(MSentryGroup.class);
       List<MSentryGroup> mSentryGroups = (List<MSentryGroup>) query.execute();
       Map<String, Set<String>> sentryGroupNameRoleNamesMap = Maps.newHashMap();
@@ -2025,12 +3591,12 @@ public class SentryStore {
           }
         }
       }
-      commitTransaction(pm);
+      commitReadTransaction(pm);
       rollbackTransaction = false;
       return sentryGroupNameRoleNamesMap;
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
       }
     }
   }
@@ -2040,8 +3606,9 @@ public class SentryStore {
     boolean rollbackTransaction = true;
     PersistenceManager pm = null;
     try {
-      pm = openTransaction();
+      pm = openReadTransaction();
       Query query = pm.newQuery(MSentryRole.class);
+      query.getFetchPlan().addGroup(MSentryRole.PRIVILEGES_FETCH_GROUP);
       List<MSentryRole> mSentryRoles = (List<MSentryRole>) query.execute();
       Map<String, Set<TSentryPrivilege>> sentryRolePrivilegesMap = Maps.newHashMap();
       if (mSentryRoles != null) {
@@ -2054,12 +3621,12 @@ public class SentryStore {
           }
         }
       }
-      commitTransaction(pm);
+      commitReadTransaction(pm);
       rollbackTransaction = false;
     return sentryRolePrivilegesMap;
     } finally {
       if (rollbackTransaction) {
-        rollbackTransaction(pm);
+        rollbackReadTransaction(pm);
       }
     }
   }
@@ -2163,7 +3730,12 @@ public class SentryStore {
   }
 
   /**
-   * Import the sentry mapping data.
+   * Import the sentry mapping data. The roles are dropped (when overwriting)
+   * and created in a first transaction, the privileges are then granted in
+   * transactions of at most importBatchSize privileges and the groups are
+   * added last. A failed import leaves the chunks committed so far in place;
+   * running it again without overwrite skips the privileges which were
+   * already granted.
    * 
    * @param tSentryMappingData
    *        Include 2 maps to save the mapping data, the following is the example of the data
@@ -2193,30 +3765,46 @@ public class SentryStore {
    */
   public void importSentryMetaData(TSentryMappingData tSentryMappingData, boolean isOverwriteForRole)
       throws Exception {
-    boolean rollbackTransaction = true;
-    PersistenceManager pm = null;
     // change all role name in lowercase
     TSentryMappingData mappingData = lowercaseRoleName(tSentryMappingData);
+    Map<String, Set<TSentryGroup>> importedRoleGroupsMap = covertToRoleNameTGroupsMap(mappingData
+        .getGroupRolesMap());
+    Map<String, Set<TSentryPrivilege>> importedRolePrivilegesMap =
+        mappingData.getRolePrivilegesMap();
+    Set<String> importedRoleNames = Sets.union(importedRoleGroupsMap.keySet(),
+        importedRolePrivilegesMap.keySet());
+
+    boolean rollbackTransaction = true;
+    PersistenceManager pm = null;
     try {
       pm = openTransaction();
       Set<String> existRoleNames = getAllRoleNames(pm);
-      //
-      Map<String, Set<TSentryGroup>> importedRoleGroupsMap = covertToRoleNameTGroupsMap(mappingData
-          .getGroupRolesMap());
-      Set<String> importedRoleNames = importedRoleGroupsMap.keySet();
       // if import with overwrite role, drop the duplicated roles in current DB first.
       if (isOverwriteForRole) {
-        dropDuplicatedRoleForImport(pm, existRoleNames, importedRoleNames);
+        dropDuplicatedRoleForImport(pm, existRoleNames,
+            importedRoleGroupsMap.keySet());
         // refresh the existRoleNames for the drop role
         existRoleNames = getAllRoleNames(pm);
       }
+      for (String roleName : Sets.difference(importedRoleNames, existRoleNames)) {
+        createSentryRoleCore(pm, roleName);
+      }
+      commitUpdateTransaction(pm);
+      rollbackTransaction = false;
+    } finally {
+      if (rollbackTransaction) {
+        rollbackTransaction(pm);
+      }
+    }
 
-      // import the mapping data for [role,privilege], the existRoleNames will be updated
-      importSentryRolePrivilegeMapping(pm, existRoleNames, mappingData.getRolePrivilegesMap());
-
-      importSentryGroupRoleMapping(pm, existRoleNames, importedRoleGroupsMap);
+    // import the mapping data for [role,privilege]
+    importSentryRolePrivilegeMapping(importedRolePrivilegesMap);
 
-      commitTransaction(pm);
+    rollbackTransaction = true;
+    try {
+      pm = openTransaction();
+      importSentryGroupRoleMapping(pm, importedRoleGroupsMap);
+      commitUpdateTransaction(pm);
       rollbackTransaction = false;
     } finally {
       if (rollbackTransaction) {
@@ -2247,15 +3835,12 @@ public class SentryStore {
     return roleGroupsMap;
   }
 
-  private void importSentryGroupRoleMapping(PersistenceManager pm, Set<String> existRoleNames,
+  private void importSentryGroupRoleMapping(PersistenceManager pm,
       Map<String, Set<TSentryGroup>> importedRoleGroupsMap) throws Exception {
     if (importedRoleGroupsMap == null || importedRoleGroupsMap.keySet() == null) {
       return;
     }
     for (String roleName : importedRoleGroupsMap.keySet()) {
-      if (!existRoleNames.contains(roleName)) {
-        createSentryRoleCore(pm, roleName);
-      }
       alterSentryRoleAddGroupsCore(pm, roleName, importedRoleGroupsMap.get(roleName));
     }
   }
@@ -2299,22 +3884,72 @@ public class SentryStore {
     return tSentryMappingData;
   }
 
-  // import the mapping data for [role,privilege]
-  private void importSentryRolePrivilegeMapping(PersistenceManager pm, Set<String> existRoleNames,
+  // import the mapping data for [role,privilege], the roles must exist
+  private void importSentryRolePrivilegeMapping(
       Map<String, Set<TSentryPrivilege>> sentryRolePrivilegesMap) throws Exception {
-    if (sentryRolePrivilegesMap != null) {
-      for (String roleName : sentryRolePrivilegesMap.keySet()) {
-        // if the rolenName doesn't exist, create it.
-        if (!existRoleNames.contains(roleName)) {
-          createSentryRoleCore(pm, roleName);
-          existRoleNames.add(roleName);
+    List<Map.Entry<String, TSentryPrivilege>> grants = Lists.newArrayList();
+    for (Map.Entry<String, Set<TSentryPrivilege>> entry : sentryRolePrivilegesMap.entrySet()) {
+      for (TSentryPrivilege tSentryPrivilege : entry.getValue()) {
+        grants.add(Maps.immutableEntry(entry.getKey(), tSentryPrivilege));
+      }
+    }
+    int batchSize = Math.max(1, importBatchSize);
+    long startTime = System.currentTimeMillis();
+    for (int from = 0; from < grants.size(); from += batchSize) {
+      importSentryRolePrivilegeChunk(
+          grants.subList(from, Math.min(from + batchSize, grants.size())));
+      LOGGER.info("Imported {} of {} privileges in {} ms",
+          new Object[] { Math.min(from + batchSize, grants.size()), grants.size(),
+              System.currentTimeMillis() - startTime });
+    }
+  }
+
+  // grant a chunk of [role,privilege] in one transaction, with the existing
+  // roles and privileges loaded by one query each and the new privileges
+  // persisted together, so that their inserts are batched
+  private void importSentryRolePrivilegeChunk(List<Map.Entry<String, TSentryPrivilege>> grants)
+      throws Exception {
+    boolean rollbackTransaction = true;
+    PersistenceManager pm = null;
+    try {
+      pm = openTransaction();
+      Set<String> roleNames = Sets.newHashSet();
+      List<TSentryPrivilege> tSentryPrivileges = Lists.newArrayListWithCapacity(grants.size());
+      for (Map.Entry<String, TSentryPrivilege> grant : grants) {
+        roleNames.add(grant.getKey());
+        tSentryPrivileges.add(grant.getValue());
+      }
+      Query query = pm.newQuery(MSentryRole.class);
+      query.setFilter(":roleNames.contains(roleName)");
+      Map<String, Object> params = Maps.newHashMap();
+      params.put("roleNames", roleNames);
+      Map<String, MSentryRole> roles = Maps.newHashMap();
+      for (MSentryRole mRole : (List<MSentryRole>) executeQuery(query, params)) {
+        roles.put(mRole.getRoleName(), mRole);
+      }
+      Map<MSentryPrivilege, MSentryPrivilege> resolvedPrivileges =
+          resolveMSentryPrivileges(pm, tSentryPrivileges);
+      Set<MSentryPrivilege> newPrivileges = Sets.newLinkedHashSet();
+      PermChangeRecorder recorder = permChangeRecorder;
+      for (Map.Entry<String, TSentryPrivilege> grant : grants) {
+        MSentryRole mRole = roles.get(grant.getKey());
+        if (mRole == null) {
+          throw new SentryNoSuchObjectException("Role: " + grant.getKey());
         }
-        // get the privileges for the role
-        Set<TSentryPrivilege> tSentryPrivileges = sentryRolePrivilegesMap.get(roleName);
-        for (TSentryPrivilege tSentryPrivilege : tSentryPrivileges) {
-          alterSentryRoleGrantPrivilegeCore(pm, roleName, tSentryPrivilege);
+        alterSentryRoleGrantPrivilegeCore(pm, mRole, grant.getValue(), resolvedPrivileges,
+            newPrivileges);
+        if (recorder != null) {
+          recordPermChange(pm, recorder.onAlterSentryRoleGrantPrivilege(grant.getKey(),
+              grant.getValue()));
         }
       }
+      pm.makePersistentAll(newPrivileges);
+      commitUpdateTransaction(pm);
+      rollbackTransaction = false;
+    } finally {
+      if (rollbackTransaction) {
+        rollbackTransaction(pm);
+      }
     }
   }
 }
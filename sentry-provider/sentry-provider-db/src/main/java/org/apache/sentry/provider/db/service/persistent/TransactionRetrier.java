@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import java.sql.SQLException;
+import java.util.Random;
+
+import javax.jdo.JDOException;
+
+import org.apache.sentry.provider.db.service.thrift.SentryMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Runs write transactions and replays them when the database rolled them
+ * back because of a lock conflict: a deadlock, a lock wait timeout, a
+ * serialization failure, or a duplicate key inserted by a concurrent
+ * transaction. Every replay waits a random time of up to
+ * baseBackoffMs * 2^retry, capped at maxBackoffMs, and at most maxRetries
+ * replays are made before the conflict is passed on to the caller.
+ */
+public class TransactionRetrier {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(TransactionRetrier.class);
+
+  /**
+   * One complete attempt of a transaction, from opening it to committing or
+   * rolling it back, so that it can be run again from scratch.
+   */
+  public interface Attempt<T, E extends Exception> {
+    T run() throws E;
+  }
+
+  private final int maxRetries;
+  private final long baseBackoffMs;
+  private final long maxBackoffMs;
+  private final Random random = new Random();
+
+  TransactionRetrier(int maxRetries, long baseBackoffMs, long maxBackoffMs) {
+    this.maxRetries = Math.max(0, maxRetries);
+    this.baseBackoffMs = Math.max(1, baseBackoffMs);
+    this.maxBackoffMs = Math.max(this.baseBackoffMs, maxBackoffMs);
+  }
+
+  public <T, E extends Exception> T run(Attempt<T, E> attempt) throws E {
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    for (int retry = 0; ; retry++) {
+      try {
+        T result = attempt.run();
+        sentryMetrics.transactionAttempts.update(retry + 1);
+        return result;
+      } catch (JDOException e) {
+        if (!isConflict(e)) {
+          throw e;
+        }
+        sentryMetrics.transactionConflicts.inc();
+        if (retry >= maxRetries) {
+          sentryMetrics.transactionRetriesExhausted.inc();
+          LOGGER.warn("Transaction still conflicting after " + retry + " retries", e);
+          throw e;
+        }
+        long backoffMs = getBackoffMs(retry);
+        LOGGER.debug("Transaction conflict, retrying in " + backoffMs + " ms", e);
+        try {
+          Thread.sleep(backoffMs);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+        sentryMetrics.transactionRetries.inc();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  long getBackoffMs(int retry) {
+    long ceiling = baseBackoffMs;
+    for (int i = 0; i < retry && ceiling < maxBackoffMs; i++) {
+      ceiling <<= 1;
+    }
+    ceiling = Math.min(ceiling, maxBackoffMs);
+    synchronized (random) {
+      return 1 + (long) (random.nextDouble() * ceiling);
+    }
+  }
+
+  /**
+   * Looks for an SQLException telling that the transaction lost a conflict
+   * with a concurrent one and was rolled back by the database.
+   */
+  @VisibleForTesting
+  static boolean isConflict(Throwable t) {
+    for (int depth = 0; t != null && depth < 16; depth++) {
+      if (t instanceof SQLException) {
+        SQLException sqlException = (SQLException) t;
+        for (SQLException next = sqlException; next != null;
+            next = next.getNextException()) {
+          if (isConflict(next.getSQLState(), next.getErrorCode())) {
+            return true;
+          }
+        }
+      }
+      if (t.getCause() == t) {
+        break;
+      }
+      t = t.getCause();
+    }
+    return false;
+  }
+
+  private static boolean isConflict(String sqlState, int errorCode) {
+    if (sqlState == null) {
+      return false;
+    }
+    // class 40 is "transaction rollback": serialization failures, deadlocks
+    // (MySQL, PostgreSQL 40P01) and Derby's lock timeouts (40XL1, 40XL2)
+    if (sqlState.startsWith("40")) {
+      return true;
+    }
+    // unique key violated by a row a concurrent transaction inserted
+    if ("23505".equals(sqlState)) {
+      return true;
+    }
+    // MySQL duplicate key (1062) and lock wait timeout (1205),
+    // Oracle unique constraint (ORA-00001) and deadlock (ORA-00060)
+    return ("23000".equals(sqlState) && (errorCode == 1062 || errorCode == 1))
+        || ("HY000".equals(sqlState) && errorCode == 1205)
+        || ("61000".equals(sqlState) && errorCode == 60);
+  }
+}
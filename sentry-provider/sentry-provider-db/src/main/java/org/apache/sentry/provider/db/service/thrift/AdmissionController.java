@@ -0,0 +1,251 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.thrift;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.SentryThrottledException;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+
+/**
+ * Admits the calls of a service within the limits of concurrent calls and
+ * of calls per second of all the clients and of each client principal, and
+ * meters the calls of every principal in SentryMetrics. The principal is
+ * the kerberos authorization id of the connection, or else the client
+ * address. A call over a limit is rejected right away with a
+ * SentryThrottledException rather than queued, so that a busy client backs
+ * off and retries while the others are served.
+ */
+public class AdmissionController {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(AdmissionController.class);
+
+  // principals not seen for this long are forgotten, with their meters
+  private static final long PRINCIPAL_IDLE_MINUTES = 10;
+
+  private final String serviceName;
+  private final Semaphore concurrentCalls;
+  private final TokenBucket callRate;
+  private final int principalMaxConcurrentCalls;
+  private final int principalCallsPerSecond;
+  private final int principalBurst;
+  private final LoadingCache<String, Principal> principals;
+
+  public AdmissionController(final String serviceName, Configuration conf) {
+    this.serviceName = serviceName;
+    concurrentCalls = newSemaphore(conf.getInt(ServerConfig.SENTRY_ADMISSION_MAX_CONCURRENT_CALLS,
+        ServerConfig.SENTRY_ADMISSION_MAX_CONCURRENT_CALLS_DEFAULT));
+    callRate = newTokenBucket(conf.getInt(ServerConfig.SENTRY_ADMISSION_CALLS_PER_SECOND,
+        ServerConfig.SENTRY_ADMISSION_CALLS_PER_SECOND_DEFAULT),
+        conf.getInt(ServerConfig.SENTRY_ADMISSION_BURST,
+            ServerConfig.SENTRY_ADMISSION_BURST_DEFAULT));
+    principalMaxConcurrentCalls = conf.getInt(
+        ServerConfig.SENTRY_ADMISSION_PRINCIPAL_MAX_CONCURRENT_CALLS,
+        ServerConfig.SENTRY_ADMISSION_PRINCIPAL_MAX_CONCURRENT_CALLS_DEFAULT);
+    principalCallsPerSecond = conf.getInt(
+        ServerConfig.SENTRY_ADMISSION_PRINCIPAL_CALLS_PER_SECOND,
+        ServerConfig.SENTRY_ADMISSION_PRINCIPAL_CALLS_PER_SECOND_DEFAULT);
+    principalBurst = conf.getInt(ServerConfig.SENTRY_ADMISSION_PRINCIPAL_BURST,
+        ServerConfig.SENTRY_ADMISSION_PRINCIPAL_BURST_DEFAULT);
+    principals = CacheBuilder.newBuilder()
+        .removalListener(new RemovalListener<String, Principal>() {
+          @Override
+          public void onRemoval(RemovalNotification<String, Principal> notification) {
+            SentryMetrics.getInstance().removePrincipalMeters(serviceName, notification.getKey());
+          }
+        })
+        .maximumSize(conf.getLong(ServerConfig.SENTRY_ADMISSION_MAX_PRINCIPALS,
+            ServerConfig.SENTRY_ADMISSION_MAX_PRINCIPALS_DEFAULT))
+        .expireAfterAccess(PRINCIPAL_IDLE_MINUTES, TimeUnit.MINUTES)
+        .build(new CacheLoader<String, Principal>() {
+          @Override
+          public Principal load(String name) {
+            return new Principal(name);
+          }
+        });
+  }
+
+  /**
+   * Admits a call of the principal of the current call, the returned permit
+   * must be passed to release once the call is done.
+   */
+  public Permit admit() throws SentryThrottledException {
+    return admit(getPrincipal());
+  }
+
+  @VisibleForTesting
+  Permit admit(String principalName) throws SentryThrottledException {
+    Principal principal = principals.getUnchecked(principalName);
+    principal.requests.mark();
+    // the limits of the principal go first, so that a busy principal does
+    // not use up the calls of the others; a call rejected by a limit gives
+    // back what it took of the ones checked before
+    if (principal.callRate != null && !principal.callRate.tryTake()) {
+      throw reject(principal, "calls per second of the principal");
+    }
+    if (callRate != null && !callRate.tryTake()) {
+      giveBack(principal.callRate);
+      throw reject(principal, "calls per second");
+    }
+    if (principal.concurrentCalls != null && !principal.concurrentCalls.tryAcquire()) {
+      giveBack(principal.callRate);
+      giveBack(callRate);
+      throw reject(principal, "concurrent calls of the principal");
+    }
+    if (concurrentCalls != null && !concurrentCalls.tryAcquire()) {
+      if (principal.concurrentCalls != null) {
+        principal.concurrentCalls.release();
+      }
+      giveBack(principal.callRate);
+      giveBack(callRate);
+      throw reject(principal, "concurrent calls");
+    }
+    return new Permit(principal.concurrentCalls);
+  }
+
+  private static void giveBack(TokenBucket tokenBucket) {
+    if (tokenBucket != null) {
+      tokenBucket.giveBack();
+    }
+  }
+
+  /**
+   * Ends a call admitted with the permit, does nothing for a null permit.
+   */
+  public void release(Permit permit) {
+    if (permit == null) {
+      return;
+    }
+    if (permit.principalCalls != null) {
+      permit.principalCalls.release();
+    }
+    if (concurrentCalls != null) {
+      concurrentCalls.release();
+    }
+  }
+
+  private SentryThrottledException reject(Principal principal, String limit) {
+    SentryMetrics.getInstance().admissionRejections.inc();
+    principal.rejections.mark();
+    String msg = "Too many calls from " + principal.name + " to " + serviceName
+        + ", over the limit of " + limit + ", retry later";
+    LOGGER.debug(msg);
+    return new SentryThrottledException(msg);
+  }
+
+  /**
+   * Returns the principal of the current call, set by the processor
+   * wrappers of the services.
+   */
+  static String getPrincipal() {
+    String impersonator = ThriftUtil.getImpersonator();
+    if (!Strings.isNullOrEmpty(impersonator)) {
+      return impersonator;
+    }
+    String ipAddress = ThriftUtil.getIpAddress();
+    return Strings.isNullOrEmpty(ipAddress) ? "unknown" : ipAddress;
+  }
+
+  private static Semaphore newSemaphore(int maxConcurrentCalls) {
+    return maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls) : null;
+  }
+
+  private static TokenBucket newTokenBucket(int callsPerSecond, int burst) {
+    return callsPerSecond > 0
+        ? new TokenBucket(callsPerSecond, burst > 0 ? burst : callsPerSecond) : null;
+  }
+
+  private class Principal {
+    private final String name;
+    private final Semaphore concurrentCalls;
+    private final TokenBucket callRate;
+    private final Meter requests;
+    private final Meter rejections;
+
+    Principal(String name) {
+      this.name = name;
+      concurrentCalls = newSemaphore(principalMaxConcurrentCalls);
+      callRate = newTokenBucket(principalCallsPerSecond, principalBurst);
+      requests = SentryMetrics.getInstance().getPrincipalRequests(serviceName, name);
+      rejections = SentryMetrics.getInstance().getPrincipalRejections(serviceName, name);
+    }
+  }
+
+  /**
+   * The concurrent calls an admitted call holds.
+   */
+  public static class Permit {
+    private final Semaphore principalCalls;
+
+    private Permit(Semaphore principalCalls) {
+      this.principalCalls = principalCalls;
+    }
+  }
+
+  /**
+   * Hands out callsPerSecond tokens a second, keeping at most burst of them
+   * while no one takes them.
+   */
+  @VisibleForTesting
+  static class TokenBucket {
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(int callsPerSecond, int burst) {
+      tokensPerNano = callsPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+      capacity = burst;
+      tokens = burst;
+      lastRefillNanos = System.nanoTime();
+    }
+
+    synchronized boolean tryTake() {
+      long now = System.nanoTime();
+      tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+      lastRefillNanos = now;
+      if (tokens < 1) {
+        return false;
+      }
+      tokens -= 1;
+      return true;
+    }
+
+    /**
+     * Returns a token taken by a call which was not admitted after all.
+     */
+    synchronized void giveBack() {
+      tokens = Math.min(capacity, tokens + 1);
+    }
+  }
+}
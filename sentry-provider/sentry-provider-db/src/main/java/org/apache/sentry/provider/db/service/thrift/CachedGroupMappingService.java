@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.thrift;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sentry.provider.common.GroupMappingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Timer;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Caches the groups of users looked up through another GroupMappingService.
+ * Groups older than ttlMs are refreshed in the background while the cached
+ * ones keep being served, and a failed refresh keeps them; groups older than
+ * twice ttlMs are looked up again before answering. Users without any group
+ * are looked up again once the answer is older than negativeTtlMs. A refresh
+ * which finds no group for a user who had some keeps the groups too, until
+ * they are older than twice ttlMs, since a mapping may answer a failure with
+ * no groups.
+ */
+public class CachedGroupMappingService implements GroupMappingService {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(CachedGroupMappingService.class);
+
+  // how Hadoop Groups answers a user without any group
+  private static final String NO_GROUPS_FOUND = "No groups found for user ";
+
+  /**
+   * Looks up the groups of a user, failing instead of answering no groups
+   * when the directory cannot be reached.
+   */
+  interface GroupLookup {
+    Set<String> getGroups(String user) throws IOException;
+  }
+
+  private final GroupLookup groupLookup;
+  private final long ttlMs;
+  private final long negativeTtlMs;
+  private final LoadingCache<String, Groups> cache;
+  private final ExecutorService refreshExecutor;
+
+  private static class Groups {
+    private final ImmutableSet<String> groups;
+    private final long loadTimeMs;
+
+    Groups(Set<String> groups) {
+      this.groups = ImmutableSet.copyOf(groups);
+      this.loadTimeMs = System.currentTimeMillis();
+    }
+  }
+
+  public CachedGroupMappingService(final GroupMappingService groupMapping, long ttlMs,
+      long negativeTtlMs, long maxUsers) {
+    this(new GroupLookup() {
+      @Override
+      public Set<String> getGroups(String user) {
+        return groupMapping.getGroups(user);
+      }
+    }, ttlMs, negativeTtlMs, maxUsers);
+  }
+
+  CachedGroupMappingService(GroupLookup groupLookup, long ttlMs,
+      long negativeTtlMs, long maxUsers) {
+    this.groupLookup = groupLookup;
+    this.ttlMs = ttlMs;
+    this.negativeTtlMs = negativeTtlMs;
+    refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("sentry-group-mapping-refresh-%d").setDaemon(true).build());
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maxUsers)
+        .refreshAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+        .expireAfterWrite(2 * ttlMs, TimeUnit.MILLISECONDS)
+        .build(new CacheLoader<String, Groups>() {
+          @Override
+          public Groups load(String user) throws IOException {
+            return lookup(user);
+          }
+
+          @Override
+          public ListenableFuture<Groups> reload(final String user, final Groups oldGroups) {
+            ListenableFutureTask<Groups> task = ListenableFutureTask.create(
+                new Callable<Groups>() {
+                  @Override
+                  public Groups call() throws IOException {
+                    return reloadGroups(user, oldGroups);
+                  }
+                });
+            refreshExecutor.execute(task);
+            return task;
+          }
+        });
+  }
+
+  /**
+   * Returns a cache over the Hadoop group mapping which, unlike
+   * HadoopGroupMappingService, keeps the cached groups when the lookup fails.
+   * Hadoop Groups fails for a user without any group as well, that answer is
+   * cached as no groups.
+   */
+  static CachedGroupMappingService forHadoopGroups(
+      final org.apache.hadoop.security.Groups hadoopGroups, long ttlMs,
+      long negativeTtlMs, long maxUsers) {
+    return new CachedGroupMappingService(new GroupLookup() {
+      @Override
+      public Set<String> getGroups(String user) throws IOException {
+        try {
+          return Sets.newHashSet(hadoopGroups.getGroups(user));
+        } catch (IOException e) {
+          if ((NO_GROUPS_FOUND + user).equals(e.getMessage())) {
+            return Collections.emptySet();
+          }
+          throw e;
+        }
+      }
+    }, ttlMs, negativeTtlMs, maxUsers);
+  }
+
+  private Groups reloadGroups(String user, Groups oldGroups) throws IOException {
+    Groups groups = lookup(user);
+    if (groups.groups.isEmpty() && !oldGroups.groups.isEmpty()
+        && System.currentTimeMillis() - oldGroups.loadTimeMs < 2 * ttlMs) {
+      LOGGER.warn("No groups found for " + user + ", keeping " + oldGroups.groups);
+      return oldGroups;
+    }
+    return groups;
+  }
+
+  private Groups lookup(String user) throws IOException {
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    sentryMetrics.groupMappingCacheMisses.inc();
+    final Timer.Context timerContext = sentryMetrics.groupMappingLookupTimer.time();
+    try {
+      return new Groups(groupLookup.getGroups(user));
+    } finally {
+      timerContext.stop();
+    }
+  }
+
+  @Override
+  public Set<String> getGroups(String user) {
+    Groups groups = cache.getIfPresent(user);
+    if (groups == null) {
+      try {
+        groups = cache.getUnchecked(user);
+      } catch (UncheckedExecutionException e) {
+        throw Throwables.propagate(e.getCause());
+      }
+    } else {
+      SentryMetrics.getInstance().groupMappingCacheHits.inc();
+      if (groups.groups.isEmpty()
+          && System.currentTimeMillis() - groups.loadTimeMs > negativeTtlMs) {
+        cache.refresh(user);
+      }
+    }
+    return groups.groups;
+  }
+
+  public void close() {
+    refreshExecutor.shutdownNow();
+  }
+}
@@ -18,8 +18,11 @@
 package org.apache.sentry.provider.db.service.thrift;
 
 import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.MetricSet;
@@ -59,6 +62,8 @@ public class SentryMetrics {
       MetricRegistry.name(SentryPolicyStoreProcessor.class, "drop-privilege"));
   public final Timer renamePrivilegeTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
       MetricRegistry.name(SentryPolicyStoreProcessor.class, "rename-privilege"));
+  public final Timer dropOrRenamePrivilegesTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
+      MetricRegistry.name(SentryPolicyStoreProcessor.class, "drop-or-rename-privileges"));
 
   public final Timer listRolesByGroupTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
       MetricRegistry.name(SentryPolicyStoreProcessor.class, "list-roles-by-group"));
@@ -66,9 +71,60 @@ public class SentryMetrics {
       MetricRegistry.name(SentryPolicyStoreProcessor.class, "list-privileges-by-role"));
   public final Timer listPrivilegesForProviderTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
       MetricRegistry.name(SentryPolicyStoreProcessor.class, "list-privileges-for-provider"));
+  public final Timer checkPrivilegesTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
+      MetricRegistry.name(SentryPolicyStoreProcessor.class, "check-privileges"));
   public final Timer listPrivilegesByAuthorizableTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
       MetricRegistry.name(SentryPolicyStoreProcessor.class, "list-privileges-by-authorizable"));
 
+  // lookups of the group mapping behind the group mapping cache
+  public final Timer groupMappingLookupTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
+      MetricRegistry.name(SentryPolicyStoreProcessor.class, "group-mapping-lookup"));
+  public final Counter groupMappingCacheHits = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryPolicyStoreProcessor.class, "group-mapping-cache-hits"));
+  public final Counter groupMappingCacheMisses = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryPolicyStoreProcessor.class, "group-mapping-cache-misses"));
+
+  // calls rejected by the admission control of the services
+  public final Counter admissionRejections = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(AdmissionController.class, "rejected"));
+
+  // database time of list_sentry_privileges_for_provider, by phase
+  public final Timer providerRoleLookupTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
+      MetricRegistry.name(SentryStore.class, "provider-role-lookup"));
+  public final Timer providerPrivilegeLookupTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
+      MetricRegistry.name(SentryStore.class, "provider-privilege-lookup"));
+  public final Timer providerServerCheckTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
+      MetricRegistry.name(SentryStore.class, "provider-server-check"));
+
+  public final Timer queryCompileTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
+      MetricRegistry.name(SentryStore.class, "query-compile"));
+  public final Timer queryExecuteTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
+      MetricRegistry.name(SentryStore.class, "query-execute"));
+  public final Histogram groupCommitBatchSize = SentryMetricsServletContextListener.METRIC_REGISTRY.histogram(
+      MetricRegistry.name(SentryStore.class, "group-commit-batch-size"));
+  public final Timer orphanPrivilegeRemovalTimer = SentryMetricsServletContextListener.METRIC_REGISTRY.timer(
+      MetricRegistry.name(SentryStore.class, "orphan-privilege-removal"));
+  public final Counter orphanPrivilegesScanned = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryStore.class, "orphan-privileges-scanned"));
+  public final Counter orphanPrivilegesRemoved = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryStore.class, "orphan-privileges-removed"));
+  public final Counter transactionConflicts = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryStore.class, "transaction-conflicts"));
+  public final Counter transactionRetries = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryStore.class, "transaction-retries"));
+  public final Counter transactionRetriesExhausted = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryStore.class, "transaction-retries-exhausted"));
+  public final Histogram transactionAttempts = SentryMetricsServletContextListener.METRIC_REGISTRY.histogram(
+      MetricRegistry.name(SentryStore.class, "transaction-attempts"));
+  public final Counter l2CacheEvictions = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryStore.class, "l2cache-evictions"));
+  public final Counter providerCacheHits = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryStore.class, "provider-cache-hits"));
+  public final Counter providerCacheMisses = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryStore.class, "provider-cache-misses"));
+  public final Counter providerCacheEvictions = SentryMetricsServletContextListener.METRIC_REGISTRY.counter(
+      MetricRegistry.name(SentryStore.class, "provider-cache-evictions"));
+
   private SentryMetrics() {
     registerMetricSet("gc", new GarbageCollectorMetricSet(), SentryMetricsServletContextListener.METRIC_REGISTRY);
     registerMetricSet("buffers", new BufferPoolMetricSet(ManagementFactory.getPlatformMBeanServer()),
@@ -94,6 +150,33 @@ public class SentryMetrics {
   }
 
 
+  /**
+   * Returns the rate of the calls of a principal to a service.
+   */
+  public Meter getPrincipalRequests(String serviceName, String principal) {
+    return SentryMetricsServletContextListener.METRIC_REGISTRY.meter(
+        MetricRegistry.name(AdmissionController.class, serviceName, "requests", principal));
+  }
+
+  /**
+   * Returns the rate of the calls of a principal the admission control of
+   * a service rejected.
+   */
+  public Meter getPrincipalRejections(String serviceName, String principal) {
+    return SentryMetricsServletContextListener.METRIC_REGISTRY.meter(
+        MetricRegistry.name(AdmissionController.class, serviceName, "rejected", principal));
+  }
+
+  /**
+   * Removes the meters of a principal the admission control forgot.
+   */
+  public void removePrincipalMeters(String serviceName, String principal) {
+    SentryMetricsServletContextListener.METRIC_REGISTRY.remove(
+        MetricRegistry.name(AdmissionController.class, serviceName, "requests", principal));
+    SentryMetricsServletContextListener.METRIC_REGISTRY.remove(
+        MetricRegistry.name(AdmissionController.class, serviceName, "rejected", principal));
+  }
+
   /* Should be only called once to initialize the reporters
    */
   public synchronized void initReporting(Reporting reporting) {
@@ -143,6 +143,13 @@ public interface SentryPolicyServiceClient {
   public Set<String> listPrivilegesForProvider(Set<String> groups, ActiveRoleSet roleSet,
       Authorizable... authorizable) throws SentryUserException;
 
+  /**
+   * Checks a batch of (authorizable hierarchy, action) pairs in one call and
+   * returns in order whether each one is allowed for the groups.
+   */
+  public List<Boolean> checkPrivileges(Set<String> groups, ActiveRoleSet roleSet,
+      List<TSentryAccessCheck> checks) throws SentryUserException;
+
   public void grantRoleToGroup(String requestorUserName, String groupName, String roleName)
       throws SentryUserException;
 
@@ -162,6 +169,14 @@ public interface SentryPolicyServiceClient {
       List<? extends Authorizable> oldAuthorizables, List<? extends Authorizable> newAuthorizables)
       throws SentryUserException;
 
+  /**
+   * Drops or renames the privileges of many objects in one call. The objects
+   * whose new authorizables are null have their privileges dropped.
+   */
+  public void dropOrRenamePrivileges(String requestorUserName,
+      List<List<? extends Authorizable>> oldAuthorizables,
+      List<List<? extends Authorizable>> newAuthorizables) throws SentryUserException;
+
   public Map<TSentryAuthorizable, TSentryPrivilegeMap> listPrivilegsbyAuthorizable(
       String requestorUserName, Set<List<? extends Authorizable>> authorizables,
       Set<String> groups, ActiveRoleSet roleSet) throws SentryUserException;
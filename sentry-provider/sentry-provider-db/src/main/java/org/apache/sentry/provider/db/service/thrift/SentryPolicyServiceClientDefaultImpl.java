@@ -50,7 +50,10 @@ import org.apache.sentry.service.thrift.ServiceConstants.ThriftConstants;
 import org.apache.sentry.service.thrift.Status;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
 import org.apache.thrift.protocol.TMultiplexedProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TSaslClientTransport;
 import org.apache.thrift.transport.TSocket;
 import org.apache.thrift.transport.TTransport;
@@ -140,6 +143,12 @@ public class SentryPolicyServiceClientDefaultImpl implements SentryPolicyService
         conf.get(ServerConfig.SECURITY_MODE, ServerConfig.SECURITY_MODE_KERBEROS).trim());
     transport = new TSocket(serverAddress.getHostName(),
         serverAddress.getPort(), connectionTimeout);
+    // a kerberos server always runs the unframed thread pool server
+    if (!kerberos && conf.getBoolean(ClientConfig.SERVER_RPC_FRAMED_TRANSPORT,
+        ClientConfig.SERVER_RPC_FRAMED_TRANSPORT_DEFAULT)) {
+      transport = new TFramedTransport(transport, conf.getInt(
+          ClientConfig.SERVER_RPC_MAX_FRAME_SIZE, ClientConfig.SERVER_RPC_MAX_FRAME_SIZE_DEFAULT));
+    }
     if (kerberos) {
       String serverPrincipal = Preconditions.checkNotNull(conf.get(ServerConfig.PRINCIPAL), ServerConfig.PRINCIPAL + " is required");
 
@@ -164,9 +173,15 @@ public class SentryPolicyServiceClientDefaultImpl implements SentryPolicyService
       throw new IOException("Transport exception while opening transport: " + e.getMessage(), e);
     }
     LOGGER.debug("Successfully opened transport: " + transport + " to " + serverAddress);
+    TProtocol tProtocol = null;
+    if (conf.getBoolean(ClientConfig.USE_COMPACT_TRANSPORT,
+        ClientConfig.USE_COMPACT_TRANSPORT_DEFAULT)) {
+      tProtocol = new TCompactProtocol(transport);
+    } else {
+      tProtocol = new TBinaryProtocol(transport);
+    }
     TMultiplexedProtocol protocol = new TMultiplexedProtocol(
-      new TBinaryProtocol(transport),
-      SentryPolicyStoreProcessor.SENTRY_POLICY_SERVICE_NAME);
+      tProtocol, SentryPolicyStoreProcessor.SENTRY_POLICY_SERVICE_NAME);
     client = new SentryPolicyService.Client(protocol);
     LOGGER.debug("Successfully created client");
   }
@@ -674,6 +689,21 @@ public class SentryPolicyServiceClientDefaultImpl implements SentryPolicyService
     }
   }
 
+  @Override
+  public List<Boolean> checkPrivileges(Set<String> groups, ActiveRoleSet roleSet,
+      List<TSentryAccessCheck> checks) throws SentryUserException {
+    TSentryActiveRoleSet thriftRoleSet = new TSentryActiveRoleSet(roleSet.isAll(), roleSet.getRoles());
+    TCheckSentryPrivilegesRequest request = new TCheckSentryPrivilegesRequest(
+        ThriftConstants.TSENTRY_SERVICE_VERSION_CURRENT, groups, thriftRoleSet, checks);
+    try {
+      TCheckSentryPrivilegesResponse response = client.check_sentry_privileges(request);
+      Status.throwIfNotOk(response.getStatus());
+      return response.getAllowed();
+    } catch (TException e) {
+      throw new SentryUserException(THRIFT_EXCEPTION_MESSAGE, e);
+    }
+  }
+
   @Override
   public synchronized void grantRoleToGroup(String requestorUserName,
       String groupName, String roleName)
@@ -762,6 +792,33 @@ public class SentryPolicyServiceClientDefaultImpl implements SentryPolicyService
     }
   }
 
+  public synchronized void dropOrRenamePrivileges(String requestorUserName,
+      List<List<? extends Authorizable>> oldAuthorizables,
+      List<List<? extends Authorizable>> newAuthorizables) throws SentryUserException {
+    Preconditions.checkArgument(oldAuthorizables.size() == newAuthorizables.size(),
+        "Expected as many new authorizables as old ones");
+    List<TSentryAuthorizableChange> changes =
+        Lists.newArrayListWithCapacity(oldAuthorizables.size());
+    for (int i = 0; i < oldAuthorizables.size(); i++) {
+      TSentryAuthorizableChange change = new TSentryAuthorizableChange(
+          setupSentryAuthorizable(oldAuthorizables.get(i)));
+      if (newAuthorizables.get(i) != null) {
+        change.setNewAuthorizable(setupSentryAuthorizable(newAuthorizables.get(i)));
+      }
+      changes.add(change);
+    }
+
+    TDropOrRenamePrivilegesRequest request = new TDropOrRenamePrivilegesRequest(
+        ThriftConstants.TSENTRY_SERVICE_VERSION_CURRENT, requestorUserName, changes);
+    try {
+      TDropOrRenamePrivilegesResponse response = client
+          .drop_or_rename_sentry_privileges(request);
+      Status.throwIfNotOk(response.getStatus());
+    } catch (TException e) {
+      throw new SentryUserException(THRIFT_EXCEPTION_MESSAGE, e);
+    }
+  }
+
   public synchronized Map<TSentryAuthorizable, TSentryPrivilegeMap> listPrivilegsbyAuthorizable(
       String requestorUserName,
       Set<List<? extends Authorizable>> authorizables, Set<String> groups,
@@ -28,6 +28,7 @@ import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.security.Groups;
 import org.apache.sentry.SentryUserException;
 import org.apache.sentry.core.model.db.AccessConstants;
 import org.apache.sentry.provider.common.GroupMappingService;
@@ -60,6 +61,7 @@ import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -77,12 +79,17 @@ public class SentryPolicyStoreProcessor implements SentryPolicyService.Iface {
   private final String name;
   private final Configuration conf;
   private final SentryStore sentryStore;
+  private final SentryPrivilegeChecker privilegeChecker;
   private final NotificationHandlerInvoker notificationHandlerInvoker;
   private final ImmutableSet<String> adminGroups;
   private boolean isReady;
   SentryMetrics sentryMetrics;
   private HAContext haContext;
 
+  // looks up the groups of the requestors, null when the mapping is
+  // created for every lookup
+  private final GroupMappingService groupMapping;
+
   private List<SentryPolicyStorePlugin> sentryPlugins = new LinkedList<SentryPolicyStorePlugin>();
 
   public SentryPolicyStoreProcessor(String name, Configuration conf) throws Exception {
@@ -102,6 +109,8 @@ public class SentryPolicyStoreProcessor implements SentryPolicyService.Iface {
     } else {
       sentryStore = new SentryStore(conf);
     }
+    privilegeChecker = new SentryPrivilegeChecker(sentryStore);
+    groupMapping = createRequestorGroupMapping(conf);
     isReady = true;
     adminGroups = ImmutableSet.copyOf(toTrimedLower(Sets.newHashSet(conf.getStrings(
         ServerConfig.ADMIN_GROUPS, new String[]{}))));
@@ -147,6 +156,9 @@ public class SentryPolicyStoreProcessor implements SentryPolicyService.Iface {
     if (isReady) {
       sentryStore.stop();
     }
+    if (groupMapping instanceof CachedGroupMappingService) {
+      ((CachedGroupMappingService) groupMapping).close();
+    }
     if (haContext != null) {
       try {
         haContext.getCuratorFramework().close();
@@ -611,23 +623,42 @@ public class SentryPolicyStoreProcessor implements SentryPolicyService.Iface {
     response.setPrivileges(new HashSet<String>());
     try {
       validateClientVersion(request.getProtocol_version());
-      Set<String> privilegesForProvider = sentryStore.listSentryPrivilegesForProvider(
+      // REQUIRED for ensuring 'default' Db is accessible by any user
+      // with privileges to atleast 1 object with the specific server as root:
+      // when nothing matches the AuthorizableHierarchy the store returns
+      // "server=+" if the user has privilege on atleast 1 object in the
+      // server hierarchy
+      Set<String> privilegesForProvider = sentryStore.listSentryPrivilegesOrServerAccessForProvider(
           request.getGroups(), request.getRoleSet(), request.getAuthorizableHierarchy());
       response.setPrivileges(privilegesForProvider);
-      if (((privilegesForProvider == null)||(privilegesForProvider.size() == 0))&&(request.getAuthorizableHierarchy() != null)) {
-        if (sentryStore.hasAnyServerPrivileges(
-            request.getGroups(), request.getRoleSet(), request.getAuthorizableHierarchy().getServer())) {
-
-          // REQUIRED for ensuring 'default' Db is accessible by any user
-          // with privileges to atleast 1 object with the specific server as root
-
-          // Need some way to specify that even though user has no privilege
-          // For the specific AuthorizableHierarchy.. he has privilege on
-          // atleast 1 object in the server hierarchy
-          HashSet<String> serverPriv = Sets.newHashSet("server=+");
-          response.setPrivileges(serverPriv);
-        }
+      response.setStatus(Status.OK());
+    } catch (SentryThriftAPIMismatchException e) {
+      LOGGER.error(e.getMessage(), e);
+      response.setStatus(Status.THRIFT_VERSION_MISMATCH(e.getMessage(), e));
+    } catch (Exception e) {
+      String msg = "Unknown error for request: " + request + ", message: " + e.getMessage();
+      LOGGER.error(msg, e);
+      response.setStatus(Status.RuntimeError(msg, e));
+    } finally {
+      timerContext.stop();
+    }
+    return response;
+  }
+
+  @Override
+  public TCheckSentryPrivilegesResponse check_sentry_privileges(
+      TCheckSentryPrivilegesRequest request) throws TException {
+    final Timer.Context timerContext = sentryMetrics.checkPrivilegesTimer.time();
+    TCheckSentryPrivilegesResponse response = new TCheckSentryPrivilegesResponse();
+    response.setAllowed(new LinkedList<Boolean>());
+    try {
+      validateClientVersion(request.getProtocol_version());
+      Set<String> groups = new HashSet<String>(request.getGroups());
+      if (request.isSetUserName()) {
+        groups.addAll(getRequestorGroups(request.getUserName()));
       }
+      response.setAllowed(privilegeChecker.check(groups, request.getRoleSet(),
+          request.getChecks()));
       response.setStatus(Status.OK());
     } catch (SentryThriftAPIMismatchException e) {
       LOGGER.error(e.getMessage(), e);
@@ -645,11 +676,61 @@ public class SentryPolicyStoreProcessor implements SentryPolicyService.Iface {
   // retrieve the group mapping for the given user name
   private Set<String> getRequestorGroups(String userName)
       throws SentryUserException {
+    if (groupMapping != null) {
+      return groupMapping.getGroups(userName);
+    }
     return getGroupsFromUserName(this.conf, userName);
   }
 
   public static Set<String> getGroupsFromUserName(Configuration conf,
       String userName) throws SentryUserException {
+    return createGroupMappingService(conf).getGroups(userName);
+  }
+
+  /**
+   * Returns the group mapping of a processor configured with conf, which
+   * caches the groups when the cache TTL is set. Without a TTL the local
+   * file mapping is the only one not held, it is created for every lookup
+   * to see the changes of its file and null is returned. The Hadoop mapping
+   * is cached by calling it directly, so that a lookup failure keeps the
+   * cached groups rather than caching no groups.
+   */
+  @VisibleForTesting
+  static GroupMappingService createRequestorGroupMapping(Configuration conf)
+      throws SentryUserException {
+    long ttlMs = conf.getLong(ServerConfig.SENTRY_STORE_GROUP_MAPPING_CACHE_TTL_MS,
+        ServerConfig.SENTRY_STORE_GROUP_MAPPING_CACHE_TTL_MS_DEFAULT);
+    if (ttlMs <= 0) {
+      if (ServerConfig.SENTRY_STORE_LOCAL_GROUP_MAPPING.equals(conf.get(
+          ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+          ServerConfig.SENTRY_STORE_GROUP_MAPPING_DEFAULT))) {
+        return null;
+      }
+      return createGroupMappingService(conf);
+    }
+    long negativeTtlMs = conf.getLong(ServerConfig.SENTRY_STORE_GROUP_MAPPING_CACHE_NEGATIVE_TTL_MS,
+        ServerConfig.SENTRY_STORE_GROUP_MAPPING_CACHE_NEGATIVE_TTL_MS_DEFAULT);
+    long maxUsers = conf.getLong(ServerConfig.SENTRY_STORE_GROUP_MAPPING_CACHE_MAX_USERS,
+        ServerConfig.SENTRY_STORE_GROUP_MAPPING_CACHE_MAX_USERS_DEFAULT);
+    if (ServerConfig.SENTRY_STORE_HADOOP_GROUP_MAPPING.equals(conf.get(
+        ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+        ServerConfig.SENTRY_STORE_GROUP_MAPPING_DEFAULT))) {
+      // the configuration HadoopGroupMappingService builds
+      Configuration hadoopConf = new Configuration();
+      hadoopConf.addResource(conf);
+      String resource = conf.get(ServerConfig.SENTRY_STORE_GROUP_MAPPING_RESOURCE);
+      if (!Strings.isNullOrEmpty(resource)) {
+        hadoopConf.addResource(resource);
+      }
+      return CachedGroupMappingService.forHadoopGroups(
+          Groups.getUserToGroupsMappingService(hadoopConf), ttlMs, negativeTtlMs, maxUsers);
+    }
+    return new CachedGroupMappingService(createGroupMappingService(conf), ttlMs,
+        negativeTtlMs, maxUsers);
+  }
+
+  private static GroupMappingService createGroupMappingService(Configuration conf)
+      throws SentryUserException {
     String groupMapping = conf.get(ServerConfig.SENTRY_STORE_GROUP_MAPPING,
         ServerConfig.SENTRY_STORE_GROUP_MAPPING_DEFAULT);
     String authResoruce = conf
@@ -678,7 +759,7 @@ public class SentryPolicyStoreProcessor implements SentryPolicyService.Iface {
     } catch (InvocationTargetException e) {
       throw new SentryUserException("Unable to instantiate group mapping", e);
     }
-    return groupMappingService.getGroups(userName);
+    return groupMappingService;
   }
 
   @Override
@@ -742,6 +823,36 @@ public class SentryPolicyStoreProcessor implements SentryPolicyService.Iface {
     return response;
   }
 
+  @Override
+  public TDropOrRenamePrivilegesResponse drop_or_rename_sentry_privileges(
+      TDropOrRenamePrivilegesRequest request) throws TException {
+    final Timer.Context timerContext = sentryMetrics.dropOrRenamePrivilegesTimer.time();
+    TDropOrRenamePrivilegesResponse response = new TDropOrRenamePrivilegesResponse();
+    try {
+      validateClientVersion(request.getProtocol_version());
+      authorize(request.getRequestorUserName(), adminGroups);
+      sentryStore.dropOrRenamePrivileges(request.getChanges());
+      for (SentryPolicyStorePlugin plugin : sentryPlugins) {
+        plugin.onDropOrRenameSentryPrivileges(request);
+      }
+      response.setStatus(Status.OK());
+    } catch (SentryAccessDeniedException e) {
+      LOGGER.error(e.getMessage(), e);
+      response.setStatus(Status.AccessDenied(e.getMessage(), e));
+    } catch (SentryThriftAPIMismatchException e) {
+      LOGGER.error(e.getMessage(), e);
+      response.setStatus(Status.THRIFT_VERSION_MISMATCH(e.getMessage(), e));
+    } catch (Exception e) {
+      String msg = "Unknown error for request: " + request + ", message: "
+          + e.getMessage();
+      LOGGER.error(msg, e);
+      response.setStatus(Status.RuntimeError(msg, e));
+    } finally {
+      timerContext.stop();
+    }
+    return response;
+  }
+
   @Override
   public TListSentryPrivilegesByAuthResponse list_sentry_privileges_by_authorizable(
       TListSentryPrivilegesByAuthRequest request) throws TException {
@@ -31,8 +31,11 @@ public class SentryPolicyStoreProcessorFactory extends ProcessorFactory {
     SentryPolicyStoreProcessor sentryServiceHandler =
         new SentryPolicyStoreProcessor(SentryPolicyStoreProcessor.SENTRY_POLICY_SERVICE_NAME,
             conf);
+    AdmissionController admissionController =
+        new AdmissionController(SentryPolicyStoreProcessor.SENTRY_POLICY_SERVICE_NAME, conf);
     TProcessor processor =
-      new SentryProcessorWrapper<SentryPolicyService.Iface>(sentryServiceHandler);
+      new SentryProcessorWrapper<SentryPolicyService.Iface>(sentryServiceHandler,
+          admissionController);
     multiplexedProcessor.registerProcessor(SentryPolicyStoreProcessor.SENTRY_POLICY_SERVICE_NAME, processor);
     return true;
   }
@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.thrift;
+
+import static org.apache.sentry.provider.common.ProviderConstants.AUTHORIZABLE_JOINER;
+import static org.apache.sentry.provider.common.ProviderConstants.AUTHORIZABLE_SPLITTER;
+import static org.apache.sentry.provider.common.ProviderConstants.KV_JOINER;
+import static org.apache.sentry.provider.common.ProviderConstants.PRIVILEGE_NAME;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.sentry.core.model.db.AccessConstants;
+import org.apache.sentry.core.model.db.DBModelAuthorizable.AuthorizableType;
+import org.apache.sentry.policy.common.Privilege;
+import org.apache.sentry.policy.common.PrivilegeFactory;
+import org.apache.sentry.policy.db.DBWildcardPrivilege;
+import org.apache.sentry.provider.db.service.persistent.SentryStore;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Evaluates access checks against the privileges the store returns to the
+ * provider, the way ResourceAuthorizationProvider evaluates them on the
+ * client: the check is allowed when one of the privileges implies the
+ * request privilege built from the authorizable hierarchy and the action.
+ * The privileges of a hierarchy are read once per batch.
+ */
+class SentryPrivilegeChecker {
+
+  private static final PrivilegeFactory PRIVILEGE_FACTORY =
+      new DBWildcardPrivilege.DBWildcardPrivilegeFactory();
+
+  private final SentryStore sentryStore;
+
+  SentryPrivilegeChecker(SentryStore sentryStore) {
+    this.sentryStore = sentryStore;
+  }
+
+  List<Boolean> check(Set<String> groups, TSentryActiveRoleSet roleSet,
+      List<TSentryAccessCheck> checks) {
+    Map<TSentryAuthorizable, List<Privilege>> privilegesByHierarchy = Maps.newHashMap();
+    List<Boolean> allowed = Lists.newArrayListWithCapacity(checks.size());
+    for (TSentryAccessCheck check : checks) {
+      TSentryAuthorizable hierarchy = check.getAuthorizableHierarchy();
+      List<Privilege> privileges = privilegesByHierarchy.get(hierarchy);
+      if (privileges == null) {
+        privileges = getPrivileges(groups, roleSet, hierarchy);
+        privilegesByHierarchy.put(new TSentryAuthorizable(hierarchy), privileges);
+      }
+      allowed.add(implies(privileges,
+          PRIVILEGE_FACTORY.createPrivilege(buildRequestPrivilege(hierarchy, check.getAction()))));
+    }
+    return allowed;
+  }
+
+  private List<Privilege> getPrivileges(Set<String> groups,
+      TSentryActiveRoleSet roleSet, TSentryAuthorizable hierarchy) {
+    Set<String> privileges = sentryStore.listSentryPrivilegesOrServerAccessForProvider(
+        groups, roleSet, hierarchy);
+    // the 'use default' rule of ResourceAuthorizationProvider.appendDefaultDBPriv
+    if (hierarchyParts(hierarchy).size() == 4 && AccessConstants.SOME.equals(hierarchy.getTable())
+        && privileges.size() == 1 && hasOnlyServerPrivilege(privileges.iterator().next())) {
+      return ImmutableList.of(PRIVILEGE_FACTORY.createPrivilege("Server=" + hierarchy.getServer()
+          + "->Db=default->Table=*->Column=*->action=select"));
+    }
+    List<Privilege> result = Lists.newArrayListWithCapacity(privileges.size());
+    for (String privilege : privileges) {
+      result.add(PRIVILEGE_FACTORY.createPrivilege(privilege));
+    }
+    return result;
+  }
+
+  private static boolean implies(List<Privilege> privileges, Privilege requestPrivilege) {
+    for (Privilege privilege : privileges) {
+      if (privilege.implies(requestPrivilege)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasOnlyServerPrivilege(String privilege) {
+    List<String> parts = Lists.newArrayList(AUTHORIZABLE_SPLITTER.split(privilege));
+    if (parts.size() == 1 && parts.get(0).toLowerCase().startsWith("server")) {
+      return parts.get(0).toLowerCase().split("=")[1].endsWith("+");
+    }
+    return false;
+  }
+
+  /**
+   * Builds the request privilege, e.g. server=server1->db=db1->table=tbl1->action=select
+   */
+  static String buildRequestPrivilege(TSentryAuthorizable hierarchy, String action) {
+    return AUTHORIZABLE_JOINER.join(AUTHORIZABLE_JOINER.join(hierarchyParts(hierarchy)),
+        KV_JOINER.join(PRIVILEGE_NAME, action));
+  }
+
+  private static List<String> hierarchyParts(TSentryAuthorizable hierarchy) {
+    List<String> parts = Lists.newArrayList(
+        KV_JOINER.join(AuthorizableType.Server.name(), hierarchy.getServer()));
+    if (!Strings.isNullOrEmpty(hierarchy.getUri())) {
+      parts.add(KV_JOINER.join(AuthorizableType.URI.name(), hierarchy.getUri()));
+      return parts;
+    }
+    if (!Strings.isNullOrEmpty(hierarchy.getDb())) {
+      parts.add(KV_JOINER.join(AuthorizableType.Db.name(), hierarchy.getDb()));
+    }
+    if (!Strings.isNullOrEmpty(hierarchy.getTable())) {
+      parts.add(KV_JOINER.join(AuthorizableType.Table.name(), hierarchy.getTable()));
+    }
+    if (!Strings.isNullOrEmpty(hierarchy.getColumn())) {
+      parts.add(KV_JOINER.join(AuthorizableType.Column.name(), hierarchy.getColumn()));
+    }
+    return parts;
+  }
+}
@@ -21,17 +21,112 @@ package org.apache.sentry.provider.db.service.thrift;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TProtocol;
 
+public class SentryProcessorWrapper<I extends SentryPolicyService.Iface> extends
+import java.util.Set;
+
+import org.apache.sentry.provider.db.SentryThrottledException;
+import org.apache.sentry.service.thrift.Status;
+import org.apache.thrift.ProcessFunction;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.apache.thrift.TFieldIdEnum;
+import org.apache.thrift.meta_data.FieldMetaData;
+import org.apache.thrift.meta_data.StructMetaData;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolUtil;
+import org.apache.thrift.protocol.TType;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Records the client of each call and admits the call through the
+ * {@link AdmissionController} before it runs. A throttled call is not run,
+ * it is answered with its response holding the THROTTLED status.
+ */
 public class SentryProcessorWrapper<I extends SentryPolicyService.Iface> extends
     SentryPolicyService.Processor<SentryPolicyService.Iface> {
 
-  public SentryProcessorWrapper(I iface) {
+  // calls which only read the configuration are never throttled
+  private static final Set<String> UNLIMITED_CALLS =
+      ImmutableSet.of("get_sentry_config_value");
+
+  private final I iface;
+  private final AdmissionController admissionController;
+
+  public SentryProcessorWrapper(I iface, AdmissionController admissionController) {
     super(iface);
+    this.iface = iface;
+    this.admissionController = admissionController;
   }
 
   @Override
   public boolean process(TProtocol in, TProtocol out) throws TException {
     ThriftUtil.setIpAddress(in);
     ThriftUtil.setImpersonator(in);
-    return super.process(in, out);
+    TMessage msg = in.readMessageBegin();
+    ProcessFunction<SentryPolicyService.Iface, ? extends TBase> fn =
+        getProcessMapView().get(msg.name);
+    if (fn == null) {
+      TProtocolUtil.skip(in, TType.STRUCT);
+      in.readMessageEnd();
+      TApplicationException x = new TApplicationException(
+          TApplicationException.UNKNOWN_METHOD, "Invalid method name: '" + msg.name + "'");
+      out.writeMessageBegin(new TMessage(msg.name, TMessageType.EXCEPTION, msg.seqid));
+      x.write(out);
+      out.writeMessageEnd();
+      out.getTransport().flush();
+      return true;
+    }
+    if (UNLIMITED_CALLS.contains(msg.name)) {
+      fn.process(msg.seqid, in, out, iface);
+      return true;
+    }
+    AdmissionController.Permit permit;
+    try {
+      permit = admissionController.admit();
+    } catch (SentryThrottledException e) {
+      replyThrottled(msg, fn, in, out, e);
+      return true;
+    }
+    try {
+      fn.process(msg.seqid, in, out, iface);
+    } finally {
+      admissionController.release(permit);
+    }
+    return true;
+  }
+
+  /**
+   * Reads the arguments of a throttled call and answers it. The result of
+   * every call holds its response as field 0, and every response holds its
+   * status as field 1.
+   */
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private void replyThrottled(TMessage msg, ProcessFunction<?, ? extends TBase> fn,
+      TProtocol in, TProtocol out, SentryThrottledException e) throws TException {
+    fn.getEmptyArgsInstance().read(in);
+    in.readMessageEnd();
+    TBase result = newInstance(SentryPolicyService.class.getName() + "$" + msg.name + "_result");
+    TFieldIdEnum success = result.fieldForId(0);
+    StructMetaData responseMetaData = (StructMetaData) FieldMetaData
+        .getStructMetaDataMap(result.getClass()).get(success).valueMetaData;
+    TBase response = newInstance(responseMetaData.structClass.getName());
+    response.setFieldValue(response.fieldForId(1), Status.Throttled(e.getMessage(), e));
+    result.setFieldValue(success, response);
+    out.writeMessageBegin(new TMessage(msg.name, TMessageType.REPLY, msg.seqid));
+    result.write(out);
+    out.writeMessageEnd();
+    out.getTransport().flush();
+  }
+
+  private static TBase<?, ?> newInstance(String className) throws TException {
+    try {
+      return (TBase<?, ?>) Class.forName(className).newInstance();
+    } catch (Exception e) {
+      throw new TException("Cannot create " + className, e);
+    }
   }
 }
@@ -18,6 +18,7 @@
 
 package org.apache.sentry.provider.db.service.thrift;
 
+import org.apache.sentry.service.thrift.ClientAddressTransport;
 import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.transport.TSaslClientTransport;
 import org.apache.thrift.transport.TSaslServerTransport;
@@ -49,6 +50,10 @@ public class ThriftUtil {
   public static void setIpAddress(final TProtocol in) {
     try {
       TTransport transport = in.getTransport();
+      if (transport instanceof ClientAddressTransport) {
+        setIpAddress(((ClientAddressTransport) transport).getClientAddress().toString());
+        return;
+      }
       TSocket tSocket = getUnderlyingSocketFromTransport(transport);
       if (tSocket != null) {
         setIpAddress(tSocket.getSocket().getInetAddress().toString());
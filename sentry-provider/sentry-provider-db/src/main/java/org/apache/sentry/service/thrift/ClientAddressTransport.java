@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sentry.service.thrift;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import org.apache.thrift.transport.TNonblockingServerSocket;
+import org.apache.thrift.transport.TNonblockingSocket;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.apache.thrift.transport.TTransportFactory;
+
+/**
+ * Input transport of a connection of the selector server which remembers
+ * the address of the client, for the audit log. The selector server hands
+ * the processor in-memory transports only; the address is picked up on the
+ * selector thread, which registers the accepted socket and then creates
+ * the transports of the connection right away.
+ */
+public class ClientAddressTransport extends TTransport {
+
+  private static final ThreadLocal<InetAddress> REGISTERING_CLIENT =
+      new ThreadLocal<InetAddress>();
+
+  private final TTransport delegate;
+  private final InetAddress clientAddress;
+
+  ClientAddressTransport(TTransport delegate, InetAddress clientAddress) {
+    this.delegate = delegate;
+    this.clientAddress = clientAddress;
+  }
+
+  public InetAddress getClientAddress() {
+    return clientAddress;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return delegate.isOpen();
+  }
+
+  @Override
+  public boolean peek() {
+    return delegate.peek();
+  }
+
+  @Override
+  public void open() throws TTransportException {
+    delegate.open();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public int read(byte[] buf, int off, int len) throws TTransportException {
+    return delegate.read(buf, off, len);
+  }
+
+  @Override
+  public int readAll(byte[] buf, int off, int len) throws TTransportException {
+    return delegate.readAll(buf, off, len);
+  }
+
+  @Override
+  public void write(byte[] buf, int off, int len) throws TTransportException {
+    delegate.write(buf, off, len);
+  }
+
+  @Override
+  public void flush() throws TTransportException {
+    delegate.flush();
+  }
+
+  @Override
+  public byte[] getBuffer() {
+    return delegate.getBuffer();
+  }
+
+  @Override
+  public int getBufferPosition() {
+    return delegate.getBufferPosition();
+  }
+
+  @Override
+  public int getBytesRemainingInBuffer() {
+    return delegate.getBytesRemainingInBuffer();
+  }
+
+  @Override
+  public void consumeBuffer(int len) {
+    delegate.consumeBuffer(len);
+  }
+
+  /**
+   * Input transport factory of the selector server.
+   */
+  public static class Factory extends TTransportFactory {
+    @Override
+    public TTransport getTransport(TTransport trans) {
+      InetAddress clientAddress = REGISTERING_CLIENT.get();
+      if (clientAddress == null) {
+        return trans;
+      }
+      return new ClientAddressTransport(trans, clientAddress);
+    }
+  }
+
+  /**
+   * Server socket of the selector server whose accepted sockets publish
+   * their client address while they are registered with a selector.
+   */
+  public static class ServerSocket extends TNonblockingServerSocket {
+
+    public ServerSocket(InetSocketAddress bindAddr) throws TTransportException {
+      super(bindAddr);
+    }
+
+    @Override
+    protected TNonblockingSocket acceptImpl() throws TTransportException {
+      TNonblockingSocket accepted = super.acceptImpl();
+      if (accepted == null) {
+        return null;
+      }
+      try {
+        return new Socket(accepted.getSocketChannel());
+      } catch (IOException e) {
+        accepted.close();
+        throw new TTransportException(e);
+      }
+    }
+  }
+
+  private static class Socket extends TNonblockingSocket {
+    private final InetAddress clientAddress;
+
+    Socket(SocketChannel socketChannel) throws IOException {
+      super(socketChannel);
+      clientAddress = socketChannel.socket().getInetAddress();
+    }
+
+    @Override
+    public SelectionKey registerSelector(Selector selector, int interests)
+        throws IOException {
+      // the transports of the connection are created next, on this thread
+      REGISTERING_CLIENT.set(clientAddress);
+      return super.registerSelector(selector, interests);
+    }
+  }
+}
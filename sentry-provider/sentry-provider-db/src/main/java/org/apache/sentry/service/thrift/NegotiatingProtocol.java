@@ -0,0 +1,385 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.service.thrift;
+
+import java.nio.ByteBuffer;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TMap;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.protocol.TSet;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+
+/**
+ * Server side protocol which speaks the protocol of the client: the first
+ * byte read from a connection tells a compact (0x82) from a binary message,
+ * and the replies are written with the protocol the calls are read with.
+ * The choice is made once per connection, by the first call, and holds for
+ * the calls which follow on it. Reading and writing of a call happen on the
+ * same worker thread in all the Thrift servers, so the choice is passed from
+ * the input to the output protocol through a thread local.
+ */
+public class NegotiatingProtocol extends TProtocol {
+
+  private static final byte COMPACT_PROTOCOL_ID = (byte) 0x82;
+
+  private static final TProtocolFactory BINARY_FACTORY = new TBinaryProtocol.Factory();
+  private static final TProtocolFactory COMPACT_FACTORY = new TCompactProtocol.Factory();
+
+  private static final ThreadLocal<Boolean> CALL_IS_COMPACT = new ThreadLocal<Boolean>() {
+    @Override
+    protected Boolean initialValue() {
+      return Boolean.FALSE;
+    }
+  };
+
+  public static class Factory implements TProtocolFactory {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public TProtocol getProtocol(TTransport trans) {
+      return new NegotiatingProtocol(trans);
+    }
+  }
+
+  private TProtocol delegate;
+  private boolean compact;
+
+  public NegotiatingProtocol(TTransport trans) {
+    super(trans);
+  }
+
+  private TProtocol reader() throws TException {
+    if (delegate == null) {
+      byte[] first = new byte[1];
+      trans_.readAll(first, 0, 1);
+      compact = first[0] == COMPACT_PROTOCOL_ID;
+      TTransport replay = new ReplayTransport(trans_, first[0]);
+      delegate = compact ? COMPACT_FACTORY.getProtocol(replay)
+          : BINARY_FACTORY.getProtocol(replay);
+    }
+    return delegate;
+  }
+
+  private TProtocol writer() {
+    if (delegate == null) {
+      compact = CALL_IS_COMPACT.get();
+      delegate = compact ? COMPACT_FACTORY.getProtocol(trans_)
+          : BINARY_FACTORY.getProtocol(trans_);
+    }
+    return delegate;
+  }
+
+  @Override
+  public TMessage readMessageBegin() throws TException {
+    TMessage message = reader().readMessageBegin();
+    CALL_IS_COMPACT.set(compact);
+    return message;
+  }
+
+  @Override
+  public void readMessageEnd() throws TException {
+    reader().readMessageEnd();
+  }
+
+  @Override
+  public TStruct readStructBegin() throws TException {
+    return reader().readStructBegin();
+  }
+
+  @Override
+  public void readStructEnd() throws TException {
+    reader().readStructEnd();
+  }
+
+  @Override
+  public TField readFieldBegin() throws TException {
+    return reader().readFieldBegin();
+  }
+
+  @Override
+  public void readFieldEnd() throws TException {
+    reader().readFieldEnd();
+  }
+
+  @Override
+  public TMap readMapBegin() throws TException {
+    return reader().readMapBegin();
+  }
+
+  @Override
+  public void readMapEnd() throws TException {
+    reader().readMapEnd();
+  }
+
+  @Override
+  public TList readListBegin() throws TException {
+    return reader().readListBegin();
+  }
+
+  @Override
+  public void readListEnd() throws TException {
+    reader().readListEnd();
+  }
+
+  @Override
+  public TSet readSetBegin() throws TException {
+    return reader().readSetBegin();
+  }
+
+  @Override
+  public void readSetEnd() throws TException {
+    reader().readSetEnd();
+  }
+
+  @Override
+  public boolean readBool() throws TException {
+    return reader().readBool();
+  }
+
+  @Override
+  public byte readByte() throws TException {
+    return reader().readByte();
+  }
+
+  @Override
+  public short readI16() throws TException {
+    return reader().readI16();
+  }
+
+  @Override
+  public int readI32() throws TException {
+    return reader().readI32();
+  }
+
+  @Override
+  public long readI64() throws TException {
+    return reader().readI64();
+  }
+
+  @Override
+  public double readDouble() throws TException {
+    return reader().readDouble();
+  }
+
+  @Override
+  public String readString() throws TException {
+    return reader().readString();
+  }
+
+  @Override
+  public ByteBuffer readBinary() throws TException {
+    return reader().readBinary();
+  }
+
+  @Override
+  public void writeMessageBegin(TMessage message) throws TException {
+    writer().writeMessageBegin(message);
+  }
+
+  @Override
+  public void writeMessageEnd() throws TException {
+    writer().writeMessageEnd();
+  }
+
+  @Override
+  public void writeStructBegin(TStruct struct) throws TException {
+    writer().writeStructBegin(struct);
+  }
+
+  @Override
+  public void writeStructEnd() throws TException {
+    writer().writeStructEnd();
+  }
+
+  @Override
+  public void writeFieldBegin(TField field) throws TException {
+    writer().writeFieldBegin(field);
+  }
+
+  @Override
+  public void writeFieldEnd() throws TException {
+    writer().writeFieldEnd();
+  }
+
+  @Override
+  public void writeFieldStop() throws TException {
+    writer().writeFieldStop();
+  }
+
+  @Override
+  public void writeMapBegin(TMap map) throws TException {
+    writer().writeMapBegin(map);
+  }
+
+  @Override
+  public void writeMapEnd() throws TException {
+    writer().writeMapEnd();
+  }
+
+  @Override
+  public void writeListBegin(TList list) throws TException {
+    writer().writeListBegin(list);
+  }
+
+  @Override
+  public void writeListEnd() throws TException {
+    writer().writeListEnd();
+  }
+
+  @Override
+  public void writeSetBegin(TSet set) throws TException {
+    writer().writeSetBegin(set);
+  }
+
+  @Override
+  public void writeSetEnd() throws TException {
+    writer().writeSetEnd();
+  }
+
+  @Override
+  public void writeBool(boolean b) throws TException {
+    writer().writeBool(b);
+  }
+
+  @Override
+  public void writeByte(byte b) throws TException {
+    writer().writeByte(b);
+  }
+
+  @Override
+  public void writeI16(short i16) throws TException {
+    writer().writeI16(i16);
+  }
+
+  @Override
+  public void writeI32(int i32) throws TException {
+    writer().writeI32(i32);
+  }
+
+  @Override
+  public void writeI64(long i64) throws TException {
+    writer().writeI64(i64);
+  }
+
+  @Override
+  public void writeDouble(double dub) throws TException {
+    writer().writeDouble(dub);
+  }
+
+  @Override
+  public void writeString(String str) throws TException {
+    writer().writeString(str);
+  }
+
+  @Override
+  public void writeBinary(ByteBuffer buf) throws TException {
+    writer().writeBinary(buf);
+  }
+
+  @Override
+  public void reset() {
+    if (delegate != null) {
+      delegate.reset();
+    }
+  }
+
+  /**
+   * Hands out the byte read to detect the protocol again before reading on
+   * from the transport.
+   */
+  private static class ReplayTransport extends TTransport {
+    private final TTransport transport;
+    private final byte first;
+    private boolean replayed = false;
+
+    ReplayTransport(TTransport transport, byte first) {
+      this.transport = transport;
+      this.first = first;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return transport.isOpen();
+    }
+
+    @Override
+    public boolean peek() {
+      return !replayed || transport.peek();
+    }
+
+    @Override
+    public void open() throws TTransportException {
+      transport.open();
+    }
+
+    @Override
+    public void close() {
+      transport.close();
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws TTransportException {
+      if (!replayed && len > 0) {
+        replayed = true;
+        buf[off] = first;
+        return 1;
+      }
+      return transport.read(buf, off, len);
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) throws TTransportException {
+      transport.write(buf, off, len);
+    }
+
+    @Override
+    public void flush() throws TTransportException {
+      transport.flush();
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      return replayed ? transport.getBuffer() : null;
+    }
+
+    @Override
+    public int getBufferPosition() {
+      return replayed ? transport.getBufferPosition() : 0;
+    }
+
+    @Override
+    public int getBytesRemainingInBuffer() {
+      return replayed ? transport.getBytesRemainingInBuffer() : -1;
+    }
+
+    @Override
+    public void consumeBuffer(int len) {
+      transport.consumeBuffer(len);
+    }
+  }
+}
@@ -54,10 +54,11 @@ import org.apache.sentry.provider.db.service.thrift.SentryWebServer;
 import org.apache.sentry.service.thrift.ServiceConstants.ConfUtilties;
 import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
 import org.apache.thrift.TMultiplexedProcessor;
-import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.TProcessor;
 import org.apache.thrift.server.TServer;
 import org.apache.thrift.server.TServerEventHandler;
 import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.server.TThreadedSelectorServer;
 import org.apache.thrift.transport.TSaslServerTransport;
 import org.apache.thrift.transport.TServerSocket;
 import org.apache.thrift.transport.TServerTransport;
@@ -81,6 +82,7 @@ public class SentryService implements Callable {
   private final InetSocketAddress address;
   private final int maxThreads;
   private final int minThreads;
+  private final String serverType;
   private boolean kerberos;
   private final String principal;
   private final String[] principalParts;
@@ -110,6 +112,18 @@ public class SentryService implements Callable {
         ServerConfig.RPC_MAX_THREADS_DEFAULT);
     minThreads = conf.getInt(ServerConfig.RPC_MIN_THREADS,
         ServerConfig.RPC_MIN_THREADS_DEFAULT);
+    serverType = conf.get(ServerConfig.RPC_SERVER_TYPE,
+        ServerConfig.RPC_SERVER_TYPE_DEFAULT).trim().toLowerCase();
+    Preconditions.checkArgument(ServerConfig.RPC_SERVER_TYPE_THREAD_POOL.equals(serverType)
+        || ServerConfig.RPC_SERVER_TYPE_SELECTOR.equals(serverType),
+        "Unknown " + ServerConfig.RPC_SERVER_TYPE + ": " + serverType);
+    // the SASL handshake reads from a blocking socket, which the selector
+    // server does not have
+    Preconditions.checkArgument(!kerberos
+        || ServerConfig.RPC_SERVER_TYPE_THREAD_POOL.equals(serverType),
+        ServerConfig.RPC_SERVER_TYPE + "=" + serverType + " does not support "
+        + ServerConfig.SECURITY_MODE + "=" + ServerConfig.SECURITY_MODE_KERBEROS
+        + ", use " + ServerConfig.RPC_SERVER_TYPE_THREAD_POOL);
     if (kerberos) {
       // Use Hadoop libraries to translate the _HOST placeholder with actual hostname
       try {
@@ -208,6 +222,23 @@ public class SentryService implements Callable {
       throw new IllegalStateException(
           "Failed to register any processors from " + processorFactories);
     }
+    TProcessor serverProcessor = processor;
+    if (conf.getBoolean(ServerConfig.RPC_WORKER_POOLS_ENABLED,
+        ServerConfig.RPC_WORKER_POOLS_ENABLED_DEFAULT)) {
+      serverProcessor = new WorkerPoolProcessor(processor, conf);
+    }
+    if (ServerConfig.RPC_SERVER_TYPE_SELECTOR.equals(serverType)) {
+      thriftServer = createSelectorServer(serverProcessor);
+    } else {
+      thriftServer = createThreadPoolServer(serverProcessor);
+    }
+    LOGGER.info("Serving on " + address + " with a " + serverType + " server");
+    startSentryWebServer();
+    thriftServer.serve();
+  }
+
+  private TServer createThreadPoolServer(TProcessor processor)
+      throws Exception {
     TServerTransport serverTransport = new TServerSocket(address);
     TTransportFactory transportFactory = null;
     if (kerberos) {
@@ -222,12 +253,29 @@ public class SentryService implements Callable {
     TThreadPoolServer.Args args = new TThreadPoolServer.Args(
         serverTransport).processor(processor)
         .transportFactory(transportFactory)
-        .protocolFactory(new TBinaryProtocol.Factory())
+        .protocolFactory(new NegotiatingProtocol.Factory())
         .minWorkerThreads(minThreads).maxWorkerThreads(maxThreads);
-    thriftServer = new TThreadPoolServer(args);
-    LOGGER.info("Serving on " + address);
-    startSentryWebServer();
-    thriftServer.serve();
+    return new TThreadPoolServer(args);
+  }
+
+  /**
+   * Connections are watched by the selector threads and cost no thread
+   * while idle; calls run on a fixed pool of maxThreads workers. Requests
+   * and responses are framed.
+   */
+  private TServer createSelectorServer(TProcessor processor)
+      throws Exception {
+    TThreadedSelectorServer.Args args = new TThreadedSelectorServer.Args(
+        new ClientAddressTransport.ServerSocket(address));
+    args.processor(processor)
+        .inputTransportFactory(new ClientAddressTransport.Factory())
+        .protocolFactory(new NegotiatingProtocol.Factory());
+    args.selectorThreads(conf.getInt(ServerConfig.RPC_SELECTOR_THREADS,
+        ServerConfig.RPC_SELECTOR_THREADS_DEFAULT))
+        .workerThreads(maxThreads);
+    args.maxReadBufferBytes = conf.getLong(ServerConfig.RPC_MAX_READ_BUFFER_BYTES,
+        ServerConfig.RPC_MAX_READ_BUFFER_BYTES_DEFAULT);
+    return new TThreadedSelectorServer(args);
   }
 
   private void startSentryWebServer() throws Exception{
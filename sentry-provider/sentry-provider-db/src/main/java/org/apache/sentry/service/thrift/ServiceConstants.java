@@ -67,6 +67,67 @@ public class ServiceConstants {
     public static final int RPC_MAX_THREADS_DEFAULT = 500;
     public static final String RPC_MIN_THREADS = "sentry.service.server-min-threads";
     public static final int RPC_MIN_THREADS_DEFAULT = 10;
+    // "thread-pool" serves each connection on its own thread. "selector"
+    // watches all connections from a few selector threads and runs the calls
+    // on at most server-max-threads workers, so idle pooled connections cost
+    // no thread; its clients must use framed transport. Thrift runs the SASL
+    // handshake on a blocking socket, so a kerberos server refuses to start
+    // with the selector type
+    public static final String RPC_SERVER_TYPE = "sentry.service.server.type";
+    public static final String RPC_SERVER_TYPE_THREAD_POOL = "thread-pool";
+    public static final String RPC_SERVER_TYPE_SELECTOR = "selector";
+    public static final String RPC_SERVER_TYPE_DEFAULT = RPC_SERVER_TYPE_THREAD_POOL;
+    public static final String RPC_SELECTOR_THREADS = "sentry.service.server-selector-threads";
+    public static final int RPC_SELECTOR_THREADS_DEFAULT = 4;
+    // bytes of requests the selector server buffers before it stops reading
+    public static final String RPC_MAX_READ_BUFFER_BYTES = "sentry.service.server-max-read-buffer-bytes";
+    public static final long RPC_MAX_READ_BUFFER_BYTES_DEFAULT = 256L * 1024 * 1024;
+    // run the calls in read, write and admin pools with their own number of
+    // concurrent calls and of calls waiting for one; calls to the admin
+    // methods go to the admin pool, list_, get_ and check_ calls to the read
+    // pool and the others to the write pool. A waiting call holds its worker
+    // thread, so the write and admin sizes and queues may add up to at most
+    // half of server-max-threads, the server does not start otherwise
+    public static final String RPC_WORKER_POOLS_ENABLED = "sentry.service.server.worker-pools.enabled";
+    public static final boolean RPC_WORKER_POOLS_ENABLED_DEFAULT = false;
+    public static final String RPC_READ_POOL_SIZE = "sentry.service.server.read-pool.size";
+    public static final int RPC_READ_POOL_SIZE_DEFAULT = 400;
+    public static final String RPC_READ_POOL_QUEUE = "sentry.service.server.read-pool.queue";
+    public static final int RPC_READ_POOL_QUEUE_DEFAULT = 1000;
+    public static final String RPC_WRITE_POOL_SIZE = "sentry.service.server.write-pool.size";
+    public static final int RPC_WRITE_POOL_SIZE_DEFAULT = 20;
+    public static final String RPC_WRITE_POOL_QUEUE = "sentry.service.server.write-pool.queue";
+    public static final int RPC_WRITE_POOL_QUEUE_DEFAULT = 40;
+    public static final String RPC_ADMIN_POOL_SIZE = "sentry.service.server.admin-pool.size";
+    public static final int RPC_ADMIN_POOL_SIZE_DEFAULT = 2;
+    public static final String RPC_ADMIN_POOL_QUEUE = "sentry.service.server.admin-pool.queue";
+    public static final int RPC_ADMIN_POOL_QUEUE_DEFAULT = 2;
+    public static final String RPC_ADMIN_METHODS = "sentry.service.server.admin-methods";
+    public static final String[] RPC_ADMIN_METHODS_DEFAULT =
+        {"export_sentry_mapping_data", "import_sentry_mapping_data"};
+    // admission control of each service: limits of concurrent calls and of
+    // calls per second for all the clients and for each client principal,
+    // the kerberos authorization id or else the client address, where 0 is
+    // no limit. A call over a limit is rejected with the THROTTLED status
+    // for the client to retry later. A burst is the number of calls an idle
+    // client may make at once, one second of calls when 0
+    public static final String SENTRY_ADMISSION_MAX_CONCURRENT_CALLS = "sentry.service.admission.max-concurrent-calls";
+    public static final int SENTRY_ADMISSION_MAX_CONCURRENT_CALLS_DEFAULT = 0;
+    public static final String SENTRY_ADMISSION_CALLS_PER_SECOND = "sentry.service.admission.calls-per-second";
+    public static final int SENTRY_ADMISSION_CALLS_PER_SECOND_DEFAULT = 0;
+    public static final String SENTRY_ADMISSION_BURST = "sentry.service.admission.burst";
+    public static final int SENTRY_ADMISSION_BURST_DEFAULT = 0;
+    public static final String SENTRY_ADMISSION_PRINCIPAL_MAX_CONCURRENT_CALLS =
+        "sentry.service.admission.principal.max-concurrent-calls";
+    public static final int SENTRY_ADMISSION_PRINCIPAL_MAX_CONCURRENT_CALLS_DEFAULT = 0;
+    public static final String SENTRY_ADMISSION_PRINCIPAL_CALLS_PER_SECOND =
+        "sentry.service.admission.principal.calls-per-second";
+    public static final int SENTRY_ADMISSION_PRINCIPAL_CALLS_PER_SECOND_DEFAULT = 0;
+    public static final String SENTRY_ADMISSION_PRINCIPAL_BURST = "sentry.service.admission.principal.burst";
+    public static final int SENTRY_ADMISSION_PRINCIPAL_BURST_DEFAULT = 0;
+    // principals tracked at most, the least recently seen are forgotten first
+    public static final String SENTRY_ADMISSION_MAX_PRINCIPALS = "sentry.service.admission.max-principals";
+    public static final long SENTRY_ADMISSION_MAX_PRINCIPALS_DEFAULT = 10000;
     public static final String ALLOW_CONNECT = "sentry.service.allow.connect";
 
     public static final String SENTRY_POLICY_STORE_PLUGINS = "sentry.policy.store.plugins";
@@ -106,9 +167,89 @@ public class ServiceConstants {
     public static final String SENTRY_STORE_HADOOP_GROUP_MAPPING = "org.apache.sentry.provider.common.HadoopGroupMappingService";
     public static final String SENTRY_STORE_LOCAL_GROUP_MAPPING = "org.apache.sentry.provider.file.LocalGroupMappingService";
     public static final String SENTRY_STORE_GROUP_MAPPING_DEFAULT = SENTRY_STORE_HADOOP_GROUP_MAPPING;
+    // Cache the groups of users for this long in ms and refresh them in the
+    // background afterwards; 0 disables the cache, the group mapping is still
+    // created once per service except the local one, which is created for every
+    // lookup to see the changes of its file
+    public static final String SENTRY_STORE_GROUP_MAPPING_CACHE_TTL_MS = "sentry.store.group.mapping.cache.ttl.ms";
+    public static final long SENTRY_STORE_GROUP_MAPPING_CACHE_TTL_MS_DEFAULT = 0;
+    // Users without any group are looked up again after this long in ms
+    public static final String SENTRY_STORE_GROUP_MAPPING_CACHE_NEGATIVE_TTL_MS = "sentry.store.group.mapping.cache.negative.ttl.ms";
+    public static final long SENTRY_STORE_GROUP_MAPPING_CACHE_NEGATIVE_TTL_MS_DEFAULT = 30000;
+    public static final String SENTRY_STORE_GROUP_MAPPING_CACHE_MAX_USERS = "sentry.store.group.mapping.cache.max.users";
+    public static final long SENTRY_STORE_GROUP_MAPPING_CACHE_MAX_USERS_DEFAULT = 100000;
 
     public static final String SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL = "sentry.store.orphaned.privilege.removal";
     public static final String SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_DEFAULT = "false";
+    public static final String SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_BATCH_SIZE = "sentry.store.orphaned.privilege.removal.batch.size";
+    public static final int SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_BATCH_SIZE_DEFAULT = 1000;
+    // Interval of the scheduled removal, 0 to only run after enough revokes
+    public static final String SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_INTERVAL_MS = "sentry.store.orphaned.privilege.removal.interval.ms";
+    public static final long SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_INTERVAL_MS_DEFAULT = 3600000;
+    // Serve provider privilege lookups from an in-memory index which is rebuilt
+    // after commits, with HA also after those of the other servers.
+    public static final String SENTRY_STORE_PRIVILEGE_INDEX_ENABLED = "sentry.store.privilege.index.enabled";
+    public static final boolean SENTRY_STORE_PRIVILEGE_INDEX_ENABLED_DEFAULT = false;
+    // Cache the answers of provider privilege lookups until the next commit.
+    // With HA the commits of the other servers are picked up through the
+    // shared commit sequence, see sentry.store.ha.sync.interval.ms. Bounded by
+    // the number of privileges held.
+    public static final String SENTRY_STORE_PROVIDER_CACHE_ENABLED = "sentry.store.provider.cache.enabled";
+    public static final boolean SENTRY_STORE_PROVIDER_CACHE_ENABLED_DEFAULT = false;
+    public static final String SENTRY_STORE_PROVIDER_CACHE_MAX_PRIVILEGES = "sentry.store.provider.cache.max.privileges";
+    public static final long SENTRY_STORE_PROVIDER_CACHE_MAX_PRIVILEGES_DEFAULT = 200000;
+    // Age in ms after which a cached answer is read again, 0 for no limit
+    public static final String SENTRY_STORE_PROVIDER_CACHE_TTL_MS = "sentry.store.provider.cache.ttl.ms";
+    public static final long SENTRY_STORE_PROVIDER_CACHE_TTL_MS_DEFAULT = 0;
+    // Run list/get operations through a second PersistenceManagerFactory with
+    // non-transactional, read-only access and its own connection pool.
+    public static final String SENTRY_STORE_READ_POOL_ENABLED = "sentry.store.read.pool.enabled";
+    public static final boolean SENTRY_STORE_READ_POOL_ENABLED_DEFAULT = false;
+    public static final String SENTRY_STORE_READ_POOL_MAX_SIZE = "sentry.store.read.pool.max.size";
+    public static final int SENTRY_STORE_READ_POOL_MAX_SIZE_DEFAULT = 50;
+    // Optional read replica of the Sentry database. The user and password
+    // default to the ones of the primary database. Reads fall back to the
+    // primary while the commit sequence of the replica is behind.
+    public static final String SENTRY_STORE_JDBC_REPLICA_URL = "sentry.store.jdbc.replica.url";
+    public static final String SENTRY_STORE_JDBC_REPLICA_USER = "sentry.store.jdbc.replica.user";
+    public static final String SENTRY_STORE_JDBC_REPLICA_PASS = "sentry.store.jdbc.replica.password";
+    // Coalesce concurrent grant/revoke requests into one transaction of at most
+    // max.batch.size requests, waiting at most max.wait.ms for more to arrive
+    public static final String SENTRY_STORE_GROUP_COMMIT_ENABLED = "sentry.store.group.commit.enabled";
+    public static final boolean SENTRY_STORE_GROUP_COMMIT_ENABLED_DEFAULT = false;
+    public static final String SENTRY_STORE_GROUP_COMMIT_MAX_BATCH_SIZE = "sentry.store.group.commit.max.batch.size";
+    public static final int SENTRY_STORE_GROUP_COMMIT_MAX_BATCH_SIZE_DEFAULT = 100;
+    public static final String SENTRY_STORE_GROUP_COMMIT_MAX_WAIT_MS = "sentry.store.group.commit.max.wait.ms";
+    public static final long SENTRY_STORE_GROUP_COMMIT_MAX_WAIT_MS_DEFAULT = 5;
+    // JDBC fetch size used when streaming the full privilege and role images
+    public static final String SENTRY_STORE_FULL_IMAGE_FETCH_SIZE = "sentry.store.full.image.fetch.size";
+    public static final int SENTRY_STORE_FULL_IMAGE_FETCH_SIZE_DEFAULT = 1000;
+    // number of privileges imported per transaction by importSentryMetaData;
+    // also bounds the IN lists of the lookups, keep it below 1000 for Oracle
+    public static final String SENTRY_STORE_IMPORT_BATCH_SIZE = "sentry.store.import.batch.size";
+    public static final int SENTRY_STORE_IMPORT_BATCH_SIZE_DEFAULT = 500;
+    // minimum age in ms before the role, privilege and group count gauges
+    // are recounted; a count is only recounted after the tables changed
+    public static final String SENTRY_STORE_COUNT_GAUGE_TTL_MS = "sentry.store.count.gauge.ttl.ms";
+    public static final long SENTRY_STORE_COUNT_GAUGE_TTL_MS_DEFAULT = 30000L;
+    // number of times a write transaction is replayed after losing a lock
+    // conflict (deadlock, lock timeout, serialization failure), 0 disables
+    public static final String SENTRY_STORE_TRANSACTION_MAX_RETRIES = "sentry.store.transaction.max.retries";
+    public static final int SENTRY_STORE_TRANSACTION_MAX_RETRIES_DEFAULT = 5;
+    // the n-th replay waits a random time of up to base * 2^n ms, capped at max
+    public static final String SENTRY_STORE_TRANSACTION_RETRY_BASE_MS = "sentry.store.transaction.retry.base.ms";
+    public static final long SENTRY_STORE_TRANSACTION_RETRY_BASE_MS_DEFAULT = 20;
+    public static final String SENTRY_STORE_TRANSACTION_RETRY_MAX_MS = "sentry.store.transaction.retry.max.ms";
+    public static final long SENTRY_STORE_TRANSACTION_RETRY_MAX_MS_DEFAULT = 1000;
+    // caches roles, groups and privileges in the DataNucleus level 2 cache;
+    // with HA the cache is dropped whenever another server committed
+    public static final String SENTRY_STORE_L2_CACHE_ENABLED = "sentry.store.l2cache.enabled";
+    public static final boolean SENTRY_STORE_L2_CACHE_ENABLED_DEFAULT = false;
+    // with HA, how often in ms the shared commit sequence is checked for
+    // commits of the other servers, which invalidate the level 2 cache, the
+    // privilege index and the provider cache; 0 checks it on every read
+    public static final String SENTRY_STORE_HA_SYNC_INTERVAL_MS = "sentry.store.ha.sync.interval.ms";
+    public static final long SENTRY_STORE_HA_SYNC_INTERVAL_MS_DEFAULT = 0;
     public static final String SENTRY_HA_ENABLED = "sentry.ha.enabled";
     public static final boolean SENTRY_HA_ENABLED_DEFAULT = false;
     public static final String SENTRY_HA_ZK_PROPERTY_PREFIX = "sentry.ha.zookeeper.";
@@ -140,6 +281,9 @@ public class ServiceConstants {
         .put("datanucleus.transactionIsolation", "read-committed")
         .put("datanucleus.cache.level2", "false")
         .put("datanucleus.cache.level2.type", "none")
+        .put("datanucleus.cache.queryCompilation.type", "soft")
+        .put("datanucleus.cache.queryCompilationDatastore.type", "soft")
+        .put("datanucleus.connectionPool.maxStatements", "100")
         .put("datanucleus.identifierFactory", "datanucleus1")
         .put("datanucleus.rdbms.useLegacyNativeValueStrategy", "true")
         .put("datanucleus.plugin.pluginRegistryBundleCheck", "LOG")
@@ -175,6 +319,14 @@ public class ServiceConstants {
     public static final String SERVER_RPC_ADDRESS = "sentry.service.client.server.rpc-address";
     public static final String SERVER_RPC_CONN_TIMEOUT = "sentry.service.client.server.rpc-connection-timeout";
     public static final int SERVER_RPC_CONN_TIMEOUT_DEFAULT = 200000;
+    // the server answers in the protocol of the client
+    public static final String USE_COMPACT_TRANSPORT = "sentry.service.client.compact.transport";
+    public static final boolean USE_COMPACT_TRANSPORT_DEFAULT = false;
+    // required to talk to a server of the selector type, ignored with kerberos
+    public static final String SERVER_RPC_FRAMED_TRANSPORT = "sentry.service.client.server.rpc-framed-transport";
+    public static final boolean SERVER_RPC_FRAMED_TRANSPORT_DEFAULT = false;
+    public static final String SERVER_RPC_MAX_FRAME_SIZE = "sentry.service.client.server.rpc-max-frame-size";
+    public static final int SERVER_RPC_MAX_FRAME_SIZE_DEFAULT = 256 * 1024 * 1024;
 
     // HA configuration
     public static final String SERVER_HA_ENABLED = "sentry.ha.enabled";
@@ -28,6 +28,7 @@ import org.apache.sentry.provider.db.SentryAlreadyExistsException;
 import org.apache.sentry.provider.db.SentryInvalidInputException;
 import org.apache.sentry.provider.db.SentryNoSuchObjectException;
 import org.apache.sentry.provider.db.SentryThriftAPIMismatchException;
+import org.apache.sentry.provider.db.SentryThrottledException;
 import org.apache.sentry.service.thrift.ServiceConstants.ThriftConstants;
 
 /**
@@ -41,6 +42,7 @@ public enum Status {
   INVALID_INPUT(ThriftConstants.TSENTRY_STATUS_INVALID_INPUT),
   ACCESS_DENIED(ThriftConstants.TSENTRY_STATUS_ACCESS_DENIED),
   THRIFT_VERSION_MISMATCH(ThriftConstants.TSENTRY_STATUS_THRIFT_VERSION_MISMATCH),
+  THROTTLED(ThriftConstants.TSENTRY_STATUS_THROTTLED),
   UNKNOWN(-1)
   ;
   private int code;
@@ -82,6 +84,9 @@ public enum Status {
   public static TSentryResponseStatus THRIFT_VERSION_MISMATCH(String message, Throwable t) {
     return Create(Status.THRIFT_VERSION_MISMATCH, message, t);
   }
+  public static TSentryResponseStatus Throttled(String message, Throwable t) {
+    return Create(Status.THROTTLED, message, t);
+  }
   public static TSentryResponseStatus Create(Status value, String message, @Nullable Throwable t) {
     TSentryResponseStatus status = new TSentryResponseStatus();
     status.setValue(value.getCode());
@@ -113,6 +118,8 @@ public enum Status {
       throw new SentryAccessDeniedException(serverErrorToString(thriftStatus), thriftStatus.getMessage());
     case THRIFT_VERSION_MISMATCH:
       throw new SentryThriftAPIMismatchException(serverErrorToString(thriftStatus), thriftStatus.getMessage());
+    case THROTTLED:
+      throw new SentryThrottledException(serverErrorToString(thriftStatus), thriftStatus.getMessage());
     case UNKNOWN:
       throw new AssertionError(serverErrorToString(thriftStatus));
     default:
@@ -0,0 +1,228 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.service.thrift;
+
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.service.thrift.SentryMetricsServletContextListener;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.TException;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TMultiplexedProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolDecorator;
+import org.apache.thrift.protocol.TType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Runs the calls in a read, a write or an admin pool, each with its own
+ * number of concurrent calls and of calls waiting for one, so that writes
+ * and exports can not hold all the workers of the server. A call stays on
+ * the worker thread of the server, which the protocols and the processors
+ * keep per call state on, and waits there for its pool. A call finding the
+ * queue of its pool full is answered with a TApplicationException. The
+ * write and admin pools may hold at most half of the server threads, so
+ * that the reads always find one.
+ */
+public class WorkerPoolProcessor implements TProcessor {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(WorkerPoolProcessor.class);
+
+  private static final String[] READ_PREFIXES = {"list_", "get_", "check_"};
+
+  private final TProcessor delegate;
+  private final Set<String> adminMethods;
+  private final WorkerPool readPool;
+  private final WorkerPool writePool;
+  private final WorkerPool adminPool;
+
+  public WorkerPoolProcessor(TProcessor delegate, Configuration conf) {
+    this.delegate = delegate;
+    adminMethods = ImmutableSet.copyOf(conf.getTrimmedStrings(
+        ServerConfig.RPC_ADMIN_METHODS, ServerConfig.RPC_ADMIN_METHODS_DEFAULT));
+    readPool = new WorkerPool("read",
+        conf.getInt(ServerConfig.RPC_READ_POOL_SIZE, ServerConfig.RPC_READ_POOL_SIZE_DEFAULT),
+        conf.getInt(ServerConfig.RPC_READ_POOL_QUEUE, ServerConfig.RPC_READ_POOL_QUEUE_DEFAULT));
+    writePool = new WorkerPool("write",
+        conf.getInt(ServerConfig.RPC_WRITE_POOL_SIZE, ServerConfig.RPC_WRITE_POOL_SIZE_DEFAULT),
+        conf.getInt(ServerConfig.RPC_WRITE_POOL_QUEUE, ServerConfig.RPC_WRITE_POOL_QUEUE_DEFAULT));
+    adminPool = new WorkerPool("admin",
+        conf.getInt(ServerConfig.RPC_ADMIN_POOL_SIZE, ServerConfig.RPC_ADMIN_POOL_SIZE_DEFAULT),
+        conf.getInt(ServerConfig.RPC_ADMIN_POOL_QUEUE, ServerConfig.RPC_ADMIN_POOL_QUEUE_DEFAULT));
+    // the running and the waiting writes and exports hold server threads
+    int maxThreads = conf.getInt(ServerConfig.RPC_MAX_THREADS,
+        ServerConfig.RPC_MAX_THREADS_DEFAULT);
+    int writeAndAdminThreads = writePool.getMaxThreads() + adminPool.getMaxThreads();
+    Preconditions.checkArgument(writeAndAdminThreads <= maxThreads / 2,
+        "The sizes and queues of the write and admin pools add up to "
+        + writeAndAdminThreads + " threads, more than half of the "
+        + maxThreads + " of " + ServerConfig.RPC_MAX_THREADS + ", which leaves"
+        + " too few to the reads");
+  }
+
+  @Override
+  public boolean process(TProtocol in, TProtocol out) throws TException {
+    TMessage message = in.readMessageBegin();
+    WorkerPool pool = getPool(message.name);
+    if (!pool.enter()) {
+      String msg = "Too many " + pool.name + " calls waiting, rejected " + message.name;
+      LOGGER.warn(msg);
+      in.skip(TType.STRUCT);
+      in.readMessageEnd();
+      out.writeMessageBegin(new TMessage(message.name, TMessageType.EXCEPTION, message.seqid));
+      new TApplicationException(TApplicationException.INTERNAL_ERROR, msg).write(out);
+      out.writeMessageEnd();
+      out.getTransport().flush();
+      return true;
+    }
+    try {
+      return delegate.process(new StoredMessageProtocol(in, message), out);
+    } finally {
+      pool.exit();
+    }
+  }
+
+  @VisibleForTesting
+  WorkerPool getPool(String messageName) {
+    // strip the service name of the multiplexed protocol
+    int index = messageName.indexOf(TMultiplexedProtocol.SEPARATOR);
+    String method = index < 0 ? messageName : messageName.substring(index + 1);
+    if (adminMethods.contains(method)) {
+      return adminPool;
+    }
+    for (String prefix : READ_PREFIXES) {
+      if (method.startsWith(prefix)) {
+        return readPool;
+      }
+    }
+    return writePool;
+  }
+
+  /**
+   * Replays the message header read to pick the pool.
+   */
+  private static class StoredMessageProtocol extends TProtocolDecorator {
+    private final TMessage message;
+
+    StoredMessageProtocol(TProtocol protocol, TMessage message) {
+      super(protocol);
+      this.message = message;
+    }
+
+    @Override
+    public TMessage readMessageBegin() throws TException {
+      return message;
+    }
+  }
+
+  @VisibleForTesting
+  static class WorkerPool {
+    private final String name;
+    private final int size;
+    private final int queueLimit;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    WorkerPool(String name, int size, int queueLimit) {
+      this.name = name;
+      this.size = size;
+      this.queueLimit = queueLimit;
+      permits = new Semaphore(size, true);
+      MetricRegistry registry = SentryMetricsServletContextListener.METRIC_REGISTRY;
+      waitTimer = registry.timer(MetricRegistry.name(WorkerPoolProcessor.class, name, "wait"));
+      rejected = registry.counter(MetricRegistry.name(WorkerPoolProcessor.class, name, "rejected"));
+      // a restarted service replaces the gauges of the previous pools
+      String queueDepth = MetricRegistry.name(WorkerPoolProcessor.class, name, "queue-depth");
+      registry.remove(queueDepth);
+      registry.register(queueDepth, new Gauge<Integer>() {
+        @Override
+        public Integer getValue() {
+          return waiting.get();
+        }
+      });
+    }
+
+    /**
+     * Waits for a free slot in the pool, returns false if the queue is full.
+     */
+    boolean enter() {
+      final Timer.Context timerContext = waitTimer.time();
+      try {
+        if (permits.tryAcquire()) {
+          return true;
+        }
+        if (waiting.incrementAndGet() > queueLimit) {
+          waiting.decrementAndGet();
+          rejected.inc();
+          return false;
+        }
+        try {
+          permits.acquire();
+          return true;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          rejected.inc();
+          return false;
+        } finally {
+          waiting.decrementAndGet();
+        }
+      } finally {
+        timerContext.stop();
+      }
+    }
+
+    void exit() {
+      permits.release();
+    }
+
+    /**
+     * Returns the number of server threads the running and the waiting
+     * calls of the pool can hold.
+     */
+    int getMaxThreads() {
+      return size + queueLimit;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    int getQueueDepth() {
+      return waiting.get();
+    }
+  }
+}
@@ -81,6 +81,8 @@ ALTER TABLE SENTRY_VERSION ADD CONSTRAINT SENTRY_VERSION_PK PRIMARY KEY (VER_ID)
 -- Constraints for table SENTRY_DB_PRIVILEGE for class(es) [org.apache.sentry.provider.db.service.model.MSentryPrivilege]
 CREATE UNIQUE INDEX SENTRYPRIVILEGENAME ON SENTRY_DB_PRIVILEGE ("SERVER_NAME",DB_NAME,"TABLE_NAME","COLUMN_NAME",URI,"ACTION",WITH_GRANT_OPTION);
 
+CREATE INDEX SENTRYPRIVILEGEURI ON SENTRY_DB_PRIVILEGE (URI);
+
 
 -- Constraints for table SENTRY_ROLE for class(es) [org.apache.sentry.provider.db.service.model.MSentryRole]
 CREATE UNIQUE INDEX SENTRYROLENAME ON SENTRY_ROLE (ROLE_NAME);
@@ -153,3 +155,25 @@ CREATE INDEX SENTRY_ROLE_GM_PRIVILEGE_MAP_N49 ON SENTRY_ROLE_GM_PRIVILEGE_MAP (G
 ALTER TABLE SENTRY_ROLE_GM_PRIVILEGE_MAP ADD CONSTRAINT SENTRY_ROLE_GM_PRIVILEGE_MAP_FK2 FOREIGN KEY (GM_PRIVILEGE_ID) REFERENCES SENTRY_GM_PRIVILEGE (GM_PRIVILEGE_ID);
 
 ALTER TABLE SENTRY_ROLE_GM_PRIVILEGE_MAP ADD CONSTRAINT SENTRY_ROLE_GM_PRIVILEGE_MAP_FK1 FOREIGN KEY (ROLE_ID) REFERENCES SENTRY_ROLE (ROLE_ID);
+
+-- Table SENTRY_PERM_CHANGE for classes [org.apache.sentry.provider.db.service.model.MSentryPermChange]
+CREATE TABLE SENTRY_PERM_CHANGE
+(
+    CHANGE_ID BIGINT NOT NULL,
+    PERM_CHANGE BLOB NOT NULL,
+    CREATE_TIME_MS BIGINT NOT NULL
+);
+ALTER TABLE SENTRY_PERM_CHANGE ADD CONSTRAINT SENTRY_PERM_CHANGE_PK PRIMARY KEY (CHANGE_ID);
+
+CREATE INDEX SENTRYPERMCHANGECREATETIME ON SENTRY_PERM_CHANGE (CREATE_TIME_MS);
+
+-- Table SENTRY_COMMIT_SEQUENCE for classes [org.apache.sentry.provider.db.service.model.MSentryCommitSequence]
+CREATE TABLE SENTRY_COMMIT_SEQUENCE
+(
+    SEQUENCE_ID BIGINT NOT NULL,
+    COMMIT_SEQUENCE BIGINT NOT NULL
+);
+ALTER TABLE SENTRY_COMMIT_SEQUENCE ADD CONSTRAINT SENTRY_COMMIT_SEQUENCE_PK PRIMARY KEY (SEQUENCE_ID);
+
+INSERT INTO SENTRY_COMMIT_SEQUENCE (SEQUENCE_ID, COMMIT_SEQUENCE) VALUES (1, 0);
+INSERT INTO SENTRY_COMMIT_SEQUENCE (SEQUENCE_ID, COMMIT_SEQUENCE) VALUES (2, 0);
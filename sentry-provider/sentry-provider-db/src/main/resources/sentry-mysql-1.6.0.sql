@@ -191,3 +191,30 @@ ALTER TABLE `SENTRY_ROLE_GM_PRIVILEGE_MAP`
 ALTER TABLE `SENTRY_ROLE_GM_PRIVILEGE_MAP`
   ADD CONSTRAINT `SEN_RL_GM_PRV_MAP_SN_DB_PRV_FK`
   FOREIGN KEY (`GM_PRIVILEGE_ID`) REFERENCES `SENTRY_GM_PRIVILEGE`(`GM_PRIVILEGE_ID`);
+
+-- Table SENTRY_PERM_CHANGE for classes [org.apache.sentry.provider.db.service.model.MSentryPermChange]
+CREATE TABLE `SENTRY_PERM_CHANGE`
+(
+    `CHANGE_ID` BIGINT NOT NULL,
+    `PERM_CHANGE` MEDIUMBLOB NOT NULL,
+    `CREATE_TIME_MS` BIGINT NOT NULL
+) ENGINE=INNODB DEFAULT CHARSET=utf8;
+
+ALTER TABLE `SENTRY_PERM_CHANGE`
+  ADD CONSTRAINT `SENTRY_PERM_CHANGE_PK` PRIMARY KEY (`CHANGE_ID`);
+
+ALTER TABLE `SENTRY_PERM_CHANGE`
+  ADD INDEX `SENTRY_PERM_CHANGE_TIME_IDX` (`CREATE_TIME_MS`);
+
+-- Table SENTRY_COMMIT_SEQUENCE for classes [org.apache.sentry.provider.db.service.model.MSentryCommitSequence]
+CREATE TABLE `SENTRY_COMMIT_SEQUENCE`
+(
+    `SEQUENCE_ID` BIGINT NOT NULL,
+    `COMMIT_SEQUENCE` BIGINT NOT NULL
+) ENGINE=INNODB DEFAULT CHARSET=utf8;
+
+ALTER TABLE `SENTRY_COMMIT_SEQUENCE`
+  ADD CONSTRAINT `SENTRY_COMMIT_SEQUENCE_PK` PRIMARY KEY (`SEQUENCE_ID`);
+
+INSERT INTO `SENTRY_COMMIT_SEQUENCE` (`SEQUENCE_ID`, `COMMIT_SEQUENCE`) VALUES (1, 0);
+INSERT INTO `SENTRY_COMMIT_SEQUENCE` (`SEQUENCE_ID`, `COMMIT_SEQUENCE`) VALUES (2, 0);
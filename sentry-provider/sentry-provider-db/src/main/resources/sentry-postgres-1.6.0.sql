@@ -179,4 +179,28 @@ ALTER TABLE ONLY "SENTRY_ROLE_GM_PRIVILEGE_MAP"
   ADD CONSTRAINT "SEN_RL_GM_PRV_MAP_SN_DB_PRV_FK"
   FOREIGN KEY ("GM_PRIVILEGE_ID") REFERENCES "SENTRY_GM_PRIVILEGE"("GM_PRIVILEGE_ID") DEFERRABLE;
 
+-- Table SENTRY_PERM_CHANGE for classes [org.apache.sentry.provider.db.service.model.MSentryPermChange]
+CREATE TABLE "SENTRY_PERM_CHANGE" (
+  "CHANGE_ID" BIGINT NOT NULL,
+  "PERM_CHANGE" BYTEA NOT NULL,
+  "CREATE_TIME_MS" BIGINT NOT NULL
+);
+
+ALTER TABLE ONLY "SENTRY_PERM_CHANGE"
+  ADD CONSTRAINT "SENTRY_PERM_CHANGE_PK" PRIMARY KEY ("CHANGE_ID");
+
+CREATE INDEX "SENTRY_PERM_CHANGE_TIME_IDX" ON "SENTRY_PERM_CHANGE" USING btree ("CREATE_TIME_MS");
+
+-- Table SENTRY_COMMIT_SEQUENCE for classes [org.apache.sentry.provider.db.service.model.MSentryCommitSequence]
+CREATE TABLE "SENTRY_COMMIT_SEQUENCE" (
+  "SEQUENCE_ID" BIGINT NOT NULL,
+  "COMMIT_SEQUENCE" BIGINT NOT NULL
+);
+
+ALTER TABLE ONLY "SENTRY_COMMIT_SEQUENCE"
+  ADD CONSTRAINT "SENTRY_COMMIT_SEQUENCE_PK" PRIMARY KEY ("SEQUENCE_ID");
+
+INSERT INTO "SENTRY_COMMIT_SEQUENCE" ("SEQUENCE_ID", "COMMIT_SEQUENCE") VALUES (1, 0);
+INSERT INTO "SENTRY_COMMIT_SEQUENCE" ("SEQUENCE_ID", "COMMIT_SEQUENCE") VALUES (2, 0);
+
 COMMIT;
@@ -1,5 +1,29 @@
 SELECT 'Upgrading Sentry store schema from 1.5.0 to 1.6.0' AS Status from dual;
 
+-- Table SENTRY_PERM_CHANGE for classes [org.apache.sentry.provider.db.service.model.MSentryPermChange]
+CREATE TABLE "SENTRY_PERM_CHANGE" (
+  "CHANGE_ID" NUMBER NOT NULL,
+  "PERM_CHANGE" BLOB NOT NULL,
+  "CREATE_TIME_MS" NUMBER NOT NULL
+);
+
+ALTER TABLE "SENTRY_PERM_CHANGE"
+  ADD CONSTRAINT "SENTRY_PERM_CHANGE_PK" PRIMARY KEY ("CHANGE_ID");
+
+CREATE INDEX "SENTRY_PERM_CHANGE_TIME_IDX" ON "SENTRY_PERM_CHANGE" ("CREATE_TIME_MS");
+
+-- Table SENTRY_COMMIT_SEQUENCE for classes [org.apache.sentry.provider.db.service.model.MSentryCommitSequence]
+CREATE TABLE "SENTRY_COMMIT_SEQUENCE" (
+  "SEQUENCE_ID" NUMBER NOT NULL,
+  "COMMIT_SEQUENCE" NUMBER NOT NULL
+);
+
+ALTER TABLE "SENTRY_COMMIT_SEQUENCE"
+  ADD CONSTRAINT "SENTRY_COMMIT_SEQUENCE_PK" PRIMARY KEY ("SEQUENCE_ID");
+
+INSERT INTO "SENTRY_COMMIT_SEQUENCE" ("SEQUENCE_ID", "COMMIT_SEQUENCE") VALUES (1, 0);
+INSERT INTO "SENTRY_COMMIT_SEQUENCE" ("SEQUENCE_ID", "COMMIT_SEQUENCE") VALUES (2, 0);
+
 UPDATE SENTRY_VERSION SET SCHEMA_VERSION='1.6.0', VERSION_COMMENT='Sentry release version 1.6.0' WHERE VER_ID=1;
 
 SELECT 'Finished upgrading Sentry store schema from 1.5.0 to 1.6.0' AS Status from dual;
\ No newline at end of file
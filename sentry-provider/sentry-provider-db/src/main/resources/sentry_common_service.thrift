@@ -36,6 +36,8 @@ const i32 TSENTRY_STATUS_RUNTIME_ERROR = 3;
 const i32 TSENTRY_STATUS_INVALID_INPUT = 4;
 const i32 TSENTRY_STATUS_ACCESS_DENIED = 5;
 const i32 TSENTRY_STATUS_THRIFT_VERSION_MISMATCH = 6;
+// the service rejected the call to limit the load, the client may retry later
+const i32 TSENTRY_STATUS_THROTTLED = 7;
 
 struct TSentryResponseStatus {
 1: required i32 value,
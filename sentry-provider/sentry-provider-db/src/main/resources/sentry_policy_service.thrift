@@ -185,6 +185,22 @@ struct TRenamePrivilegesResponse {
 1: required sentry_common_service.TSentryResponseStatus status
 }
 
+# Drop or rename many privileges at once
+struct TSentryAuthorizableChange {
+1: required TSentryAuthorizable authorizable,
+2: optional TSentryAuthorizable newAuthorizable # renamed to this, dropped when unset
+}
+
+struct TDropOrRenamePrivilegesRequest {
+1: required i32 protocol_version = sentry_common_service.TSENTRY_SERVICE_V2,
+2: required string requestorUserName, # user on whose behalf the request is issued
+3: required list<TSentryAuthorizableChange> changes
+}
+
+struct TDropOrRenamePrivilegesResponse {
+1: required sentry_common_service.TSentryResponseStatus status
+}
+
 # This API was created specifically for ProviderBackend.getPrivileges
 # and is not mean for general purpose privilege retrieval.
 # This request/response pair are created specifically so we can
@@ -204,6 +220,25 @@ struct TListSentryPrivilegesForProviderResponse {
 2: required set<string> privileges
 }
 
+# Checks a batch of (authorizable hierarchy, action) pairs for the groups
+# in one call, the service evaluates them against its policy the way the
+# PolicyEngine of the provider would and returns allowed or not per check
+struct TSentryAccessCheck {
+1: required TSentryAuthorizable authorizableHierarchy,
+2: required string action
+}
+struct TCheckSentryPrivilegesRequest {
+1: required i32 protocol_version = sentry_common_service.TSENTRY_SERVICE_V2,
+2: required set<string> groups,
+3: required TSentryActiveRoleSet roleSet,
+4: required list<TSentryAccessCheck> checks,
+5: optional string userName # the groups of the user are added to groups
+}
+struct TCheckSentryPrivilegesResponse {
+1: required sentry_common_service.TSentryResponseStatus status
+2: required list<bool> allowed # in the order of the checks
+}
+
 # List role:set<privileges> for the given authorizable
 # Optionally use the set of groups to filter the roles
 struct TSentryPrivilegeMap {
@@ -277,10 +312,14 @@ service SentryPolicyService
   # For use with ProviderBackend.getPrivileges only
   TListSentryPrivilegesForProviderResponse list_sentry_privileges_for_provider(1:TListSentryPrivilegesForProviderRequest request)
 
+  TCheckSentryPrivilegesResponse check_sentry_privileges(1:TCheckSentryPrivilegesRequest request)
+
   TDropPrivilegesResponse drop_sentry_privilege(1:TDropPrivilegesRequest request);
 
   TRenamePrivilegesResponse rename_sentry_privilege(1:TRenamePrivilegesRequest request);
 
+  TDropOrRenamePrivilegesResponse drop_or_rename_sentry_privileges(1:TDropOrRenamePrivilegesRequest request);
+
   TListSentryPrivilegesByAuthResponse list_sentry_privileges_by_authorizable(1:TListSentryPrivilegesByAuthRequest request);
 
   TSentryConfigValueResponse get_sentry_config_value(1:TSentryConfigValueRequest request);
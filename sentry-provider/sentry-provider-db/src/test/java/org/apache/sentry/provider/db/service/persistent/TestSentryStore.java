@@ -24,11 +24,23 @@ import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.jdo.JDODetachedFieldAccessException;
+import javax.jdo.PersistenceManager;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -41,6 +53,7 @@ import org.apache.sentry.provider.db.SentryGrantDeniedException;
 import org.apache.sentry.provider.db.SentryNoSuchObjectException;
 import org.apache.sentry.provider.db.service.model.MSentryPrivilege;
 import org.apache.sentry.provider.db.service.model.MSentryRole;
+import org.apache.sentry.provider.db.service.thrift.SentryMetrics;
 import org.apache.sentry.provider.db.service.thrift.TSentryActiveRoleSet;
 import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizable;
 import org.apache.sentry.provider.db.service.thrift.TSentryGrantOption;
@@ -56,7 +69,10 @@ import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 
@@ -92,6 +108,8 @@ public class TestSentryStore {
     policyFilePath = new File(dataDir, "local_policy_file.ini");
     conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING_RESOURCE,
         policyFilePath.getPath());
+    conf.setInt(ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL_BATCH_SIZE, 7);
+    conf.setLong(ServerConfig.SENTRY_STORE_COUNT_GAUGE_TTL_MS, 0);
     sentryStore = new SentryStore(conf);
   }
 
@@ -326,6 +344,40 @@ public class TestSentryStore {
     verifyOrphanCleanup();
   }
 
+  /**
+   * Run the orphan removal directly: it has to remove all the privileges
+   * of a dropped role, in several chunks, but keep the one which is still
+   * granted to another role.
+   */
+  @Test
+  public void testRemoveOrphanedPrivileges() throws Exception {
+    final String roleName = "test-priv-cleanup";
+    final String otherRoleName = "test-priv-cleanup-other";
+    final String grantor = "g1";
+
+    sentryStore.createSentryRole(roleName);
+    sentryStore.createSentryRole(otherRoleName);
+    TSentryPrivilege shared = null;
+    for (int i = 0; i < NUM_PRIVS; i++) {
+      TSentryPrivilege priv = new TSentryPrivilege();
+      priv.setPrivilegeScope("TABLE");
+      priv.setServerName("server");
+      priv.setAction(AccessConstants.ALL);
+      priv.setCreateTime(System.currentTimeMillis());
+      priv.setTableName("table-" + i);
+      priv.setDbName("db");
+      sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, priv);
+      shared = priv;
+    }
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, otherRoleName, shared);
+    assertEquals(NUM_PRIVS, sentryStore.countMSentryPrivileges());
+
+    sentryStore.dropSentryRole(roleName);
+    sentryStore.removeOrphanedPrivileges();
+    assertEquals(1, sentryStore.countMSentryPrivileges());
+    assertEquals(1, sentryStore.getAllTSentryPrivilegesByRoleName(otherRoleName).size());
+  }
+
   /**
    * Much like testPrivilegeCleanup, make a lot of privileges and make sure
    * they get cleaned up.  The difference here is that the privileges are
@@ -1216,6 +1268,104 @@ public class TestSentryStore {
     assertEquals(0,
         sentryStore.getTSentryRolesByGroupName(Sets.newHashSet("foo"), true)
             .size());
+    try {
+      sentryStore.getTSentryRolesByGroupName(Sets.newHashSet(group1, "foo"), false);
+      fail("SentryNoSuchObjectException expected");
+    } catch (SentryNoSuchObjectException e) {
+      // excepted
+    }
+  }
+
+  /**
+   * Update commits are serialized on the commit order lock, but reads and
+   * the opening of other transactions do not wait for a commit in progress.
+   */
+  @Test
+  public void testCommitDoesNotBlockReads() throws Exception {
+    String grantor = "g1";
+    final String groupName = "concurrent-g1";
+    String roleName = "concurrent-r1";
+    sentryStore.createSentryRole(roleName);
+    TSentryPrivilege privilege = new TSentryPrivilege("TABLE", "server1", "SELECT");
+    privilege.setDbName("db1");
+    privilege.setTableName("tbl1");
+    privilege.setCreateTime(System.currentTimeMillis());
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, privilege);
+    sentryStore.alterSentryRoleAddGroups(grantor, roleName,
+        Sets.newHashSet(new TSentryGroup(groupName)));
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> update;
+      // stands for a commit in progress
+      synchronized (sentryStore.getCommitOrderLock()) {
+        update = executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            sentryStore.createSentryRole("concurrent-r2");
+            return null;
+          }
+        });
+        Future<Integer> read = executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            PersistenceManager pm = sentryStore.openTransaction();
+            sentryStore.rollbackTransaction(pm);
+            return sentryStore.listAllSentryPrivilegesForProvider(
+                Sets.newHashSet(groupName),
+                new TSentryActiveRoleSet(true, new HashSet<String>())).size();
+          }
+        });
+        assertEquals(1, read.get(60, TimeUnit.SECONDS).intValue());
+        assertFalse(update.isDone());
+      }
+      update.get(60, TimeUnit.SECONDS);
+      assertEquals("concurrent-r2", sentryStore.getMSentryRoleByName("concurrent-r2").getRoleName());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Resolves roles for an increasing number of groups. Each group has its own
+   * role and every group also shares a common role. Whatever the number of
+   * groups, the resolution runs a single query.
+   */
+  @Test
+  public void testRoleNamesForManyGroups() throws Exception {
+    String grantor = "g1";
+    String sharedRole = "shared-role";
+    int numGroups = 50;
+    sentryStore.createSentryRole(sharedRole);
+    Set<TSentryGroup> allGroups = Sets.newHashSet();
+    for (int i = 0; i < numGroups; i++) {
+      String roleName = "many-groups-r" + i;
+      TSentryGroup group = new TSentryGroup("many-groups-g" + i);
+      sentryStore.createSentryRole(roleName);
+      sentryStore.alterSentryRoleAddGroups(grantor, roleName, Sets.newHashSet(group));
+      allGroups.add(group);
+    }
+    sentryStore.alterSentryRoleAddGroups(grantor, sharedRole, allGroups);
+
+    Timer queryExecuteTimer = SentryMetrics.getInstance().queryExecuteTimer;
+    for (int groupCount : new int[] { 1, 10, 50 }) {
+      Set<String> groups = Sets.newHashSet();
+      for (int i = 0; i < groupCount; i++) {
+        groups.add("many-groups-g" + i);
+      }
+      // one unknown group is simply ignored
+      groups.add("many-groups-unknown");
+
+      long queries = queryExecuteTimer.getCount();
+      Set<String> roleNames = sentryStore.getRoleNamesForGroups(groups);
+      assertEquals("queries for " + groupCount + " groups",
+          queries + 1, queryExecuteTimer.getCount());
+
+      assertEquals(groupCount + 1, roleNames.size());
+      assertTrue(roleNames.contains(sharedRole));
+      assertEquals(groupCount + 1,
+          sentryStore.getTSentryRolesByGroupName(groups, true).size());
+    }
   }
 
   /**
@@ -1545,7 +1695,7 @@ public class TestSentryStore {
   @Test
   public void testSentryRoleSize() throws Exception {
     for( long i = 0; i< 5; i++ ) {
-      assertEquals((Long)i, sentryStore.getRoleCountGauge().getValue());
+      assertEquals((Long)i, getCount(sentryStore, sentryStore.getRoleCountGauge()));
       sentryStore.createSentryRole("role" + i);
     }
   }
@@ -1566,17 +1716,17 @@ public class TestSentryStore {
 
     String grantor = "g1";
 
-    assertEquals(new Long(0), sentryStore.getPrivilegeCountGauge().getValue());
+    assertEquals(new Long(0), getCount(sentryStore, sentryStore.getPrivilegeCountGauge()));
 
     sentryStore.alterSentryRoleGrantPrivilege(grantor, role1, privilege);
-    assertEquals(new Long(1), sentryStore.getPrivilegeCountGauge().getValue());
+    assertEquals(new Long(1), getCount(sentryStore, sentryStore.getPrivilegeCountGauge()));
 
     sentryStore.alterSentryRoleGrantPrivilege(grantor, role2, privilege);
-    assertEquals(new Long(1), sentryStore.getPrivilegeCountGauge().getValue());
+    assertEquals(new Long(1), getCount(sentryStore, sentryStore.getPrivilegeCountGauge()));
 
     privilege.setTableName("tb2");
     sentryStore.alterSentryRoleGrantPrivilege(grantor, role2, privilege);
-    assertEquals(new Long(2), sentryStore.getPrivilegeCountGauge().getValue());
+    assertEquals(new Long(2), getCount(sentryStore, sentryStore.getPrivilegeCountGauge()));
   }
 
   @Test
@@ -1595,15 +1745,251 @@ public class TestSentryStore {
     String grantor = "g1";
 
     sentryStore.alterSentryRoleAddGroups(grantor, role1, groups);
-    assertEquals(new Long(1), sentryStore.getGroupCountGauge().getValue());
+    assertEquals(new Long(1), getCount(sentryStore, sentryStore.getGroupCountGauge()));
 
     sentryStore.alterSentryRoleAddGroups(grantor, role2, groups);
-    assertEquals(new Long(1), sentryStore.getGroupCountGauge().getValue());
+    assertEquals(new Long(1), getCount(sentryStore, sentryStore.getGroupCountGauge()));
 
     groups.add(new TSentryGroup("group2"));
     sentryStore.alterSentryRoleAddGroups(grantor, role2, groups);
-    assertEquals(new Long(2), sentryStore.getGroupCountGauge().getValue());
+    assertEquals(new Long(2), getCount(sentryStore, sentryStore.getGroupCountGauge()));
+
+  }
+
+  @Test
+  public void testCountGaugesAcrossGrantRevokeDrop() throws Exception {
+    String grantor = "g1";
+    Set<TSentryGroup> groups = Sets.newHashSet(new TSentryGroup("group1"),
+        new TSentryGroup("group2"));
+    for (int i = 0; i < 3; i++) {
+      sentryStore.createSentryRole("role" + i);
+      sentryStore.alterSentryRoleAddGroups(grantor, "role" + i, groups);
+    }
+    assertCountGauges(3, 0, 2);
+
+    TSentryPrivilege privilege = new TSentryPrivilege();
+    privilege.setPrivilegeScope("TABLE");
+    privilege.setServerName("server1");
+    privilege.setDbName("db1");
+    privilege.setAction(AccessConstants.ALL);
+    privilege.setCreateTime(System.currentTimeMillis());
+    for (int i = 0; i < 5; i++) {
+      privilege.setTableName("tbl" + i);
+      sentryStore.alterSentryRoleGrantPrivilege(grantor, "role0", privilege);
+      sentryStore.alterSentryRoleGrantPrivilege(grantor, "role1", privilege);
+    }
+    assertCountGauges(3, 5, 2);
+
+    // revoking from one role keeps the privilege shared with the other
+    privilege.setTableName("tbl0");
+    sentryStore.alterSentryRoleRevokePrivilege(grantor, "role0", privilege);
+    assertCountGauges(3, 5, 2);
+
+    // revoking the only grant leaves an orphan until the cleaner runs
+    sentryStore.alterSentryRoleRevokePrivilege(grantor, "role1", privilege);
+    assertCountGauges(3, 5, 2);
+
+    sentryStore.dropSentryRole("role2");
+    assertCountGauges(2, 5, 2);
+
+    sentryStore.alterSentryRoleDeleteGroups("role0",
+        Sets.newHashSet(new TSentryGroup("group1")));
+    assertCountGauges(2, 5, 2);
+
+    // dropping the tables removes the orphan as well as the granted one
+    sentryStore.dropPrivilege(toTSentryAuthorizable(privilege));
+    privilege.setTableName("tbl1");
+    sentryStore.dropPrivilege(toTSentryAuthorizable(privilege));
+    assertCountGauges(2, 3, 2);
+  }
+
+  @Test
+  public void testCountGaugesCachedWithinTtl() throws Exception {
+    Configuration cachedConf = new Configuration(conf);
+    cachedConf.setLong(ServerConfig.SENTRY_STORE_COUNT_GAUGE_TTL_MS,
+        TimeUnit.HOURS.toMillis(1));
+    cachedConf.set(ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL, "false");
+    SentryStore cachedStore = new SentryStore(cachedConf);
+    try {
+      assertEquals(Long.valueOf(0), getCount(cachedStore, cachedStore.getRoleCountGauge()));
+      cachedStore.createSentryRole("role1");
+      // the change is only picked up once the count is older than the TTL
+      assertEquals(Long.valueOf(0), getCount(cachedStore, cachedStore.getRoleCountGauge()));
+      assertEquals(Long.valueOf(1), getCount(sentryStore, sentryStore.getRoleCountGauge()));
+    } finally {
+      cachedStore.stop();
+    }
+  }
+
+  @Test
+  public void testServerAccessForProvider() throws Exception {
+    String roleName = "role1", groupName = "group1";
+    sentryStore.createSentryRole(roleName);
+    sentryStore.alterSentryRoleAddGroups("g1", roleName,
+        Sets.newHashSet(new TSentryGroup(groupName)));
+    Set<String> groups = Sets.newHashSet(groupName);
+    TSentryActiveRoleSet allRoles = new TSentryActiveRoleSet(true, new HashSet<String>());
+    TSentryAuthorizable table = new TSentryAuthorizable("server1");
+    table.setDb("db1");
+    table.setTable("tbl2");
+    assertEquals(Sets.newHashSet(),
+        sentryStore.listSentryPrivilegesOrServerAccessForProvider(groups, allRoles, table));
+
+    TSentryPrivilege privilege = new TSentryPrivilege("TABLE", "server1", "SELECT");
+    privilege.setDbName("db1");
+    privilege.setTableName("tbl1");
+    sentryStore.alterSentryRoleGrantPrivilege("g1", roleName, privilege);
+    // nothing on tbl2, but the role holds a privilege on the server
+    assertEquals(Sets.newHashSet(SentryStore.SERVER_ACCESS_PRIVILEGE),
+        sentryStore.listSentryPrivilegesOrServerAccessForProvider(groups, allRoles, table));
+    assertEquals(Sets.newHashSet(),
+        sentryStore.listSentryPrivilegesOrServerAccessForProvider(groups,
+            new TSentryActiveRoleSet(false, new HashSet<String>()), table));
+    table.setTable("tbl1");
+    assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl1->action=select"),
+        SentryStore.toTrimedLower(sentryStore.listSentryPrivilegesOrServerAccessForProvider(
+            groups, allRoles, table)));
+    table.setServer("server2");
+    assertEquals(Sets.newHashSet(),
+        sentryStore.listSentryPrivilegesOrServerAccessForProvider(groups, allRoles, table));
+  }
+
+  private void assertCountGauges(long roles, long privileges, long groups)
+      throws Exception {
+    assertEquals(Long.valueOf(roles), getCount(sentryStore, sentryStore.getRoleCountGauge()));
+    assertEquals(Long.valueOf(privileges), getCount(sentryStore, sentryStore.getPrivilegeCountGauge()));
+    assertEquals(Long.valueOf(groups), getCount(sentryStore, sentryStore.getGroupCountGauge()));
+    assertEquals(privileges, sentryStore.countMSentryPrivileges());
+  }
+
+  @Test
+  public void testRetrieveFullImages() throws Exception {
+    String role1 = "role1";
+    String role2 = "role2";
+    String grantor = "g1";
+    sentryStore.createSentryRole(role1);
+    sentryStore.createSentryRole(role2);
+    sentryStore.alterSentryRoleAddGroups(grantor, role1,
+        Sets.newHashSet(new TSentryGroup("group1"), new TSentryGroup("group2")));
+    sentryStore.alterSentryRoleAddGroups(grantor, role2,
+        Sets.newHashSet(new TSentryGroup("group2")));
+
+    TSentryPrivilege privilege = new TSentryPrivilege();
+    privilege.setPrivilegeScope("TABLE");
+    privilege.setServerName("server1");
+    privilege.setDbName("db1");
+    privilege.setTableName("tbl1");
+    privilege.setAction(AccessConstants.SELECT);
+    privilege.setCreateTime(System.currentTimeMillis());
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, role1, privilege);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, role2, privilege);
+    privilege.setAction(AccessConstants.INSERT);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, role1, privilege);
+    privilege.setPrivilegeScope("DATABASE");
+    privilege.setTableName(null);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, role2, privilege);
+    // URI privileges are not part of the image
+    privilege.setPrivilegeScope("URI");
+    privilege.setDbName(null);
+    privilege.setURI("file:///tmp/foo");
+    privilege.setAction(AccessConstants.ALL);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, role2, privilege);
 
+    Map<String, HashMap<String, String>> privImage = sentryStore.retrieveFullPrivilegeImage();
+    assertEquals(2, privImage.size());
+    assertEquals(2, privImage.get("db1.tbl1").size());
+    assertEquals(Sets.newHashSet("SELECT", "INSERT"),
+        Sets.newHashSet(privImage.get("db1.tbl1").get(role1).split(",")));
+    assertEquals("SELECT", privImage.get("db1.tbl1").get(role2));
+    assertEquals(1, privImage.get("db1").size());
+    assertEquals("INSERT", privImage.get("db1").get(role2));
+
+    Map<String, LinkedList<String>> roleImage = sentryStore.retrieveFullRoleImage();
+    assertEquals(2, roleImage.size());
+    assertEquals(Sets.newHashSet("group1", "group2"), Sets.newHashSet(roleImage.get(role1)));
+    assertEquals(Lists.newArrayList("group2"), roleImage.get(role2));
+  }
+
+  @Test
+  public void testURIPrefixLookup() throws Exception {
+    assertEquals(Sets.newHashSet("file:", "file:/", "file://", "file:///",
+        "file:///path", "file:///path/", "file:///path/to"),
+        SentryStore.getURIPrefixes("file:///path/to"));
+    assertTrue(SentryStore.isURIPrefix("file:///path/to", "file:///path/to/file"));
+    assertTrue(SentryStore.isURIPrefix("file:///path/", "file:///path/to"));
+    assertFalse(SentryStore.isURIPrefix("file:///path/to", "file:///path/tofoo"));
+
+    String roleName = "test-uri-prefix";
+    String grantor = "g1";
+    sentryStore.createSentryRole(roleName);
+    TSentryPrivilege privilege = new TSentryPrivilege();
+    privilege.setPrivilegeScope("URI");
+    privilege.setServerName("server1");
+    privilege.setAction(AccessConstants.ALL);
+    privilege.setCreateTime(System.currentTimeMillis());
+    privilege.setURI("file:///path/to");
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, privilege);
+    privilege.setURI("file:///path/tofoo");
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, privilege);
+
+    TSentryAuthorizable authorizable = new TSentryAuthorizable("server1");
+    authorizable.setUri("file:///path/to/some/file");
+    List<MSentryPrivilege> privileges =
+        sentryStore.getMSentryPrivileges(Sets.newHashSet(roleName), authorizable);
+    assertEquals(1, privileges.size());
+    assertEquals("file:///path/to", privileges.get(0).getURI());
+
+    authorizable.setUri("file:///path/tofoo/file");
+    privileges = sentryStore.getMSentryPrivilegesByAuth(Sets.newHashSet(roleName), authorizable);
+    assertEquals(1, privileges.size());
+    assertEquals("file:///path/tofoo", privileges.get(0).getURI());
+  }
+
+  /**
+   * Role lookups must not load the privileges of the role, so the latency of
+   * create_sentry_role and alter_sentry_role_add_groups does not depend on
+   * the number of privileges held by the role. A field left out of the fetch
+   * plan is not loaded, and cannot be read from a detached copy.
+   */
+  @Test
+  public void testRoleLookupDoesNotLoadPrivileges() throws Exception {
+    String roleName = "role1";
+    sentryStore.createSentryRole(roleName);
+    PersistenceManager pm = sentryStore.openTransaction();
+    MSentryRole role = sentryStore.getMSentryRole(pm, roleName);
+    for (int i = 0; i < 3; i++) {
+      role.appendPrivilege(new MSentryPrivilege(null, "TABLE", "server1", "db1",
+          "tbl" + i, SentryStore.NULL_COL, SentryStore.NULL_COL,
+          AccessConstants.SELECT, false));
+    }
+    sentryStore.commitTransaction(pm);
+
+    pm = sentryStore.openTransaction();
+    try {
+      MSentryRole detached = pm.detachCopy(sentryStore.getMSentryRole(pm, roleName));
+      assertEquals(roleName, detached.getRoleName());
+      try {
+        detached.getPrivileges();
+        fail("Expected the privileges not to be loaded by a role lookup");
+      } catch (JDODetachedFieldAccessException e) {
+        // expected
+      }
+      try {
+        detached.getGmPrivileges();
+        fail("Expected the gm privileges not to be loaded by a role lookup");
+      } catch (JDODetachedFieldAccessException e) {
+        // expected
+      }
+
+      pm.getFetchPlan().addGroup(MSentryRole.PRIVILEGES_FETCH_GROUP);
+      detached = pm.detachCopy(sentryStore.getMSentryRole(pm, roleName));
+      assertEquals(3, detached.getPrivileges().size());
+    } finally {
+      sentryStore.rollbackTransaction(pm);
+    }
+
+    // the privileges are still loaded when they are asked for
+    assertEquals(3, sentryStore.getMSentryRoleByName(roleName).getPrivileges().size());
   }
 
   @Test
@@ -1661,6 +2047,167 @@ public class TestSentryStore {
     assertEquals(1, privilegeSet.size());
   }
 
+  @Test
+  public void testRenameTableToExistingPrivilege() throws Exception {
+    String roleName1 = "role1", roleName2 = "role2";
+    String grantor = "g1";
+    sentryStore.createSentryRole(roleName1);
+    sentryStore.createSentryRole(roleName2);
+
+    TSentryPrivilege privilege_tbl1 = new TSentryPrivilege();
+    privilege_tbl1.setPrivilegeScope("TABLE");
+    privilege_tbl1.setServerName("server1");
+    privilege_tbl1.setDbName("db1");
+    privilege_tbl1.setTableName("tbl1");
+    privilege_tbl1.setAction(AccessConstants.SELECT);
+    privilege_tbl1.setCreateTime(System.currentTimeMillis());
+    TSentryPrivilege privilege_tbl2 = new TSentryPrivilege(privilege_tbl1);
+    privilege_tbl2.setTableName("tbl2");
+
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName1, privilege_tbl1);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName2, privilege_tbl1);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName2, privilege_tbl2);
+    assertEquals(2, sentryStore.countMSentryPrivileges());
+
+    TSentryAuthorizable oldTable = toTSentryAuthorizable(privilege_tbl1);
+    TSentryAuthorizable newTable = toTSentryAuthorizable(privilege_tbl2);
+    sentryStore.renamePrivilege(oldTable, newTable);
+
+    // the renamed privilege is merged into the existing one on tbl2
+    assertEquals(1, sentryStore.countMSentryPrivileges());
+    for (String roleName : Sets.newHashSet(roleName1, roleName2)) {
+      Set<TSentryPrivilege> privilegeSet = sentryStore.getAllTSentryPrivilegesByRoleName(roleName);
+      assertEquals(1, privilegeSet.size());
+      assertEquals("tbl2", Iterables.getOnlyElement(privilegeSet).getTableName());
+    }
+  }
+
+  @Test
+  public void testRenameToTheSameName() throws Exception {
+    String roleName1 = "role1", roleName2 = "role2";
+    String grantor = "g1";
+    sentryStore.createSentryRole(roleName1);
+    sentryStore.createSentryRole(roleName2);
+
+    TSentryPrivilege privilege_db1 = new TSentryPrivilege();
+    privilege_db1.setPrivilegeScope("DATABASE");
+    privilege_db1.setServerName("server1");
+    privilege_db1.setDbName("db1");
+    privilege_db1.setAction(AccessConstants.ALL);
+    privilege_db1.setCreateTime(System.currentTimeMillis());
+    TSentryPrivilege privilege_tbl1 = new TSentryPrivilege(privilege_db1);
+    privilege_tbl1.setPrivilegeScope("TABLE");
+    privilege_tbl1.setTableName("tbl1");
+    privilege_tbl1.setAction(AccessConstants.SELECT);
+
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName1, privilege_db1);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName1, privilege_tbl1);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName2, privilege_tbl1);
+
+    TSentryAuthorizable table = toTSentryAuthorizable(privilege_tbl1);
+    sentryStore.renamePrivilege(table, table);
+    TSentryAuthorizable db = toTSentryAuthorizable(privilege_db1);
+    TSentryAuthorizable upperCaseDb = toTSentryAuthorizable(privilege_db1);
+    upperCaseDb.setDb("DB1");
+    sentryStore.renamePrivilege(db, upperCaseDb);
+
+    // every privilege and grant is kept
+    assertEquals(2, sentryStore.countMSentryPrivileges());
+    assertEquals(2, sentryStore.getAllTSentryPrivilegesByRoleName(roleName1).size());
+    Set<TSentryPrivilege> privilegeSet = sentryStore.getAllTSentryPrivilegesByRoleName(roleName2);
+    assertEquals(1, privilegeSet.size());
+    assertEquals("tbl1", Iterables.getOnlyElement(privilegeSet).getTableName());
+  }
+
+  @Test
+  public void testDropDatabaseWithManyTables() throws Exception {
+    String roleName1 = "role1", roleName2 = "role2";
+    String grantor = "g1";
+    int numTables = 100;
+    sentryStore.createSentryRole(roleName1);
+    sentryStore.createSentryRole(roleName2);
+
+    TSentryPrivilege privilege_db1 = new TSentryPrivilege();
+    privilege_db1.setPrivilegeScope("DATABASE");
+    privilege_db1.setServerName("server1");
+    privilege_db1.setDbName("db1");
+    privilege_db1.setAction(AccessConstants.ALL);
+    privilege_db1.setCreateTime(System.currentTimeMillis());
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName1, privilege_db1);
+    Set<TSentryPrivilege> tablePrivileges = Sets.newHashSet();
+    for (int i = 0; i < numTables; i++) {
+      TSentryPrivilege privilege_tbl = new TSentryPrivilege(privilege_db1);
+      privilege_tbl.setPrivilegeScope("TABLE");
+      privilege_tbl.setTableName("tbl" + i);
+      privilege_tbl.setAction(i % 2 == 0 ? AccessConstants.SELECT : AccessConstants.ALTER);
+      tablePrivileges.add(privilege_tbl);
+    }
+    sentryStore.alterSentryRoleGrantPrivileges(grantor, roleName2, tablePrivileges);
+    TSentryPrivilege privilege_db2 = new TSentryPrivilege(privilege_db1);
+    privilege_db2.setDbName("db2");
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName2, privilege_db2);
+    assertEquals(numTables + 1,
+        sentryStore.getAllTSentryPrivilegesByRoleName(roleName2).size());
+
+    TSentryAuthorizable db1 = new TSentryAuthorizable("server1");
+    db1.setDb("db1");
+    sentryStore.dropPrivilege(db1);
+
+    assertEquals(0, sentryStore.getAllTSentryPrivilegesByRoleName(roleName1).size());
+    Set<TSentryPrivilege> privilegeSet = sentryStore.getAllTSentryPrivilegesByRoleName(roleName2);
+    assertEquals(1, privilegeSet.size());
+    assertEquals("db2", Iterables.getOnlyElement(privilegeSet).getDbName());
+    assertEquals(1, sentryStore.countMSentryPrivileges());
+  }
+
+  /**
+   * The privilege lookups pass the names as query parameters, so a name
+   * holding a quote is matched like any other.
+   */
+  @Test
+  public void testPrivilegesOnNamesWithQuotes() throws Exception {
+    String roleName = "role1";
+    String grantor = "g1";
+    String db = "db\"1";
+    sentryStore.createSentryRole(roleName);
+
+    TSentryPrivilege tablePrivilege = new TSentryPrivilege();
+    tablePrivilege.setPrivilegeScope("TABLE");
+    tablePrivilege.setServerName("server1");
+    tablePrivilege.setDbName(db);
+    tablePrivilege.setTableName("tbl\"1");
+    tablePrivilege.setAction(AccessConstants.ALL);
+    tablePrivilege.setCreateTime(System.currentTimeMillis());
+    TSentryPrivilege columnPrivilege = tablePrivilege.deepCopy();
+    columnPrivilege.setPrivilegeScope("COLUMN");
+    columnPrivilege.setTableName("tbl2");
+    columnPrivilege.setColumnName("col\"1");
+    columnPrivilege.setAction(AccessConstants.SELECT);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, tablePrivilege);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, columnPrivilege);
+    // the second grant finds the existing privilege
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, tablePrivilege);
+    assertEquals(2, sentryStore.countMSentryPrivileges());
+    assertEquals(2, sentryStore.getAllTSentryPrivilegesByRoleName(roleName).size());
+
+    // dropping the column looks its privileges up for every action
+    TSentryAuthorizable column = new TSentryAuthorizable("server1");
+    column.setDb(db);
+    column.setTable("tbl2");
+    column.setColumn("col\"1");
+    sentryStore.dropPrivilege(column);
+    Set<TSentryPrivilege> privilegeSet = sentryStore.getAllTSentryPrivilegesByRoleName(roleName);
+    assertEquals(1, privilegeSet.size());
+    assertEquals("tbl\"1", Iterables.getOnlyElement(privilegeSet).getTableName());
+
+    // revoking on the database finds the table privilege as its child
+    TSentryPrivilege dbPrivilege = tablePrivilege.deepCopy();
+    dbPrivilege.setPrivilegeScope("DATABASE");
+    dbPrivilege.unsetTableName();
+    sentryStore.alterSentryRoleRevokePrivilege(grantor, roleName, dbPrivilege);
+    assertEquals(0, sentryStore.getAllTSentryPrivilegesByRoleName(roleName).size());
+  }
+
   protected static void addGroupsToUser(String user, String... groupNames) {
     policyFile.addGroupsToUser(user, groupNames);
   }
@@ -1669,4 +2216,12 @@ public class TestSentryStore {
     policyFile.write(policyFilePath);
   }
 
+  /**
+   * Returns the count of the gauge once the refresh the read starts is done.
+   */
+  static Long getCount(SentryStore store, Gauge<Long> gauge) throws Exception {
+    gauge.getValue();
+    store.awaitCountRefresh();
+    return gauge.getValue();
+  }
 }
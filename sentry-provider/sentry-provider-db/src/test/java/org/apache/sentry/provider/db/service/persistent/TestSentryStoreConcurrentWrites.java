@@ -0,0 +1,216 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.jdo.JDODataStoreException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.service.thrift.SentryMetrics;
+import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
+import org.apache.sentry.provider.db.service.thrift.TSentryPrivilege;
+import org.apache.sentry.provider.file.PolicyFile;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Runs concurrent writers which grant, revoke and map groups on the same
+ * privileges, so that their transactions conflict in the database.
+ */
+public class TestSentryStoreConcurrentWrites {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(TestSentryStoreConcurrentWrites.class);
+
+  private static File dataDir;
+  private static SentryStore sentryStore;
+  private static String[] adminGroups = { "adminGroup1" };
+  private static PolicyFile policyFile;
+  private static File policyFilePath;
+  private static final String grantor = "g1";
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    // report deadlocks quickly instead of after the default 20 seconds
+    System.setProperty("derby.locks.deadlockTimeout", "1");
+    System.setProperty("derby.locks.waitTimeout", "5");
+    Configuration conf = new Configuration(false);
+    dataDir = new File(Files.createTempDir(), "sentry_policy_db");
+    conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_URL,
+        "jdbc:derby:;databaseName=" + dataDir.getPath() + ";create=true");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_PASS, "dummy");
+    conf.setStrings(ServerConfig.ADMIN_GROUPS, adminGroups);
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+        ServerConfig.SENTRY_STORE_LOCAL_GROUP_MAPPING);
+    policyFilePath = new File(dataDir, "local_policy_file.ini");
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING_RESOURCE,
+        policyFilePath.getPath());
+    conf.setInt(ServerConfig.SENTRY_STORE_TRANSACTION_MAX_RETRIES, 20);
+    conf.setLong(ServerConfig.SENTRY_STORE_TRANSACTION_RETRY_BASE_MS, 5);
+    conf.setLong(ServerConfig.SENTRY_STORE_TRANSACTION_RETRY_MAX_MS, 200);
+    sentryStore = new SentryStore(conf);
+  }
+
+  @Before
+  public void before() throws Exception {
+    policyFile = new PolicyFile();
+    policyFile.addGroupsToUser(grantor, adminGroups);
+    policyFile.write(policyFilePath);
+  }
+
+  @After
+  public void after() {
+    sentryStore.clearAllTables();
+  }
+
+  @AfterClass
+  public static void teardown() {
+    if (sentryStore != null) {
+      sentryStore.stop();
+    }
+    if (dataDir != null) {
+      FileUtils.deleteQuietly(dataDir);
+    }
+  }
+
+  @Test
+  public void testConcurrentWritersDoNotFail() throws Exception {
+    final int numWriters = 8;
+    final int numTables = 20;
+    final int numRounds = 3;
+    for (int i = 0; i < numWriters; i++) {
+      sentryStore.createSentryRole("writer-r" + i);
+    }
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    long conflictsBefore = sentryMetrics.transactionConflicts.getCount();
+    long retriesBefore = sentryMetrics.transactionRetries.getCount();
+    long exhaustedBefore = sentryMetrics.transactionRetriesExhausted.getCount();
+
+    ExecutorService executor = Executors.newFixedThreadPool(numWriters);
+    try {
+      List<Future<Void>> results = Lists.newArrayList();
+      for (int i = 0; i < numWriters; i++) {
+        final String roleName = "writer-r" + i;
+        results.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            // all writers create and share the same privileges and groups
+            for (int round = 0; round < numRounds; round++) {
+              for (int j = 0; j < numTables; j++) {
+                sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName,
+                    tablePrivilege("tbl" + j));
+                sentryStore.alterSentryRoleAddGroups(grantor, roleName,
+                    Sets.newHashSet(new TSentryGroup("group" + (j % 4))));
+              }
+              for (int j = 0; j < numTables; j += 2) {
+                sentryStore.alterSentryRoleRevokePrivilege(grantor, roleName,
+                    tablePrivilege("tbl" + j));
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      // get() rethrows whatever a writer saw
+      for (Future<Void> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    LOGGER.info((sentryMetrics.transactionConflicts.getCount() - conflictsBefore)
+        + " conflicts, " + (sentryMetrics.transactionRetries.getCount() - retriesBefore)
+        + " retries");
+    assertEquals(exhaustedBefore, sentryMetrics.transactionRetriesExhausted.getCount());
+
+    for (int i = 0; i < numWriters; i++) {
+      String roleName = "writer-r" + i;
+      assertEquals(numTables / 2,
+          sentryStore.getAllTSentryPrivilegesByRoleName(roleName).size());
+    }
+    assertEquals(4, sentryStore.getGroupNameRoleNamesMap().size());
+  }
+
+  @Test
+  public void testConflictClassification() throws Exception {
+    // Derby deadlock and lock timeout, PostgreSQL deadlock, MySQL deadlock
+    assertTrue(TransactionRetrier.isConflict(wrap(new SQLException("deadlock", "40001"))));
+    assertTrue(TransactionRetrier.isConflict(wrap(new SQLException("timeout", "40XL1"))));
+    assertTrue(TransactionRetrier.isConflict(wrap(new SQLException("deadlock", "40P01"))));
+    assertTrue(TransactionRetrier.isConflict(wrap(new SQLException("deadlock", "40001", 1213))));
+    // duplicate key from a concurrent insert
+    assertTrue(TransactionRetrier.isConflict(wrap(new SQLException("duplicate", "23505"))));
+    assertTrue(TransactionRetrier.isConflict(wrap(new SQLException("duplicate", "23000", 1062))));
+    // found through the chained exceptions too
+    SQLException batch = new SQLException("batch failed", "XJ208");
+    batch.setNextException(new SQLException("deadlock", "40001"));
+    assertTrue(TransactionRetrier.isConflict(wrap(batch)));
+
+    assertFalse(TransactionRetrier.isConflict(wrap(new SQLException("too long", "22001"))));
+    assertFalse(TransactionRetrier.isConflict(wrap(new SQLException("no table", "42X05"))));
+    assertFalse(TransactionRetrier.isConflict(new JDODataStoreException("no cause")));
+  }
+
+  @Test
+  public void testBackoffIsBounded() throws Exception {
+    TransactionRetrier retrier = new TransactionRetrier(10, 10, 300);
+    for (int retry = 0; retry < 40; retry++) {
+      long ceiling = Math.min(300, 10L << Math.min(retry, 30));
+      for (int i = 0; i < 20; i++) {
+        long backoffMs = retrier.getBackoffMs(retry);
+        assertTrue(backoffMs >= 1 && backoffMs <= ceiling);
+      }
+    }
+  }
+
+  private static JDODataStoreException wrap(SQLException e) {
+    return new JDODataStoreException("Commit failed", e);
+  }
+
+  private static TSentryPrivilege tablePrivilege(String table) {
+    TSentryPrivilege privilege = new TSentryPrivilege("TABLE", "server1", "SELECT");
+    privilege.setDbName("db1");
+    privilege.setTableName(table);
+    privilege.setCreateTime(System.currentTimeMillis());
+    return privilege;
+  }
+}
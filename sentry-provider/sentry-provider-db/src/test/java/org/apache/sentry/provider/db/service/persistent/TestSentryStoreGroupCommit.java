@@ -0,0 +1,235 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.jdo.PersistenceManager;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.SentryNoSuchObjectException;
+import org.apache.sentry.provider.db.service.thrift.TSentryPrivilege;
+import org.apache.sentry.provider.file.PolicyFile;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Runs concurrent grants and revokes through the group committer.
+ */
+public class TestSentryStoreGroupCommit {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TestSentryStoreGroupCommit.class);
+
+  private static File dataDir;
+  private static SentryStore sentryStore;
+  private static String[] adminGroups = { "adminGroup1" };
+  private static PolicyFile policyFile;
+  private static File policyFilePath;
+  private static final String grantor = "g1";
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    Configuration conf = new Configuration(false);
+    dataDir = new File(Files.createTempDir(), "sentry_policy_db");
+    conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_URL,
+        "jdbc:derby:;databaseName=" + dataDir.getPath() + ";create=true");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_PASS, "dummy");
+    conf.setStrings(ServerConfig.ADMIN_GROUPS, adminGroups);
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+        ServerConfig.SENTRY_STORE_LOCAL_GROUP_MAPPING);
+    policyFilePath = new File(dataDir, "local_policy_file.ini");
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING_RESOURCE,
+        policyFilePath.getPath());
+    conf.setBoolean(ServerConfig.SENTRY_STORE_GROUP_COMMIT_ENABLED, true);
+    conf.setInt(ServerConfig.SENTRY_STORE_GROUP_COMMIT_MAX_BATCH_SIZE, 16);
+    conf.setLong(ServerConfig.SENTRY_STORE_GROUP_COMMIT_MAX_WAIT_MS, 10);
+    sentryStore = new SentryStore(conf);
+  }
+
+  @Before
+  public void before() throws Exception {
+    policyFile = new PolicyFile();
+    policyFile.addGroupsToUser(grantor, adminGroups);
+    policyFile.write(policyFilePath);
+  }
+
+  @After
+  public void after() {
+    sentryStore.clearAllTables();
+  }
+
+  @AfterClass
+  public static void teardown() {
+    if (sentryStore != null) {
+      sentryStore.stop();
+    }
+    if (dataDir != null) {
+      FileUtils.deleteQuietly(dataDir);
+    }
+  }
+
+  @Test
+  public void testConcurrentGrantsAndRevokes() throws Exception {
+    final int numRoles = 8;
+    final int grantsPerRole = 25;
+    for (int i = 0; i < numRoles; i++) {
+      sentryStore.createSentryRole("group-commit-r" + i);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(numRoles);
+    try {
+      List<Future<Set<Long>>> results = Lists.newArrayList();
+      long start = System.nanoTime();
+      for (int i = 0; i < numRoles; i++) {
+        final String roleName = "group-commit-r" + i;
+        results.add(executor.submit(new Callable<Set<Long>>() {
+          @Override
+          public Set<Long> call() throws Exception {
+            Set<Long> sequenceIds = Sets.newHashSet();
+            for (int j = 0; j < grantsPerRole; j++) {
+              sequenceIds.add(sentryStore.alterSentryRoleGrantPrivilege(grantor,
+                  roleName, tablePrivilege("tbl" + j)).getSequenceId());
+            }
+            return sequenceIds;
+          }
+        }));
+      }
+      Set<Long> allSequenceIds = Sets.newHashSet();
+      for (Future<Set<Long>> result : results) {
+        Set<Long> sequenceIds = result.get();
+        assertEquals(grantsPerRole, sequenceIds.size());
+        allSequenceIds.addAll(sequenceIds);
+      }
+      long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1000000);
+      LOGGER.info((numRoles * grantsPerRole * 1000L / elapsedMillis) + " grants/sec");
+      // every request got its own commit context
+      assertEquals(numRoles * grantsPerRole, allSequenceIds.size());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (int i = 0; i < numRoles; i++) {
+      String roleName = "group-commit-r" + i;
+      assertEquals(grantsPerRole, sentryStore.getAllTSentryPrivilegesByRoleName(roleName).size());
+      sentryStore.alterSentryRoleRevokePrivilege(grantor, roleName, tablePrivilege("tbl0"));
+      assertEquals(grantsPerRole - 1,
+          sentryStore.getAllTSentryPrivilegesByRoleName(roleName).size());
+    }
+  }
+
+  @Test
+  public void testFailedUpdateDoesNotFailBatch() throws Exception {
+    final String roleName = "group-commit-r1";
+    sentryStore.createSentryRole(roleName);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Long> good = executor.submit(new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+          return sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName,
+              tablePrivilege("tbl1")).getSequenceId();
+        }
+      });
+      Future<Long> bad = executor.submit(new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+          return sentryStore.alterSentryRoleGrantPrivilege(grantor, "no-such-role",
+              tablePrivilege("tbl1")).getSequenceId();
+        }
+      });
+      assertTrue(good.get() > 0);
+      try {
+        bad.get();
+        fail("SentryNoSuchObjectException expected");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof SentryNoSuchObjectException);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, sentryStore.getAllTSentryPrivilegesByRoleName(roleName).size());
+  }
+
+  @Test
+  public void testErrorInBatchCompletesEveryUpdate() throws Exception {
+    // a long wait, so that both updates end up in the same batch
+    final PrivilegeGroupCommitter committer = new PrivilegeGroupCommitter(sentryStore, 2, 60000);
+    committer.start();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<CommitContext>> results = Lists.newArrayList();
+      for (int i = 0; i < 2; i++) {
+        results.add(executor.submit(new Callable<CommitContext>() {
+          @Override
+          public CommitContext call() throws Exception {
+            return committer.submit(new PrivilegeGroupCommitter.Update() {
+              @Override
+              public void apply(PersistenceManager pm) {
+                throw new AssertionError("escapes the batch");
+              }
+            });
+          }
+        }));
+      }
+      for (Future<CommitContext> result : results) {
+        try {
+          result.get(30, TimeUnit.SECONDS);
+          fail("AssertionError expected");
+        } catch (ExecutionException e) {
+          assertTrue(e.getCause() instanceof AssertionError);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+      committer.stop();
+    }
+  }
+
+  private static TSentryPrivilege tablePrivilege(String table) {
+    TSentryPrivilege privilege = new TSentryPrivilege("TABLE", "server1", "SELECT");
+    privilege.setDbName("db1");
+    privilege.setTableName(table);
+    privilege.setCreateTime(System.currentTimeMillis());
+    return privilege;
+  }
+}
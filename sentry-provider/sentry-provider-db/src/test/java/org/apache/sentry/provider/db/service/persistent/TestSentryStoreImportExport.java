@@ -20,6 +20,7 @@ package org.apache.sentry.provider.db.service.persistent;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
 import java.io.File;
 import java.util.List;
@@ -44,6 +45,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
@@ -51,6 +53,7 @@ import com.google.common.io.Files;
 public class TestSentryStoreImportExport {
 
   private static File dataDir;
+  private static Configuration conf;
   private static SentryStore sentryStore;
   private static String[] adminGroups = { "adminGroup1" };
   private static PolicyFile policyFile;
@@ -67,7 +70,7 @@ public class TestSentryStoreImportExport {
   @BeforeClass
   public static void setupEnv() throws Exception {
     dataDir = new File(Files.createTempDir(), "sentry_policy_db");
-    Configuration conf = new Configuration(false);
+    conf = new Configuration(false);
     conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
     conf.set(ServerConfig.SENTRY_STORE_JDBC_URL, "jdbc:derby:;databaseName=" + dataDir.getPath()
         + ";create=true");
@@ -730,6 +733,69 @@ public class TestSentryStoreImportExport {
     verifyRolePrivilegesMap(actualRolePrivilegesMap, exceptedRolePrivilegesMap);
   }
 
+  // The privileges are granted in chunks of their own transactions: a failed
+  // chunk leaves the earlier ones committed, and importing again skips them.
+  @Test
+  public void testImportFailureKeepsCommittedChunks() throws Exception {
+    Configuration chunkConf = new Configuration(conf);
+    chunkConf.setInt(ServerConfig.SENTRY_STORE_IMPORT_BATCH_SIZE, 2);
+    SentryStore chunkStore = new SentryStore(chunkConf);
+    try {
+      // granted in this order, two per chunk; an action longer than its
+      // column fails the third chunk in the database
+      try {
+        chunkStore.importSentryMetaData(createChunkMappingData(
+            Strings.repeat("x", 41)), false);
+        fail("Expected the import to fail");
+      } catch (Exception e) {
+        // expected
+      }
+      Map<String, Long> createTimes = getPrivilegeCreateTimes(chunkStore);
+      assertEquals(Sets.newHashSet("tbl0", "tbl1", "tbl2", "tbl3"), createTimes.keySet());
+      // the groups are added after the privileges
+      assertTrue(chunkStore.getGroupNameRoleNamesMap().isEmpty());
+
+      chunkStore.importSentryMetaData(createChunkMappingData(AccessConstants.SELECT), false);
+      Map<String, Long> reimportedCreateTimes = getPrivilegeCreateTimes(chunkStore);
+      assertEquals(Sets.newHashSet("tbl0", "tbl1", "tbl2", "tbl3", "tbl4", "tbl5"),
+          reimportedCreateTimes.keySet());
+      for (Map.Entry<String, Long> createTime : createTimes.entrySet()) {
+        assertEquals(createTime.getValue(), reimportedCreateTimes.get(createTime.getKey()));
+      }
+      assertEquals(6, chunkStore.getAllTSentryPrivilegesByRoleName("role1").size());
+      assertEquals(Sets.newHashSet("role1"),
+          chunkStore.getGroupNameRoleNamesMap().get("group1"));
+    } finally {
+      chunkStore.stop();
+    }
+  }
+
+  // role1 of group1 with SELECT on tbl0 to tbl4, and lastAction on tbl5
+  private TSentryMappingData createChunkMappingData(String lastAction) {
+    Set<TSentryPrivilege> privileges = Sets.newLinkedHashSet();
+    for (int i = 0; i < 6; i++) {
+      privileges.add(createTSentryPrivilege(PrivilegeScope.TABLE.name(), "server1", "db1",
+          "tbl" + i, "", "", i < 5 ? AccessConstants.SELECT : lastAction,
+          TSentryGrantOption.FALSE));
+    }
+    Map<String, Set<String>> sentryGroupRolesMap = Maps.newHashMap();
+    sentryGroupRolesMap.put("group1", Sets.newHashSet("role1"));
+    Map<String, Set<TSentryPrivilege>> sentryRolePrivilegesMap = Maps.newHashMap();
+    sentryRolePrivilegesMap.put("role1", privileges);
+    TSentryMappingData tSentryMappingData = new TSentryMappingData();
+    tSentryMappingData.setGroupRolesMap(sentryGroupRolesMap);
+    tSentryMappingData.setRolePrivilegesMap(sentryRolePrivilegesMap);
+    return tSentryMappingData;
+  }
+
+  private static Map<String, Long> getPrivilegeCreateTimes(SentryStore store) {
+    Map<String, Long> createTimes = Maps.newHashMap();
+    for (MSentryPrivilege privilege : store.getPrivilegesList()) {
+      createTimes.put(privilege.getTableName(), privilege.getCreateTime());
+    }
+    return createTimes;
+  }
+
   private void verifyRoles(Map<String, MSentryRole> actualRoleMap, Set<String> expectedRoleNameSet) {
     assertEquals(expectedRoleNameSet.size(), actualRoleMap.keySet().size());
     for (String roleName : actualRoleMap.keySet()) {
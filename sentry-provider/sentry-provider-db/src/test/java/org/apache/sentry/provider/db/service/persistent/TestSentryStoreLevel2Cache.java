@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.SentryNoSuchObjectException;
+import org.apache.sentry.provider.db.service.thrift.SentryMetrics;
+import org.apache.sentry.provider.db.service.thrift.TSentryActiveRoleSet;
+import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
+import org.apache.sentry.provider.db.service.thrift.TSentryPrivilege;
+import org.apache.sentry.provider.file.PolicyFile;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Runs two stores with the level 2 cache enabled against the same database,
+ * the way two Sentry servers run in HA mode, and checks that neither of them
+ * serves what it cached or indexed before the other one committed.
+ */
+public class TestSentryStoreLevel2Cache {
+
+  private static File dataDir;
+  private static SentryStore sentryStore1;
+  private static SentryStore sentryStore2;
+  private static String[] adminGroups = { "adminGroup1" };
+  private static PolicyFile policyFile;
+  private static File policyFilePath;
+  private static final String grantor = "g1";
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    Configuration conf = new Configuration(false);
+    dataDir = new File(Files.createTempDir(), "sentry_policy_db");
+    conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_URL,
+        "jdbc:derby:;databaseName=" + dataDir.getPath() + ";create=true");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_PASS, "dummy");
+    conf.setStrings(ServerConfig.ADMIN_GROUPS, adminGroups);
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+        ServerConfig.SENTRY_STORE_LOCAL_GROUP_MAPPING);
+    policyFilePath = new File(dataDir, "local_policy_file.ini");
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING_RESOURCE,
+        policyFilePath.getPath());
+    conf.set(ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL, "false");
+    conf.setBoolean(ServerConfig.SENTRY_HA_ENABLED, true);
+    conf.setBoolean(ServerConfig.SENTRY_STORE_L2_CACHE_ENABLED, true);
+    conf.setLong(ServerConfig.SENTRY_STORE_HA_SYNC_INTERVAL_MS, 0);
+    conf.setBoolean(ServerConfig.SENTRY_STORE_PRIVILEGE_INDEX_ENABLED, true);
+    sentryStore1 = new SentryStore(conf);
+    sentryStore2 = new SentryStore(conf);
+  }
+
+  @Before
+  public void before() throws Exception {
+    policyFile = new PolicyFile();
+    policyFile.addGroupsToUser(grantor, adminGroups);
+    policyFile.write(policyFilePath);
+  }
+
+  @After
+  public void after() {
+    sentryStore1.clearAllTables();
+  }
+
+  @AfterClass
+  public static void teardown() {
+    if (sentryStore1 != null) {
+      sentryStore1.stop();
+    }
+    if (sentryStore2 != null) {
+      sentryStore2.stop();
+    }
+    if (dataDir != null) {
+      FileUtils.deleteQuietly(dataDir);
+    }
+  }
+
+  @Test
+  public void testNoStaleReadsAfterWritesOfTheOtherStore() throws Exception {
+    String roleName = "l2-r1";
+    sentryStore1.createSentryRole(roleName);
+    sentryStore1.alterSentryRoleGrantPrivilege(grantor, roleName, tablePrivilege("tbl1"));
+    // both stores cache the role and its privileges
+    assertEquals(1, sentryStore1.getAllTSentryPrivilegesByRoleName(roleName).size());
+    assertEquals(1, sentryStore2.getAllTSentryPrivilegesByRoleName(roleName).size());
+
+    sentryStore1.alterSentryRoleGrantPrivilege(grantor, roleName, tablePrivilege("tbl2"));
+    assertEquals(2, sentryStore2.getAllTSentryPrivilegesByRoleName(roleName).size());
+
+    sentryStore2.alterSentryRoleRevokePrivilege(grantor, roleName, tablePrivilege("tbl1"));
+    Set<TSentryPrivilege> privileges = sentryStore1.getAllTSentryPrivilegesByRoleName(roleName);
+    assertEquals(1, privileges.size());
+    assertEquals("tbl2", privileges.iterator().next().getTableName());
+
+    sentryStore1.alterSentryRoleAddGroups(grantor, roleName,
+        Sets.newHashSet(new TSentryGroup("l2-group1")));
+    assertEquals(1, sentryStore2.getTSentryRolesByGroupName(
+        Sets.newHashSet("l2-group1"), true).size());
+
+    sentryStore2.dropSentryRole(roleName);
+    try {
+      sentryStore1.getAllTSentryPrivilegesByRoleName(roleName);
+      fail("Role " + roleName + " was dropped by the other store");
+    } catch (SentryNoSuchObjectException e) {
+      // expected
+    }
+    assertEquals(0, sentryStore1.getTSentryRolesByGroupName(
+        Sets.newHashSet("l2-group1"), true).size());
+  }
+
+  @Test
+  public void testCacheKeptUntilTheOtherStoreCommits() throws Exception {
+    String roleName = "l2-r2";
+    sentryStore1.createSentryRole(roleName);
+    sentryStore1.alterSentryRoleGrantPrivilege(grantor, roleName, tablePrivilege("tbl1"));
+    assertEquals(1, sentryStore1.getAllTSentryPrivilegesByRoleName(roleName).size());
+
+    // reads and own commits leave the cache alone
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    long evictions = sentryMetrics.l2CacheEvictions.getCount();
+    sentryStore1.alterSentryRoleGrantPrivilege(grantor, roleName, tablePrivilege("tbl2"));
+    for (int i = 0; i < 3; i++) {
+      assertEquals(2, sentryStore1.getAllTSentryPrivilegesByRoleName(roleName).size());
+    }
+    assertEquals(evictions, sentryMetrics.l2CacheEvictions.getCount());
+
+    // a commit of the other store drops it on the next transaction
+    sentryStore2.alterSentryRoleGrantPrivilege(grantor, roleName, tablePrivilege("tbl3"));
+    assertEquals(3, sentryStore1.getAllTSentryPrivilegesByRoleName(roleName).size());
+    assertTrue(sentryMetrics.l2CacheEvictions.getCount() > evictions);
+  }
+
+  @Test
+  public void testIndexRebuiltAfterTheOtherStoreCommits() throws Exception {
+    String roleName = "l2-r3", groupName = "l2-group3";
+    Set<String> groups = Sets.newHashSet(groupName);
+    TSentryActiveRoleSet allRoles = new TSentryActiveRoleSet(true, new HashSet<String>());
+    sentryStore1.createSentryRole(roleName);
+    sentryStore1.alterSentryRoleAddGroups(grantor, roleName,
+        Sets.newHashSet(new TSentryGroup(groupName)));
+    sentryStore1.alterSentryRoleGrantPrivilege(grantor, roleName, tablePrivilege("tbl1"));
+    assertEquals(1, sentryStore1.listAllSentryPrivilegesForProvider(groups, allRoles).size());
+
+    sentryStore2.alterSentryRoleRevokePrivilege(grantor, roleName, tablePrivilege("tbl1"));
+    assertTrue(sentryStore1.listAllSentryPrivilegesForProvider(groups, allRoles).isEmpty());
+  }
+
+  private static TSentryPrivilege tablePrivilege(String table) {
+    TSentryPrivilege privilege = new TSentryPrivilege("TABLE", "server1", "SELECT");
+    privilege.setDbName("db1");
+    privilege.setTableName(table);
+    privilege.setCreateTime(System.currentTimeMillis());
+    return privilege;
+  }
+}
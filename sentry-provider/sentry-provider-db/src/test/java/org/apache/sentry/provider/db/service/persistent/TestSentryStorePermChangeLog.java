@@ -0,0 +1,270 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.SentryNoSuchObjectException;
+import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizable;
+import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizableChange;
+import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
+import org.apache.sentry.provider.db.service.thrift.TSentryMappingData;
+import org.apache.sentry.provider.db.service.thrift.TSentryPrivilege;
+import org.apache.sentry.provider.file.PolicyFile;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+public class TestSentryStorePermChangeLog {
+
+  private static File dataDir;
+  private static SentryStore sentryStore;
+  private static String[] adminGroups = { "adminGroup1" };
+  private static PolicyFile policyFile;
+  private static File policyFilePath;
+  private static final String grantor = "g1";
+
+  /**
+   * Records a readable description of every change.
+   */
+  private static class DescribingRecorder implements SentryStore.PermChangeRecorder {
+    @Override
+    public byte[] onAlterSentryRoleAddGroups(String roleName, Set<TSentryGroup> groups) {
+      return describe("addGroups " + roleName);
+    }
+    @Override
+    public byte[] onAlterSentryRoleDeleteGroups(String roleName, Set<TSentryGroup> groups) {
+      return describe("deleteGroups " + roleName);
+    }
+    @Override
+    public byte[] onAlterSentryRoleGrantPrivilege(String roleName, TSentryPrivilege privilege) {
+      return describe("grant " + roleName + " " + privilege.getTableName());
+    }
+    @Override
+    public byte[] onAlterSentryRoleRevokePrivilege(String roleName, TSentryPrivilege privilege) {
+      return describe("revoke " + roleName + " " + privilege.getTableName());
+    }
+    @Override
+    public byte[] onDropSentryRole(String roleName) {
+      return describe("dropRole " + roleName);
+    }
+    @Override
+    public byte[] onRenameSentryPrivilege(TSentryAuthorizable oldAuthorizable,
+        TSentryAuthorizable newAuthorizable) {
+      return describe("rename " + oldAuthorizable.getTable() + " " + newAuthorizable.getTable());
+    }
+    @Override
+    public byte[] onDropSentryPrivilege(TSentryAuthorizable authorizable) {
+      return describe("dropPrivilege " + authorizable.getTable());
+    }
+    @Override
+    public byte[] onDropSentryPrivileges(List<TSentryAuthorizable> authorizables) {
+      List<String> tables = Lists.newArrayList();
+      for (TSentryAuthorizable authorizable : authorizables) {
+        tables.add(authorizable.getTable());
+      }
+      return describe("dropPrivileges " + Joiner.on(",").join(tables));
+    }
+    private static byte[] describe(String change) {
+      return change.getBytes(Charsets.UTF_8);
+    }
+  }
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    Configuration conf = new Configuration(false);
+    dataDir = new File(Files.createTempDir(), "sentry_policy_db");
+    conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_URL,
+        "jdbc:derby:;databaseName=" + dataDir.getPath() + ";create=true");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_PASS, "dummy");
+    conf.setStrings(ServerConfig.ADMIN_GROUPS, adminGroups);
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+        ServerConfig.SENTRY_STORE_LOCAL_GROUP_MAPPING);
+    policyFilePath = new File(dataDir, "local_policy_file.ini");
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING_RESOURCE,
+        policyFilePath.getPath());
+    sentryStore = new SentryStore(conf);
+    sentryStore.setPermChangeRecorder(new DescribingRecorder());
+  }
+
+  @Before
+  public void before() throws Exception {
+    policyFile = new PolicyFile();
+    policyFile.addGroupsToUser(grantor, adminGroups);
+    policyFile.write(policyFilePath);
+  }
+
+  @After
+  public void after() {
+    sentryStore.clearAllTables();
+  }
+
+  @AfterClass
+  public static void teardown() {
+    if (sentryStore != null) {
+      sentryStore.stop();
+    }
+    if (dataDir != null) {
+      FileUtils.deleteQuietly(dataDir);
+    }
+  }
+
+  @Test
+  public void testChangesAreLoggedInCommitOrder() throws Exception {
+    String roleName = "role1";
+    Set<TSentryGroup> groups = Sets.newHashSet(new TSentryGroup("group1"));
+    sentryStore.createSentryRole(roleName);
+    sentryStore.alterSentryRoleAddGroups(grantor, roleName, groups);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, newTablePrivilege("tbl1"));
+    sentryStore.alterSentryRoleRevokePrivilege(grantor, roleName, newTablePrivilege("tbl1"));
+    sentryStore.alterSentryRoleDeleteGroups(roleName, groups);
+    sentryStore.dropSentryRole(roleName);
+
+    SortedMap<Long, byte[]> permChanges = sentryStore.getPermChangesFrom(1);
+    assertEquals(Lists.newArrayList(1L, 2L, 3L, 4L, 5L),
+        Lists.newArrayList(permChanges.keySet()));
+    assertEquals(Lists.newArrayList("addGroups role1", "grant role1 tbl1",
+        "revoke role1 tbl1", "deleteGroups role1", "dropRole role1"),
+        describe(permChanges));
+    assertEquals(5, sentryStore.getLastPermChangeID());
+    assertEquals(Lists.newArrayList("deleteGroups role1", "dropRole role1"),
+        describe(sentryStore.getPermChangesFrom(4)));
+  }
+
+  @Test
+  public void testFailedUpdateIsNotLogged() throws Exception {
+    try {
+      sentryStore.alterSentryRoleGrantPrivilege(grantor, "missingRole", newTablePrivilege("tbl1"));
+      fail("Expected SentryNoSuchObjectException");
+    } catch (SentryNoSuchObjectException e) {
+      // expected
+    }
+    assertEquals(0, sentryStore.getLastPermChangeID());
+    assertTrue(sentryStore.getPermChangesFrom(1).isEmpty());
+  }
+
+  @Test
+  public void testPurgeKeepsLatestChanges() throws Exception {
+    String roleName = "role1";
+    sentryStore.createSentryRole(roleName);
+    for (int i = 0; i < 10; i++) {
+      sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, newTablePrivilege("tbl" + i));
+    }
+    assertEquals(7, sentryStore.purgePermChanges(3, Long.MAX_VALUE));
+    assertEquals(Lists.newArrayList(8L, 9L, 10L),
+        Lists.newArrayList(sentryStore.getPermChangesFrom(1).keySet()));
+
+    // the latest change survives any retention, so the ids keep increasing
+    sentryStore.purgePermChanges(0, 0);
+    assertEquals(Lists.newArrayList(10L),
+        Lists.newArrayList(sentryStore.getPermChangesFrom(1).keySet()));
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, newTablePrivilege("tbl10"));
+    assertEquals(11, sentryStore.getLastPermChangeID());
+  }
+
+  @Test
+  public void testImportIsLogged() throws Exception {
+    TSentryMappingData mappingData = new TSentryMappingData();
+    Map<String, Set<String>> groupRolesMap = Maps.newHashMap();
+    groupRolesMap.put("group1", Sets.newHashSet("role1"));
+    mappingData.setGroupRolesMap(groupRolesMap);
+    Map<String, Set<TSentryPrivilege>> rolePrivilegesMap = Maps.newHashMap();
+    rolePrivilegesMap.put("role1",
+        Sets.newHashSet(newTablePrivilege("tbl1"), newTablePrivilege("tbl2")));
+    mappingData.setRolePrivilegesMap(rolePrivilegesMap);
+    sentryStore.importSentryMetaData(mappingData, false);
+
+    List<String> permChanges = describe(sentryStore.getPermChangesFrom(1));
+    assertEquals(3, permChanges.size());
+    assertEquals(Sets.newHashSet("grant role1 tbl1", "grant role1 tbl2"),
+        Sets.newHashSet(permChanges.subList(0, 2)));
+    assertEquals("addGroups role1", permChanges.get(2));
+  }
+
+  @Test
+  public void testDropOrRenameIsLogged() throws Exception {
+    String roleName = "role1";
+    sentryStore.createSentryRole(roleName);
+    for (String tableName : new String[] { "tbl1", "tbl2", "tbl3", "tbl4" }) {
+      sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, newTablePrivilege(tableName));
+    }
+    TSentryAuthorizableChange rename = new TSentryAuthorizableChange(newTableAuthorizable("tbl3"));
+    rename.setNewAuthorizable(newTableAuthorizable("tbl5"));
+    List<TSentryAuthorizableChange> changes = Lists.newArrayList(
+        new TSentryAuthorizableChange(newTableAuthorizable("tbl1")),
+        new TSentryAuthorizableChange(newTableAuthorizable("tbl2")),
+        rename,
+        new TSentryAuthorizableChange(newTableAuthorizable("tbl4")));
+    sentryStore.dropOrRenamePrivileges(changes);
+
+    // the drops before the rename are merged, the rename stays on its own
+    assertEquals(Lists.newArrayList("dropPrivileges tbl1,tbl2", "rename tbl3 tbl5",
+        "dropPrivileges tbl4"), describe(sentryStore.getPermChangesFrom(5)));
+    Set<TSentryPrivilege> privileges = sentryStore.getAllTSentryPrivilegesByRoleName(roleName);
+    assertEquals(1, privileges.size());
+    assertEquals("tbl5", privileges.iterator().next().getTableName());
+  }
+
+  private static TSentryAuthorizable newTableAuthorizable(String tableName) {
+    TSentryAuthorizable authorizable = new TSentryAuthorizable("server1");
+    authorizable.setDb("db1");
+    authorizable.setTable(tableName);
+    return authorizable;
+  }
+
+  private static TSentryPrivilege newTablePrivilege(String tableName) {
+    TSentryPrivilege privilege = new TSentryPrivilege();
+    privilege.setPrivilegeScope("TABLE");
+    privilege.setServerName("server1");
+    privilege.setDbName("db1");
+    privilege.setTableName(tableName);
+    privilege.setAction("SELECT");
+    privilege.setCreateTime(System.currentTimeMillis());
+    return privilege;
+  }
+
+  private static List<String> describe(SortedMap<Long, byte[]> permChanges) {
+    List<String> descriptions = Lists.newArrayList();
+    for (byte[] permChange : permChanges.values()) {
+      descriptions.add(new String(permChange, Charsets.UTF_8));
+    }
+    return descriptions;
+  }
+}
@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.core.model.db.AccessConstants;
+import org.apache.sentry.provider.db.service.thrift.TSentryActiveRoleSet;
+import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizable;
+import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
+import org.apache.sentry.provider.db.service.thrift.TSentryPrivilege;
+import org.apache.sentry.provider.file.PolicyFile;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Runs the provider lookups with the in-memory privilege index enabled and
+ * verifies that every kind of policy change is visible to the next lookup.
+ */
+public class TestSentryStorePrivilegeIndex {
+
+  private static File dataDir;
+  private static SentryStore sentryStore;
+  private static String[] adminGroups = { "adminGroup1" };
+  private static PolicyFile policyFile;
+  private static File policyFilePath;
+  private static final String grantor = "g1";
+  private static final TSentryActiveRoleSet ALL_ROLES =
+      new TSentryActiveRoleSet(true, new HashSet<String>());
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    Configuration conf = new Configuration(false);
+    dataDir = new File(Files.createTempDir(), "sentry_policy_db");
+    conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_URL,
+        "jdbc:derby:;databaseName=" + dataDir.getPath() + ";create=true");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_PASS, "dummy");
+    conf.setStrings(ServerConfig.ADMIN_GROUPS, adminGroups);
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+        ServerConfig.SENTRY_STORE_LOCAL_GROUP_MAPPING);
+    policyFilePath = new File(dataDir, "local_policy_file.ini");
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING_RESOURCE,
+        policyFilePath.getPath());
+    conf.setBoolean(ServerConfig.SENTRY_STORE_PRIVILEGE_INDEX_ENABLED, true);
+    sentryStore = new SentryStore(conf);
+  }
+
+  @Before
+  public void before() throws Exception {
+    policyFile = new PolicyFile();
+    policyFile.addGroupsToUser(grantor, adminGroups);
+    policyFile.write(policyFilePath);
+  }
+
+  @After
+  public void after() {
+    sentryStore.clearAllTables();
+  }
+
+  @AfterClass
+  public static void teardown() {
+    if (sentryStore != null) {
+      sentryStore.stop();
+    }
+    if (dataDir != null) {
+      FileUtils.deleteQuietly(dataDir);
+    }
+  }
+
+  @Test
+  public void testGrantRevokeVisibleToProvider() throws Exception {
+    String roleName = "index-r1", groupName = "index-g1";
+    sentryStore.createSentryRole(roleName);
+    addGroup(roleName, groupName);
+    assertEquals(Sets.newHashSet(), listForProvider(groupName, null));
+
+    TSentryPrivilege privilege = tablePrivilege("server1", "db1", "tbl1", "SELECT");
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, privilege);
+    assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl1->action=select"),
+        listForProvider(groupName, null));
+
+    sentryStore.alterSentryRoleRevokePrivilege(grantor, roleName, privilege);
+    assertEquals(Sets.newHashSet(), listForProvider(groupName, null));
+  }
+
+  @Test
+  public void testGroupAndRoleChanges() throws Exception {
+    String roleName1 = "index-r1", roleName2 = "index-r2", groupName = "index-g1";
+    sentryStore.createSentryRole(roleName1);
+    sentryStore.createSentryRole(roleName2);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName1,
+        tablePrivilege("server1", "db1", "tbl1", "SELECT"));
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName2,
+        tablePrivilege("server1", "db1", "tbl2", "INSERT"));
+    addGroup(roleName1, groupName);
+    addGroup(roleName2, groupName);
+    assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl1->action=select",
+        "server=server1->db=db1->table=tbl2->action=insert"),
+        listForProvider(groupName, null));
+    // only the active role is used
+    assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl2->action=insert"),
+        SentryStore.toTrimedLower(sentryStore.listAllSentryPrivilegesForProvider(
+            Sets.newHashSet(groupName),
+            new TSentryActiveRoleSet(false, Sets.newHashSet(roleName2)))));
+
+    Set<TSentryGroup> groups = Sets.newHashSet(new TSentryGroup(groupName));
+    sentryStore.alterSentryRoleDeleteGroups(roleName1, groups);
+    assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl2->action=insert"),
+        listForProvider(groupName, null));
+
+    sentryStore.dropSentryRole(roleName2);
+    assertEquals(Sets.newHashSet(), listForProvider(groupName, null));
+  }
+
+  @Test
+  public void testAuthorizableFilter() throws Exception {
+    String roleName = "index-r1", groupName = "index-g1";
+    sentryStore.createSentryRole(roleName);
+    addGroup(roleName, groupName);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName,
+        tablePrivilege("server1", "db1", "tbl1", "SELECT"));
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName,
+        tablePrivilege("server1", "db2", "tbl1", "SELECT"));
+    TSentryPrivilege dbPrivilege = new TSentryPrivilege("DATABASE", "server1", AccessConstants.ALL);
+    dbPrivilege.setDbName("db3");
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, dbPrivilege);
+    TSentryPrivilege uriPrivilege = new TSentryPrivilege("URI", "server1", AccessConstants.ALL);
+    uriPrivilege.setURI("file:///path/to");
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, uriPrivilege);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName,
+        tablePrivilege("server2", "db1", "tbl1", "SELECT"));
+
+    TSentryAuthorizable auth = new TSentryAuthorizable("server1");
+    auth.setDb("db1");
+    auth.setTable("tbl1");
+    assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl1->action=select"),
+        listForProvider(groupName, auth));
+
+    auth = new TSentryAuthorizable("server1");
+    auth.setDb("db3");
+    auth.setTable("tbl1");
+    assertEquals(Sets.newHashSet("server=server1->db=db3"),
+        listForProvider(groupName, auth));
+
+    auth = new TSentryAuthorizable("server1");
+    auth.setUri("file:///path/to/some/file");
+    assertEquals(Sets.newHashSet("server=server1->uri=file:///path/to"),
+        listForProvider(groupName, auth));
+
+    auth = new TSentryAuthorizable("server1");
+    auth.setUri("file:///other/path");
+    assertEquals(Sets.newHashSet(), listForProvider(groupName, auth));
+
+    auth = new TSentryAuthorizable("server2");
+    assertEquals(Sets.newHashSet("server=server2->db=db1->table=tbl1->action=select"),
+        listForProvider(groupName, auth));
+  }
+
+  @Test
+  public void testDropAndRenamePrivilege() throws Exception {
+    String roleName = "index-r1", groupName = "index-g1";
+    sentryStore.createSentryRole(roleName);
+    addGroup(roleName, groupName);
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName,
+        tablePrivilege("server1", "db1", "tbl1", "SELECT"));
+
+    TSentryAuthorizable oldTable = new TSentryAuthorizable("server1");
+    oldTable.setDb("db1");
+    oldTable.setTable("tbl1");
+    TSentryAuthorizable newTable = new TSentryAuthorizable("server1");
+    newTable.setDb("db1");
+    newTable.setTable("tbl2");
+    sentryStore.renamePrivilege(oldTable, newTable);
+    assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl2->action=select"),
+        listForProvider(groupName, null));
+
+    sentryStore.dropPrivilege(newTable);
+    assertEquals(Sets.newHashSet(), listForProvider(groupName, null));
+  }
+
+  @Test
+  public void testHasAnyServerPrivileges() throws Exception {
+    String roleName = "index-r1", groupName = "index-g1";
+    sentryStore.createSentryRole(roleName);
+    addGroup(roleName, groupName);
+    Set<String> groups = Sets.newHashSet(groupName);
+    assertFalse(sentryStore.hasAnyServerPrivileges(groups, ALL_ROLES, "server1"));
+
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName,
+        tablePrivilege("server1", "db1", "tbl1", "SELECT"));
+    assertTrue(sentryStore.hasAnyServerPrivileges(groups, ALL_ROLES, "server1"));
+    assertFalse(sentryStore.hasAnyServerPrivileges(groups, ALL_ROLES, "server2"));
+    assertFalse(sentryStore.hasAnyServerPrivileges(groups,
+        new TSentryActiveRoleSet(false, new HashSet<String>()), "server1"));
+  }
+
+  @Test
+  public void testServerAccessForProvider() throws Exception {
+    String roleName = "index-r1", groupName = "index-g1";
+    sentryStore.createSentryRole(roleName);
+    addGroup(roleName, groupName);
+    Set<String> groups = Sets.newHashSet(groupName);
+    TSentryAuthorizable otherTable = new TSentryAuthorizable("server1");
+    otherTable.setDb("db1");
+    otherTable.setTable("tbl2");
+    assertEquals(Sets.newHashSet(), sentryStore.listSentryPrivilegesOrServerAccessForProvider(
+        groups, ALL_ROLES, otherTable));
+
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName,
+        tablePrivilege("server1", "db1", "tbl1", "SELECT"));
+    assertEquals(Sets.newHashSet(SentryStore.SERVER_ACCESS_PRIVILEGE),
+        sentryStore.listSentryPrivilegesOrServerAccessForProvider(groups, ALL_ROLES, otherTable));
+    otherTable.setTable("tbl1");
+    assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl1->action=select"),
+        SentryStore.toTrimedLower(sentryStore.listSentryPrivilegesOrServerAccessForProvider(
+            groups, ALL_ROLES, otherTable)));
+    otherTable.setServer("server2");
+    assertEquals(Sets.newHashSet(), sentryStore.listSentryPrivilegesOrServerAccessForProvider(
+        groups, ALL_ROLES, otherTable));
+  }
+
+  private void addGroup(String roleName, String groupName) throws Exception {
+    sentryStore.alterSentryRoleAddGroups(grantor, roleName,
+        Sets.newHashSet(new TSentryGroup(groupName)));
+  }
+
+  private Set<String> listForProvider(String groupName, TSentryAuthorizable auth)
+      throws Exception {
+    return SentryStore.toTrimedLower(sentryStore.listSentryPrivilegesForProvider(
+        Sets.newHashSet(groupName), ALL_ROLES, auth));
+  }
+
+  private static TSentryPrivilege tablePrivilege(String server, String db,
+      String table, String action) {
+    TSentryPrivilege privilege = new TSentryPrivilege("TABLE", server, action);
+    privilege.setDbName(db);
+    privilege.setTableName(table);
+    privilege.setCreateTime(System.currentTimeMillis());
+    return privilege;
+  }
+}
@@ -0,0 +1,214 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.service.thrift.SentryMetrics;
+import org.apache.sentry.provider.db.service.thrift.TSentryActiveRoleSet;
+import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizable;
+import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
+import org.apache.sentry.provider.db.service.thrift.TSentryPrivilege;
+import org.apache.sentry.provider.file.PolicyFile;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Runs the provider lookups with the response cache enabled and verifies
+ * that policy changes are visible to the next lookup.
+ */
+public class TestSentryStoreProviderResponseCache {
+
+  private static File dataDir;
+  private static Configuration conf;
+  private static SentryStore sentryStore;
+  private static String[] adminGroups = { "adminGroup1" };
+  private static PolicyFile policyFile;
+  private static File policyFilePath;
+  private static final String grantor = "g1";
+  private static final TSentryActiveRoleSet ALL_ROLES =
+      new TSentryActiveRoleSet(true, new HashSet<String>());
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    conf = new Configuration(false);
+    dataDir = new File(Files.createTempDir(), "sentry_policy_db");
+    conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_URL,
+        "jdbc:derby:;databaseName=" + dataDir.getPath() + ";create=true");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_PASS, "dummy");
+    conf.setStrings(ServerConfig.ADMIN_GROUPS, adminGroups);
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+        ServerConfig.SENTRY_STORE_LOCAL_GROUP_MAPPING);
+    policyFilePath = new File(dataDir, "local_policy_file.ini");
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING_RESOURCE,
+        policyFilePath.getPath());
+    conf.setBoolean(ServerConfig.SENTRY_STORE_PROVIDER_CACHE_ENABLED, true);
+    sentryStore = new SentryStore(conf);
+  }
+
+  @Before
+  public void before() throws Exception {
+    policyFile = new PolicyFile();
+    policyFile.addGroupsToUser(grantor, adminGroups);
+    policyFile.write(policyFilePath);
+  }
+
+  @After
+  public void after() {
+    sentryStore.clearAllTables();
+  }
+
+  @AfterClass
+  public static void teardown() {
+    if (sentryStore != null) {
+      sentryStore.stop();
+    }
+    if (dataDir != null) {
+      FileUtils.deleteQuietly(dataDir);
+    }
+  }
+
+  @Test
+  public void testCachedUntilPolicyChanges() throws Exception {
+    String roleName = "cache-r1", groupName = "cache-g1";
+    sentryStore.createSentryRole(roleName);
+    sentryStore.alterSentryRoleAddGroups(grantor, roleName,
+        Sets.newHashSet(new TSentryGroup(groupName)));
+    TSentryPrivilege privilege = tablePrivilege("tbl1");
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, privilege);
+    Set<String> groups = Sets.newHashSet(groupName);
+    TSentryAuthorizable table = tableAuthorizable("tbl1");
+
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    long hits = sentryMetrics.providerCacheHits.getCount();
+    long misses = sentryMetrics.providerCacheMisses.getCount();
+    Set<String> expected = Sets.newHashSet("server=server1->db=db1->table=tbl1->action=select");
+    assertEquals(expected, SentryStore.toTrimedLower(
+        sentryStore.listSentryPrivilegesOrServerAccessForProvider(groups, ALL_ROLES, table)));
+    assertEquals(expected, SentryStore.toTrimedLower(
+        sentryStore.listSentryPrivilegesOrServerAccessForProvider(
+            Sets.newHashSet(groupName), ALL_ROLES, tableAuthorizable("tbl1"))));
+    assertEquals(misses + 1, sentryMetrics.providerCacheMisses.getCount());
+    assertEquals(hits + 1, sentryMetrics.providerCacheHits.getCount());
+
+    // the key is a copy, changing the request afterwards is a different lookup
+    table.setTable("tbl2");
+    assertEquals(Sets.newHashSet(SentryStore.SERVER_ACCESS_PRIVILEGE),
+        sentryStore.listSentryPrivilegesOrServerAccessForProvider(groups, ALL_ROLES, table));
+
+    sentryStore.alterSentryRoleRevokePrivilege(grantor, roleName, privilege);
+    assertEquals(0, sentryStore.getProviderResponseCacheSize());
+    assertEquals(Sets.newHashSet(), sentryStore.listSentryPrivilegesOrServerAccessForProvider(
+        groups, ALL_ROLES, tableAuthorizable("tbl1")));
+
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, privilege);
+    sentryStore.alterSentryRoleDeleteGroups(roleName,
+        Sets.newHashSet(new TSentryGroup(groupName)));
+    assertEquals(Sets.newHashSet(), sentryStore.listSentryPrivilegesOrServerAccessForProvider(
+        groups, ALL_ROLES, tableAuthorizable("tbl1")));
+  }
+
+  @Test
+  public void testCommitsOfTheOtherServersInvalidate() throws Exception {
+    Configuration haConf = new Configuration(conf);
+    haConf.setBoolean(ServerConfig.SENTRY_HA_ENABLED, true);
+    haConf.set(ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL, "false");
+    SentryStore sentryStore1 = new SentryStore(haConf);
+    SentryStore sentryStore2 = new SentryStore(haConf);
+    try {
+      String roleName = "cache-r2", groupName = "cache-g2";
+      sentryStore1.createSentryRole(roleName);
+      sentryStore1.alterSentryRoleAddGroups(grantor, roleName,
+          Sets.newHashSet(new TSentryGroup(groupName)));
+      TSentryPrivilege privilege = tablePrivilege("tbl1");
+      sentryStore1.alterSentryRoleGrantPrivilege(grantor, roleName, privilege);
+      Set<String> groups = Sets.newHashSet(groupName);
+      assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl1->action=select"),
+          SentryStore.toTrimedLower(sentryStore1.listSentryPrivilegesOrServerAccessForProvider(
+              groups, ALL_ROLES, tableAuthorizable("tbl1"))));
+      assertEquals(1, sentryStore1.getProviderResponseCacheSize());
+
+      // the revoke of the other server is seen although the TTL is unlimited
+      sentryStore2.alterSentryRoleRevokePrivilege(grantor, roleName, privilege);
+      assertEquals(Sets.newHashSet(), sentryStore1.listSentryPrivilegesOrServerAccessForProvider(
+          groups, ALL_ROLES, tableAuthorizable("tbl1")));
+    } finally {
+      sentryStore1.stop();
+      sentryStore2.stop();
+    }
+  }
+
+  @Test
+  public void testAnswersOfOlderGenerationsAreNotServed() throws Exception {
+    ProviderResponseCache cache = new ProviderResponseCache(1000, 0);
+    Set<String> groups = Sets.newHashSet("g1");
+    TSentryAuthorizable table = tableAuthorizable("tbl1");
+    cache.put(groups, ALL_ROLES, table, 1, Sets.newHashSet("p1"));
+    assertEquals(Sets.newHashSet("p1"), cache.get(groups, ALL_ROLES, table, 1));
+    assertNull(cache.get(groups, ALL_ROLES, table, 2));
+  }
+
+  @Test
+  public void testBoundedByPrivileges() throws Exception {
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    long evictions = sentryMetrics.providerCacheEvictions.getCount();
+    ProviderResponseCache cache = new ProviderResponseCache(1000, 0);
+    Set<String> privileges = Sets.newHashSet();
+    for (int i = 0; i < 10; i++) {
+      privileges.add("server=server1->db=db1->table=tbl" + i + "->action=select");
+    }
+    for (int i = 0; i < 500; i++) {
+      cache.put(Sets.newHashSet("g" + i), ALL_ROLES, null, 1, privileges);
+    }
+    // every answer weighs its 10 privileges plus one
+    assertTrue(cache.size() <= 1000 / 11);
+    assertTrue(sentryMetrics.providerCacheEvictions.getCount() - evictions >= 500 - 1000 / 11);
+  }
+
+  private static TSentryAuthorizable tableAuthorizable(String table) {
+    TSentryAuthorizable authorizable = new TSentryAuthorizable("server1");
+    authorizable.setDb("db1");
+    authorizable.setTable(table);
+    return authorizable;
+  }
+
+  private static TSentryPrivilege tablePrivilege(String table) {
+    TSentryPrivilege privilege = new TSentryPrivilege("TABLE", "server1", "SELECT");
+    privilege.setDbName("db1");
+    privilege.setTableName(table);
+    privilege.setCreateTime(System.currentTimeMillis());
+    return privilege;
+  }
+}
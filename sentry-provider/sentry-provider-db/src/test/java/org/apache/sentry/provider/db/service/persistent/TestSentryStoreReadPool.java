@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.service.thrift.TSentryActiveRoleSet;
+import org.apache.sentry.provider.db.service.thrift.TSentryAuthorizable;
+import org.apache.sentry.provider.db.service.thrift.TSentryGroup;
+import org.apache.sentry.provider.db.service.thrift.TSentryPrivilege;
+import org.apache.sentry.provider.file.PolicyFile;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.jdo.PersistenceManager;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Runs the list/get operations through the separate read-only persistence
+ * manager factory and verifies they see every committed change.
+ */
+public class TestSentryStoreReadPool {
+
+  private static File dataDir;
+  private static SentryStore sentryStore;
+  private static String[] adminGroups = { "adminGroup1" };
+  private static PolicyFile policyFile;
+  private static File policyFilePath;
+  private static final String grantor = "g1";
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    Configuration conf = new Configuration(false);
+    dataDir = new File(Files.createTempDir(), "sentry_policy_db");
+    conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_URL,
+        "jdbc:derby:;databaseName=" + dataDir.getPath() + ";create=true");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_PASS, "dummy");
+    conf.setStrings(ServerConfig.ADMIN_GROUPS, adminGroups);
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+        ServerConfig.SENTRY_STORE_LOCAL_GROUP_MAPPING);
+    policyFilePath = new File(dataDir, "local_policy_file.ini");
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING_RESOURCE,
+        policyFilePath.getPath());
+    conf.setBoolean(ServerConfig.SENTRY_STORE_READ_POOL_ENABLED, true);
+    conf.setInt(ServerConfig.SENTRY_STORE_READ_POOL_MAX_SIZE, 5);
+    conf.setLong(ServerConfig.SENTRY_STORE_COUNT_GAUGE_TTL_MS, 0);
+    sentryStore = new SentryStore(conf);
+  }
+
+  @Before
+  public void before() throws Exception {
+    policyFile = new PolicyFile();
+    policyFile.addGroupsToUser(grantor, adminGroups);
+    policyFile.write(policyFilePath);
+  }
+
+  @After
+  public void after() {
+    sentryStore.clearAllTables();
+  }
+
+  @AfterClass
+  public static void teardown() {
+    if (sentryStore != null) {
+      sentryStore.stop();
+    }
+    if (dataDir != null) {
+      FileUtils.deleteQuietly(dataDir);
+    }
+  }
+
+  @Test
+  public void testReadsSeeCommittedChanges() throws Exception {
+    String roleName = "read-r1", groupName = "read-g1";
+    sentryStore.createSentryRole(roleName);
+    sentryStore.alterSentryRoleAddGroups(grantor, roleName,
+        Sets.newHashSet(new TSentryGroup(groupName)));
+    TSentryPrivilege privilege = new TSentryPrivilege("TABLE", "server1", "SELECT");
+    privilege.setDbName("db1");
+    privilege.setTableName("tbl1");
+    privilege.setCreateTime(System.currentTimeMillis());
+    sentryStore.alterSentryRoleGrantPrivilege(grantor, roleName, privilege);
+
+    assertEquals(1, sentryStore.getAllTSentryPrivilegesByRoleName(roleName).size());
+    assertEquals(Sets.newHashSet(roleName),
+        sentryStore.getRoleNamesForGroups(Sets.newHashSet(groupName)));
+    assertEquals(1, sentryStore.getTSentryRolesByGroupName(
+        Sets.newHashSet(groupName), false).iterator().next().getGroups().size());
+    assertEquals(Sets.newHashSet("server=server1->db=db1->table=tbl1->action=select"),
+        SentryStore.toTrimedLower(sentryStore.listAllSentryPrivilegesForProvider(
+            Sets.newHashSet(groupName), new TSentryActiveRoleSet(true, new HashSet<String>()))));
+    TSentryAuthorizable auth = new TSentryAuthorizable("server1");
+    assertTrue(sentryStore.hasAnyServerPrivileges(Sets.newHashSet(groupName),
+        new TSentryActiveRoleSet(true, new HashSet<String>()), "server1"));
+    auth.setDb("db1");
+    assertEquals(1, sentryStore.getTSentryPrivileges(Sets.newHashSet(roleName), auth).size());
+
+    Map<String, Set<String>> groupRoles = sentryStore.getGroupNameRoleNamesMap();
+    assertEquals(Sets.newHashSet(roleName), groupRoles.get(groupName));
+    assertEquals(1, sentryStore.getRoleNameTPrivilegesMap().get(roleName).size());
+    assertEquals(1, sentryStore.retrieveFullRoleImage().get(roleName).size());
+    assertEquals("SELECT", sentryStore.retrieveFullPrivilegeImage().get("db1.tbl1").get(roleName));
+    assertEquals(Long.valueOf(1),
+        TestSentryStore.getCount(sentryStore, sentryStore.getRoleCountGauge()));
+
+    sentryStore.alterSentryRoleRevokePrivilege(grantor, roleName, privilege);
+    assertEquals(0, sentryStore.getAllTSentryPrivilegesByRoleName(roleName).size());
+    sentryStore.dropSentryRole(roleName);
+    assertTrue(sentryStore.getRoleNamesForGroups(Sets.newHashSet(groupName)).isEmpty());
+  }
+
+  @Test
+  public void testReadPoolIsReadOnly() throws Exception {
+    PersistenceManager pm = sentryStore.openReadTransaction();
+    try {
+      assertTrue(pm.getPersistenceManagerFactory().getReadOnly());
+      assertTrue(!pm.currentTransaction().isActive());
+    } finally {
+      sentryStore.rollbackReadTransaction(pm);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.persistent;
+
+import static junit.framework.Assert.assertEquals;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.service.thrift.TSentryRole;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Routes the reads of a store to a second database standing in for a read
+ * replica. The replica is fed by a store of its own instead of by
+ * replication, so the test controls how far behind it is.
+ */
+public class TestSentryStoreReadReplica {
+
+  private File dataDir;
+  // writes to the replica database, playing the replication
+  private SentryStore replicaFeeder;
+  private SentryStore sentryStore;
+
+  @Before
+  public void setup() throws Exception {
+    dataDir = Files.createTempDir();
+    String primaryUrl = getUrl("primary_db");
+    String replicaUrl = getUrl("replica_db");
+    // the replica url makes the feeder advance the commit sequence
+    replicaFeeder = new SentryStore(getConf(replicaUrl, replicaUrl));
+    sentryStore = new SentryStore(getConf(primaryUrl, replicaUrl));
+  }
+
+  @After
+  public void teardown() {
+    if (sentryStore != null) {
+      sentryStore.stop();
+    }
+    if (replicaFeeder != null) {
+      replicaFeeder.stop();
+    }
+    FileUtils.deleteQuietly(dataDir);
+  }
+
+  @Test
+  public void testReadsFollowTheCommitSequence() throws Exception {
+    // nothing committed on the primary yet, the replica is current
+    replicaFeeder.createSentryRole("replica-r1");
+    assertEquals(Sets.newHashSet("replica-r1"), getAllRoleNames());
+
+    // the replica has not applied the two commits of the primary
+    sentryStore.createSentryRole("primary-r1");
+    sentryStore.createSentryRole("primary-r2");
+    assertEquals(Sets.newHashSet("primary-r1", "primary-r2"), getAllRoleNames());
+
+    // caught up
+    replicaFeeder.createSentryRole("replica-r2");
+    assertEquals(Sets.newHashSet("replica-r1", "replica-r2"), getAllRoleNames());
+  }
+
+  private Set<String> getAllRoleNames() throws Exception {
+    Set<String> roleNames = new HashSet<String>();
+    for (TSentryRole role : sentryStore.getTSentryRolesByGroupName(
+        Sets.newHashSet((String) null), false)) {
+      roleNames.add(role.getRoleName());
+    }
+    return roleNames;
+  }
+
+  private String getUrl(String dbName) {
+    return "jdbc:derby:;databaseName=" + new File(dataDir, dbName).getPath()
+        + ";create=true";
+  }
+
+  private static Configuration getConf(String url, String replicaUrl) {
+    Configuration conf = new Configuration(false);
+    conf.set(ServerConfig.SENTRY_VERIFY_SCHEM_VERSION, "false");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_URL, url);
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_PASS, "dummy");
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_REPLICA_URL, replicaUrl);
+    conf.set(ServerConfig.SENTRY_STORE_JDBC_REPLICA_PASS, "dummy");
+    conf.set(ServerConfig.SENTRY_STORE_ORPHANED_PRIVILEGE_REMOVAL, "false");
+    return conf;
+  }
+}
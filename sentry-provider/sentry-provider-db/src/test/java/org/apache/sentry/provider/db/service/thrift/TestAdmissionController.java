@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.thrift;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.provider.db.SentryThrottledException;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.apache.sentry.service.thrift.ServiceConstants.ThriftConstants;
+import org.apache.sentry.service.thrift.Status;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAdmissionController {
+
+  private Configuration conf;
+
+  @Before
+  public void setup() {
+    conf = new Configuration(false);
+  }
+
+  @Test
+  public void testNoLimitsByDefault() throws Exception {
+    AdmissionController controller = new AdmissionController("test-default", conf);
+    for (int i = 0; i < 1000; i++) {
+      assertNotNull(controller.admit("hive"));
+    }
+    assertEquals(1000, SentryMetrics.getInstance()
+        .getPrincipalRequests("test-default", "hive").getCount());
+  }
+
+  @Test
+  public void testPrincipalConcurrentCalls() throws Exception {
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_PRINCIPAL_MAX_CONCURRENT_CALLS, 2);
+    AdmissionController controller = new AdmissionController("test-principal", conf);
+    AdmissionController.Permit first = controller.admit("hive");
+    controller.admit("hive");
+    assertThrottled(controller, "hive");
+    // the other principals are still served
+    controller.admit("impala");
+    controller.release(first);
+    controller.admit("hive");
+    assertEquals(1, SentryMetrics.getInstance()
+        .getPrincipalRejections("test-principal", "hive").getCount());
+    assertEquals(0, SentryMetrics.getInstance()
+        .getPrincipalRejections("test-principal", "impala").getCount());
+  }
+
+  @Test
+  public void testConcurrentCalls() throws Exception {
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_MAX_CONCURRENT_CALLS, 2);
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_PRINCIPAL_MAX_CONCURRENT_CALLS, 1);
+    AdmissionController controller = new AdmissionController("test-global", conf);
+    AdmissionController.Permit first = controller.admit("hive");
+    controller.admit("impala");
+    assertThrottled(controller, "solr");
+    // the rejected call does not hold a call of its principal
+    controller.release(first);
+    controller.admit("solr");
+    assertThrottled(controller, "solr");
+  }
+
+  @Test
+  public void testCallRate() throws Exception {
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_PRINCIPAL_CALLS_PER_SECOND, 1);
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_PRINCIPAL_BURST, 3);
+    AdmissionController controller = new AdmissionController("test-rate", conf);
+    for (int i = 0; i < 3; i++) {
+      controller.release(controller.admit("hive"));
+    }
+    assertThrottled(controller, "hive");
+    controller.release(controller.admit("impala"));
+    Thread.sleep(1100);
+    controller.release(controller.admit("hive"));
+  }
+
+  @Test
+  public void testRejectedCallsGiveBackTheirTokens() throws Exception {
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_MAX_CONCURRENT_CALLS, 1);
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_CALLS_PER_SECOND, 1);
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_BURST, 3);
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_PRINCIPAL_CALLS_PER_SECOND, 1);
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_PRINCIPAL_BURST, 2);
+    AdmissionController controller = new AdmissionController("test-refund", conf);
+    AdmissionController.Permit first = controller.admit("hive");
+    // over the concurrent calls, neither the rate of impala nor the global
+    // one is used up
+    for (int i = 0; i < 5; i++) {
+      assertThrottled(controller, "impala");
+    }
+    controller.release(first);
+    controller.release(controller.admit("impala"));
+    controller.release(controller.admit("impala"));
+    assertThrottled(controller, "impala");
+  }
+
+  @Test
+  public void testTokenBucket() throws Exception {
+    AdmissionController.TokenBucket bucket = new AdmissionController.TokenBucket(10, 10);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(bucket.tryTake());
+    }
+    assertFalse(bucket.tryTake());
+    Thread.sleep(200);
+    assertTrue(bucket.tryTake());
+  }
+
+  @Test
+  public void testThrottledStatus() throws Exception {
+    try {
+      Status.throwIfNotOk(Status.Throttled("Too many calls", null));
+      fail("Expected SentryThrottledException");
+    } catch (SentryThrottledException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("Too many calls"));
+    }
+  }
+
+  @Test
+  public void testThrottledCallIsAnswered() throws Exception {
+    conf.setInt(ServerConfig.SENTRY_ADMISSION_MAX_CONCURRENT_CALLS, 1);
+    AdmissionController controller = new AdmissionController("test-wrapper", conf);
+    // the throttled call never reaches the handler
+    SentryProcessorWrapper<SentryPolicyService.Iface> processor =
+        new SentryProcessorWrapper<SentryPolicyService.Iface>(null, controller);
+    TProtocol protocol = new TBinaryProtocol(new TMemoryBuffer(1024));
+    SentryPolicyService.Client client = new SentryPolicyService.Client(protocol);
+    client.send_list_sentry_roles_by_group(new TListSentryRolesRequest(
+        ThriftConstants.TSENTRY_SERVICE_VERSION_CURRENT, "hive"));
+    controller.admit("impala");
+    processor.process(protocol, protocol);
+    TListSentryRolesResponse response = client.recv_list_sentry_roles_by_group();
+    try {
+      Status.throwIfNotOk(response.getStatus());
+      fail("Expected SentryThrottledException");
+    } catch (SentryThrottledException e) {
+      // expected
+    }
+  }
+
+  private static void assertThrottled(AdmissionController controller, String principal) {
+    try {
+      controller.admit(principal);
+      fail("Expected the call of " + principal + " to be throttled");
+    } catch (SentryThrottledException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains(principal));
+    }
+  }
+}
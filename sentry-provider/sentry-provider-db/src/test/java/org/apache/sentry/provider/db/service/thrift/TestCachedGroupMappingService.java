@@ -0,0 +1,252 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.provider.db.service.thrift;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.security.GroupMappingServiceProvider;
+import org.apache.hadoop.security.Groups;
+import org.apache.sentry.provider.common.GroupMappingService;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class TestCachedGroupMappingService {
+
+  private CountingGroupMapping groupMapping;
+  private CachedGroupMappingService cachedGroupMapping;
+
+  @Before
+  public void setup() {
+    groupMapping = new CountingGroupMapping();
+    groupMapping.groups.put("user1", Sets.newHashSet("group1"));
+  }
+
+  @After
+  public void teardown() {
+    if (cachedGroupMapping != null) {
+      cachedGroupMapping.close();
+    }
+  }
+
+  @Test
+  public void testGroupsAreCached() throws Exception {
+    cachedGroupMapping = new CachedGroupMappingService(groupMapping, 60000, 60000, 100);
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    long lookups = sentryMetrics.groupMappingLookupTimer.getCount();
+    for (int i = 0; i < 10; i++) {
+      assertEquals(Sets.newHashSet("group1"), cachedGroupMapping.getGroups("user1"));
+    }
+    assertEquals(1, groupMapping.lookups.get());
+    assertEquals(lookups + 1, sentryMetrics.groupMappingLookupTimer.getCount());
+  }
+
+  @Test
+  public void testGroupsAreRefreshedInTheBackground() throws Exception {
+    cachedGroupMapping = new CachedGroupMappingService(groupMapping, 200, 60000, 100);
+    assertEquals(Sets.newHashSet("group1"), cachedGroupMapping.getGroups("user1"));
+    groupMapping.groups.put("user1", Sets.newHashSet("group2"));
+    Thread.sleep(250);
+    // the cached groups are served while the refresh runs
+    assertEquals(Sets.newHashSet("group1"), cachedGroupMapping.getGroups("user1"));
+    waitForGroups("user1", Sets.newHashSet("group2"));
+  }
+
+  @Test
+  public void testUsersWithoutGroupsAreLookedUpAgain() throws Exception {
+    cachedGroupMapping = new CachedGroupMappingService(groupMapping, 60000, 200, 100);
+    assertEquals(Sets.newHashSet(), cachedGroupMapping.getGroups("user2"));
+    assertEquals(Sets.newHashSet(), cachedGroupMapping.getGroups("user2"));
+    assertEquals(1, groupMapping.lookups.get());
+    groupMapping.groups.put("user2", Sets.newHashSet("group2"));
+    Thread.sleep(250);
+    cachedGroupMapping.getGroups("user2");
+    waitForGroups("user2", Sets.newHashSet("group2"));
+  }
+
+  @Test
+  public void testLookupFailuresArePassedOn() throws Exception {
+    cachedGroupMapping = new CachedGroupMappingService(groupMapping, 60000, 60000, 100);
+    groupMapping.failure = new IllegalStateException("directory unavailable");
+    try {
+      cachedGroupMapping.getGroups("user1");
+      fail("Expected the failure of the group mapping");
+    } catch (IllegalStateException e) {
+      assertSame(groupMapping.failure, e);
+    }
+    groupMapping.failure = null;
+    assertEquals(Sets.newHashSet("group1"), cachedGroupMapping.getGroups("user1"));
+  }
+
+  @Test
+  public void testGroupsKeptWhenARefreshFindsNone() throws Exception {
+    cachedGroupMapping = new CachedGroupMappingService(groupMapping, 200, 60000, 100);
+    assertEquals(Sets.newHashSet("group1"), cachedGroupMapping.getGroups("user1"));
+    groupMapping.groups.remove("user1");
+    Thread.sleep(250);
+    cachedGroupMapping.getGroups("user1");
+    for (int i = 0; i < 100 && groupMapping.lookups.get() < 2; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(2, groupMapping.lookups.get());
+    assertEquals(Sets.newHashSet("group1"), cachedGroupMapping.getGroups("user1"));
+    // until they are older than twice the TTL
+    waitForGroups("user1", Sets.<String>newHashSet());
+  }
+
+  @Test
+  public void testGroupsKeptWhenARefreshFails() throws Exception {
+    final AtomicInteger lookups = new AtomicInteger();
+    cachedGroupMapping = new CachedGroupMappingService(
+        new CachedGroupMappingService.GroupLookup() {
+          @Override
+          public Set<String> getGroups(String user) throws IOException {
+            if (lookups.incrementAndGet() > 1) {
+              throw new IOException("directory unavailable");
+            }
+            return Sets.newHashSet("group1");
+          }
+        }, 200, 60000, 100);
+    assertEquals(Sets.newHashSet("group1"), cachedGroupMapping.getGroups("user1"));
+    Thread.sleep(250);
+    cachedGroupMapping.getGroups("user1");
+    for (int i = 0; i < 100 && lookups.get() < 2; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(Sets.newHashSet("group1"), cachedGroupMapping.getGroups("user1"));
+  }
+
+  @Test
+  public void testHadoopUsersWithoutGroups() throws Exception {
+    Configuration conf = new Configuration(false);
+    conf.setClass(CommonConfigurationKeys.HADOOP_SECURITY_GROUP_MAPPING,
+        NoGroupsProvider.class, GroupMappingServiceProvider.class);
+    cachedGroupMapping = CachedGroupMappingService.forHadoopGroups(
+        new Groups(conf), 60000, 60000, 100);
+    SentryMetrics sentryMetrics = SentryMetrics.getInstance();
+    long misses = sentryMetrics.groupMappingCacheMisses.getCount();
+    // Groups fails for a user without groups, which is cached as no groups
+    assertEquals(Sets.newHashSet(), cachedGroupMapping.getGroups("user1"));
+    assertEquals(Sets.newHashSet(), cachedGroupMapping.getGroups("user1"));
+    assertEquals(misses + 1, sentryMetrics.groupMappingCacheMisses.getCount());
+
+    // the other failures are passed on
+    NoGroupsProvider.failure = new IOException("directory unavailable");
+    try {
+      cachedGroupMapping.getGroups("user2");
+      fail("Expected the failure of the group mapping");
+    } catch (RuntimeException e) {
+      assertSame(NoGroupsProvider.failure, e.getCause());
+    } finally {
+      NoGroupsProvider.failure = null;
+    }
+  }
+
+  @Test
+  public void testCachedOnlyWithATtl() throws Exception {
+    Configuration conf = new Configuration(false);
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING, CountingGroupMapping.class.getName());
+    // the mapping is held without a TTL too, it only does not cache
+    GroupMappingService requestorGroupMapping =
+        SentryPolicyStoreProcessor.createRequestorGroupMapping(conf);
+    assertTrue(requestorGroupMapping instanceof CountingGroupMapping);
+    requestorGroupMapping.getGroups("user1");
+    requestorGroupMapping.getGroups("user1");
+    assertEquals(2, ((CountingGroupMapping) requestorGroupMapping).lookups.get());
+
+    conf.setLong(ServerConfig.SENTRY_STORE_GROUP_MAPPING_CACHE_TTL_MS, 60000);
+    cachedGroupMapping = (CachedGroupMappingService)
+        SentryPolicyStoreProcessor.createRequestorGroupMapping(conf);
+    assertEquals(Sets.newHashSet(), cachedGroupMapping.getGroups("user1"));
+  }
+
+  @Test
+  public void testLocalMappingCreatedForEveryLookupWithoutATtl() throws Exception {
+    Configuration conf = new Configuration(false);
+    conf.set(ServerConfig.SENTRY_STORE_GROUP_MAPPING,
+        ServerConfig.SENTRY_STORE_LOCAL_GROUP_MAPPING);
+    assertNull(SentryPolicyStoreProcessor.createRequestorGroupMapping(conf));
+  }
+
+  private void waitForGroups(String user, Set<String> expected) throws Exception {
+    for (int i = 0; i < 100 && !expected.equals(cachedGroupMapping.getGroups(user)); i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(expected, cachedGroupMapping.getGroups(user));
+  }
+
+  public static class NoGroupsProvider implements GroupMappingServiceProvider {
+    private static volatile IOException failure;
+
+    @Override
+    public List<String> getGroups(String user) throws IOException {
+      if (failure != null) {
+        throw failure;
+      }
+      return Collections.emptyList();
+    }
+
+    @Override
+    public void cacheGroupsRefresh() {
+    }
+
+    @Override
+    public void cacheGroupsAdd(List<String> groups) {
+    }
+  }
+
+  public static class CountingGroupMapping implements GroupMappingService {
+    private final Map<String, Set<String>> groups = new ConcurrentHashMap<String, Set<String>>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private volatile RuntimeException failure;
+
+    public CountingGroupMapping() {
+    }
+
+    public CountingGroupMapping(Configuration conf, String resource) {
+    }
+
+    @Override
+    public Set<String> getGroups(String user) {
+      lookups.incrementAndGet();
+      if (failure != null) {
+        throw failure;
+      }
+      Set<String> userGroups = groups.get(user);
+      return userGroups == null ? Sets.<String>newHashSet() : userGroups;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless createRequired by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sentry.provider.db.service.thrift;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.service.thrift.SentryService;
+import org.apache.sentry.service.thrift.SentryServiceClientFactory;
+import org.apache.sentry.service.thrift.SentryServiceIntegrationBase;
+import org.apache.sentry.service.thrift.ServiceConstants.ClientConfig;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Runs the service with the selector server and a small worker pool, and
+ * checks that thousands of idle client connections do not keep the workers
+ * from serving the clients which call. Set sentry.test.idle.connections to
+ * change their number; the test needs two file descriptors per idle
+ * connection.
+ */
+public class TestSentryServerWithSelector extends SentryServiceIntegrationBase {
+
+  private static final int WORKER_THREADS = 4;
+  private static final int NUM_IDLE_CONNECTIONS =
+      Integer.getInteger("sentry.test.idle.connections", 2000);
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    kerberos = false;
+    conf.set(ServerConfig.RPC_SERVER_TYPE, ServerConfig.RPC_SERVER_TYPE_SELECTOR);
+    conf.setInt(ServerConfig.RPC_MAX_THREADS, WORKER_THREADS);
+    conf.setInt(ServerConfig.RPC_SELECTOR_THREADS, 2);
+    conf.setBoolean(ClientConfig.SERVER_RPC_FRAMED_TRANSPORT, true);
+    beforeSetup();
+    setupConf();
+    startSentryService();
+    afterSetup();
+  }
+
+  @Test
+  public void testRolesAndPrivileges() throws Exception {
+    String requestorUserName = ADMIN_USER;
+    Set<String> requestorUserGroupNames = Sets.newHashSet(ADMIN_GROUP);
+    setLocalGroupMapping(requestorUserName, requestorUserGroupNames);
+    writePolicyFile();
+
+    client.dropRoleIfExists(requestorUserName, "admin_r1");
+    client.createRole(requestorUserName, "admin_r1");
+    client.grantRoleToGroup(requestorUserName, "g1", "admin_r1");
+    client.grantTablePrivilege(requestorUserName, "admin_r1", "server", "db", "tbl", "SELECT");
+    assertEquals(1, client.listRolesByGroupName(requestorUserName, "g1").size());
+    assertEquals(1, client.listAllPrivilegesByRoleName(requestorUserName, "admin_r1").size());
+    client.dropRole(requestorUserName, "admin_r1");
+  }
+
+  @Test
+  public void testClientsServedWithIdleConnections() throws Exception {
+    // both ends of every idle connection are in this process
+    assumeTrue(getMaxFileDescriptors() > 2 * NUM_IDLE_CONNECTIONS + 1000);
+    String requestorUserName = ADMIN_USER;
+    setLocalGroupMapping(requestorUserName, Sets.newHashSet(ADMIN_GROUP));
+    writePolicyFile();
+    client.createRole(requestorUserName, "admin_r2");
+
+    List<Socket> idleConnections = Lists.newArrayListWithCapacity(NUM_IDLE_CONNECTIONS);
+    List<SentryPolicyServiceClient> newClients = Lists.newArrayList();
+    try {
+      // thousands of connections stay open without a call
+      for (int i = 0; i < NUM_IDLE_CONNECTIONS; i++) {
+        idleConnections.add(new Socket(server.getAddress().getAddress(),
+            server.getAddress().getPort()));
+      }
+      // and more clients than workers connect and are served, each of them
+      // again once all are connected
+      for (int i = 0; i < 4 * WORKER_THREADS; i++) {
+        SentryPolicyServiceClient newClient = SentryServiceClientFactory.create(conf);
+        newClients.add(newClient);
+        assertEquals(1, newClient.listRoles(requestorUserName).size());
+      }
+      for (SentryPolicyServiceClient newClient : newClients) {
+        assertEquals(1, newClient.listRoles(requestorUserName).size());
+      }
+      assertEquals(1, client.listRoles(requestorUserName).size());
+    } finally {
+      for (SentryPolicyServiceClient newClient : newClients) {
+        newClient.close();
+      }
+      for (Socket idleConnection : idleConnections) {
+        idleConnection.close();
+      }
+    }
+    client.dropRole(requestorUserName, "admin_r2");
+  }
+
+  @Test
+  public void testKerberosIsRejected() throws Exception {
+    Configuration kerberosConf = new Configuration(false);
+    kerberosConf.set(ServerConfig.SECURITY_MODE, ServerConfig.SECURITY_MODE_KERBEROS);
+    kerberosConf.set(ServerConfig.RPC_SERVER_TYPE, ServerConfig.RPC_SERVER_TYPE_SELECTOR);
+    kerberosConf.setInt(ServerConfig.RPC_PORT, 0);
+    try {
+      new SentryService(kerberosConf);
+      fail("IllegalArgumentException expected");
+    } catch (IllegalArgumentException e) {
+      // expected, the server must not start with another type than configured
+    }
+  }
+
+  private static long getMaxFileDescriptors() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.UnixOperatingSystemMXBean) {
+      return ((com.sun.management.UnixOperatingSystemMXBean) os).getMaxFileDescriptorCount();
+    }
+    return Long.MAX_VALUE;
+  }
+}
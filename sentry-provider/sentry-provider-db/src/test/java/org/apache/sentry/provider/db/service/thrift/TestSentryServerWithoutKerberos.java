@@ -21,6 +21,7 @@ import static junit.framework.Assert.assertEquals;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import junit.framework.Assert;
@@ -174,4 +175,48 @@ public class TestSentryServerWithoutKerberos extends SentryServiceIntegrationBas
             ActiveRoleSet.ALL).size());
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testCheckPrivileges() throws Exception {
+    String requestorUserName = ADMIN_USER;
+    Set<String> requestorUserGroupNames = Sets.newHashSet(ADMIN_GROUP);
+    setLocalGroupMapping(requestorUserName, requestorUserGroupNames);
+    writePolicyFile();
+    String roleName = "check_r";
+    String groupName = "check_g";
+
+    client.dropRoleIfExists(requestorUserName, roleName);
+    client.createRole(requestorUserName, roleName);
+    client.grantRoleToGroup(requestorUserName, groupName, roleName);
+    client.grantTablePrivilege(requestorUserName, roleName, "server1", "db1", "tbl1", "SELECT");
+    client.grantDatabasePrivilege(requestorUserName, roleName, "server1", "db2", AccessConstants.ALL);
+
+    List<TSentryAccessCheck> checks = Lists.newArrayList(
+        accessCheck("db1", "tbl1", null, "select"),
+        accessCheck("db1", "tbl1", null, "insert"),
+        accessCheck("db1", "tbl1", "col1", "select"),
+        accessCheck("db1", "tbl2", null, "select"),
+        accessCheck("db2", "tbl1", null, "insert"),
+        accessCheck("db3", "tbl1", null, "select"));
+    assertEquals(Lists.newArrayList(true, false, true, false, true, false),
+        client.checkPrivileges(Sets.newHashSet(groupName), ActiveRoleSet.ALL, checks));
+    assertEquals(Lists.newArrayList(false, false, false, false, false, false),
+        client.checkPrivileges(Sets.newHashSet("other_g"), ActiveRoleSet.ALL, checks));
+    assertEquals(Lists.newArrayList(false, false, false, false, false, false),
+        client.checkPrivileges(Sets.newHashSet(groupName),
+            new ActiveRoleSet(Sets.newHashSet("other_r")), checks));
+
+    client.revokeTablePrivilege(requestorUserName, roleName, "server1", "db1", "tbl1", "SELECT");
+    assertEquals(Lists.newArrayList(false, false, false, false, true, false),
+        client.checkPrivileges(Sets.newHashSet(groupName), ActiveRoleSet.ALL, checks));
+    client.dropRole(requestorUserName, roleName);
+  }
+
+  private static TSentryAccessCheck accessCheck(String db, String table, String column,
+      String action) {
+    TSentryAuthorizable authorizable = new TSentryAuthorizable("server1");
+    authorizable.setDb(db);
+    authorizable.setTable(table);
+    authorizable.setColumn(column);
+    return new TSentryAccessCheck(authorizable, action);
+  }
+}
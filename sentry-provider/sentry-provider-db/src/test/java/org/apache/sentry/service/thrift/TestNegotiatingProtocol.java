@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.service.thrift;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.sentry.provider.db.service.thrift.TListSentryPrivilegesForProviderResponse;
+import org.apache.sentry.provider.db.service.thrift.TSentryExportMappingDataResponse;
+import org.apache.sentry.provider.db.service.thrift.TSentryMappingData;
+import org.apache.sentry.provider.db.service.thrift.TSentryPrivilege;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TDeserializer;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+public class TestNegotiatingProtocol {
+
+  private static final int NUM_PRIVILEGES = 5000;
+
+  @Test
+  public void testRepliesInTheProtocolOfTheCall() throws Exception {
+    assertRoundTrip(new TCompactProtocol.Factory(), (byte) 0x82);
+    assertRoundTrip(new TBinaryProtocol.Factory(), (byte) 0x80);
+  }
+
+  private void assertRoundTrip(TProtocolFactory clientFactory, byte firstByte)
+      throws Exception {
+    TListSentryPrivilegesForProviderResponse call = providerResponse(100);
+    TMemoryBuffer request = new TMemoryBuffer(1024);
+    TProtocol clientOut = clientFactory.getProtocol(request);
+    clientOut.writeMessageBegin(new TMessage("call", TMessageType.CALL, 7));
+    call.write(clientOut);
+    clientOut.writeMessageEnd();
+
+    TProtocol serverIn = new NegotiatingProtocol(request);
+    TMessage message = serverIn.readMessageBegin();
+    assertEquals("call", message.name);
+    assertEquals(7, message.seqid);
+    TListSentryPrivilegesForProviderResponse read = new TListSentryPrivilegesForProviderResponse();
+    read.read(serverIn);
+    serverIn.readMessageEnd();
+    assertEquals(call, read);
+
+    TMemoryBuffer reply = new TMemoryBuffer(1024);
+    TProtocol serverOut = new NegotiatingProtocol(reply);
+    serverOut.writeMessageBegin(new TMessage("call", TMessageType.REPLY, 7));
+    read.write(serverOut);
+    serverOut.writeMessageEnd();
+    assertEquals(firstByte, reply.getArray()[0]);
+
+    TProtocol clientIn = clientFactory.getProtocol(reply);
+    assertEquals(7, clientIn.readMessageBegin().seqid);
+    TListSentryPrivilegesForProviderResponse answer = new TListSentryPrivilegesForProviderResponse();
+    answer.read(clientIn);
+    assertEquals(call, answer);
+  }
+
+  @Test
+  public void testCompactRoundTripOfLargeResponses() throws Exception {
+    assertCompactRoundTrip(providerResponse(NUM_PRIVILEGES),
+        new TListSentryPrivilegesForProviderResponse());
+    assertCompactRoundTrip(exportResponse(NUM_PRIVILEGES),
+        new TSentryExportMappingDataResponse());
+  }
+
+  private <T extends TBase<?, ?>> void assertCompactRoundTrip(T response, T empty)
+      throws Exception {
+    byte[] compact = new TSerializer(new TCompactProtocol.Factory()).serialize(response);
+    byte[] binary = new TSerializer(new TBinaryProtocol.Factory()).serialize(response);
+    assertTrue("compact " + compact.length + " bytes, binary " + binary.length,
+        compact.length < binary.length);
+    new TDeserializer(new TCompactProtocol.Factory()).deserialize(empty, compact);
+    assertEquals(response, empty);
+  }
+
+  private static TListSentryPrivilegesForProviderResponse providerResponse(int numPrivileges) {
+    Set<String> privileges = Sets.newHashSet();
+    for (int i = 0; i < numPrivileges; i++) {
+      privileges.add("server=server1->db=db" + (i / 100) + "->table=tbl" + i
+          + "->action=select");
+    }
+    return new TListSentryPrivilegesForProviderResponse(Status.OK(), privileges);
+  }
+
+  private static TSentryExportMappingDataResponse exportResponse(int numPrivileges) {
+    Map<String, Set<TSentryPrivilege>> rolePrivileges = Maps.newHashMap();
+    Map<String, Set<String>> groupRoles = Maps.newHashMap();
+    for (int i = 0; i < numPrivileges; i++) {
+      String roleName = "role" + (i % 500);
+      TSentryPrivilege privilege = new TSentryPrivilege("TABLE", "server1", "select");
+      privilege.setDbName("db" + (i / 100));
+      privilege.setTableName("tbl" + i);
+      privilege.setCreateTime(1400000000000L + i);
+      if (!rolePrivileges.containsKey(roleName)) {
+        rolePrivileges.put(roleName, Sets.<TSentryPrivilege>newHashSet());
+        groupRoles.put("group" + (i % 500), Sets.newHashSet(roleName));
+      }
+      rolePrivileges.get(roleName).add(privilege);
+    }
+    TSentryMappingData mappingData = new TSentryMappingData();
+    mappingData.setGroupRolesMap(groupRoles);
+    mappingData.setRolePrivilegesMap(rolePrivileges);
+    return new TSentryExportMappingDataResponse(Status.OK(), mappingData);
+  }
+}
@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.sentry.service.thrift;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sentry.service.thrift.ServiceConstants.ServerConfig;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.TException;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestWorkerPoolProcessor {
+
+  private static final String EXPORT = "SentryPolicyService:export_sentry_mapping_data";
+  private static final String PROVIDER = "SentryPolicyService:list_sentry_privileges_for_provider";
+  private static final String GRANT = "SentryPolicyService:alter_sentry_role_grant_privilege";
+
+  private BlockingProcessor delegate;
+  private WorkerPoolProcessor processor;
+
+  @Before
+  public void setup() {
+    Configuration conf = new Configuration(false);
+    conf.setInt(ServerConfig.RPC_ADMIN_POOL_SIZE, 1);
+    conf.setInt(ServerConfig.RPC_ADMIN_POOL_QUEUE, 0);
+    delegate = new BlockingProcessor();
+    processor = new WorkerPoolProcessor(delegate, conf);
+  }
+
+  @Test
+  public void testCallsAreClassified() throws Exception {
+    assertEquals("admin", processor.getPool(EXPORT).getName());
+    assertEquals("admin", processor.getPool("import_sentry_mapping_data").getName());
+    assertEquals("read", processor.getPool(PROVIDER).getName());
+    assertEquals("read", processor.getPool("SentryPolicyService:check_sentry_privileges").getName());
+    assertEquals("read", processor.getPool("SentryPolicyService:get_sentry_config_value").getName());
+    assertEquals("write", processor.getPool("SentryPolicyService:drop_sentry_privilege").getName());
+    assertEquals("write", processor.getPool("SentryGenericPolicyService:create_sentry_role").getName());
+  }
+
+  @Test
+  public void testFullPoolDoesNotBlockOtherPools() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    delegate.release = release;
+    Thread export = new Thread() {
+      @Override
+      public void run() {
+        try {
+          processor.process(call(EXPORT, 1), new TBinaryProtocol(new TMemoryBuffer(64)));
+        } catch (TException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    export.start();
+    assertTrue(delegate.entered.await(10, TimeUnit.SECONDS));
+
+    // the admin pool is busy and has no queue
+    TMemoryBuffer reply = new TMemoryBuffer(64);
+    processor.process(call(EXPORT, 2), new TBinaryProtocol(reply));
+    TProtocol replyIn = new TBinaryProtocol(reply);
+    TMessage message = replyIn.readMessageBegin();
+    assertEquals(TMessageType.EXCEPTION, message.type);
+    assertEquals(2, message.seqid);
+    TApplicationException rejected = TApplicationException.read(replyIn);
+    assertTrue(rejected.getMessage(), rejected.getMessage().contains("admin"));
+
+    // the reads are served meanwhile
+    delegate.release = null;
+    reply = new TMemoryBuffer(64);
+    processor.process(call(PROVIDER, 3), new TBinaryProtocol(reply));
+    message = new TBinaryProtocol(reply).readMessageBegin();
+    assertEquals(TMessageType.REPLY, message.type);
+    assertEquals(PROVIDER, message.name);
+    assertEquals(3, message.seqid);
+
+    release.countDown();
+    export.join(10000);
+    assertEquals(0, processor.getPool(EXPORT).getQueueDepth());
+  }
+
+  @Test
+  public void testSaturatedWritePoolDoesNotDelayReads() throws Exception {
+    Configuration conf = new Configuration(false);
+    conf.setInt(ServerConfig.RPC_MAX_THREADS, 8);
+    conf.setInt(ServerConfig.RPC_WRITE_POOL_SIZE, 1);
+    conf.setInt(ServerConfig.RPC_WRITE_POOL_QUEUE, 1);
+    conf.setInt(ServerConfig.RPC_ADMIN_POOL_SIZE, 1);
+    conf.setInt(ServerConfig.RPC_ADMIN_POOL_QUEUE, 0);
+    processor = new WorkerPoolProcessor(delegate, conf);
+    CountDownLatch release = new CountDownLatch(1);
+    delegate.release = release;
+    // one write runs and one waits for it
+    Thread[] writes = new Thread[2];
+    for (int i = 0; i < writes.length; i++) {
+      writes[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            processor.process(call(GRANT, 1), new TBinaryProtocol(new TMemoryBuffer(64)));
+          } catch (TException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      };
+      writes[i].start();
+    }
+    assertTrue(delegate.entered.await(10, TimeUnit.SECONDS));
+    WorkerPoolProcessor.WorkerPool writePool = processor.getPool(GRANT);
+    for (int i = 0; i < 200 && writePool.getQueueDepth() < 1; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(1, writePool.getQueueDepth());
+
+    // further writes are rejected, the reads are served
+    TMemoryBuffer reply = new TMemoryBuffer(64);
+    processor.process(call(GRANT, 2), new TBinaryProtocol(reply));
+    assertEquals(TMessageType.EXCEPTION, new TBinaryProtocol(reply).readMessageBegin().type);
+    delegate.release = null;
+    for (int i = 0; i < 10; i++) {
+      reply = new TMemoryBuffer(64);
+      processor.process(call(PROVIDER, 3 + i), new TBinaryProtocol(reply));
+      assertEquals(TMessageType.REPLY, new TBinaryProtocol(reply).readMessageBegin().type);
+    }
+
+    release.countDown();
+    for (Thread write : writes) {
+      write.join(10000);
+    }
+    assertEquals(0, writePool.getQueueDepth());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWritePoolMustLeaveThreadsToReads() throws Exception {
+    Configuration conf = new Configuration(false);
+    conf.setInt(ServerConfig.RPC_MAX_THREADS, 50);
+    new WorkerPoolProcessor(delegate, conf);
+  }
+
+  private static TProtocol call(String name, int seqid) throws TException {
+    TProtocol protocol = new TBinaryProtocol(new TMemoryBuffer(64));
+    protocol.writeMessageBegin(new TMessage(name, TMessageType.CALL, seqid));
+    protocol.writeStructBegin(new TStruct("args"));
+    protocol.writeFieldStop();
+    protocol.writeStructEnd();
+    protocol.writeMessageEnd();
+    return protocol;
+  }
+
+  /**
+   * Answers every call with an empty reply, waiting for release first if set.
+   */
+  private static class BlockingProcessor implements TProcessor {
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private volatile CountDownLatch release;
+
+    @Override
+    public boolean process(TProtocol in, TProtocol out) throws TException {
+      TMessage message = in.readMessageBegin();
+      in.skip(TType.STRUCT);
+      in.readMessageEnd();
+      CountDownLatch latch = release;
+      if (latch != null) {
+        entered.countDown();
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      out.writeMessageBegin(new TMessage(message.name, TMessageType.REPLY, message.seqid));
+      out.writeStructBegin(new TStruct("result"));
+      out.writeFieldStop();
+      out.writeStructEnd();
+      out.writeMessageEnd();
+      return true;
+    }
+  }
+}